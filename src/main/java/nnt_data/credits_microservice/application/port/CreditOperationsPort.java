@@ -9,7 +9,7 @@ import reactor.core.publisher.Mono;
  * - createCredit: Crea un nuevo crédito.
  * - updateCredit: Actualiza un crédito existente identificado por creditId.
  * - getByCreditId: Recupera un crédito específico por su creditId.
- * - getAllCredits: Recupera todos los créditos.
+ * - getAllCredits: Recupera los créditos ordenados por creditId, opcionalmente paginados con after y limit.
  * - deleteCredit: Elimina un crédito identificado por creditId.
  *
  * Utiliza Mono y Flux de Reactor para manejar las operaciones de manera reactiva.
@@ -18,7 +18,7 @@ public interface CreditOperationsPort {
     Mono<CreditBase> createCredit(CreditBase credit);
     Mono<CreditBase> updateCredit(String creditId,CreditBase credit);
     Mono<CreditBase> getByCreditId(String creditId);
-    Flux<CreditBase> getAllCredits();
+    Flux<CreditBase> getAllCredits(String after, Integer limit);
     Mono<Void> deleteCredit(String creditId);
     Mono<Boolean> hasCreditCard(String customerId);
 }
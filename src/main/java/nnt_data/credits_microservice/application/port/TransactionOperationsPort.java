@@ -1,19 +1,26 @@
 package nnt_data.credits_microservice.application.port;
 
 import nnt_data.credits_microservice.model.Transaction;
+import nnt_data.credits_microservice.model.TransactionBatchResult;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+
+import java.util.List;
 /**
  * Interfaz TransactionOperationsPort que define las operaciones de transacciones en el servicio de crédito.
  *
- * - createTransaction: Crea una nueva transacción.
- * - getTransactions: Recupera todas las transacciones.
+ * - createTransaction: Crea una nueva transacción. Si se recibe una Idempotency-Key, las repeticiones con la
+ *   misma clave devuelven la transacción original sin volver a aplicarla.
+ * - createTransactions: Registra un lote de transacciones y devuelve el resultado de cada fila.
+ * - getTransactions: Recupera las transacciones en orden de registro, opcionalmente paginadas con after y limit.
  * - getTransactionByCreditId: Recupera todas las transacciones asociadas a un crédito específico identificado por creditId.
  *
  * Utiliza Mono y Flux de Reactor para manejar las operaciones de manera reactiva.
  */
 public interface TransactionOperationsPort {
     Mono<Transaction> createTransaction(Transaction transaction);
-    Flux<Transaction> getTransactions();
+    Mono<Transaction> createTransaction(Transaction transaction, String idempotencyKey);
+    Mono<TransactionBatchResult> createTransactions(List<Transaction> transactions);
+    Flux<Transaction> getTransactions(String after, Integer limit);
     Flux<Transaction> getTransactionByCreditId(String creditId);
 }
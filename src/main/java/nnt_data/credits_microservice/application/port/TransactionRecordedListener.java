@@ -0,0 +1,14 @@
+package nnt_data.credits_microservice.application.port;
+
+import nnt_data.credits_microservice.model.Transaction;
+import reactor.core.publisher.Mono;
+/**
+ * Interfaz TransactionRecordedListener que reciben los componentes que deben reaccionar a cada
+ * transacción registrada (cachés, acumuladores, etc.).
+ *
+ * - onTransactionRecorded: Se invoca cuando la transacción ya fue aplicada al crédito y confirmada por
+ *   MongoDB, tanto en el registro individual como en el de lotes. Un error aquí no revierte la transacción.
+ */
+public interface TransactionRecordedListener {
+    Mono<Void> onTransactionRecorded(Transaction transaction);
+}
@@ -1,6 +1,8 @@
 package nnt_data.credits_microservice.application.usecase.personal;
 
 import nnt_data.credits_microservice.application.usecase.CreditCreationStrategy;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.model.*;
 import org.springframework.stereotype.Component;
@@ -12,7 +14,9 @@ import reactor.core.publisher.Mono;
  *   - Verifica que el tipo de cliente sea personal (CustomerType.PERSONAL).
  *   - Si el tipo de crédito es CreditType.CREDIT_CARD, establece el crédito disponible si no está definido.
  *   - Si el tipo de crédito es CreditType.SIMPLE_CREDIT, establece el monto pagado si no está definido y verifica
- *     que el cliente no tenga otro crédito simple activo.
+ *     que el cliente no tenga otro crédito simple activo con una consulta de existencia sobre el índice
+ *     { customerId: 1, type: 1 }. Dos altas simultáneas las resuelve el índice único parcial de IndexCatalog;
+ *     en ambos casos el rechazo es CREDIT_ALREADY_EXISTS (DomainException).
  *   - Devuelve el crédito creado como un Mono<CreditBase> o un error si las condiciones no se cumplen.
  *
  * Utiliza Mono de Reactor para manejar la operación de manera reactiva.
@@ -20,6 +24,8 @@ import reactor.core.publisher.Mono;
 @Component
 public class PersonalCreditCreationStrategy implements CreditCreationStrategy {
 
+    public static final String SIMPLE_CREDIT_ALREADY_EXISTS = "Cliente personal ya tiene un crédito simple activo";
+
     private final CreditRepository creditRepository;
 
     public PersonalCreditCreationStrategy(CreditRepository creditRepository) {
@@ -47,14 +53,11 @@ public class PersonalCreditCreationStrategy implements CreditCreationStrategy {
                 simpleCredit.setAmountPaid(0.0);
             }
 
-            return creditRepository.findAll()
-                    .filter(c -> c.getCustomerId().equals(credit.getCustomerId())
-                            && c.getType() == CreditType.SIMPLE_CREDIT)
-                    .hasElements()
+            return creditRepository.existsByCustomerIdAndType(credit.getCustomerId(), CreditType.SIMPLE_CREDIT)
                     .flatMap(hasCredits -> {
                         if (hasCredits) {
-                            return Mono.error(new IllegalArgumentException(
-                                    "Cliente personal ya tiene un crédito simple activo"));
+                            return Mono.error(new DomainException(ErrorCode.CREDIT_ALREADY_EXISTS,
+                                    SIMPLE_CREDIT_ALREADY_EXISTS));
                         }
                         return Mono.just(simpleCredit);
                     });
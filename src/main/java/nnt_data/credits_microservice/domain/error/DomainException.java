@@ -0,0 +1,47 @@
+package nnt_data.credits_microservice.domain.error;
+
+import reactor.core.publisher.Mono;
+/**
+ * Excepción DomainException para los rechazos esperados del dominio (crédito insuficiente, crédito no
+ * encontrado, etc.), identificados por un ErrorCode.
+ *
+ * - getCode: Código del error, que define el estado HTTP de la respuesta.
+ * - hasDefaultMessage: Si el mensaje es el del código; en ese caso GlobalExceptionHandler responde con el
+ *   cuerpo ya serializado del código.
+ * - of: Mono.error con el error del código, sin crear la excepción hasta que haya un suscriptor.
+ *
+ * Los rechazos son un resultado normal y frecuente, así que la excepción no captura la pila de llamadas
+ * (fillInStackTrace no hace nada): crearla cuesta lo mismo que cualquier otro objeto pequeño. Hereda de
+ * IllegalArgumentException para que el código que todavía trata los rechazos por ese tipo los siga
+ * reconociendo.
+ */
+public class DomainException extends IllegalArgumentException {
+
+    private final ErrorCode code;
+
+    public DomainException(ErrorCode code) {
+        this(code, code.getMessage());
+    }
+
+    public DomainException(ErrorCode code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+
+    public boolean hasDefaultMessage() {
+        return code.getMessage().equals(getMessage());
+    }
+
+    public static <T> Mono<T> of(ErrorCode code) {
+        return Mono.error(() -> new DomainException(code));
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
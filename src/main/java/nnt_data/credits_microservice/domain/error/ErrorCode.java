@@ -0,0 +1,45 @@
+package nnt_data.credits_microservice.domain.error;
+/**
+ * Enum ErrorCode con los códigos estables de los errores de dominio, el estado HTTP con el que se
+ * responden y su mensaje.
+ *
+ * El nombre de cada constante es el code que recibe el cliente, así que no se debe renombrar. El estado se
+ * aplica tal cual en GlobalExceptionHandler y en los controladores: 404 para lo que no existe y 400 para
+ * las solicitudes y operaciones rechazadas, como antes de tener códigos.
+ */
+public enum ErrorCode {
+    CREDIT_NOT_FOUND(404, "Crédito no encontrado"),
+    INSUFFICIENT_CREDIT(400, "Crédito disponible insuficiente"),
+    PAYMENT_EXCEEDS_LIMIT(400, "El pago excede el límite del crédito"),
+    PAYMENT_EXCEEDS_TOTAL(400, "El pago excede el monto total del crédito"),
+    CREDIT_ALREADY_PAID(400, "El crédito ya está pagado en su totalidad"),
+    INVALID_TRANSACTION_TYPE(400, "Tipo de transacción no válido"),
+    PAYMENT_ONLY_CREDIT(400, "Solo se permiten transacciones de tipo payment para un credito simple"),
+    NOT_A_SIMPLE_CREDIT(400, "Crédito no encontrado o no es de tipo simple"),
+    TRANSACTION_REJECTED(400, "La transacción fue rechazada"),
+    INVALID_CUSTOMER_TYPE(400, "Tipo de cliente no soportado"),
+    CREDIT_ALREADY_EXISTS(400, "El crédito ya existe"),
+    IDEMPOTENCY_KEY_IN_PROGRESS(400, "La solicitud con esta Idempotency-Key aún está en proceso"),
+    IDEMPOTENCY_KEY_REUSED(400, "La Idempotency-Key ya fue usada con una transacción distinta"),
+    BATCH_TOO_LARGE(400, "El lote excede el máximo de transacciones permitido"),
+    CREDIT_ID_REQUIRED(400, "El creditId es obligatorio"),
+    INVALID_AMOUNT(400, "El monto debe ser mayor a cero"),
+    CREDIT_BALANCE_CHANGED(400, "El saldo del crédito cambió mientras se procesaba el lote"),
+    TRANSACTION_NOT_RECORDED(400, "Error al registrar la transacción");
+
+    private final int status;
+    private final String message;
+
+    ErrorCode(int status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
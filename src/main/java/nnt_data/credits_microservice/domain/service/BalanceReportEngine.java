@@ -0,0 +1,25 @@
+package nnt_data.credits_microservice.domain.service;
+
+import java.util.Locale;
+/**
+ * Enum BalanceReportEngine con las formas de calcular el saldo promedio diario de un periodo.
+ *
+ * - JVM: Lee las transacciones del periodo y las recorre en el servicio (DailyBalanceSweep).
+ * - AGGREGATION: Agrupa las transacciones por día en MongoDB y solo lee una fila por día con actividad.
+ * - from: Convierte el valor recibido (jvm, aggregation) al enum; null devuelve null.
+ */
+public enum BalanceReportEngine {
+    JVM,
+    AGGREGATION;
+
+    public static BalanceReportEngine from(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Motor de reporte no soportado: " + value);
+        }
+    }
+}
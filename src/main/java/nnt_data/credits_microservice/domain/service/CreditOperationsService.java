@@ -3,11 +3,19 @@ package nnt_data.credits_microservice.domain.service;
 import nnt_data.credits_microservice.application.usecase.CreditCreationStrategy;
 import nnt_data.credits_microservice.application.port.CreditOperationsPort;
 import nnt_data.credits_microservice.application.usecase.UpdateCreationStrategy;
+import nnt_data.credits_microservice.application.usecase.personal.PersonalCreditCreationStrategy;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.cache.RecentActivityCache;
+import nnt_data.credits_microservice.infrastructure.cache.ReportResultCache;
+import nnt_data.credits_microservice.infrastructure.config.PaginationSettings;
+import nnt_data.credits_microservice.infrastructure.persistence.index.IndexCatalog;
 import nnt_data.credits_microservice.infrastructure.persistence.mapper.CreditMapper;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.model.CreditBase;
-import nnt_data.credits_microservice.model.CreditType;
 import nnt_data.credits_microservice.model.CustomerType;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -17,9 +25,15 @@ import java.util.Map;
  * Servicio CreditOperationsService que implementa la interfaz CreditOperationsPort.
  * - createCredit: Crea un nuevo crédito utilizando la estrategia de creación correspondiente.
  * - updateCredit: Actualiza un crédito existente utilizando la estrategia de actualización correspondiente.
- * - getByCreditId: Recupera un crédito específico por su ID.
- * - getAllCredits: Recupera todos los créditos.
+ * - hasCreditCard: Indica si el cliente tiene una tarjeta de crédito, desde CreditCache o con una consulta de
+ *   existencia cubierta por el índice { customerId: 1, type: 1 }.
+ * - getByCreditId: Recupera un crédito específico por su ID desde CreditCache.
+ * - getAllCredits: Recupera los créditos ordenados por creditId, desde el cursor after y hasta limit
+ *   elementos si se indican. El cursor de MongoDB se lee en lotes y la emisión se pide por tramos, así
+ *   que la memoria no crece con el tamaño de la colección.
  * - deleteCredit: Elimina un crédito por su ID.
+ * Un crédito inexistente falla con CREDIT_NOT_FOUND, un tipo de cliente inválido con INVALID_CUSTOMER_TYPE y
+ * un crédito duplicado con CREDIT_ALREADY_EXISTS (ver DomainException).
  * Utiliza mapas de estrategias de creación y actualización para manejar diferentes tipos de clientes.
  * Utiliza Mono y Flux de Reactor para manejar las operaciones de manera reactiva.
  * Dependencias:
@@ -27,6 +41,13 @@ import java.util.Map;
  * - updateStrategies: Mapa de estrategias de actualización de créditos por tipo de cliente.
  * - creditRepository: Repositorio para operaciones de persistencia de créditos.
  * - creditMapper: Mapeador para convertir entre entidades y dominios de créditos.
+ * - paginationSettings: Límites de página y parámetros de streaming.
+ * - recentActivityCache: Caché de actividad reciente, que se descarta al actualizar o eliminar un crédito.
+ * - monthlyBalanceAccumulator: Acumuladores mensuales de saldo, que también se descartan en esos casos.
+ * - creditCache: Caché de lectura de créditos; cada alta o actualización deja en ella el documento guardado
+ *   y cada eliminación lo descarta.
+ * - reportResultCache: Reportes ya calculados; se descartan los del crédito al actualizarlo o eliminarlo y
+ *   los del cliente al crearle o actualizarle un crédito.
  */
 @Service
 public class CreditOperationsService implements CreditOperationsPort {
@@ -35,86 +56,123 @@ public class CreditOperationsService implements CreditOperationsPort {
     private final Map<CustomerType, UpdateCreationStrategy> updateStrategies;
     private final CreditRepository creditRepository;
     private final CreditMapper creditMapper;
+    private final PaginationSettings paginationSettings;
+    private final RecentActivityCache recentActivityCache;
+    private final MonthlyBalanceAccumulator monthlyBalanceAccumulator;
+    private final ReportResultCache reportResultCache;
+    private final CreditCache creditCache;
 
     @Override
     public Mono<CreditBase> createCredit(CreditBase credit) {
         return executeCreationStrategy(credit)
-                .flatMap(this::saveAccount);
+                .flatMap(this::saveAccount)
+                .doOnNext(created -> {
+                    creditCache.invalidateCustomer(created.getCustomerId());
+                    reportResultCache.invalidateCustomer(created.getCustomerId());
+                });
     }
 
     @Override
     public Mono<CreditBase> updateCredit(String creditId, CreditBase credit) {
         return Mono.just(credit)
-                .flatMap(c -> creditRepository.findById(creditId)
-                        .switchIfEmpty(Mono.error(new IllegalArgumentException("No existe un crédito con el ID: " + c.getCreditId()))))
+                .flatMap(c -> creditCache.findById(creditId)
+                        .switchIfEmpty(DomainException.of(ErrorCode.CREDIT_NOT_FOUND)))
                 .then(executeUpdateStrategy(credit))
-                .flatMap(this::saveAccount);
+                .flatMap(this::saveAccount)
+                .doOnNext(updated -> recentActivityCache.invalidate(creditId))
+                .flatMap(updated -> monthlyBalanceAccumulator.invalidate(creditId).thenReturn(updated))
+                .doOnNext(updated -> {
+                    creditCache.invalidateCustomer(updated.getCustomerId());
+                    reportResultCache.invalidateCredit(creditId);
+                    reportResultCache.invalidateCustomer(updated.getCustomerId());
+                });
     }
 
     @Override
     public Mono<CreditBase> getByCreditId(String creditId) {
-        return creditRepository.findById(creditId)
-                .flatMap(creditMapper::toDomain)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("No existe un crédito con el ID: " + creditId)));
+        return creditCache.findById(creditId)
+                .map(creditMapper::mapToDomain)
+                .switchIfEmpty(DomainException.of(ErrorCode.CREDIT_NOT_FOUND));
     }
 
     @Override
-    public Flux<CreditBase> getAllCredits() {
-        return creditRepository.findAll()
-                .flatMap(creditMapper::toDomain);
+    public Flux<CreditBase> getAllCredits(String after, Integer limit) {
+        return Mono.fromCallable(() -> paginationSettings.resolveLimit(limit))
+                .flatMapMany(pageLimit -> creditRepository.findPageAfter(after, pageLimit,
+                        paginationSettings.getCursorBatchSize()))
+                .limitRate(paginationSettings.getRequestRate())
+                .map(creditMapper::mapToDomain);
     }
 
     @Override
     public Mono<Void> deleteCredit(String creditId) {
         return creditRepository.findById(creditId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Crédito con id " + creditId + " no encontrado")))
-                .flatMap(credit -> creditRepository.deleteById(creditId))
-                .then();
+                .switchIfEmpty(DomainException.of(ErrorCode.CREDIT_NOT_FOUND))
+                .flatMap(credit -> creditRepository.deleteById(creditId)
+                        .then(Mono.fromRunnable(() -> creditCache.invalidateCustomer(credit.getCustomerId()))))
+                .then(Mono.fromRunnable(() -> creditCache.invalidate(creditId)))
+                .then(Mono.fromRunnable(() -> recentActivityCache.invalidate(creditId)))
+                .then(monthlyBalanceAccumulator.invalidate(creditId))
+                .then(Mono.fromRunnable(() -> reportResultCache.invalidateCredit(creditId)));
     }
 
     @Override
     public Mono<Boolean> hasCreditCard(String customerId) {
-        return creditRepository.findByCustomerId(customerId)
-                .filter(credit -> credit.getType().equals(CreditType.CREDIT_CARD))
-                .hasElements()
-                .defaultIfEmpty(false);
+        return creditCache.hasCreditCard(customerId);
     }
 
     public CreditOperationsService(Map<CustomerType, CreditCreationStrategy> creationStrategies,
                                     CreditRepository creditRepository,
                                     CreditMapper creditMapper,
-                                   Map<CustomerType, UpdateCreationStrategy> updateStrategies) {
+                                   Map<CustomerType, UpdateCreationStrategy> updateStrategies,
+                                   PaginationSettings paginationSettings,
+                                   RecentActivityCache recentActivityCache,
+                                   MonthlyBalanceAccumulator monthlyBalanceAccumulator,
+                                   ReportResultCache reportResultCache,
+                                   CreditCache creditCache) {
         this.creationStrategies = creationStrategies;
         this.updateStrategies = updateStrategies;
         this.creditRepository = creditRepository;
         this.creditMapper = creditMapper;
+        this.paginationSettings = paginationSettings;
+        this.recentActivityCache = recentActivityCache;
+        this.monthlyBalanceAccumulator = monthlyBalanceAccumulator;
+        this.reportResultCache = reportResultCache;
+        this.creditCache = creditCache;
     }
 
     private Mono<CreditBase> executeCreationStrategy(CreditBase creditBase) {
         return Mono.just(creditBase)
                 .filter(acc -> acc.getCustomerType() != null)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("El tipo de cliente no puede ser null")))
+                .switchIfEmpty(Mono.error(() -> new DomainException(ErrorCode.INVALID_CUSTOMER_TYPE,
+                        "El tipo de cliente no puede ser null")))
                 .flatMap(acc -> Mono.justOrEmpty(creationStrategies.get(acc.getCustomerType()))
-                        .switchIfEmpty(Mono.error(
-                                new IllegalArgumentException("Tipo de cliente no soportado: " + acc.getCustomerType())))
+                        .switchIfEmpty(Mono.error(() -> new DomainException(ErrorCode.INVALID_CUSTOMER_TYPE,
+                                "Tipo de cliente no soportado: " + acc.getCustomerType())))
                         .flatMap(strategy -> strategy.createCredit(acc)));
     }
 
     private Mono<CreditBase> executeUpdateStrategy(CreditBase creditBase) {
         return Mono.just(creditBase)
                 .filter(acc -> acc.getCustomerType() != null)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("El tipo de cliente no puede ser null")))
+                .switchIfEmpty(Mono.error(() -> new DomainException(ErrorCode.INVALID_CUSTOMER_TYPE,
+                        "El tipo de cliente no puede ser null")))
                 .flatMap(acc -> Mono.justOrEmpty(updateStrategies.get(acc.getCustomerType()))
-                        .switchIfEmpty(Mono.error(
-                                new IllegalArgumentException("Tipo de cliente no soportado: " + acc.getCustomerType())))
+                        .switchIfEmpty(Mono.error(() -> new DomainException(ErrorCode.INVALID_CUSTOMER_TYPE,
+                                "Tipo de cliente no soportado: " + acc.getCustomerType())))
                         .flatMap(strategy -> strategy.updateCredit(acc)));
     }
 
     private Mono<CreditBase> saveAccount(CreditBase creditBase) {
-        return Mono.just(creditBase)
-                .flatMap(creditMapper::toEntity)
+        return Mono.fromCallable(() -> creditMapper.mapToEntity(creditBase))
                 .flatMap(creditRepository::save)
-                .flatMap(creditMapper::toDomain);
+                .doOnNext(creditCache::put)
+                .onErrorMap(DuplicateKeyException.class, e -> e.getMessage() != null
+                        && e.getMessage().contains(IndexCatalog.PERSONAL_SIMPLE_CREDIT)
+                        ? new DomainException(ErrorCode.CREDIT_ALREADY_EXISTS,
+                                PersonalCreditCreationStrategy.SIMPLE_CREDIT_ALREADY_EXISTS)
+                        : new DomainException(ErrorCode.CREDIT_ALREADY_EXISTS))
+                .map(creditMapper::mapToDomain);
     }
 
 
@@ -0,0 +1,331 @@
+package nnt_data.credits_microservice.domain.service;
+
+import nnt_data.credits_microservice.application.port.TransactionRecordedListener;
+import nnt_data.credits_microservice.domain.utils.DailyBalanceSweep;
+import nnt_data.credits_microservice.domain.utils.Money;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.MonthlyBalanceRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.model.MonthlyBalanceBackfillReport;
+import nnt_data.credits_microservice.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+/**
+ * Componente MonthlyBalanceAccumulator que mantiene, por crédito y por mes, el estado del cálculo de saldo
+ * promedio diario (ver DailyBalanceSweep) en un documento de monthly_balances.
+ *
+ * - onTransactionRecorded: Aplica la transacción al acumulador de su mes. La actualización es optimista
+ *   (@Version) y se reintenta ante conflictos, así que dos transacciones concurrentes del mismo crédito no
+ *   se pisan. Si el acumulador no existe se construye leyendo las transacciones del mes, que ya incluyen
+ *   la recién registrada.
+ *   - Las transacciones llegan fuera de orden con frecuencia (las inserciones se agrupan y se confirman en
+ *     paralelo, y este listener corre fuera de los carriles por crédito). Un consumo más antiguo que la
+ *     última transacción aplicada solo suma su monto al saldo de cada día desde el suyo, así que se aplica
+ *     con un incremento conmutativo (MonthlyBalanceRepository.applyLateSpent) sin descartar el acumulador.
+ *   - Solo un hueco real elimina el acumulador para que se reconstruya en la siguiente lectura: un pago
+ *     fuera de orden (deja el saldo en cero desde su fecha), un consumo anterior a un pago ya aplicado, un
+ *     consumo anterior a la construcción del acumulador (la lectura pudo incluirlo) o un fallo que agota
+ *     los reintentos.
+ * - averageBalance: Devuelve el saldo promedio del mes leyendo un solo documento; si falta, lo construye.
+ * - averageBalances: Igual para varios créditos: lee sus acumuladores con una consulta y construye los que
+ *   faltan con una sola consulta de transacciones ($in), repartiendo cada transacción a su crédito.
+ * - invalidate: Elimina los acumuladores de un crédito (por ejemplo al cambiar su monto).
+ * - backfill: Construye los acumuladores que faltan para todos los créditos en un rango de meses.
+ *
+ * Se acumulan las mismas transacciones que lee el cálculo por periodo del mes: desde el inicio del primer
+ * día (inclusive) hasta el inicio del día siguiente al último (exclusivo), así que el último día del mes se
+ * incluye completo, con los meses y días de negocio de BusinessCalendar (credits.business-zone) y no los de
+ * la zona del servidor. Se notifica antes que los demás listeners para que ReportResultCache ya vea el
+ * acumulador actualizado.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MonthlyBalanceAccumulator implements TransactionRecordedListener {
+
+    /**
+     * Saldo promedio del mes de un crédito.
+     */
+    public record CreditAverage(CreditBaseEntity credit, double averageBalance) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(MonthlyBalanceAccumulator.class);
+
+    private final MonthlyBalanceRepository monthlyBalanceRepository;
+    private final CreditRepository creditRepository;
+    private final TransactionRepository transactionRepository;
+    private final int maxRetries;
+    private final int backfillConcurrency;
+    private final BusinessCalendar businessCalendar;
+
+    public MonthlyBalanceAccumulator(MonthlyBalanceRepository monthlyBalanceRepository,
+                                     CreditRepository creditRepository,
+                                     TransactionRepository transactionRepository,
+                                     BusinessCalendar businessCalendar,
+                                     @Value("${credits.monthly-balances.max-retries:5}") int maxRetries,
+                                     @Value("${credits.monthly-balances.backfill.concurrency:4}") int backfillConcurrency) {
+        this.monthlyBalanceRepository = monthlyBalanceRepository;
+        this.creditRepository = creditRepository;
+        this.transactionRepository = transactionRepository;
+        this.businessCalendar = businessCalendar;
+        this.maxRetries = maxRetries;
+        this.backfillConcurrency = backfillConcurrency;
+    }
+
+    @Override
+    public Mono<Void> onTransactionRecorded(Transaction transaction) {
+        YearMonth month = YearMonth.from(businessCalendar.toLocalDate(transaction.getDate()));
+        if (!window(month).contains(transaction.getDate())) {
+            return Mono.empty();
+        }
+        String id = id(transaction.getCreditId(), month);
+        return Mono.defer(() -> apply(id, transaction, month))
+                .retryWhen(Retry.max(maxRetries).filter(e -> e instanceof OptimisticLockingFailureException
+                        || e instanceof DuplicateKeyException))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Se descarta el acumulador {}: {}", id, e.getMessage());
+                    return monthlyBalanceRepository.deleteById(id);
+                });
+    }
+
+    public Mono<Double> averageBalance(CreditBaseEntity credit, YearMonth month) {
+        MonthWindow window = window(month);
+        return monthlyBalanceRepository.findById(id(credit.getCreditId(), month))
+                .switchIfEmpty(Mono.defer(() -> build(credit, month)
+                        .flatMap(accumulator -> monthlyBalanceRepository.insert(accumulator)
+                                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(accumulator)))))
+                .map(accumulator -> resume(accumulator, window).average());
+    }
+
+    public Flux<CreditAverage> averageBalances(List<CreditBaseEntity> credits, YearMonth month) {
+        if (credits.isEmpty()) {
+            return Flux.empty();
+        }
+        MonthWindow window = window(month);
+        Map<String, CreditBaseEntity> byId = credits.stream()
+                .collect(Collectors.toMap(CreditBaseEntity::getCreditId, Function.identity(), (first, second) -> first));
+        return monthlyBalanceRepository.findAllById(byId.keySet().stream().map(creditId -> id(creditId, month)).toList())
+                .collectMap(MonthlyBalanceEntity::getCreditId)
+                .flatMapMany(stored -> {
+                    List<CreditBaseEntity> missing = byId.values().stream()
+                            .filter(credit -> !stored.containsKey(credit.getCreditId()))
+                            .toList();
+                    Flux<MonthlyBalanceEntity> built = missing.isEmpty()
+                            ? Flux.empty()
+                            : buildAll(missing, month)
+                                    .concatMap(accumulator -> monthlyBalanceRepository.insert(accumulator)
+                                            .onErrorResume(DuplicateKeyException.class, e -> Mono.just(accumulator)));
+                    return Flux.concat(Flux.fromIterable(stored.values()), built);
+                })
+                .map(accumulator -> new CreditAverage(byId.get(accumulator.getCreditId()),
+                        resume(accumulator, window).average()));
+    }
+
+    public Mono<Void> invalidate(String creditId) {
+        return monthlyBalanceRepository.deleteByCreditId(creditId);
+    }
+
+    public Mono<MonthlyBalanceBackfillReport> backfill(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            return Mono.error(new IllegalArgumentException("El mes inicial no puede ser posterior al mes final"));
+        }
+        if (to.isAfter(businessCalendar.currentMonth())) {
+            return Mono.error(new IllegalArgumentException("No se pueden construir acumuladores de meses futuros"));
+        }
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        AtomicLong credits = new AtomicLong();
+        AtomicLong created = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        return creditRepository.findAll()
+                .flatMap(credit -> {
+                    credits.incrementAndGet();
+                    return Flux.fromIterable(months)
+                            .concatMap(month -> backfill(credit, month))
+                            .doOnNext(inserted -> (inserted ? created : skipped).incrementAndGet());
+                }, backfillConcurrency)
+                .then(Mono.fromSupplier(() -> {
+                    MonthlyBalanceBackfillReport report = new MonthlyBalanceBackfillReport();
+                    report.setFrom(from.toString());
+                    report.setTo(to.toString());
+                    report.setCreditsProcessed(credits.get());
+                    report.setAccumulatorsCreated(created.get());
+                    report.setAccumulatorsSkipped(skipped.get());
+                    return report;
+                }));
+    }
+
+    private Mono<Boolean> backfill(CreditBaseEntity credit, YearMonth month) {
+        return monthlyBalanceRepository.existsById(id(credit.getCreditId(), month))
+                .flatMap(exists -> exists
+                        ? Mono.just(false)
+                        : build(credit, month)
+                                .flatMap(monthlyBalanceRepository::insert)
+                                .thenReturn(true)
+                                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false)));
+    }
+
+    private Mono<MonthlyBalanceEntity> apply(String id, Transaction transaction, YearMonth month) {
+        return monthlyBalanceRepository.findById(id)
+                .flatMap(accumulator -> applyTo(accumulator, transaction, month))
+                .switchIfEmpty(Mono.defer(() -> creditRepository.findById(transaction.getCreditId())
+                        .flatMap(credit -> build(credit, month))
+                        .flatMap(monthlyBalanceRepository::insert)));
+    }
+
+    private Mono<MonthlyBalanceEntity> applyTo(MonthlyBalanceEntity accumulator, Transaction transaction,
+                                               YearMonth month) {
+        Date lastDate = accumulator.getLastTransactionDate();
+        Date date = transaction.getDate();
+        if (lastDate != null && date.before(lastDate)) {
+            return applyLate(accumulator, transaction);
+        }
+        boolean sameInstant = lastDate != null && date.equals(lastDate);
+        if (sameInstant && accumulator.getLastTransactionIds().contains(transaction.getTransactionId())) {
+            return Mono.just(accumulator);
+        }
+        DailyBalanceSweep sweep = resume(accumulator, window(month))
+                .accept(businessCalendar.epochDay(date), transaction.getType(), Money.toCents(transaction.getAmount()));
+        store(accumulator, sweep);
+        if (!sameInstant) {
+            accumulator.setLastTransactionDate(date);
+            accumulator.getLastTransactionIds().clear();
+        }
+        accumulator.getLastTransactionIds().add(transaction.getTransactionId());
+        if (Transaction.TypeEnum.PAYMENT.equals(transaction.getType())) {
+            accumulator.setLastPaymentDate(date);
+        }
+        return monthlyBalanceRepository.save(accumulator);
+    }
+
+    private Mono<MonthlyBalanceEntity> applyLate(MonthlyBalanceEntity accumulator, Transaction transaction) {
+        Date date = transaction.getDate();
+        if (!Transaction.TypeEnum.SPENT.equals(transaction.getType())) {
+            return Mono.error(new IllegalStateException("Pago anterior a la última transacción aplicada"));
+        }
+        return monthlyBalanceRepository.applyLateSpent(accumulator.getId(), date, businessCalendar.epochDay(date),
+                        Money.toCents(transaction.getAmount()))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                        "Consumo anterior a un pago o a la construcción del acumulador")));
+    }
+
+    private Mono<MonthlyBalanceEntity> build(CreditBaseEntity credit, YearMonth month) {
+        MonthWindow window = window(month);
+        return transactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc(credit.getCreditId(),
+                        window.from(), window.to())
+                .reduceWith(() -> new Builder(credit, month, window), Builder::accept)
+                .map(Builder::build);
+    }
+
+    private Flux<MonthlyBalanceEntity> buildAll(List<CreditBaseEntity> credits, YearMonth month) {
+        MonthWindow window = window(month);
+        return transactionRepository.findByCreditIdInAndDateBetweenOrderByDateAsc(
+                        credits.stream().map(CreditBaseEntity::getCreditId).toList(), window.from(), window.to())
+                .publishOn(Schedulers.parallel())
+                .reduceWith(() -> credits.stream().collect(Collectors.toMap(CreditBaseEntity::getCreditId,
+                                credit -> new Builder(credit, month, window), (first, second) -> first)),
+                        (builders, transaction) -> {
+                            Builder builder = builders.get(transaction.getCreditId());
+                            if (builder != null) {
+                                builder.accept(transaction);
+                            }
+                            return builders;
+                        })
+                .flatMapIterable(Map::values)
+                .map(Builder::build);
+    }
+
+    private static void store(MonthlyBalanceEntity accumulator, DailyBalanceSweep sweep) {
+        accumulator.setCurrentEpochDay(sweep.getCurrentDay().toEpochDay());
+        accumulator.setBalanceCents(sweep.getBalanceCents());
+        accumulator.setSumOfBalancesCents(sweep.getSumOfBalancesCents());
+    }
+
+    private DailyBalanceSweep resume(MonthlyBalanceEntity accumulator, MonthWindow window) {
+        return DailyBalanceSweep.resume(window.startDay(), window.endDay(),
+                LocalDate.ofEpochDay(accumulator.getCurrentEpochDay()), accumulator.getBalanceCents(),
+                accumulator.getSumOfBalancesCents());
+    }
+
+    private static String id(String creditId, YearMonth month) {
+        return creditId + ":" + month;
+    }
+
+    private MonthWindow window(YearMonth month) {
+        LocalDate startDay = month.atDay(1);
+        LocalDate endDay = month.atEndOfMonth();
+        return new MonthWindow(startDay, endDay, businessCalendar.toDate(startDay),
+                businessCalendar.toDate(endDay.plusDays(1)));
+    }
+
+    /**
+     * Acumulador en construcción a partir de las transacciones de un crédito en orden de fecha.
+     */
+    private final class Builder {
+        private final MonthlyBalanceEntity accumulator = new MonthlyBalanceEntity();
+        private final DailyBalanceSweep sweep;
+
+        private Builder(CreditBaseEntity credit, YearMonth month, MonthWindow window) {
+            accumulator.setId(id(credit.getCreditId(), month));
+            accumulator.setCreditId(credit.getCreditId());
+            accumulator.setMonth(month.toString());
+            sweep = new DailyBalanceSweep(credit.getAmountCents(), window.startDay(), window.endDay());
+        }
+
+        private Builder accept(TransactionEntity transaction) {
+            if (!transaction.getDate().equals(accumulator.getLastTransactionDate())) {
+                accumulator.setLastTransactionDate(transaction.getDate());
+                accumulator.getLastTransactionIds().clear();
+            }
+            accumulator.getLastTransactionIds().add(transaction.getTransactionId());
+            if (Transaction.TypeEnum.PAYMENT.equals(transaction.getType())) {
+                accumulator.setLastPaymentDate(transaction.getDate());
+            }
+            sweep.accept(businessCalendar.businessDay(transaction.getBusinessDay(), transaction.getDate()),
+                    transaction.getType(), transaction.getAmountCents());
+            return this;
+        }
+
+        private MonthlyBalanceEntity build() {
+            store(accumulator, sweep);
+            accumulator.setBuiltAt(new Date());
+            return accumulator;
+        }
+    }
+
+    /**
+     * Días del mes y rango de fechas, inclusivo en from y exclusivo en to, de las transacciones que se
+     * acumulan.
+     */
+    private record MonthWindow(LocalDate startDay, LocalDate endDay, Date from, Date to) {
+        private boolean contains(Date date) {
+            return !date.before(from) && date.before(to);
+        }
+    }
+}
@@ -1,60 +1,108 @@
 package nnt_data.credits_microservice.domain.service;
 
-import lombok.RequiredArgsConstructor;
-import nnt_data.credits_microservice.domain.utils.BalanceCalculator;
-import nnt_data.credits_microservice.domain.utils.DateUtils;
-import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.domain.utils.DailyBalanceSweep;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.cache.RecentActivityCache;
+import nnt_data.credits_microservice.infrastructure.cache.ReportResultCache;
+import nnt_data.credits_microservice.infrastructure.config.BulkReportSettings;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
 import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapper;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
 import nnt_data.credits_microservice.model.CreditResume;
+import nnt_data.credits_microservice.model.CustomerSalarySummary;
 import nnt_data.credits_microservice.model.Transaction;
 import nnt_data.credits_microservice.model.TransactionReport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.YearMonth;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-@RequiredArgsConstructor
 @Service
 public class ReportingService {
 
+    private static final int DEFAULT_LAST_TRANSACTIONS = 10;
+    private static final int MAX_LAST_TRANSACTIONS = 100;
+
     private final TransactionRepository transactionRepository;
     private final CreditRepository creditRepository;
     private final TransactionMapper transactionMapper;
+    private final RecentActivityCache recentActivityCache;
+    private final MonthlyBalanceAccumulator monthlyBalanceAccumulator;
+    private final BalanceReportEngine defaultPeriodEngine;
+    private final BulkReportSettings bulkReportSettings;
+    private final ReportResultCache reportResultCache;
+    private final CreditCache creditCache;
+    private final BusinessCalendar businessCalendar;
 
+    public ReportingService(TransactionRepository transactionRepository,
+                            CreditRepository creditRepository,
+                            TransactionMapper transactionMapper,
+                            RecentActivityCache recentActivityCache,
+                            MonthlyBalanceAccumulator monthlyBalanceAccumulator,
+                            BulkReportSettings bulkReportSettings,
+                            ReportResultCache reportResultCache,
+                            CreditCache creditCache,
+                            BusinessCalendar businessCalendar,
+                            @Value("${credits.reporting.period-engine:jvm}") String defaultPeriodEngine) {
+        this.transactionRepository = transactionRepository;
+        this.creditRepository = creditRepository;
+        this.transactionMapper = transactionMapper;
+        this.recentActivityCache = recentActivityCache;
+        this.monthlyBalanceAccumulator = monthlyBalanceAccumulator;
+        this.defaultPeriodEngine = BalanceReportEngine.from(defaultPeriodEngine);
+        this.bulkReportSettings = bulkReportSettings;
+        this.reportResultCache = reportResultCache;
+        this.creditCache = creditCache;
+        this.businessCalendar = businessCalendar;
+    }
 
     public Mono<CreditResume> generateResumeOfAvarageBalanceForPeriod(String creditId, Date startDate, Date endDate) {
-        LocalDate startLocalDate = DateUtils.toLocalDate(startDate);
-        LocalDate endLocalDate = DateUtils.toLocalDate(endDate);
-
-        return creditRepository.findById(creditId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("No se encontró la cuenta con ID: " + creditId)))
-                .flatMap(credit ->
-                        transactionRepository.findByCreditIdAndDateBetween(
-                                        credit.getCreditId(),
-                                        startDate,
-                                        endDate
-                                )
-                                .collectList()
-                                .map(transactions -> {
-                                    Double averageBalance = calculateSalaryAverage(
-                                            credit.getAmount(),
-                                            transactions,
-                                            startLocalDate,
-                                            endLocalDate,
-                                            credit.getCreditId()
-                                    );
-                                    return new CreditResume(credit.getCreditId(), credit.getType(), averageBalance);
-                                })
-                )
+        return generateResumeOfAvarageBalanceForPeriod(creditId, startDate, endDate, null);
+    }
+
+    /**
+     * Genera el resumen de saldo promedio diario de un crédito en un periodo.
+     *
+     * @param engine Motor de cálculo; si es null se usa credits.reporting.period-engine. Con AGGREGATION,
+     *               MongoDB agrupa las transacciones por día y el servicio solo recibe una fila por día con
+     *               actividad.
+     *               Ambos motores dan el mismo resultado, que se guarda en ReportResultCache por crédito y periodo.
+     *               Los días del periodo son días de negocio (BusinessCalendar), no de la zona del servidor.
+     *               startDate y endDate se reducen a su día de negocio: se consultan las transacciones desde el
+     *               inicio del primer día hasta el inicio del día siguiente al último (exclusivo), así que el
+     *               último día se incluye completo. El resultado depende solo de esos días, que son la clave
+     *               de la caché, y dos solicitudes de los mismos días con otras horas comparten el mismo valor.
+     */
+    public Mono<CreditResume> generateResumeOfAvarageBalanceForPeriod(String creditId, Date startDate, Date endDate,
+                                                                      BalanceReportEngine engine) {
+        LocalDate startLocalDate = businessCalendar.toLocalDate(startDate);
+        LocalDate endLocalDate = businessCalendar.toLocalDate(endDate);
+        Date from = businessCalendar.toDate(startLocalDate);
+        Date to = businessCalendar.toDate(endLocalDate.plusDays(1));
+        BalanceReportEngine selected = engine != null ? engine : defaultPeriodEngine;
+
+        return reportResultCache.get(ReportResultCache.ReportType.PERIOD_BALANCE, creditId, startLocalDate, endLocalDate,
+                        () -> creditCache.findById(creditId)
+                                .switchIfEmpty(Mono.error(new IllegalArgumentException("No se encontró la cuenta con ID: " + creditId)))
+                                .flatMap(credit ->
+                                        (selected == BalanceReportEngine.AGGREGATION
+                                                ? aggregatedAverageBalance(credit, from, to, startLocalDate, endLocalDate)
+                                                : averageBalance(credit, from, to, startLocalDate, endLocalDate))
+                                                .map(averageBalance -> new CreditResume(credit.getCreditId(), credit.getType(), averageBalance))
+                                ),
+                        resume -> List.of(resume.getCreditId()))
                 .onErrorResume(e -> {
                     System.out.println("Error generating resume of average balance for account ID: " + e.getMessage());
                     return Mono.error(new IllegalArgumentException("Error al obtener el resumen de la cuenta: " + e.getMessage(), e));
@@ -65,34 +113,28 @@ public class ReportingService {
     /**
      * Genera un resumen de saldo promedio de las cuentas de un cliente en el mes actual.
      *
+     * El saldo promedio de cada crédito se lee de su acumulador mensual (MonthlyBalanceAccumulator), así que
+     * el costo depende de la cantidad de créditos y no de la cantidad de transacciones. El resumen se guarda en
+     * ReportResultCache hasta que se registra una transacción de alguno de sus créditos o termina el día.
+     *
      * @param customerId ID del cliente.
      * @return Un flujo de CreditResume que contiene el ID del crédito, el tipo y el saldo promedio.
      */
     public Flux<CreditResume> generateResumeOfAvarageBalance(String customerId) {
-        LocalDate now = LocalDate.now();
-        LocalDate startOfMonth = now.withDayOfMonth(1);
-        LocalDate endOfMonth = now.withDayOfMonth(now.lengthOfMonth());
-
-        return creditRepository.findByCustomerId(customerId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("No se encontraron cuentas para el cliente ID: " + customerId)))
-                .flatMap(credit ->
-                        transactionRepository.findByCreditIdAndDateBetween(
-                                        credit.getCreditId(),
-                                        DateUtils.toDate(startOfMonth),
-                                        DateUtils.toDate(endOfMonth)
+        YearMonth month = businessCalendar.currentMonth();
+
+        return reportResultCache.get(ReportResultCache.ReportType.SALARY_SUMMARY, customerId, month.atDay(1),
+                        month.atEndOfMonth(),
+                        () -> creditRepository.findByCustomerId(customerId)
+                                .switchIfEmpty(Mono.error(new IllegalArgumentException("No se encontraron cuentas para el cliente ID: " + customerId)))
+                                .flatMap(credit ->
+                                        monthlyBalanceAccumulator.averageBalance(credit, month)
+                                                .map(averageBalance -> new CreditResume(credit.getCreditId(), credit.getType(), averageBalance))
                                 )
                                 .collectList()
-                                .map(transactions -> {
-                                    Double averageBalance = calculateSalaryAverage(
-                                            credit.getAmount(),
-                                            transactions,
-                                            startOfMonth,
-                                            endOfMonth,
-                                            credit.getCreditId()
-                                    );
-                                    return new CreditResume(credit.getCreditId(), credit.getType(),averageBalance);
-                                })
-                )
+                                .map(List::copyOf),
+                        resumes -> resumes.stream().map(CreditResume::getCreditId).toList())
+                .flatMapIterable(Function.identity())
                 .onErrorResume(e -> {
                     System.out.println("Error generating resume of average balance: " + e.getMessage());
                     return Mono.error(new IllegalArgumentException("Error al obtener las cuentas del cliente: " + e.getMessage(), e));
@@ -100,63 +142,137 @@ public class ReportingService {
     }
 
 
-    private Double calculateSalaryAverage(Double initialBalance, List<TransactionEntity> transactions,
-                                          LocalDate startOfMonth, LocalDate endOfMonth, String creditId) {
-
-        Double dailyBalance = initialBalance;
-        Double sumOfBalances = 0.0;
-        LocalDate currentDate = startOfMonth;
-
-        while (!currentDate.isAfter(endOfMonth)) {
-            LocalDate finalCurrentDate = currentDate;
-            List<TransactionEntity> dailyTransactions = transactions.stream()
-                    .filter(transaction -> DateUtils.toLocalDate(transaction.getDate()).equals(finalCurrentDate))
-                    .toList();
-
-            for (TransactionEntity transactionEntity : dailyTransactions) {
-                Mono<Transaction> transactionMono = transactionMapper.toDomain(transactionEntity);
-                Transaction transaction = transactionMono.block();
-                if (transaction != null) {
-                    dailyBalance = BalanceCalculator.calculateDailyBalance(dailyBalance, transaction, creditId);
-                }
-            }
-            sumOfBalances = sumOfBalances + dailyBalance;
-            currentDate = currentDate.plusDays(1);
+    /**
+     * Genera el resumen de saldo promedio del mes actual para varios clientes.
+     *
+     * Los clientes se agrupan en tramos de credits.reporting.bulk.chunk-size. Cada tramo toma de
+     * ReportResultCache los resúmenes ya calculados (los que no están en memoria, con una sola lectura de
+     * SecondLevelCache), lee los créditos de los demás clientes con una consulta $in y los saldos con
+     * MonthlyBalanceAccumulator.averageBalances, y se procesan a la vez hasta credits.reporting.bulk.concurrency
+     * tramos. Cada cliente se emite en cuanto su
+     * tramo termina; un cliente sin créditos se emite con el motivo en error.
+     *
+     * @param customerIds IDs de los clientes; los repetidos se procesan una vez.
+     * @return Un flujo con un CustomerSalarySummary por cliente, sin orden garantizado.
+     */
+    public Flux<CustomerSalarySummary> generateResumeOfAvarageBalances(List<String> customerIds) {
+        if (customerIds == null || customerIds.isEmpty()) {
+            return Flux.error(new IllegalArgumentException("Se debe indicar al menos un cliente"));
+        }
+        if (customerIds.size() > bulkReportSettings.getMaxCustomers()) {
+            return Flux.error(new IllegalArgumentException(
+                    "No se pueden pedir más de " + bulkReportSettings.getMaxCustomers() + " clientes"));
         }
+        YearMonth month = businessCalendar.currentMonth();
+        return Flux.fromIterable(new LinkedHashSet<>(customerIds))
+                .buffer(bulkReportSettings.getChunkSize())
+                .flatMap(chunk -> summarizeChunk(chunk, month), bulkReportSettings.getConcurrency());
+    }
 
-        long daysInPeriod = ChronoUnit.DAYS.between(startOfMonth, endOfMonth) + 1;
-        BigDecimal result = BigDecimal.valueOf(sumOfBalances)
-                .divide(BigDecimal.valueOf(daysInPeriod), 2, RoundingMode.HALF_UP);
+    private Flux<CustomerSalarySummary> summarizeChunk(List<String> customerIds, YearMonth month) {
+        return reportResultCache.<List<CreditResume>>getAll(ReportResultCache.ReportType.SALARY_SUMMARY, customerIds,
+                        month.atDay(1), month.atEndOfMonth(),
+                        missing -> computeSummaries(missing, month),
+                        resumes -> resumes.stream().map(CreditResume::getCreditId).toList())
+                .flatMapIterable(byCustomer -> customerIds.stream()
+                        .map(customerId -> toCustomerSalarySummary(customerId, byCustomer.get(customerId)))
+                        .toList());
+    }
 
-        return result.doubleValue();
+    /**
+     * Lee los créditos de los clientes con una consulta $in y sus saldos con
+     * MonthlyBalanceAccumulator.averageBalances. Los clientes sin créditos no se incluyen.
+     */
+    private Mono<Map<String, List<CreditResume>>> computeSummaries(List<String> customerIds, YearMonth month) {
+        return creditRepository.findByCustomerIdIn(customerIds)
+                .collectList()
+                .flatMapMany(credits -> monthlyBalanceAccumulator.averageBalances(credits, month))
+                .collectMultimap(average -> average.credit().getCustomerId(),
+                        average -> new CreditResume(average.credit().getCreditId(), average.credit().getType(),
+                                average.averageBalance()))
+                .map(byCustomer -> byCustomer.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, entry -> List.copyOf(entry.getValue()))));
     }
 
+    private CustomerSalarySummary toCustomerSalarySummary(String customerId, List<CreditResume> resumes) {
+        CustomerSalarySummary summary = new CustomerSalarySummary();
+        summary.setCustomerId(customerId);
+        if (resumes == null || resumes.isEmpty()) {
+            summary.setError("No se encontraron cuentas para el cliente ID: " + customerId);
+            return summary;
+        }
+        summary.setCreditResumes(resumes);
+        return summary;
+    }
 
-    public Mono<TransactionReport> getLastTenTransactions(String creditId) {
-        return creditRepository.findByCreditId(creditId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException(
-                        "La tarjeta de credito con número " + creditId + " no existe")))
-                .flatMap(creditCard -> {
-                    return transactionRepository.findByCreditId(creditCard.getCreditId())
-                            .sort((t1, t2) -> t2.getDate().compareTo(t1.getDate()))
-                            .take(10)
-                            .collectList()
-                            .map(transactions -> {
-                                TransactionReport report = new TransactionReport();
-                                report.setCardNumber(creditCard.getCardNumber());
-                                report.setCardNumber(creditCard.getCardNumber());
-                                List<Transaction> transactionList = transactions.stream()
-                                        .map(entity -> transactionMapper.toDomain(entity).block())
-                                        .collect(Collectors.toList());
-                                report.setTransactions(transactionList);
-                                report.setTransactionCount(transactions.size());
-                                report.setGenerationDate(new Date());
-                                return report;
-                            });
-                });
+    /**
+     * Calcula el saldo promedio diario de un crédito recorriendo una sola vez sus transacciones del periodo,
+     * leídas en orden de fecha ascendente con el índice { creditId: 1, date: -1 }.
+     */
+    private Mono<Double> averageBalance(CreditBaseEntity credit, Date from, Date to,
+                                        LocalDate startDay, LocalDate endDay) {
+        return transactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc(credit.getCreditId(), from, to)
+                .reduceWith(() -> new DailyBalanceSweep(credit.getAmountCents(), startDay, endDay),
+                        (sweep, transaction) -> sweep.accept(
+                                businessCalendar.businessDay(transaction.getBusinessDay(), transaction.getDate()),
+                                transaction.getType(), transaction.getAmountCents()))
+                .map(DailyBalanceSweep::average);
     }
 
+    /**
+     * Igual que averageBalance, pero con los días ya resumidos por TransactionRepository.aggregateDailyBuckets.
+     */
+    private Mono<Double> aggregatedAverageBalance(CreditBaseEntity credit, Date from, Date to,
+                                                  LocalDate startDay, LocalDate endDay) {
+        return transactionRepository.aggregateDailyBuckets(credit.getCreditId(), from, to, businessCalendar.getZone())
+                .reduceWith(() -> new DailyBalanceSweep(credit.getAmountCents(), startDay, endDay),
+                        (sweep, bucket) -> sweep.acceptDay(bucket.getDay(), bucket.isReset(), bucket.getSpentCents()))
+                .map(DailyBalanceSweep::average);
+    }
 
 
+    /**
+     * Genera el reporte de las últimas transacciones de una tarjeta de crédito.
+     *
+     * Sin before y con un limit que no supera la capacidad de RecentActivityCache, el reporte se arma desde
+     * memoria. En otro caso las transacciones se leen ya ordenadas por fecha descendente y limitadas en
+     * MongoDB, con un rango del índice { creditId: 1, date: -1 }.
+     *
+     * @param creditId ID del crédito.
+     * @param limit Cantidad máxima de transacciones (10 si es null).
+     * @param before Si se indica, solo se incluyen transacciones anteriores a esta fecha.
+     * @return El reporte con las transacciones de la más reciente a la más antigua.
+     */
+    public Mono<TransactionReport> getLastTenTransactions(String creditId, Integer limit, Date before) {
+        int pageSize = limit != null ? limit : DEFAULT_LAST_TRANSACTIONS;
+        if (pageSize < 1 || pageSize > MAX_LAST_TRANSACTIONS) {
+            return Mono.error(new IllegalArgumentException(
+                    "El limit debe estar entre 1 y " + MAX_LAST_TRANSACTIONS));
+        }
+        Mono<TransactionReport> report;
+        if (before == null && pageSize <= recentActivityCache.getCapacity()) {
+            report = recentActivityCache.getRecent(creditId, pageSize)
+                    .map(activity -> toTransactionReport(activity.cardNumber(), activity.transactions()));
+        } else {
+            PageRequest page = PageRequest.of(0, pageSize);
+            report = creditCache.findById(creditId)
+                    .flatMap(creditCard -> (before != null
+                            ? transactionRepository.findByCreditIdAndDateBeforeOrderByDateDesc(creditCard.getCreditId(), before, page)
+                            : transactionRepository.findByCreditIdOrderByDateDesc(creditCard.getCreditId(), page))
+                            .map(transactionMapper::mapToDomain)
+                            .collectList()
+                            .map(transactions -> toTransactionReport(creditCard.getCardNumber(), transactions)));
+        }
+        return report.switchIfEmpty(Mono.error(() -> new IllegalArgumentException(
+                "La tarjeta de credito con número " + creditId + " no existe")));
+    }
 
+    private TransactionReport toTransactionReport(String cardNumber, List<Transaction> transactions) {
+        TransactionReport report = new TransactionReport();
+        report.setCardNumber(cardNumber);
+        report.setTransactions(transactions);
+        report.setTransactionCount(transactions.size());
+        report.setGenerationDate(new Date());
+        return report;
+    }
 }
@@ -0,0 +1,388 @@
+package nnt_data.credits_microservice.domain.service;
+
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.domain.utils.Money;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapper;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.model.Transaction;
+import nnt_data.credits_microservice.model.TransactionBatchItemResult;
+import nnt_data.credits_microservice.model.TransactionBatchResult;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+/**
+ * Componente TransactionBatchProcessor que procesa lotes de transacciones.
+ *
+ * - process: Valida cada fila, agrupa las filas válidas por creditId y simula en memoria, en el orden
+ *   recibido, el efecto de cada fila sobre el saldo del crédito con las mismas reglas que
+ *   CreditTransactionValidator y SimpleTransactionValidator.
+ *   - Aplica el efecto neto de las filas aceptadas de cada crédito en una sola actualización condicional
+ *     que además exige que el saldo siga siendo el que se usó en la simulación (compare-and-set). Si otra
+ *     operación lo cambió, vuelve a leer el crédito y a simular sus filas sobre el saldo vigente, hasta
+ *     credits.transactions.batch.max-attempts intentos; agotados, rechaza las filas del crédito.
+ *   - Inserta todas las transacciones aceptadas en una única escritura masiva no ordenada.
+ *   - Si la escritura masiva informa qué inserciones fallaron (BulkOperationException), revierte solo el
+ *     efecto de esas filas sobre el saldo y las marca como rechazadas. Cualquier otro error (timeout,
+ *     conexión cortada) deja incierto qué se escribió: no revierte nada y devuelve el error.
+ *   - Avisa cada transacción aceptada a los TransactionRecordedListener.
+ *   - Devuelve un TransactionBatchResult con el resultado de cada fila; las rechazadas llevan el ErrorCode
+ *     del motivo.
+ *
+ * Los créditos se leen de MongoDB y no de CreditCache porque la simulación decide con su saldo; los
+ * documentos que devuelven las actualizaciones reemplazan a los de la caché.
+ *
+ * Validar solo el efecto neto contra el saldo vigente no basta: con 0 disponible y un lote "SPENT 100,
+ * PAYMENT 100" simulado sobre 100, el neto es 0 y el gasto se aceptaría sin saldo. Por eso la actualización
+ * se condiciona al saldo leído, y cada fila queda validada en orden contra el saldo real.
+ *
+ * Un lote cuesta una lectura de créditos, una actualización por crédito y una inserción masiva,
+ * en lugar de tres operaciones por fila; cada conflicto suma una lectura y una actualización del crédito.
+ *
+ * Configuración:
+ * - credits.transactions.batch.max-size: Máximo de transacciones por lote (por defecto 10000). Un lote
+ *   mayor se rechaza completo con BATCH_TOO_LARGE.
+ * - credits.transactions.batch.max-attempts: Intentos de aplicar las filas de un crédito cuyo saldo cambia
+ *   durante el lote (por defecto 3).
+ */
+@Component
+public class TransactionBatchProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionBatchProcessor.class);
+
+    private final CreditRepository creditRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final TransactionRecordedPublisher transactionRecordedPublisher;
+    private final CreditCache creditCache;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+
+    public TransactionBatchProcessor(CreditRepository creditRepository,
+                                     TransactionRepository transactionRepository,
+                                     TransactionMapper transactionMapper,
+                                     TransactionRecordedPublisher transactionRecordedPublisher,
+                                     CreditCache creditCache,
+                                     @Value("${credits.transactions.batch.max-size:10000}") int maxBatchSize,
+                                     @Value("${credits.transactions.batch.max-attempts:3}") int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("credits.transactions.batch.max-attempts debe ser mayor a cero");
+        }
+        this.creditRepository = creditRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionMapper = transactionMapper;
+        this.transactionRecordedPublisher = transactionRecordedPublisher;
+        this.creditCache = creditCache;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Mono<TransactionBatchResult> process(List<Transaction> transactions) {
+        if (transactions.size() > maxBatchSize) {
+            return Mono.error(new DomainException(ErrorCode.BATCH_TOO_LARGE,
+                    "El lote excede el máximo de " + maxBatchSize + " transacciones"));
+        }
+        Date now = new Date();
+        List<BatchRow> rows = new ArrayList<>(transactions.size());
+        Map<String, List<BatchRow>> rowsByCredit = new LinkedHashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            BatchRow row = new BatchRow(i, transactions.get(i));
+            rows.add(row);
+            if (!checkRow(row)) {
+                continue;
+            }
+            row.transaction.setDate(now);
+            rowsByCredit.computeIfAbsent(row.transaction.getCreditId(), creditId -> new ArrayList<>()).add(row);
+        }
+        if (rowsByCredit.isEmpty()) {
+            return Mono.just(toResult(rows));
+        }
+        return creditRepository.findAllById(rowsByCredit.keySet())
+                .collectMap(CreditBaseEntity::getCreditId)
+                .flatMapMany(credits -> Flux.fromIterable(rowsByCredit.entrySet())
+                        .flatMap(entry -> applyCreditRows(credits.get(entry.getKey()), entry.getValue(), 1)))
+                .then(Mono.defer(() -> insertAccepted(rows)))
+                .thenMany(Flux.defer(() -> Flux.fromIterable(rows)))
+                .filter(BatchRow::isAccepted)
+                .concatMap(row -> transactionRecordedPublisher.publish(row.transaction))
+                .then(Mono.fromSupplier(() -> toResult(rows)));
+    }
+
+    private boolean checkRow(BatchRow row) {
+        Transaction transaction = row.transaction;
+        if (transaction.getCreditId() == null || transaction.getCreditId().isBlank()) {
+            return row.reject(ErrorCode.CREDIT_ID_REQUIRED);
+        }
+        if (transaction.getType() == null) {
+            return row.reject(ErrorCode.INVALID_TRANSACTION_TYPE);
+        }
+        if (transaction.getAmount() == null || !(transaction.getAmount() > 0)) {
+            return row.reject(ErrorCode.INVALID_AMOUNT);
+        }
+        try {
+            row.amountCents = Money.toCents(transaction.getAmount());
+        } catch (IllegalArgumentException e) {
+            return row.reject(ErrorCode.INVALID_AMOUNT, e.getMessage());
+        }
+        if (row.amountCents <= 0) {
+            return row.reject(ErrorCode.INVALID_AMOUNT);
+        }
+        return true;
+    }
+
+    private Mono<Void> applyCreditRows(CreditBaseEntity credit, List<BatchRow> rows, int attempt) {
+        if (credit == null) {
+            rows.forEach(row -> row.reject(ErrorCode.CREDIT_NOT_FOUND));
+            return Mono.empty();
+        }
+        rows.forEach(BatchRow::reset);
+        switch (credit.getType()) {
+            case CREDIT_CARD:
+                simulateCreditCard(credit, rows);
+                break;
+            case SIMPLE_CREDIT:
+                simulateSimpleCredit(credit, rows);
+                break;
+            default:
+                rows.forEach(row -> row.reject(ErrorCode.TRANSACTION_REJECTED,
+                        "Tipo de cuenta no soportado: " + credit.getType()));
+                return Mono.empty();
+        }
+        List<BatchRow> accepted = rows.stream().filter(BatchRow::isAccepted).toList();
+        if (accepted.isEmpty()) {
+            return Mono.empty();
+        }
+        long netDelta = 0L;
+        for (BatchRow row : accepted) {
+            netDelta += row.delta;
+        }
+        return applyDeltaIfUnchanged(credit, netDelta)
+                .hasElement()
+                .flatMap(applied -> {
+                    if (applied) {
+                        return Mono.empty();
+                    }
+                    if (attempt >= maxAttempts) {
+                        accepted.forEach(row -> row.reject(ErrorCode.CREDIT_BALANCE_CHANGED));
+                        return Mono.empty();
+                    }
+                    return creditRepository.findById(credit.getCreditId())
+                            .map(Optional::of)
+                            .defaultIfEmpty(Optional.empty())
+                            .flatMap(fresh -> applyCreditRows(fresh.orElse(null), rows, attempt + 1));
+                });
+    }
+
+    private void simulateCreditCard(CreditBaseEntity credit, List<BatchRow> rows) {
+        long available = credit.getAvailableCreditCents();
+        long limit = credit.getAmountCents();
+        for (BatchRow row : rows) {
+            long amount = row.amountCents;
+            if (Transaction.TypeEnum.SPENT.equals(row.transaction.getType())) {
+                if (available - amount < 0) {
+                    row.reject(ErrorCode.INSUFFICIENT_CREDIT);
+                } else {
+                    available -= amount;
+                    row.accept(credit, -amount);
+                }
+            } else if (Transaction.TypeEnum.PAYMENT.equals(row.transaction.getType())) {
+                if (available + amount > limit) {
+                    row.reject(ErrorCode.PAYMENT_EXCEEDS_LIMIT);
+                } else {
+                    available += amount;
+                    row.accept(credit, amount);
+                }
+            } else {
+                row.reject(ErrorCode.INVALID_TRANSACTION_TYPE);
+            }
+        }
+    }
+
+    private void simulateSimpleCredit(CreditBaseEntity credit, List<BatchRow> rows) {
+        long paid = credit.getAmountPaidCents();
+        long limit = credit.getAmountCents();
+        for (BatchRow row : rows) {
+            long amount = row.amountCents;
+            if (!Transaction.TypeEnum.PAYMENT.equals(row.transaction.getType())) {
+                row.reject(ErrorCode.PAYMENT_ONLY_CREDIT);
+            } else if (paid + amount > limit) {
+                row.reject(ErrorCode.PAYMENT_EXCEEDS_TOTAL);
+            } else {
+                paid += amount;
+                row.accept(credit, amount);
+            }
+        }
+    }
+
+    private Mono<CreditBaseEntity> applyDeltaIfUnchanged(CreditBaseEntity credit, long delta) {
+        Mono<CreditBaseEntity> updated;
+        switch (credit.getType()) {
+            case CREDIT_CARD:
+                updated = creditRepository.applyAvailableCreditDeltaIfUnchanged(credit.getCreditId(),
+                        credit.getAvailableCreditCents(), delta);
+                break;
+            case SIMPLE_CREDIT:
+                updated = creditRepository.applyAmountPaidDeltaIfUnchanged(credit.getCreditId(),
+                        credit.getAmountPaidCents(), delta);
+                break;
+            default:
+                return Mono.empty();
+        }
+        return updated.doOnNext(creditCache::put);
+    }
+
+    private Mono<CreditBaseEntity> applyDelta(CreditBaseEntity credit, long delta) {
+        Mono<CreditBaseEntity> updated;
+        switch (credit.getType()) {
+            case CREDIT_CARD:
+                updated = creditRepository.applyAvailableCreditDelta(credit.getCreditId(), delta);
+                break;
+            case SIMPLE_CREDIT:
+                updated = creditRepository.applyAmountPaidDelta(credit.getCreditId(), delta);
+                break;
+            default:
+                return Mono.empty();
+        }
+        return updated.doOnNext(creditCache::put);
+    }
+
+    private Mono<Void> insertAccepted(List<BatchRow> rows) {
+        List<BatchRow> accepted = rows.stream().filter(BatchRow::isAccepted).toList();
+        if (accepted.isEmpty()) {
+            return Mono.empty();
+        }
+        accepted.forEach(row -> row.transaction.setTransactionId(new ObjectId().toHexString()));
+        return Flux.fromIterable(accepted)
+                .map(row -> transactionMapper.mapToEntity(row.transaction))
+                .collectList()
+                .flatMap(entities -> transactionRepository.insertAllUnordered(entities).then())
+                .onErrorResume(e -> {
+                    List<Integer> failedPositions = failedPositions(e);
+                    if (failedPositions.isEmpty()) {
+                        log.error("Resultado incierto al insertar el lote; los saldos de los créditos {} "
+                                + "quedan aplicados sin revertir: {}", creditIds(accepted), e.getMessage());
+                        return Mono.error(e);
+                    }
+                    log.error("Error al insertar el lote de transacciones: {}", e.getMessage());
+                    return compensate(accepted, failedPositions);
+                });
+    }
+
+    private List<Integer> failedPositions(Throwable error) {
+        if (error instanceof BulkOperationException bulkError) {
+            return bulkError.getErrors().stream().map(writeError -> writeError.getIndex()).toList();
+        }
+        return List.of();
+    }
+
+    private List<String> creditIds(List<BatchRow> rows) {
+        return rows.stream().map(row -> row.credit.getCreditId()).distinct().toList();
+    }
+
+    private Mono<Void> compensate(List<BatchRow> accepted, List<Integer> failedPositions) {
+        Map<CreditBaseEntity, Long> deltas = new LinkedHashMap<>();
+        for (Integer position : failedPositions) {
+            BatchRow row = accepted.get(position);
+            deltas.merge(row.credit, row.delta, Long::sum);
+            row.reject(ErrorCode.TRANSACTION_NOT_RECORDED);
+            row.transaction.setTransactionId(null);
+        }
+        return Flux.fromIterable(deltas.entrySet())
+                .flatMap(entry -> applyDelta(entry.getKey(), -entry.getValue())
+                        .switchIfEmpty(Mono.fromRunnable(() -> log.warn(
+                                "No se pudo revertir el saldo del crédito {} tras un fallo de inserción",
+                                entry.getKey().getCreditId()))))
+                .then();
+    }
+
+    private TransactionBatchResult toResult(List<BatchRow> rows) {
+        List<TransactionBatchItemResult> results = rows.stream()
+                .map(BatchRow::toItemResult)
+                .collect(Collectors.toList());
+        int accepted = (int) rows.stream().filter(BatchRow::isAccepted).count();
+        TransactionBatchResult result = new TransactionBatchResult();
+        result.setAccepted(accepted);
+        result.setRejected(rows.size() - accepted);
+        result.setResults(results);
+        return result;
+    }
+
+    /**
+     * Estado de una fila del lote: el monto en centavos, el crédito y el delta de saldo que aporta si es
+     * aceptada, o el motivo del rechazo.
+     */
+    private static final class BatchRow {
+        private final int index;
+        private final Transaction transaction;
+        private long amountCents;
+        private CreditBaseEntity credit;
+        private long delta;
+        private boolean accepted;
+        private ErrorCode rejectionCode;
+        private String rejection;
+
+        private BatchRow(int index, Transaction transaction) {
+            this.index = index;
+            this.transaction = transaction;
+        }
+
+        private void reset() {
+            this.credit = null;
+            this.delta = 0L;
+            this.accepted = false;
+            this.rejectionCode = null;
+            this.rejection = null;
+        }
+
+        private void accept(CreditBaseEntity credit, long delta) {
+            this.credit = credit;
+            this.delta = delta;
+            this.accepted = true;
+        }
+
+        private boolean reject(ErrorCode code) {
+            return reject(code, code.getMessage());
+        }
+
+        private boolean reject(ErrorCode code, String message) {
+            this.accepted = false;
+            this.rejectionCode = code;
+            this.rejection = message;
+            return false;
+        }
+
+        private boolean isAccepted() {
+            return accepted;
+        }
+
+        private TransactionBatchItemResult toItemResult() {
+            TransactionBatchItemResult item = new TransactionBatchItemResult();
+            item.setIndex(index);
+            if (accepted) {
+                item.setStatus(TransactionBatchItemResult.StatusEnum.ACCEPTED);
+                item.setTransaction(transaction);
+            } else {
+                item.setStatus(TransactionBatchItemResult.StatusEnum.REJECTED);
+                item.setCode(rejectionCode.name());
+                item.setMessage(rejection);
+            }
+            return item;
+        }
+    }
+}
@@ -2,23 +2,40 @@ package nnt_data.credits_microservice.domain.service;
 
 import lombok.RequiredArgsConstructor;
 import nnt_data.credits_microservice.application.port.TransactionOperationsPort;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.domain.validator.TransactionValidationContext;
 import nnt_data.credits_microservice.domain.validator.ValidatorFactory;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.concurrency.CreditLaneScheduler;
+import nnt_data.credits_microservice.infrastructure.config.PaginationSettings;
+import nnt_data.credits_microservice.infrastructure.idempotency.TransactionIdempotencyStore;
 import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapper;
-import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.writer.TransactionGroupCommitWriter;
+import nnt_data.credits_microservice.infrastructure.persistence.writer.TransactionInsertRejectedException;
 import nnt_data.credits_microservice.model.Transaction;
+import nnt_data.credits_microservice.model.TransactionBatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.Date;
+import java.util.List;
 /**
  * Servicio TransactionOperationService que implementa la interfaz TransactionOperationsPort.
  *
- * - createTransaction: Crea una nueva transacción, establece la fecha actual y valida la transacción
- *   utilizando el validador correspondiente. Guarda la transacción en el repositorio y la convierte
- *   a su dominio.
- * - getTransactions: Recupera todas las transacciones del repositorio y las convierte a su dominio.
+ * - createTransaction: Fija la fecha y, en el carril del crédito (CreditLaneScheduler), valida la transacción
+ *   con el crédito leído una sola vez, la guarda con TransactionGroupCommitWriter y la avisa a los
+ *   TransactionRecordedListener; si con seguridad no se guardó, revierte el saldo y falla con
+ *   TRANSACTION_REJECTED. Con Idempotency-Key delega en TransactionIdempotencyStore.
+ * - createTransactions: Registra un lote de transacciones delegando en TransactionBatchProcessor.
+ * - getTransactions: Recupera las transacciones en orden de transactionId, desde el cursor after y hasta
+ *   limit elementos si se indican, leyendo el cursor de MongoDB en lotes y pidiendo la emisión por tramos.
  * - getTransactionByCreditId: Recupera las transacciones asociadas a un ID de crédito específico,
  *   las convierte a su dominio y maneja posibles errores.
  *
@@ -28,40 +45,109 @@ import java.util.Date;
  * - transactionMapper: Mapeador para convertir entre entidades y dominios de transacciones.
  * - validatorFactory: Fábrica de validadores para validar transacciones según el tipo de crédito.
  * - transactionRepository: Repositorio para operaciones de persistencia de transacciones.
- * - creditRepository: Repositorio para operaciones de persistencia de créditos.
+ * - creditCache: Caché de lectura de créditos.
+ * - transactionBatchProcessor: Procesador de lotes de transacciones.
+ * - creditLaneScheduler: Planificador que serializa las operaciones por crédito.
+ * - transactionGroupCommitWriter: Escritor que agrupa las inserciones de transacciones.
+ * - transactionIdempotencyStore: Almacén de Idempotency-Keys ya procesadas.
+ * - paginationSettings: Límites de página y parámetros de streaming.
+ * - transactionRecordedPublisher: Notifica cada transacción registrada a los listeners.
  */
 @Service
 @RequiredArgsConstructor
 public class TransactionOperationService implements TransactionOperationsPort {
 
+    private static final Logger log = LoggerFactory.getLogger(TransactionOperationService.class);
+
     private final TransactionMapper transactionMapper;
     private final ValidatorFactory validatorFactory;
     private final TransactionRepository transactionRepository;
-    private final CreditRepository creditRepository;
+    private final CreditCache creditCache;
+    private final TransactionBatchProcessor transactionBatchProcessor;
+    private final CreditLaneScheduler creditLaneScheduler;
+    private final TransactionGroupCommitWriter transactionGroupCommitWriter;
+    private final TransactionIdempotencyStore transactionIdempotencyStore;
+    private final PaginationSettings paginationSettings;
+    private final TransactionRecordedPublisher transactionRecordedPublisher;
 
     @Override
     public Mono<Transaction> createTransaction(Transaction transaction) {
         transaction.setDate(new Date());
-        return creditRepository.findById(transaction.getCreditId())
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Credit not found")))
+        return creditLaneScheduler.submit(transaction.getCreditId(), () -> validate(transaction)
+                .flatMap(this::record));
+    }
+
+    @Override
+    public Mono<Transaction> createTransaction(Transaction transaction, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return createTransaction(transaction);
+        }
+        return transactionIdempotencyStore.execute(idempotencyKey, transaction,
+                () -> createTransaction(transaction));
+    }
+
+    private Mono<TransactionValidationContext> validate(Transaction transaction) {
+        return findCredit(transaction.getCreditId())
+                .switchIfEmpty(DomainException.of(ErrorCode.CREDIT_NOT_FOUND))
                 .flatMap(credit -> validatorFactory.getTransactionValidator(credit)
-                        .validate(transaction)
-                        .onErrorMap(e -> new IllegalArgumentException(e.getMessage())))
-                .flatMap(transactionMapper::toEntity)
-                .flatMap(transactionRepository::save)
-                .flatMap(transactionMapper::toDomain);
+                        .validate(new TransactionValidationContext(transaction, credit))
+                        .onErrorMap(e -> e instanceof IllegalArgumentException && !(e instanceof DomainException),
+                                e -> new DomainException(ErrorCode.TRANSACTION_REJECTED, e.getMessage())));
+    }
+
+    private Mono<Transaction> record(TransactionValidationContext context) {
+        return Mono.fromCallable(() -> transactionMapper.mapToEntity(context.getTransaction()))
+                .onErrorResume(e -> compensate(context, e))
+                .flatMap(entity -> transactionGroupCommitWriter.insert(entity)
+                        .onErrorResume(TransactionInsertRejectedException.class, e -> compensate(context, e)))
+                .map(transactionMapper::mapToDomain)
+                .flatMap(recorded -> transactionRecordedPublisher.publish(recorded).thenReturn(recorded));
+    }
+
+    private Mono<TransactionEntity> compensate(TransactionValidationContext context, Throwable error) {
+        String creditId = context.getTransaction().getCreditId();
+        log.error("Error al registrar la transacción del crédito {}: {}", creditId, error.getMessage());
+        return validatorFactory.getTransactionValidator(context.getCredit()).revert(context)
+                .map(reverted -> true)
+                .defaultIfEmpty(false)
+                .onErrorReturn(false)
+                .flatMap(reverted -> {
+                    if (reverted) {
+                        return Mono.error(new DomainException(ErrorCode.TRANSACTION_REJECTED,
+                                "No se pudo registrar la transacción: " + error.getMessage()));
+                    }
+                    log.warn("No se pudo revertir el saldo del crédito {} tras un fallo de inserción", creditId);
+                    return Mono.error(error);
+                });
+    }
+
+    private Mono<CreditBaseEntity> findCredit(String creditId) {
+        if (!creditCache.isStrictValidations()) {
+            return creditCache.findById(creditId);
+        }
+        return creditCache.findInMemory(creditId)
+                .filter(cached -> !validatorFactory.getTransactionValidator(cached).requiresFreshCredit())
+                .switchIfEmpty(Mono.defer(() -> creditCache.findById(creditId, true)));
+    }
+
+    @Override
+    public Mono<TransactionBatchResult> createTransactions(List<Transaction> transactions) {
+        return transactionBatchProcessor.process(transactions);
     }
 
     @Override
-    public Flux<Transaction> getTransactions() {
-        return transactionRepository.findAll()
-                .flatMap(transactionMapper::toDomain);
+    public Flux<Transaction> getTransactions(String after, Integer limit) {
+        return Mono.fromCallable(() -> paginationSettings.resolveLimit(limit))
+                .flatMapMany(pageLimit -> transactionRepository.findPageAfter(after, pageLimit,
+                        paginationSettings.getCursorBatchSize()))
+                .limitRate(paginationSettings.getRequestRate())
+                .map(transactionMapper::mapToDomain);
     }
 
     @Override
     public Flux<Transaction> getTransactionByCreditId(String creditId) {
         return transactionRepository.findByCreditId(creditId)
-                .flatMap(entity -> transactionMapper.toDomain(entity))
+                .map(transactionMapper::mapToDomain)
                 .switchIfEmpty(Flux.empty())
                 .onErrorResume(error -> Flux.error(new RuntimeException("Error al obtener las transacciones por ID del credito")));
     }
@@ -0,0 +1,39 @@
+package nnt_data.credits_microservice.domain.service;
+
+import nnt_data.credits_microservice.application.port.TransactionRecordedListener;
+import nnt_data.credits_microservice.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+/**
+ * Componente TransactionRecordedPublisher que avisa a todos los TransactionRecordedListener registrados.
+ *
+ * - publish: Notifica una transacción ya confirmada a cada listener, en orden. Los errores de un listener
+ *   se registran en el log y no interrumpen al resto ni a la operación que registró la transacción.
+ */
+@Component
+public class TransactionRecordedPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionRecordedPublisher.class);
+
+    private final List<TransactionRecordedListener> listeners;
+
+    public TransactionRecordedPublisher(List<TransactionRecordedListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    public Mono<Void> publish(Transaction transaction) {
+        return Flux.fromIterable(listeners)
+                .concatMap(listener -> listener.onTransactionRecorded(transaction)
+                        .onErrorResume(e -> {
+                            log.error("Error al notificar la transacción {} a {}: {}", transaction.getTransactionId(),
+                                    listener.getClass().getSimpleName(), e.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+}
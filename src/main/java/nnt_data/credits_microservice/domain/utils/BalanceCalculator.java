@@ -4,12 +4,20 @@ import nnt_data.credits_microservice.model.Transaction;
 
 
 public class BalanceCalculator {
-    public static Double calculateDailyBalance(Double currentBalance, Transaction transaction, String creditId) {
-        if(transaction.getType().equals(Transaction.TypeEnum.PAYMENT)){
-            return currentBalance = (transaction.getAmount() - transaction.getAmount());
-        } else if (transaction.getType().equals(Transaction.TypeEnum.SPENT)) {
-            return currentBalance = (currentBalance + transaction.getAmount());
+    public static long calculateDailyBalance(long currentBalanceCents, Transaction transaction) {
+        return applyTransaction(currentBalanceCents, transaction.getType(), Money.toCents(transaction.getAmount()));
+    }
+
+    /**
+     * Versión en centavos de calculateDailyBalance, sin conversiones ni objetos intermedios: un pago deja el
+     * saldo en cero y un consumo lo incrementa en el monto; cualquier otro tipo no lo modifica.
+     */
+    public static long applyTransaction(long currentBalanceCents, Transaction.TypeEnum type, long amountCents) {
+        if (type == Transaction.TypeEnum.PAYMENT) {
+            return 0L;
+        } else if (type == Transaction.TypeEnum.SPENT) {
+            return currentBalanceCents + amountCents;
         }
-        return currentBalance;
+        return currentBalanceCents;
     }
 }
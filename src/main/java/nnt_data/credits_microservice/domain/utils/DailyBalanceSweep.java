@@ -0,0 +1,115 @@
+package nnt_data.credits_microservice.domain.utils;
+
+import nnt_data.credits_microservice.model.Transaction;
+
+import java.time.LocalDate;
+/**
+ * Clase DailyBalanceSweep que calcula el saldo promedio diario de un periodo en una sola pasada.
+ *
+ * - accept: Aplica una transacción de un día de negocio (días desde 1970-01-01, ver BusinessCalendar). Las
+ *   transacciones deben llegar ordenadas por fecha ascendente; las que caen fuera del periodo se ignoran.
+ * - acceptDay: Aplica de una vez el efecto de todas las transacciones de un día, ya resumido (por ejemplo por
+ *   una agregación de MongoDB): si hubo un pago el saldo pasa a ser los consumos posteriores al último pago,
+ *   si no, se le suman los consumos del día. Los días deben llegar en orden ascendente.
+ * - averageCents: Suma el saldo actual para los días restantes y devuelve el promedio en centavos
+ *   redondeado HALF_UP, sin modificar el estado del recorrido.
+ * - average: averageCents convertido al monto del modelo (dos decimales).
+ * - resume: Reconstruye un recorrido a partir de su estado guardado (día actual, saldo y suma de los días
+ *   ya cerrados), por ejemplo desde un acumulador mensual.
+ *
+ * Al llegar una transacción de un día posterior se suman de una vez los saldos de los días intermedios
+ * (saldo × días), así que el costo es O(transacciones) y la memoria es constante. Los días son
+ * enteros ya calculados en la zona de negocio (TransactionEntity.businessDay), así que el recorrido no hace
+ * conversiones de calendario; los saldos y los montos son centavos (long): las sumas son exactas, en
+ * cualquier orden, y el recorrido no crea objetos.
+ */
+public final class DailyBalanceSweep {
+
+    private final long startDay;
+    private final long endDay;
+
+    private long currentDay;
+    private long balance;
+    private long sumOfBalances;
+
+    public DailyBalanceSweep(long initialBalanceCents, LocalDate startDay, LocalDate endDay) {
+        this(startDay.toEpochDay(), endDay.toEpochDay(), startDay.toEpochDay(), initialBalanceCents, 0L);
+    }
+
+    private DailyBalanceSweep(long startDay, long endDay, long currentDay, long balance, long sumOfBalances) {
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.currentDay = currentDay;
+        this.balance = balance;
+        this.sumOfBalances = sumOfBalances;
+    }
+
+    public static DailyBalanceSweep resume(LocalDate startDay, LocalDate endDay, LocalDate currentDay,
+                                           long balanceCents, long sumOfBalancesCents) {
+        if (currentDay.isBefore(startDay)) {
+            throw new IllegalArgumentException("El día actual no puede ser anterior al inicio del periodo");
+        }
+        return new DailyBalanceSweep(startDay.toEpochDay(), endDay.toEpochDay(), currentDay.toEpochDay(),
+                balanceCents, sumOfBalancesCents);
+    }
+
+    public DailyBalanceSweep accept(long businessDay, Transaction.TypeEnum type, long amountCents) {
+        if (!advanceTo(businessDay)) {
+            return this;
+        }
+        if (businessDay < currentDay) {
+            throw new IllegalArgumentException("Las transacciones deben estar ordenadas por fecha ascendente");
+        }
+        balance = BalanceCalculator.applyTransaction(balance, type, amountCents);
+        return this;
+    }
+
+    public DailyBalanceSweep acceptDay(long businessDay, boolean reset, long spentCents) {
+        if (!advanceTo(businessDay)) {
+            return this;
+        }
+        if (businessDay < currentDay) {
+            throw new IllegalArgumentException("Los días deben estar ordenados de forma ascendente");
+        }
+        balance = reset ? spentCents : balance + spentCents;
+        return this;
+    }
+
+    public long averageCents() {
+        long remainingDays = currentDay > endDay ? 0 : endDay - currentDay + 1;
+        long sum = sumOfBalances + balance * remainingDays;
+        long daysInPeriod = endDay - startDay + 1;
+        return Money.divideHalfUp(sum, daysInPeriod);
+    }
+
+    public double average() {
+        return Money.toAmount(averageCents());
+    }
+
+    public LocalDate getCurrentDay() {
+        return LocalDate.ofEpochDay(currentDay);
+    }
+
+    public long getBalanceCents() {
+        return balance;
+    }
+
+    public long getSumOfBalancesCents() {
+        return sumOfBalances;
+    }
+
+    /**
+     * Cierra los días anteriores a businessDay; devuelve false si el día cae fuera del periodo.
+     */
+    private boolean advanceTo(long businessDay) {
+        if (businessDay < startDay) {
+            return false;
+        }
+        long closedUntil = Math.min(businessDay, endDay + 1);
+        if (currentDay < closedUntil) {
+            sumOfBalances = sumOfBalances + balance * (closedUntil - currentDay);
+            currentDay = closedUntil;
+        }
+        return currentDay <= endDay;
+    }
+}
@@ -1,15 +0,0 @@
-package nnt_data.credits_microservice.domain.utils;
-
-import java.time.LocalDate;
-import java.time.ZoneId;
-import java.util.Date;
-
-public class DateUtils {
-    public static Date toDate(LocalDate localDate) {
-        return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
-    }
-
-    public static LocalDate toLocalDate(Date date) {
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-    }
-}
@@ -0,0 +1,57 @@
+package nnt_data.credits_microservice.domain.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+/**
+ * Clase Money con las conversiones entre los montos del modelo OpenAPI (Double en unidades) y los montos
+ * en centavos (long) que usan las entidades y los cálculos internos.
+ *
+ * - toCents: Convierte un monto a centavos redondeando HALF_UP; null se toma como cero. Un monto no finito
+ *   o que no cabe en un long lanza IllegalArgumentException.
+ * - toAmount: Convierte centavos al monto del modelo.
+ * - divideHalfUp: División entera redondeada HALF_UP, para promedios en centavos sin pasar por BigDecimal.
+ *
+ * Solo toCents usa BigDecimal, y solo en el borde (al recibir un monto del API o de un documento antiguo),
+ * para que montos como 0.29 no pierdan un centavo por la representación binaria del double.
+ */
+public final class Money {
+
+    private static final int SCALE = 2;
+    private static final double CENTS_PER_UNIT = 100.0;
+
+    private Money() {
+    }
+
+    public static long toCents(Double amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Monto no válido: " + amount);
+        }
+        try {
+            return BigDecimal.valueOf(amount)
+                    .movePointRight(SCALE)
+                    .setScale(0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Monto fuera de rango: " + amount);
+        }
+    }
+
+    public static double toAmount(long cents) {
+        return cents / CENTS_PER_UNIT;
+    }
+
+    public static long divideHalfUp(long dividend, long divisor) {
+        if (divisor <= 0) {
+            throw new IllegalArgumentException("El divisor debe ser positivo");
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
@@ -1,6 +1,10 @@
 package nnt_data.credits_microservice.domain.validator;
 
 import lombok.RequiredArgsConstructor;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.domain.utils.Money;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.model.Transaction;
@@ -12,12 +16,16 @@ import reactor.core.publisher.Mono;
  * - validate: Método que valida una transacción basada en el tipo de transacción y el crédito asociado.
  *   - Si el tipo de transacción es SPENT, valida que haya suficiente crédito disponible.
  *   - Si el tipo de transacción es PAYMENT, valida que el pago no exceda el límite del crédito.
- *   - Si el tipo de transacción no es válido, lanza una excepción.
- *   - Si el crédito no se encuentra, lanza una excepción.
+ *   - Si el tipo de transacción no es válido, falla con INVALID_TRANSACTION_TYPE.
+ *   - Si el crédito no se encuentra, falla con CREDIT_NOT_FOUND.
+ *   Los rechazos por saldo son INSUFFICIENT_CREDIT y PAYMENT_EXCEEDS_LIMIT (ver DomainException).
+ * - revert: Devuelve al crédito disponible el monto de un gasto, o lo descuenta en el caso de un pago.
  *
- * Métodos privados:
- * - validateSpentTransaction: Valida y actualiza el crédito disponible para una transacción de gasto.
- * - validatePaymentTransaction: Valida y actualiza el crédito disponible para una transacción de pago.
+ * La validación y la actualización del saldo se hacen en una sola operación atómica del repositorio
+ * (applySpent / applyPayment), por lo que transacciones concurrentes sobre la misma tarjeta no pierden
+ * actualizaciones. El crédito llega ya cargado en el contexto, así que un rechazo no requiere
+ * consultas adicionales. El documento actualizado reemplaza al de CreditCache; como el saldo se valida en
+ * MongoDB, el crédito del contexto puede venir de la caché. El monto se pasa al repositorio en centavos.
  *
  * Utiliza Mono de Reactor para manejar las operaciones de manera reactiva.
  */
@@ -26,39 +34,34 @@ import reactor.core.publisher.Mono;
 public class CreditTransactionValidator implements TransactionValidator{
 
     private final CreditRepository creditRepository;
+    private final CreditCache creditCache;
 
     @Override
-    public Mono<Transaction> validate(Transaction entity) {
-        return creditRepository.findById(entity.getCreditId())
-                .flatMap(credit -> {
-                    if (Transaction.TypeEnum.SPENT.equals(entity.getType())) {
-                        return validateSpentTransaction(entity, credit);
-                    } else if (Transaction.TypeEnum.PAYMENT.equals(entity.getType())) {
-                        return validatePaymentTransaction(entity, credit);
-                    }
-                    return Mono.error(new IllegalArgumentException("Tipo de transacción no válido"));
-                })
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Crédito no encontrado")));
-    }
-
-    private Mono<Transaction> validateSpentTransaction(Transaction transaction, CreditBaseEntity credit) {
-        double newAvailableCredit = credit.getAvailableCredit() - transaction.getAmount();
-
-        if (newAvailableCredit < 0) {
-            return Mono.error(new IllegalArgumentException("Crédito disponible insuficiente"));
+    public Mono<TransactionValidationContext> validate(TransactionValidationContext context) {
+        Transaction entity = context.getTransaction();
+        if (context.getCredit() == null) {
+            return DomainException.of(ErrorCode.CREDIT_NOT_FOUND);
+        }
+        if (Transaction.TypeEnum.SPENT.equals(entity.getType())) {
+            return creditRepository.applySpent(entity.getCreditId(), Money.toCents(entity.getAmount()))
+                    .switchIfEmpty(DomainException.of(ErrorCode.INSUFFICIENT_CREDIT))
+                    .doOnNext(creditCache::put)
+                    .thenReturn(context);
+        } else if (Transaction.TypeEnum.PAYMENT.equals(entity.getType())) {
+            return creditRepository.applyPayment(entity.getCreditId(), Money.toCents(entity.getAmount()))
+                    .switchIfEmpty(DomainException.of(ErrorCode.PAYMENT_EXCEEDS_LIMIT))
+                    .doOnNext(creditCache::put)
+                    .thenReturn(context);
         }
-        return creditRepository.updateAvilableAmountByCreditId(credit.getCreditId(), newAvailableCredit)
-                .thenReturn(transaction);
+        return DomainException.of(ErrorCode.INVALID_TRANSACTION_TYPE);
     }
 
-    private Mono<Transaction> validatePaymentTransaction(Transaction transaction, CreditBaseEntity credit) {
-        double newAvailableCredit = credit.getAvailableCredit() + transaction.getAmount();
-
-        if (newAvailableCredit > credit.getAmount()) {
-            return Mono.error(new IllegalArgumentException("El pago excede el límite del crédito"));
-        }
-        credit.setAvailableCredit(newAvailableCredit);
-        return creditRepository.save(credit)
-                .thenReturn(transaction);
+    @Override
+    public Mono<CreditBaseEntity> revert(TransactionValidationContext context) {
+        Transaction entity = context.getTransaction();
+        long amountCents = Money.toCents(entity.getAmount());
+        long deltaCents = Transaction.TypeEnum.SPENT.equals(entity.getType()) ? amountCents : -amountCents;
+        return creditRepository.applyAvailableCreditDelta(entity.getCreditId(), deltaCents)
+                .doOnNext(creditCache::put);
     }
 }
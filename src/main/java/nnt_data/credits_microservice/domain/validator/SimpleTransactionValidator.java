@@ -1,10 +1,13 @@
 package nnt_data.credits_microservice.domain.validator;
 
 import lombok.RequiredArgsConstructor;
-import nnt_data.credits_microservice.infrastructure.persistence.mapper.CreditMapper;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.domain.utils.Money;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.model.CreditType;
-import nnt_data.credits_microservice.model.SimpleCredit;
 import nnt_data.credits_microservice.model.Transaction;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -13,45 +16,57 @@ import reactor.core.publisher.Mono;
  *
  * - Solo permite transacciones de tipo PAYMENT.
  * - Verifica que el crédito sea de tipo SIMPLE_CREDIT.
- * - Actualiza el monto pagado del crédito y valida que no exceda el monto total.
+ * - Suma el pago al monto pagado del crédito solo si no excede el monto total.
+ *
+ * El crédito se toma del TransactionValidationContext, sin volver a consultarlo, y un pago que ya excede su
+ * monto total se rechaza sin escribir. El pago se aplica con applyAmountPaidDelta, que valida el límite y
+ * suma el monto en una sola operación atómica, igual que CreditTransactionValidator con las tarjetas: un
+ * pago concurrente (otra instancia o un lote de TransactionBatchProcessor) no se pierde. Si la
+ * actualización no aplica, el rechazo es CREDIT_ALREADY_PAID o PAYMENT_EXCEEDS_TOTAL según el crédito del
+ * contexto; requiresFreshCredit pide que no venga de CreditCache para que ese motivo sea el vigente. El
+ * documento actualizado reemplaza al de la caché. Los rechazos son DomainException con su ErrorCode; un
+ * error de MongoDB en la actualización se propaga sin cambios, porque el pago pudo aplicarse.
+ * revert resta el pago del monto pagado cuando la transacción no se pudo registrar.
  */
 @Component
 @RequiredArgsConstructor
 public class SimpleTransactionValidator implements TransactionValidator {
 
     private final CreditRepository creditRepository;
-    private final CreditMapper creditMapper;
+    private final CreditCache creditCache;
 
     @Override
-    public Mono<Transaction> validate(Transaction entity) {
+    public boolean requiresFreshCredit() {
+        return true;
+    }
+
+    @Override
+    public Mono<TransactionValidationContext> validate(TransactionValidationContext context) {
+        Transaction entity = context.getTransaction();
         if (!Transaction.TypeEnum.PAYMENT.equals(entity.getType())) {
-            return Mono.error(new IllegalArgumentException("Solo se permiten transacciones de tipo payment para un credito simple"));
+            return DomainException.of(ErrorCode.PAYMENT_ONLY_CREDIT);
         }
-        return creditRepository.findById(entity.getCreditId())
+        return Mono.justOrEmpty(context.getCredit())
                 .filter(credit -> credit.getType() == CreditType.SIMPLE_CREDIT)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Crédito no encontrado o no es de tipo simple")))
-                .flatMap(creditMapper::toDomain)
-                .cast(SimpleCredit.class)
+                .switchIfEmpty(DomainException.of(ErrorCode.NOT_A_SIMPLE_CREDIT))
                 .flatMap(credit -> {
-                    try {
-                        double newAmountPaid = (credit.getAmountPaid() != null ? credit.getAmountPaid() : 0.0)
-                                + entity.getAmount();
-
-                        if (newAmountPaid > credit.getAmount()) {
-                            return Mono.error(new IllegalArgumentException("El pago excede el monto total del crédito"));
-                        }
-
-                        if (Double.compare(credit.getAmountPaid(), credit.getAmount()) == 0) {
-                            return Mono.error(new IllegalArgumentException("El crédito ya está pagado en su totalidad"));
-                        }
-
-                        return creditMapper.toEntity(credit)
-                                .flatMap(creditEntity -> creditRepository.updateAmountPaidByCreditId(entity.getCreditId(), newAmountPaid)
-                                        .thenReturn(entity))
-                                .onErrorMap(e -> new IllegalArgumentException("Error al actualizar el crédito: " + e.getMessage()));
-                    } catch (Exception e) {
-                        return Mono.error(new IllegalArgumentException("Error en la validación: " + e.getMessage()));
+                    long amountCents = Money.toCents(entity.getAmount());
+                    if (credit.getAmountPaidCents() + amountCents > credit.getAmountCents()) {
+                        return DomainException.of(ErrorCode.PAYMENT_EXCEEDS_TOTAL);
                     }
+                    return creditRepository.applyAmountPaidDelta(entity.getCreditId(), amountCents)
+                            .switchIfEmpty(DomainException.of(credit.getAmountPaidCents() == credit.getAmountCents()
+                                    ? ErrorCode.CREDIT_ALREADY_PAID
+                                    : ErrorCode.PAYMENT_EXCEEDS_TOTAL))
+                            .doOnNext(creditCache::put)
+                            .thenReturn(context);
                 });
     }
+
+    @Override
+    public Mono<CreditBaseEntity> revert(TransactionValidationContext context) {
+        Transaction entity = context.getTransaction();
+        return creditRepository.applyAmountPaidDelta(entity.getCreditId(), -Money.toCents(entity.getAmount()))
+                .doOnNext(creditCache::put);
+    }
 }
\ No newline at end of file
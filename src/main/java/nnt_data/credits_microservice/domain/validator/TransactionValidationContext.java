@@ -0,0 +1,20 @@
+package nnt_data.credits_microservice.domain.validator;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.model.Transaction;
+/**
+ * Contexto de validación de una transacción.
+ *
+ * - transaction: Transacción que se está validando.
+ * - credit: Crédito asociado, ya cargado por TransactionOperationService al elegir el validador.
+ *
+ * Se pasa a lo largo del pipeline de validación para que cada transacción lea su crédito una sola vez.
+ */
+@Getter
+@RequiredArgsConstructor
+public class TransactionValidationContext {
+    private final Transaction transaction;
+    private final CreditBaseEntity credit;
+}
@@ -1,9 +1,23 @@
 package nnt_data.credits_microservice.domain.validator;
 
-import nnt_data.credits_microservice.model.Transaction;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import reactor.core.publisher.Mono;
 /**
  * Interfaz TransactionValidator que extiende Validator para validar transacciones.
+ *
+ * Valida un TransactionValidationContext, que incluye la transacción y el crédito ya cargado,
+ * de modo que los validadores no necesitan volver a consultar el crédito.
+ *
+ * - requiresFreshCredit: Indica si la validación decide con el saldo del crédito del contexto, en cuyo caso
+ *   ese crédito no puede venir de CreditCache sino de MongoDB (modo strict).
+ * - revert: Deshace el movimiento de saldo que aplicó validate para el contexto, cuando la transacción no
+ *   se pudo registrar. Devuelve el crédito actualizado, o vacío si el movimiento inverso no se pudo aplicar.
  */
-public interface TransactionValidator extends Validator<Transaction> {
+public interface TransactionValidator extends Validator<TransactionValidationContext> {
 
+    Mono<CreditBaseEntity> revert(TransactionValidationContext context);
+
+    default boolean requiresFreshCredit() {
+        return false;
+    }
 }
@@ -0,0 +1,77 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+/**
+ * Componente BsonCacheCodec que convierte los valores de SecondLevelCache a BSON binario.
+ *
+ * - encode: Convierte el valor con el mismo MongoConverter que usan los repositorios y lo escribe como un
+ *   documento BSON { v: valor }. Acepta entidades, modelos, listas de ellos y valores simples.
+ * - decode / decodeList: Lee los bytes de vuelta al tipo indicado.
+ *
+ * BSON es compacto (los números y fechas ocupan 8 bytes, sin texto intermedio) y reutiliza el mapeo de las
+ * entidades, así que un campo nuevo se guarda sin escribir código de serialización.
+ */
+@Component
+public class BsonCacheCodec {
+
+    private static final String VALUE = "v";
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    private final MongoConverter mongoConverter;
+
+    public BsonCacheCodec(MongoConverter mongoConverter) {
+        this.mongoConverter = mongoConverter;
+    }
+
+    public byte[] encode(Object value) {
+        Document document = new Document(VALUE, mongoConverter.convertToMongoType(value));
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            DOCUMENT_CODEC.encode(writer, document, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        return read(unwrap(bytes), type);
+    }
+
+    public <T> List<T> decodeList(byte[] bytes, Class<T> elementType) {
+        Object value = unwrap(bytes);
+        if (!(value instanceof Collection<?> elements)) {
+            throw new IllegalArgumentException("El valor guardado no es una lista");
+        }
+        List<T> decoded = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            decoded.add(read(element, elementType));
+        }
+        return decoded;
+    }
+
+    private static Object unwrap(byte[] bytes) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+            return DOCUMENT_CODEC.decode(reader, DecoderContext.builder().build()).get(VALUE);
+        }
+    }
+
+    private <T> T read(Object value, Class<T> type) {
+        if (value instanceof Document document) {
+            return mongoConverter.read(type, document);
+        }
+        return type.cast(value);
+    }
+}
@@ -0,0 +1,32 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+
+import java.util.Set;
+/**
+ * Interfaz CacheCoherenceListener que implementan las cachés en memoria para enterarse de las escrituras
+ * hechas por cualquier instancia (ver ChangeStreamCoherenceListener).
+ *
+ * - onCreditChanged: Un crédito se creó, modificó o eliminó. credit es el documento actual (null si se
+ *   eliminó) y updatedFields los campos modificados, o null si no se conocen (alta o reemplazo).
+ * - onTransactionInserted: Se registró una transacción.
+ * - onMonthlyBalanceChanged: Cambió un acumulador mensual del crédito.
+ * - onHistoryLost: No se pudo retomar el change stream y pudieron perderse eventos; se debe descartar todo.
+ *
+ * Los eventos también llegan por las escrituras de la propia instancia, así que aplicarlos debe ser
+ * idempotente. Se invocan desde el hilo del change stream y no deben bloquear.
+ */
+public interface CacheCoherenceListener {
+
+    default void onCreditChanged(String creditId, CreditBaseEntity credit, Set<String> updatedFields) {
+    }
+
+    default void onTransactionInserted(TransactionEntity transaction) {
+    }
+
+    default void onMonthlyBalanceChanged(String creditId) {
+    }
+
+    void onHistoryLost();
+}
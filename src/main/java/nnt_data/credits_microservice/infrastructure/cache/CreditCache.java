@@ -0,0 +1,147 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.model.CreditType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+/**
+ * Caché CreditCache de lectura a través (read-through) delante de CreditRepository.findById.
+ *
+ * - findById: Devuelve el crédito desde memoria; si no está, lo busca en SecondLevelCache y si tampoco está lo
+ *   lee de MongoDB, una sola vez aunque lo pidan varias lecturas a la vez. Un crédito inexistente no se guarda.
+ * - findById(creditId, strict): Con strict lee siempre de MongoDB y deja el resultado en la caché. Lo usan
+ *   las validaciones que dependen del saldo leído.
+ * - findInMemory: Devuelve el crédito solo si ya está en memoria, sin cargarlo.
+ * - put: Reemplaza el crédito con el documento que devolvió una escritura, en memoria y en SecondLevelCache.
+ *   Una lectura que estaba en curso ya no puede pisarlo.
+ * - invalidate: Descarta el crédito, para escrituras que no devuelven el documento actualizado.
+ * - hasCreditCard: Si el cliente tiene una tarjeta de crédito. La respuesta se guarda solo en
+ *   SecondLevelCache, durante credits.credit-cache.has-credit-card-ttl.
+ * - invalidateCustomer: Descarta la respuesta de hasCreditCard al crear, modificar o eliminar un crédito.
+ * - isStrictValidations: Si las validaciones sensibles al saldo deben leer en modo strict.
+ * - onCreditChanged / onHistoryLost: Con el change stream activo, aplica en memoria las escrituras de otras
+ *   instancias sin esperar al ttl. SecondLevelCache ya lo actualizó la instancia que escribió.
+ *
+ * Los documentos se comparten entre lecturas y no se deben modificar.
+ *
+ * Configuración:
+ * - credits.credit-cache.max-size: Créditos en memoria como máximo (por defecto 10000).
+ * - credits.credit-cache.ttl: Tiempo desde la carga o la última escritura tras el que se vuelve a leer un
+ *   crédito; acota lo desactualizado que puede estar frente a escrituras de otras instancias (por defecto 30s).
+ * - credits.credit-cache.strict-validations: Por defecto true.
+ * - credits.credit-cache.has-credit-card-ttl: Por defecto 1h.
+ *
+ * Métricas: las de Caffeine con el nombre credits.credit-cache (cache.gets con result=hit|miss,
+ * cache.load.duration, cache.evictions, cache.size).
+ */
+@Component
+public class CreditCache implements CacheCoherenceListener {
+
+    private static final String CREDIT_KEY = "credit:";
+    private static final String HAS_CREDIT_CARD_KEY = "has-credit-card:";
+
+    private final CreditRepository creditRepository;
+    private final SecondLevelCache secondLevelCache;
+    private final AsyncCache<String, CreditBaseEntity> credits;
+    private final Duration ttl;
+    private final boolean strictValidations;
+    private final Duration hasCreditCardTtl;
+
+    public CreditCache(CreditRepository creditRepository,
+                       SecondLevelCache secondLevelCache,
+                       @Value("${credits.credit-cache.max-size:10000}") long maxSize,
+                       @Value("${credits.credit-cache.ttl:30s}") Duration ttl,
+                       @Value("${credits.credit-cache.strict-validations:true}") boolean strictValidations,
+                       @Value("${credits.credit-cache.has-credit-card-ttl:1h}") Duration hasCreditCardTtl,
+                       MeterRegistry meterRegistry) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("El tamaño de la caché de créditos debe ser mayor a cero");
+        }
+        this.creditRepository = creditRepository;
+        this.secondLevelCache = secondLevelCache;
+        this.ttl = ttl;
+        this.strictValidations = strictValidations;
+        this.hasCreditCardTtl = hasCreditCardTtl;
+        this.credits = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, credits, "credits.credit-cache");
+    }
+
+    public boolean isStrictValidations() {
+        return strictValidations;
+    }
+
+    public Mono<CreditBaseEntity> findById(String creditId) {
+        return Mono.fromFuture(() -> credits.get(creditId,
+                (id, executor) -> secondLevelCache.get(CREDIT_KEY + id, CreditBaseEntity.class)
+                        .switchIfEmpty(Mono.defer(() -> creditRepository.findById(id)
+                                .doOnNext(credit -> secondLevelCache.put(CREDIT_KEY + id, credit, ttl, List.of()))))
+                        .toFuture()), true);
+    }
+
+    public Mono<CreditBaseEntity> findById(String creditId, boolean strict) {
+        if (!strict) {
+            return findById(creditId);
+        }
+        return creditRepository.findById(creditId)
+                .doOnNext(this::put)
+                .switchIfEmpty(Mono.fromRunnable(() -> invalidate(creditId)));
+    }
+
+    public Mono<CreditBaseEntity> findInMemory(String creditId) {
+        return Mono.defer(() -> {
+            CompletableFuture<CreditBaseEntity> credit = credits.getIfPresent(creditId);
+            return credit != null ? Mono.fromFuture(credit, true) : Mono.empty();
+        });
+    }
+
+    public void put(CreditBaseEntity credit) {
+        credits.put(credit.getCreditId(), CompletableFuture.completedFuture(credit));
+        secondLevelCache.replace(CREDIT_KEY + credit.getCreditId(), credit, ttl);
+    }
+
+    public void invalidate(String creditId) {
+        credits.synchronous().invalidate(creditId);
+        secondLevelCache.evict(CREDIT_KEY + creditId);
+    }
+
+    public Mono<Boolean> hasCreditCard(String customerId) {
+        return secondLevelCache.get(HAS_CREDIT_CARD_KEY + customerId, Boolean.class)
+                .switchIfEmpty(Mono.defer(() -> creditRepository
+                        .existsByCustomerIdAndType(customerId, CreditType.CREDIT_CARD)
+                        .doOnNext(hasCreditCard -> secondLevelCache.put(HAS_CREDIT_CARD_KEY + customerId,
+                                hasCreditCard, hasCreditCardTtl, List.of()))));
+    }
+
+    public void invalidateCustomer(String customerId) {
+        secondLevelCache.evict(HAS_CREDIT_CARD_KEY + customerId);
+    }
+
+    @Override
+    public void onCreditChanged(String creditId, CreditBaseEntity credit, Set<String> updatedFields) {
+        if (credit != null) {
+            credits.put(creditId, CompletableFuture.completedFuture(credit));
+        } else {
+            credits.synchronous().invalidate(creditId);
+        }
+    }
+
+    @Override
+    public void onHistoryLost() {
+        credits.synchronous().invalidateAll();
+    }
+}
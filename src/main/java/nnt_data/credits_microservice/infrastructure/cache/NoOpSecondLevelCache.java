@@ -0,0 +1,54 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+/**
+ * Implementación NoOpSecondLevelCache que no guarda nada. Se usa mientras credits.redis-cache.enabled no
+ * sea true, así las cachés en memoria funcionan igual sin Redis.
+ */
+@Component
+@ConditionalOnProperty(name = "credits.redis-cache.enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpSecondLevelCache implements SecondLevelCache {
+
+    @Override
+    public <T> Mono<T> get(String key, Class<T> type) {
+        return Mono.empty();
+    }
+
+    @Override
+    public <T> Mono<List<T>> getList(String key, Class<T> elementType) {
+        return Mono.empty();
+    }
+
+    @Override
+    public <T> Mono<Map<String, T>> getAll(Collection<String> keys, Class<T> type) {
+        return Mono.just(Map.of());
+    }
+
+    @Override
+    public <T> Mono<Map<String, List<T>>> getAllLists(Collection<String> keys, Class<T> elementType) {
+        return Mono.just(Map.of());
+    }
+
+    @Override
+    public void put(String key, Object value, Duration ttl, Collection<String> tags) {
+    }
+
+    @Override
+    public void replace(String key, Object value, Duration ttl) {
+    }
+
+    @Override
+    public void evict(String key) {
+    }
+
+    @Override
+    public void evictTag(String tag) {
+    }
+}
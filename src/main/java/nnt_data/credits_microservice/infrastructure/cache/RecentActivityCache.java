@@ -0,0 +1,142 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import nnt_data.credits_microservice.application.port.TransactionRecordedListener;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapper;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+/**
+ * Caché RecentActivityCache con las transacciones más recientes de cada crédito.
+ *
+ * - getRecent: Devuelve el número de tarjeta y hasta n transacciones recientes del crédito sin consultar
+ *   MongoDB. Si el crédito no está en memoria, lo carga una vez (crédito y últimas transacciones) y desde
+ *   entonces se mantiene con las escrituras. Devuelve vacío si el crédito no existe.
+ * - onTransactionRecorded: Agrega la transacción al búfer del crédito si está en memoria.
+ * - invalidate: Descarta el búfer de un crédito.
+ * - getCapacity: Transacciones que se guardan por crédito.
+ * - onTransactionInserted / onCreditChanged / onHistoryLost: Con el change stream activo, agrega las
+ *   transacciones de otras instancias y descarta el búfer si el crédito se elimina o cambia su tarjeta.
+ *
+ * El búfer se registra en la caché antes de leer MongoDB, así que una transacción confirmada durante la
+ * carga llega igual al búfer (por la lectura o por onTransactionRecorded) y no se pierde.
+ *
+ * onTransactionRecorded solo ve las transacciones de esta instancia. Sin el change stream, las de otras
+ * instancias aparecen cuando el búfer se vuelve a cargar, así que cada búfer se descarta
+ * credits.recent-activity.ttl después de cargarse aunque se siga leyendo, igual que CreditCache.
+ *
+ * Configuración:
+ * - credits.recent-activity.capacity: Transacciones por crédito (por defecto 10).
+ * - credits.recent-activity.max-memory: Memoria máxima estimada de la caché (por defecto 16MB).
+ * - credits.recent-activity.expire-after-access: Tiempo sin lecturas ni escrituras tras el que se
+ *   descarta un crédito (por defecto 1h).
+ * - credits.recent-activity.ttl: Tiempo desde la carga tras el que se vuelve a leer el búfer de MongoDB
+ *   (por defecto 30s).
+ */
+@Component
+public class RecentActivityCache implements TransactionRecordedListener, CacheCoherenceListener {
+
+    private final CreditRepository creditRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final int capacity;
+    private final Cache<String, RecentTransactionRing> rings;
+
+    public RecentActivityCache(CreditRepository creditRepository,
+                               TransactionRepository transactionRepository,
+                               TransactionMapper transactionMapper,
+                               @Value("${credits.recent-activity.capacity:10}") int capacity,
+                               @Value("${credits.recent-activity.max-memory:16MB}") DataSize maxMemory,
+                               @Value("${credits.recent-activity.expire-after-access:1h}") Duration expireAfterAccess,
+                               @Value("${credits.recent-activity.ttl:30s}") Duration ttl) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad de actividad reciente debe ser mayor a cero");
+        }
+        this.creditRepository = creditRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionMapper = transactionMapper;
+        this.capacity = capacity;
+        int ringBytes = RecentTransactionRing.estimatedBytes(capacity);
+        this.rings = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((String creditId, RecentTransactionRing ring) -> ringBytes)
+                .expireAfterAccess(expireAfterAccess)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Mono<RecentActivity> getRecent(String creditId, int n) {
+        return Mono.defer(() -> {
+            RecentTransactionRing ring = rings.get(creditId, id -> new RecentTransactionRing(id, capacity));
+            if (ring.isSeeded()) {
+                return Mono.just(new RecentActivity(ring.getCardNumber(), ring.latest(n)));
+            }
+            return creditRepository.findByCreditId(creditId)
+                    .switchIfEmpty(Mono.fromRunnable(() -> rings.invalidate(creditId)))
+                    .flatMap(credit -> transactionRepository
+                            .findByCreditIdOrderByDateDesc(creditId, PageRequest.of(0, capacity))
+                            .map(transactionMapper::mapToDomain)
+                            .collectList()
+                            .map(transactions -> {
+                                ring.seed(credit.getCardNumber(), transactions);
+                                return new RecentActivity(ring.getCardNumber(), ring.latest(n));
+                            }));
+        });
+    }
+
+    @Override
+    public Mono<Void> onTransactionRecorded(Transaction transaction) {
+        return Mono.fromRunnable(() -> {
+            RecentTransactionRing ring = rings.getIfPresent(transaction.getCreditId());
+            if (ring != null) {
+                ring.add(transaction);
+            }
+        });
+    }
+
+    public void invalidate(String creditId) {
+        rings.invalidate(creditId);
+    }
+
+    @Override
+    public void onTransactionInserted(TransactionEntity transaction) {
+        RecentTransactionRing ring = rings.getIfPresent(transaction.getCreditId());
+        if (ring != null) {
+            ring.add(transactionMapper.mapToDomain(transaction));
+        }
+    }
+
+    @Override
+    public void onCreditChanged(String creditId, CreditBaseEntity credit, Set<String> updatedFields) {
+        if (credit == null || updatedFields == null || updatedFields.contains("cardNumber")) {
+            rings.invalidate(creditId);
+        }
+    }
+
+    @Override
+    public void onHistoryLost() {
+        rings.invalidateAll();
+    }
+
+    /**
+     * Número de tarjeta del crédito y sus transacciones de la más reciente a la más antigua.
+     */
+    public record RecentActivity(String cardNumber, List<Transaction> transactions) {
+    }
+}
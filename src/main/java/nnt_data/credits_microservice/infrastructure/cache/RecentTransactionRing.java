@@ -0,0 +1,133 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import nnt_data.credits_microservice.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+/**
+ * Búfer circular de tamaño fijo con las transacciones más recientes de un crédito.
+ *
+ * Guarda cada campo en un arreglo primitivo paralelo (fecha en milisegundos, monto, tipo como ordinal) y
+ * solo el transactionId como objeto, de modo que su tamaño en memoria es fijo y conocido (estimatedBytes).
+ * Las transacciones se mantienen ordenadas por fecha a partir de start, la posición de la más antigua.
+ *
+ * - add: Agrega una transacción; si el búfer está lleno descarta la más antigua.
+ * - seed: Carga las transacciones leídas de MongoDB, combinándolas con las que llegaron mientras se leían.
+ * - latest: Devuelve hasta n transacciones de la más reciente a la más antigua.
+ *
+ * Todas las operaciones son sincronizadas; cada una toca como máximo capacity posiciones.
+ */
+final class RecentTransactionRing {
+
+    private static final Transaction.TypeEnum[] TYPES = Transaction.TypeEnum.values();
+    private static final int OBJECT_OVERHEAD = 64;
+    private static final int ID_BYTES = 64;
+
+    private final String creditId;
+    private final String[] ids;
+    private final long[] dates;
+    private final double[] amounts;
+    private final byte[] types;
+    private int start;
+    private int size;
+    private volatile String cardNumber;
+    private volatile boolean seeded;
+
+    RecentTransactionRing(String creditId, int capacity) {
+        this.creditId = creditId;
+        this.ids = new String[capacity];
+        this.dates = new long[capacity];
+        this.amounts = new double[capacity];
+        this.types = new byte[capacity];
+    }
+
+    static int estimatedBytes(int capacity) {
+        return OBJECT_OVERHEAD * 5 + capacity * (ID_BYTES + Long.BYTES + Double.BYTES + 1);
+    }
+
+    boolean isSeeded() {
+        return seeded;
+    }
+
+    String getCardNumber() {
+        return cardNumber;
+    }
+
+    synchronized void add(Transaction transaction) {
+        if (transaction.getDate() == null || transaction.getType() == null || contains(transaction.getTransactionId())) {
+            return;
+        }
+        long date = transaction.getDate().getTime();
+        if (size == ids.length) {
+            if (date < dates[physical(0)]) {
+                return;
+            }
+            start = (start + 1) % ids.length;
+            size--;
+        }
+        int position = size;
+        while (position > 0 && dates[physical(position - 1)] > date) {
+            copy(physical(position - 1), physical(position));
+            position--;
+        }
+        write(physical(position), transaction.getTransactionId(), date,
+                transaction.getAmount() != null ? transaction.getAmount() : 0.0,
+                (byte) transaction.getType().ordinal());
+        size++;
+    }
+
+    synchronized void seed(String cardNumber, List<Transaction> newestFirst) {
+        this.cardNumber = cardNumber;
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            add(newestFirst.get(i));
+        }
+        this.seeded = true;
+    }
+
+    synchronized List<Transaction> latest(int n) {
+        int count = Math.min(n, size);
+        List<Transaction> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = physical(size - 1 - i);
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(ids[index]);
+            transaction.setCreditId(creditId);
+            transaction.setDate(new Date(dates[index]));
+            transaction.setAmount(amounts[index]);
+            transaction.setType(TYPES[types[index]]);
+            result.add(transaction);
+        }
+        return result;
+    }
+
+    /**
+     * Posición física de la i-ésima transacción, contando desde la más antigua.
+     */
+    private int physical(int logical) {
+        return (start + logical) % ids.length;
+    }
+
+    private boolean contains(String transactionId) {
+        if (transactionId == null) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (transactionId.equals(ids[physical(i)])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void copy(int from, int to) {
+        write(to, ids[from], dates[from], amounts[from], types[from]);
+    }
+
+    private void write(int index, String id, long date, double amount, byte type) {
+        ids[index] = id;
+        dates[index] = date;
+        amounts[index] = amount;
+        types[index] = type;
+    }
+}
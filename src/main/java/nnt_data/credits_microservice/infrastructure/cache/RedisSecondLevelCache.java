@@ -0,0 +1,334 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+/**
+ * Implementación RedisSecondLevelCache de SecondLevelCache sobre Redis. Se crea con
+ * credits.redis-cache.enabled=true.
+ *
+ * - get / getList: GET de la clave, decodificado con BsonCacheCodec.
+ * - getAll / getAllLists: Un solo MGET para todas las claves, en lugar de una petición por clave.
+ * - put: Guarda el valor solo si la clave no existe (SET NX), así el resultado de una lectura no pisa al
+ *   de una escritura posterior, y lo agrega a los sets de sus etiquetas, todo en un script atómico.
+ * - replace: Igual que put pero siempre reemplaza el valor; para el documento que devolvió una escritura.
+ * - evict / evictTag: DEL de la clave, o de todas las claves del set de la etiqueta, en un script atómico.
+ *
+ * Las escrituras no esperan la respuesta de Redis, pero se envían por la misma conexión que las lecturas
+ * siguientes, así que Redis las aplica antes.
+ *
+ * Si Redis falla o no responde en credits.redis-cache.timeout, la operación se trata como un fallo de caché
+ * y las lecturas y los put no vuelven a usar Redis durante credits.redis-cache.retry-after, para no agregar
+ * el timeout a cada petición mientras esté caído. Un valor que no se puede decodificar (por ejemplo tras un
+ * cambio de las entidades) se descarta y cuenta como fallo.
+ *
+ * Las invalidaciones (evict, evictTag y replace) nunca se omiten: se envían aunque Redis esté marcado como
+ * no disponible, porque un timeout no significa que esté caído y saltarlas dejaría valores viejos que se
+ * volverían a leer al terminar retry-after. Si una invalidación falla, Redis puede conservar un valor viejo,
+ * así que antes de volver a leer o guardar valores se borran todas las claves del prefijo (SCAN + DEL);
+ * mientras tanto las lecturas son fallos de caché y los put se omiten.
+ *
+ * Las claves y los sets de etiquetas usan el prefijo credits.redis-cache.key-prefix. Los scripts usan claves
+ * de varios slots, así que se necesita un Redis sin cluster (como el de docker-compose.yml).
+ *
+ * Configuración:
+ * - credits.redis-cache.timeout: Tiempo máximo de espera de Redis (por defecto 50ms).
+ * - credits.redis-cache.retry-after: Tiempo sin usar Redis tras un error (por defecto 10s).
+ * - credits.redis-cache.max-ttl: Duración máxima de un valor y de los sets de etiquetas (por defecto 1d).
+ * - credits.redis-cache.key-prefix: Prefijo de las claves (por defecto credits:).
+ *
+ * Métricas: credits.redis-cache.requests con result=hit|miss|error|skipped.
+ */
+@Component
+@ConditionalOnProperty(name = "credits.redis-cache.enabled", havingValue = "true")
+public class RedisSecondLevelCache implements SecondLevelCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisSecondLevelCache.class);
+
+    private static final long SCAN_COUNT = 1000;
+
+    private static final RedisScript<Long> PUT = RedisScript.of("""
+            local stored
+            if ARGV[3] == '1' then
+              stored = redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2], 'NX')
+            else
+              stored = redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            end
+            if not stored then
+              return 0
+            end
+            for i = 2, #KEYS do
+              redis.call('SADD', KEYS[i], KEYS[1])
+              redis.call('PEXPIRE', KEYS[i], ARGV[4])
+            end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> EVICT_TAG = RedisScript.of("""
+            local keys = redis.call('SMEMBERS', KEYS[1])
+            for i = 1, #keys do
+              redis.call('DEL', keys[i])
+            end
+            redis.call('DEL', KEYS[1])
+            return #keys
+            """, Long.class);
+
+    private final ReactiveRedisTemplate<String, byte[]> redis;
+    private final BsonCacheCodec codec;
+    private final Duration timeout;
+    private final Duration retryAfter;
+    private final Duration maxTtl;
+    private final String keyPrefix;
+    private final AtomicLong unavailableUntil = new AtomicLong(System.nanoTime());
+    private final AtomicLong failedInvalidations = new AtomicLong();
+    private final AtomicLong flushedInvalidations = new AtomicLong();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+    private final Counter skipped;
+
+    @Autowired
+    public RedisSecondLevelCache(ReactiveRedisConnectionFactory connectionFactory,
+                                 BsonCacheCodec codec,
+                                 @Value("${credits.redis-cache.timeout:50ms}") Duration timeout,
+                                 @Value("${credits.redis-cache.retry-after:10s}") Duration retryAfter,
+                                 @Value("${credits.redis-cache.max-ttl:1d}") Duration maxTtl,
+                                 @Value("${credits.redis-cache.key-prefix:credits:}") String keyPrefix,
+                                 MeterRegistry meterRegistry) {
+        this(new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext
+                        .<String, byte[]>newSerializationContext(RedisSerializer.byteArray())
+                        .key(RedisSerializer.string())
+                        .hashKey(RedisSerializer.string())
+                        .build()),
+                codec, timeout, retryAfter, maxTtl, keyPrefix, meterRegistry);
+    }
+
+    RedisSecondLevelCache(ReactiveRedisTemplate<String, byte[]> redis, BsonCacheCodec codec, Duration timeout,
+                          Duration retryAfter, Duration maxTtl, String keyPrefix, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.codec = codec;
+        this.timeout = timeout;
+        this.retryAfter = retryAfter;
+        this.maxTtl = maxTtl;
+        this.keyPrefix = keyPrefix;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.errors = counter(meterRegistry, "error");
+        this.skipped = counter(meterRegistry, "skipped");
+    }
+
+    @Override
+    public <T> Mono<T> get(String key, Class<T> type) {
+        return read(key, bytes -> codec.decode(bytes, type));
+    }
+
+    @Override
+    public <T> Mono<List<T>> getList(String key, Class<T> elementType) {
+        return read(key, bytes -> codec.decodeList(bytes, elementType));
+    }
+
+    @Override
+    public <T> Mono<Map<String, T>> getAll(Collection<String> keys, Class<T> type) {
+        return readAll(keys, bytes -> codec.decode(bytes, type));
+    }
+
+    @Override
+    public <T> Mono<Map<String, List<T>>> getAllLists(Collection<String> keys, Class<T> elementType) {
+        return readAll(keys, bytes -> codec.decodeList(bytes, elementType));
+    }
+
+    @Override
+    public void put(String key, Object value, Duration ttl, Collection<String> tags) {
+        write(key, value, ttl, tags, true);
+    }
+
+    @Override
+    public void replace(String key, Object value, Duration ttl) {
+        write(key, value, ttl, List.of(), false);
+    }
+
+    @Override
+    public void evict(String key) {
+        invalidate(redis.delete(keyPrefix + key));
+    }
+
+    @Override
+    public void evictTag(String tag) {
+        invalidate(redis.execute(EVICT_TAG, List.of(tagKey(tag)), List.of()).then());
+    }
+
+    private <T> Mono<T> read(String key, Function<byte[], T> decoder) {
+        if (!isReady()) {
+            skipped.increment();
+            return Mono.empty();
+        }
+        return redis.opsForValue().get(keyPrefix + key)
+                .timeout(timeout)
+                .doOnError(this::markUnavailable)
+                .onErrorResume(e -> Mono.empty())
+                .mapNotNull(bytes -> decode(key, bytes, decoder))
+                .doOnNext(value -> hits.increment())
+                .switchIfEmpty(Mono.fromRunnable(misses::increment));
+    }
+
+    private <T> Mono<Map<String, T>> readAll(Collection<String> keys, Function<byte[], T> decoder) {
+        if (keys.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        if (!isReady()) {
+            skipped.increment(keys.size());
+            return Mono.just(Map.of());
+        }
+        List<String> orderedKeys = new ArrayList<>(keys);
+        return redis.opsForValue().multiGet(orderedKeys.stream().map(key -> keyPrefix + key).toList())
+                .timeout(timeout)
+                .doOnError(this::markUnavailable)
+                .onErrorResume(e -> Mono.just(List.of()))
+                .map(values -> {
+                    Map<String, T> found = new HashMap<>();
+                    for (int i = 0; i < values.size() && i < orderedKeys.size(); i++) {
+                        T value = values.get(i) != null ? decode(orderedKeys.get(i), values.get(i), decoder) : null;
+                        if (value != null) {
+                            found.put(orderedKeys.get(i), value);
+                        }
+                    }
+                    hits.increment(found.size());
+                    misses.increment(orderedKeys.size() - found.size());
+                    return found;
+                });
+    }
+
+    private <T> T decode(String key, byte[] bytes, Function<byte[], T> decoder) {
+        try {
+            return decoder.apply(bytes);
+        } catch (RuntimeException e) {
+            log.warn("Se descarta el valor de {} en Redis: {}", key, e.getMessage());
+            evict(key);
+            return null;
+        }
+    }
+
+    private void write(String key, Object value, Duration ttl, Collection<String> tags, boolean onlyIfAbsent) {
+        if (onlyIfAbsent && !isReady()) {
+            skipped.increment();
+            return;
+        }
+        byte[] bytes;
+        try {
+            bytes = codec.encode(value);
+        } catch (RuntimeException e) {
+            log.warn("No se puede guardar {} en Redis: {}", key, e.getMessage());
+            if (!onlyIfAbsent) {
+                evict(key);
+            }
+            return;
+        }
+        List<String> scriptKeys = new ArrayList<>(tags.size() + 1);
+        scriptKeys.add(keyPrefix + key);
+        tags.forEach(tag -> scriptKeys.add(tagKey(tag)));
+        long ttlMillis = Math.max(1, Math.min(ttl.toMillis(), maxTtl.toMillis()));
+        Mono<Void> command = redis.execute(PUT, scriptKeys, List.of(bytes, ascii(ttlMillis),
+                ascii(onlyIfAbsent ? 1 : 0), ascii(maxTtl.toMillis()))).then();
+        if (onlyIfAbsent) {
+            fireAndForget(command);
+        } else {
+            invalidate(command);
+        }
+    }
+
+    private void fireAndForget(Mono<?> command) {
+        command.timeout(timeout)
+                .doOnError(this::markUnavailable)
+                .onErrorResume(e -> Mono.empty())
+                .subscribe();
+    }
+
+    private void invalidate(Mono<?> command) {
+        command.timeout(timeout)
+                .doOnError(error -> {
+                    failedInvalidations.incrementAndGet();
+                    markUnavailable(error);
+                })
+                .onErrorResume(e -> Mono.empty())
+                .subscribe();
+    }
+
+    /**
+     * Indica si se puede leer o guardar en Redis: no está marcado como no disponible y no quedan
+     * invalidaciones fallidas sin borrar. Si quedan, inicia el borrado de las claves del prefijo.
+     */
+    private boolean isReady() {
+        if (isUnavailable()) {
+            return false;
+        }
+        long failed = failedInvalidations.get();
+        if (flushedInvalidations.get() >= failed) {
+            return true;
+        }
+        if (flushing.compareAndSet(false, true)) {
+            redis.delete(redis.scan(ScanOptions.scanOptions().match(keyPrefix + "*").count(SCAN_COUNT).build()))
+                    .timeout(retryAfter.compareTo(timeout) > 0 ? retryAfter : timeout)
+                    .doOnSuccess(deleted -> {
+                        flushedInvalidations.accumulateAndGet(failed, Math::max);
+                        log.info("Claves de Redis con prefijo {} borradas tras invalidaciones fallidas: {}",
+                                keyPrefix, deleted);
+                    })
+                    .doOnError(this::markUnavailable)
+                    .doFinally(signal -> flushing.set(false))
+                    .onErrorResume(e -> Mono.empty())
+                    .subscribe();
+        }
+        return false;
+    }
+
+    private boolean isUnavailable() {
+        return System.nanoTime() - unavailableUntil.get() < 0;
+    }
+
+    private void markUnavailable(Throwable error) {
+        errors.increment();
+        long until = System.nanoTime() + retryAfter.toNanos();
+        long previous = unavailableUntil.getAndSet(until);
+        if (System.nanoTime() - previous >= 0) {
+            log.warn("Redis no disponible, se usará solo MongoDB durante {}: {}", retryAfter, error.toString());
+        }
+    }
+
+    private String tagKey(String tag) {
+        return keyPrefix + "tag:" + tag;
+    }
+
+    private static byte[] ascii(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("credits.redis-cache.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
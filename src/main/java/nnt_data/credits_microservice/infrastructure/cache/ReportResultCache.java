@@ -0,0 +1,393 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import nnt_data.credits_microservice.application.port.TransactionRecordedListener;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.model.CreditResume;
+import nnt_data.credits_microservice.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+/**
+ * Caché ReportResultCache con los resultados ya calculados de los reportes de saldo promedio.
+ *
+ * - get: Devuelve el reporte de (tipo, crédito o cliente, periodo) desde memoria; si no está, lo busca en
+ *   SecondLevelCache y si tampoco está lo calcula con el loader y lo guarda en ambas. Los errores no se guardan.
+ * - getAll: Igual que get para varios créditos o clientes: los que no están en memoria se buscan en
+ *   SecondLevelCache con una sola petición y el loader calcula juntos los que faltan.
+ * - onTransactionRecorded: Descarta los reportes de periodos abiertos en los que participa el crédito.
+ * - invalidateCredit: Descarta todos los reportes en los que participa un crédito (por ejemplo al cambiar
+ *   su monto o eliminarlo).
+ * - invalidateCustomer: Descarta todos los reportes de un cliente (por ejemplo al crearle un crédito).
+ * - onCreditChanged / onTransactionInserted / onMonthlyBalanceChanged / onHistoryLost: Con el change stream
+ *   activo, aplican las mismas invalidaciones por las escrituras de otras instancias. Un cambio solo del
+ *   saldo de un crédito no invalida nada, porque ya llega como transacción. Solo tocan la memoria: la
+ *   instancia que escribió ya descartó los reportes en SecondLevelCache.
+ *
+ * Un periodo que terminó antes de hoy está cerrado: las transacciones nuevas siempre llevan la fecha actual,
+ * así que su resultado ya no cambia y no vence. Un periodo abierto se guarda para el día de hoy y vence a
+ * medianoche, porque el promedio suma un día más aunque no haya transacciones. Hoy y medianoche son los del
+ * día de negocio (BusinessCalendar), los mismos con los que se calcula el reporte.
+ *
+ * Un resultado cuyo cálculo empezó antes de una invalidación de cualquiera de sus créditos no se guarda,
+ * porque pudo leer datos anteriores a la escritura. Para que el reporte ya refleje lo que escriben los
+ * demás listeners (por ejemplo MonthlyBalanceAccumulator), esta caché se notifica al final.
+ *
+ * En SecondLevelCache los reportes se guardan con las mismas etiquetas, así que las invalidaciones de
+ * cualquier instancia los descartan. Un periodo cerrado dura hasta credits.redis-cache.max-ttl y uno abierto
+ * hasta medianoche.
+ *
+ * Configuración:
+ * - credits.reporting.cache.max-size: Reportes guardados como máximo (por defecto 10000).
+ *
+ * Métricas: las de Caffeine con el nombre credits.report-results (cache.gets con result=hit|miss,
+ * cache.evictions, cache.size).
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ReportResultCache implements TransactionRecordedListener, CacheCoherenceListener {
+
+    /**
+     * Reportes que se guardan. Los de cliente se invalidan también por los créditos que incluyen. Un reporte
+     * es un CreditResume o, si list, una lista de ellos.
+     */
+    public enum ReportType {
+        PERIOD_BALANCE(false, false),
+        SALARY_SUMMARY(true, true);
+
+        private final boolean customerScoped;
+        private final boolean list;
+
+        ReportType(boolean customerScoped, boolean list) {
+            this.customerScoped = customerScoped;
+            this.list = list;
+        }
+    }
+
+    private static final String CREDIT_TAG = "credit:";
+    private static final String ACTIVITY_TAG = "activity:";
+    private static final String CUSTOMER_TAG = "customer:";
+    private static final String SECOND_LEVEL_PREFIX = "report:";
+    private static final Duration CLOSED_PERIOD_TTL = Duration.ofMillis(Long.MAX_VALUE);
+    private static final Set<String> BALANCE_FIELDS = Set.of("availableCreditCents", "amountPaidCents");
+
+    private final SecondLevelCache secondLevelCache;
+    private final BusinessCalendar businessCalendar;
+    private final Cache<ReportKey, CachedReport> reports;
+    private final Map<String, Set<ReportKey>> keysByTag = new HashMap<>();
+    private final Queue<EvictedReport> evicted = new ConcurrentLinkedQueue<>();
+    private final LinkedHashMap<String, Long> invalidatedAt;
+    private long sequence;
+    private long forgottenInvalidation;
+
+    public ReportResultCache(SecondLevelCache secondLevelCache,
+                             BusinessCalendar businessCalendar,
+                             @Value("${credits.reporting.cache.max-size:10000}") long maxSize,
+                             MeterRegistry meterRegistry) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("El tamaño de la caché de reportes debe ser mayor a cero");
+        }
+        this.secondLevelCache = secondLevelCache;
+        this.businessCalendar = businessCalendar;
+        this.reports = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilEndOfDay())
+                .evictionListener((ReportKey key, CachedReport report, RemovalCause cause) ->
+                        evicted.add(new EvictedReport(key, report.tags())))
+                .recordStats()
+                .build();
+        this.invalidatedAt = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > maxSize) {
+                    forgottenInvalidation = eldest.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+        CaffeineCacheMetrics.monitor(meterRegistry, reports, "credits.report-results");
+    }
+
+    /**
+     * @param type Tipo de reporte.
+     * @param subject creditId o customerId, según el tipo.
+     * @param from Primer día del periodo.
+     * @param to Último día del periodo.
+     * @param loader Cálculo del reporte, que solo se suscribe si no está en memoria.
+     * @param creditIds Créditos que participan en el resultado.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(ReportType type, String subject, LocalDate from, LocalDate to,
+                           Supplier<Mono<T>> loader, Function<T, Collection<String>> creditIds) {
+        return Mono.defer(() -> {
+            ReportKey key = key(type, subject, from, to);
+            CachedReport cached = reports.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just((T) cached.value());
+            }
+            long startedAt = currentSequence();
+            Mono<T> stored = (Mono<T>) (type.list
+                    ? secondLevelCache.getList(key.secondLevelKey(), CreditResume.class)
+                    : secondLevelCache.get(key.secondLevelKey(), CreditResume.class));
+            return stored
+                    .map(value -> (T) (value instanceof List<?> list ? List.copyOf(list) : value))
+                    .doOnNext(value -> store(key, value, tags(key, creditIds.apply(value)), startedAt))
+                    .switchIfEmpty(Mono.defer(() -> loader.get()
+                            .doOnNext(value -> storeBoth(key, value, creditIds.apply(value), startedAt))));
+        });
+    }
+
+    /**
+     * @param subjects creditIds o customerIds, según el tipo.
+     * @param loader Cálculo de los reportes de los subjects que no están guardados. Puede omitir los que no
+     *               tienen resultado.
+     * @return Los reportes por subject; no incluye los que el loader omitió.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<Map<String, T>> getAll(ReportType type, Collection<String> subjects, LocalDate from, LocalDate to,
+                                           Function<List<String>, Mono<Map<String, T>>> loader,
+                                           Function<T, Collection<String>> creditIds) {
+        return Mono.defer(() -> {
+            long startedAt = currentSequence();
+            Map<String, T> found = new HashMap<>();
+            Map<String, ReportKey> missing = new LinkedHashMap<>();
+            for (String subject : subjects) {
+                ReportKey key = key(type, subject, from, to);
+                CachedReport cached = reports.getIfPresent(key);
+                if (cached != null) {
+                    found.put(subject, (T) cached.value());
+                } else {
+                    missing.put(key.secondLevelKey(), key);
+                }
+            }
+            if (missing.isEmpty()) {
+                return Mono.just(found);
+            }
+            Mono<? extends Map<String, ?>> stored = type.list
+                    ? secondLevelCache.getAllLists(missing.keySet(), CreditResume.class)
+                    : secondLevelCache.getAll(missing.keySet(), CreditResume.class);
+            return stored.flatMap(storedValues -> {
+                storedValues.forEach((secondLevelKey, storedValue) -> {
+                    ReportKey key = missing.remove(secondLevelKey);
+                    T value = (T) (storedValue instanceof List<?> list ? List.copyOf(list) : storedValue);
+                    store(key, value, tags(key, creditIds.apply(value)), startedAt);
+                    found.put(key.subject(), value);
+                });
+                if (missing.isEmpty()) {
+                    return Mono.just(found);
+                }
+                Map<String, ReportKey> missingBySubject = new LinkedHashMap<>();
+                missing.values().forEach(key -> missingBySubject.put(key.subject(), key));
+                return loader.apply(List.copyOf(missingBySubject.keySet()))
+                        .map(loaded -> {
+                            loaded.forEach((subject, value) -> {
+                                ReportKey key = missingBySubject.get(subject);
+                                if (key != null) {
+                                    storeBoth(key, value, creditIds.apply(value), startedAt);
+                                    found.put(subject, value);
+                                }
+                            });
+                            return found;
+                        });
+            });
+        });
+    }
+
+    @Override
+    public Mono<Void> onTransactionRecorded(Transaction transaction) {
+        return Mono.fromRunnable(() -> invalidate(ACTIVITY_TAG + transaction.getCreditId()));
+    }
+
+    public void invalidateCredit(String creditId) {
+        invalidate(CREDIT_TAG + creditId);
+    }
+
+    public void invalidateCustomer(String customerId) {
+        invalidate(CUSTOMER_TAG + customerId);
+    }
+
+    @Override
+    public void onCreditChanged(String creditId, CreditBaseEntity credit, Set<String> updatedFields) {
+        if (updatedFields != null && BALANCE_FIELDS.containsAll(updatedFields)) {
+            return;
+        }
+        invalidateLocal(CREDIT_TAG + creditId);
+        if (credit != null && credit.getCustomerId() != null) {
+            invalidateLocal(CUSTOMER_TAG + credit.getCustomerId());
+        }
+    }
+
+    @Override
+    public void onTransactionInserted(TransactionEntity transaction) {
+        invalidateLocal(ACTIVITY_TAG + transaction.getCreditId());
+    }
+
+    @Override
+    public void onMonthlyBalanceChanged(String creditId) {
+        invalidateLocal(ACTIVITY_TAG + creditId);
+    }
+
+    @Override
+    public synchronized void onHistoryLost() {
+        forgottenInvalidation = ++sequence;
+        invalidatedAt.clear();
+        keysByTag.clear();
+        reports.invalidateAll();
+        evicted.clear();
+    }
+
+    private ReportKey key(ReportType type, String subject, LocalDate from, LocalDate to) {
+        LocalDate today = businessCalendar.today();
+        return new ReportKey(type, subject, from, to, to.isBefore(today) ? null : today);
+    }
+
+    private static Set<String> tags(ReportKey key, Collection<String> creditIds) {
+        Set<String> tags = new HashSet<>();
+        if (key.type().customerScoped) {
+            tags.add(CUSTOMER_TAG + key.subject());
+        }
+        for (String creditId : creditIds) {
+            tags.add(CREDIT_TAG + creditId);
+            if (key.asOf() != null) {
+                tags.add(ACTIVITY_TAG + creditId);
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Guarda un reporte recién calculado en memoria y, si no lo invalidó una escritura mientras se calculaba,
+     * también en SecondLevelCache.
+     */
+    private void storeBoth(ReportKey key, Object value, Collection<String> creditIds, long startedAt) {
+        Set<String> tags = tags(key, creditIds);
+        if (store(key, value, tags, startedAt)) {
+            Duration ttl = key.asOf() == null ? CLOSED_PERIOD_TTL : businessCalendar.untilEndOfDay(key.asOf());
+            secondLevelCache.put(key.secondLevelKey(), value, ttl,
+                    tags.stream().map(tag -> SECOND_LEVEL_PREFIX + tag).toList());
+        }
+    }
+
+    private synchronized long currentSequence() {
+        return sequence;
+    }
+
+    private synchronized boolean store(ReportKey key, Object value, Set<String> tags, long startedAt) {
+        forgetEvicted();
+        for (String tag : tags) {
+            if (invalidatedAt.getOrDefault(tag, forgottenInvalidation) > startedAt) {
+                return false;
+            }
+        }
+        reports.put(key, new CachedReport(value, tags));
+        tags.forEach(tag -> keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key));
+        return true;
+    }
+
+    private void invalidate(String tag) {
+        invalidateLocal(tag);
+        secondLevelCache.evictTag(SECOND_LEVEL_PREFIX + tag);
+    }
+
+    private synchronized void invalidateLocal(String tag) {
+        forgetEvicted();
+        invalidatedAt.remove(tag);
+        invalidatedAt.put(tag, ++sequence);
+        Set<ReportKey> keys = keysByTag.remove(tag);
+        if (keys == null) {
+            return;
+        }
+        for (ReportKey key : keys) {
+            CachedReport removed = reports.asMap().remove(key);
+            if (removed != null) {
+                unindex(key, removed.tags());
+            }
+        }
+    }
+
+    /**
+     * Quita del índice por etiqueta los reportes que Caffeine descartó por tamaño o vencimiento. Se hace
+     * aquí, con el lock tomado, y no en el listener de Caffeine, para no bloquear su mantenimiento.
+     */
+    private void forgetEvicted() {
+        EvictedReport report;
+        while ((report = evicted.poll()) != null) {
+            if (!reports.asMap().containsKey(report.key())) {
+                unindex(report.key(), report.tags());
+            }
+        }
+    }
+
+    private void unindex(ReportKey key, Set<String> tags) {
+        for (String tag : tags) {
+            Set<ReportKey> keys = keysByTag.get(tag);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByTag.remove(tag);
+            }
+        }
+    }
+
+    /**
+     * Identifica un reporte. asOf es el día en que se calculó un periodo abierto y null en uno cerrado.
+     */
+    private record ReportKey(ReportType type, String subject, LocalDate from, LocalDate to, LocalDate asOf) {
+
+        String secondLevelKey() {
+            return SECOND_LEVEL_PREFIX + type + ":" + subject + ":" + from + ":" + to + ":" + asOf;
+        }
+    }
+
+    private record CachedReport(Object value, Set<String> tags) {
+    }
+
+    private record EvictedReport(ReportKey key, Set<String> tags) {
+    }
+
+    /**
+     * Los periodos cerrados no vencen; los abiertos vencen al terminar el día en que se calcularon.
+     */
+    private final class UntilEndOfDay implements Expiry<ReportKey, CachedReport> {
+
+        @Override
+        public long expireAfterCreate(ReportKey key, CachedReport report, long currentTime) {
+            if (key.asOf() == null) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, businessCalendar.untilEndOfDay(key.asOf()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ReportKey key, CachedReport report, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, report, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ReportKey key, CachedReport report, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+/**
+ * Interfaz SecondLevelCache para una caché compartida entre instancias detrás de las cachés en memoria
+ * (CreditCache, ReportResultCache y la consulta hasCreditCard).
+ *
+ * - get: Devuelve el valor guardado con la clave, o vacío si no está.
+ * - getList: Igual que get para valores que son listas de elementType.
+ * - getAll / getAllLists: Lee varias claves con una sola petición y devuelve solo las que están.
+ * - put: Guarda el resultado de una lectura durante ttl, si la clave no tiene ya un valor, y lo asocia a las
+ *   etiquetas para descartarlo con evictTag.
+ * - replace: Guarda el documento que devolvió una escritura aunque la clave ya tenga un valor.
+ * - evict: Descarta una clave.
+ * - evictTag: Descarta todas las claves asociadas a la etiqueta.
+ *
+ * La caché es una optimización: si no está disponible, las lecturas devuelven vacío y las escrituras se
+ * ignoran sin error, y los llamadores leen de MongoDB. put, replace, evict y evictTag no bloquean.
+ */
+public interface SecondLevelCache {
+
+    <T> Mono<T> get(String key, Class<T> type);
+
+    <T> Mono<List<T>> getList(String key, Class<T> elementType);
+
+    <T> Mono<Map<String, T>> getAll(Collection<String> keys, Class<T> type);
+
+    <T> Mono<Map<String, List<T>>> getAllLists(Collection<String> keys, Class<T> elementType);
+
+    void put(String key, Object value, Duration ttl, Collection<String> tags);
+
+    void replace(String key, Object value, Duration ttl);
+
+    void evict(String key);
+
+    void evictTag(String tag);
+}
@@ -0,0 +1,166 @@
+package nnt_data.credits_microservice.infrastructure.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+/**
+ * Planificador de carriles (lanes) por crédito.
+ *
+ * - submit: Encola una operación en el carril que corresponde a la clave (creditId) y devuelve su resultado.
+ *
+ * Cada carril es una cola de Reactor consumida con concatMap, de modo que las operaciones sobre un mismo
+ * crédito se ejecutan estrictamente en orden de llegada y sin locks. Los créditos se reparten entre un
+ * número fijo de carriles por hash, así que créditos distintos avanzan en paralelo.
+ *
+ * Métricas por carril (tag "lane"):
+ * - credits.lanes.queue.depth: Operaciones encoladas que aún no empezaron.
+ * - credits.lanes.wait: Tiempo entre el encolado de una operación y el inicio de su ejecución.
+ *
+ * El tiempo máximo limita la espera del suscriptor (cola más ejecución): si lo supera recibe un
+ * TimeoutException. Una operación cuyo suscriptor canceló antes de que empezara se descarta sin ejecutarse;
+ * una que ya empezó se ejecuta hasta el final, y el carril no empieza la siguiente hasta que termine, porque
+ * cortarla podría dejar aplicado un cambio de saldo sin su transacción.
+ *
+ * Configuración:
+ * - credits.transactions.lanes: Número de carriles (por defecto 64).
+ * - credits.transactions.lane-timeout: Tiempo máximo de espera del suscriptor de cada operación (por defecto 5s).
+ */
+@Component
+public class CreditLaneScheduler {
+
+    private final Lane[] lanes;
+    private final Duration taskTimeout;
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public CreditLaneScheduler(@Value("${credits.transactions.lanes:64}") int laneCount,
+                               @Value("${credits.transactions.lane-timeout:5s}") Duration taskTimeout,
+                               MeterRegistry meterRegistry) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("El número de carriles debe ser mayor a cero");
+        }
+        if (taskTimeout.isZero() || taskTimeout.isNegative()) {
+            throw new IllegalArgumentException("credits.transactions.lane-timeout debe ser mayor a cero");
+        }
+        this.taskTimeout = taskTimeout;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(String.valueOf(i), meterRegistry);
+            subscriptions.add(lanes[i].start());
+        }
+    }
+
+    public <T> Mono<T> submit(String key, Supplier<Mono<T>> work) {
+        return Mono.defer(() -> lanes[laneIndex(key)].enqueue(work))
+                .timeout(taskTimeout);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.dispose();
+    }
+
+    private int laneIndex(String key) {
+        int hash = key != null ? key.hashCode() : 0;
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    /**
+     * Carril: cola multi-productor de operaciones pendientes consumida de una en una.
+     */
+    private static final class Lane {
+        private final Sinks.Many<LaneTask<?>> queue = Sinks.unsafe().many().unicast()
+                .onBackpressureBuffer(Queues.<LaneTask<?>>unboundedMultiproducer().get());
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Timer waitTimer;
+
+        private Lane(String name, MeterRegistry meterRegistry) {
+            Gauge.builder("credits.lanes.queue.depth", depth, AtomicInteger::get)
+                    .description("Operaciones encoladas pendientes de ejecutar en el carril")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("credits.lanes.wait")
+                    .description("Tiempo de espera en cola antes de ejecutar la operación")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+        }
+
+        private Disposable start() {
+            return queue.asFlux()
+                    .concatMap(this::run)
+                    .subscribe();
+        }
+
+        private <T> Mono<T> enqueue(Supplier<Mono<T>> work) {
+            LaneTask<T> task = new LaneTask<>(work);
+            depth.incrementAndGet();
+            Sinks.EmitResult emitResult = queue.tryEmitNext(task);
+            if (emitResult.isFailure()) {
+                depth.decrementAndGet();
+                return Mono.error(new IllegalStateException("No se pudo encolar la operación: " + emitResult));
+            }
+            return task.result.asMono().doOnCancel(task::cancel);
+        }
+
+        private Mono<Void> run(LaneTask<?> task) {
+            depth.decrementAndGet();
+            if (!task.start()) {
+                return Mono.empty();
+            }
+            waitTimer.record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+            return task.execute();
+        }
+    }
+
+    /**
+     * Operación encolada y el sink por el que se entrega su resultado al suscriptor original. start y cancel
+     * compiten por el mismo estado, así que una operación o se descarta o se ejecuta completa.
+     */
+    private static final class LaneTask<T> {
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final Supplier<Mono<T>> work;
+        private final Sinks.One<T> result = Sinks.one();
+        private final long enqueuedAt = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private LaneTask(Supplier<Mono<T>> work) {
+            this.work = work;
+        }
+
+        private boolean start() {
+            return state.compareAndSet(QUEUED, STARTED);
+        }
+
+        private void cancel() {
+            state.compareAndSet(QUEUED, CANCELLED);
+        }
+
+        private Mono<Void> execute() {
+            return Mono.defer(work)
+                    .doOnNext(result::tryEmitValue)
+                    .doOnError(result::tryEmitError)
+                    .doOnSuccess(value -> {
+                        if (value == null) {
+                            result.tryEmitEmpty();
+                        }
+                    })
+                    .onErrorResume(e -> Mono.empty())
+                    .then();
+        }
+    }
+}
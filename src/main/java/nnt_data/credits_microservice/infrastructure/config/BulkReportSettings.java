@@ -0,0 +1,32 @@
+package nnt_data.credits_microservice.infrastructure.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+/**
+ * Configuración de los reportes masivos de saldo promedio (POST /reporting/salarySummary/bulk).
+ *
+ * - chunkSize: Clientes por tramo; cada tramo hace una consulta $in de créditos y una de transacciones
+ *   (credits.reporting.bulk.chunk-size, por defecto 500).
+ * - concurrency: Tramos que se procesan a la vez (credits.reporting.bulk.concurrency, por defecto 4).
+ * - maxCustomers: Clientes aceptados por solicitud (credits.reporting.bulk.max-customers, por defecto 100000).
+ */
+@Getter
+@Component
+public class BulkReportSettings {
+
+    private final int chunkSize;
+    private final int concurrency;
+    private final int maxCustomers;
+
+    public BulkReportSettings(@Value("${credits.reporting.bulk.chunk-size:500}") int chunkSize,
+                              @Value("${credits.reporting.bulk.concurrency:4}") int concurrency,
+                              @Value("${credits.reporting.bulk.max-customers:100000}") int maxCustomers) {
+        if (chunkSize < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("El tamaño de tramo y la concurrencia deben ser mayores a cero");
+        }
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+        this.maxCustomers = maxCustomers;
+    }
+}
@@ -0,0 +1,94 @@
+package nnt_data.credits_microservice.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+/**
+ * Componente BusinessCalendar con el día de negocio de las fechas, en la zona horaria configurada y no en
+ * la del servidor.
+ *
+ * - epochDay: Día de negocio de una fecha, como cantidad de días desde 1970-01-01 en la zona configurada.
+ *   Es el valor que se guarda en TransactionEntity.businessDay.
+ * - businessDay: El businessDay guardado, o el calculado con epochDay si el documento todavía no lo tiene
+ *   (ver BusinessDayBackfill).
+ * - toLocalDate / toDate: Día de negocio de una fecha e inicio de un día de negocio.
+ * - today / currentMonth: Día y mes de negocio actuales.
+ * - untilEndOfDay: Tiempo que falta para que termine un día de negocio.
+ *
+ * Las reglas de la zona se resuelven una vez al crear el componente. Si la zona tiene un desfase fijo (por
+ * ejemplo UTC o -05:00), epochDay es solo aritmética sobre los milisegundos; si tiene cambios de horario,
+ * se consulta el desfase vigente en ese instante, sin crear ZonedDateTime.
+ *
+ * Configuración:
+ * - credits.business-zone: Zona horaria de los días de negocio (por defecto UTC). Cambiarla con datos ya
+ *   guardados requiere borrar businessDay de credit_transaction para que BusinessDayBackfill lo recalcule.
+ */
+@Component
+public class BusinessCalendar {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long MILLIS_PER_SECOND = 1_000L;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final long fixedOffsetMillis;
+    private final boolean fixedOffset;
+
+    public BusinessCalendar(@Value("${credits.business-zone:UTC}") String zone) {
+        try {
+            this.zone = ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("credits.business-zone no es una zona horaria válida: " + zone, e);
+        }
+        this.rules = this.zone.getRules();
+        this.fixedOffset = rules.isFixedOffset();
+        this.fixedOffsetMillis = fixedOffset ? rules.getOffset(Instant.EPOCH).getTotalSeconds() * MILLIS_PER_SECOND : 0L;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public long epochDay(Date date) {
+        return epochDay(date.getTime());
+    }
+
+    public long epochDay(long epochMillis) {
+        long offsetMillis = fixedOffset
+                ? fixedOffsetMillis
+                : rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * MILLIS_PER_SECOND;
+        return Math.floorDiv(epochMillis + offsetMillis, MILLIS_PER_DAY);
+    }
+
+    public long businessDay(Long storedBusinessDay, Date date) {
+        return storedBusinessDay != null ? storedBusinessDay : epochDay(date);
+    }
+
+    public LocalDate toLocalDate(Date date) {
+        return LocalDate.ofEpochDay(epochDay(date));
+    }
+
+    public Date toDate(LocalDate day) {
+        return Date.from(day.atStartOfDay(zone).toInstant());
+    }
+
+    public LocalDate today() {
+        return LocalDate.ofEpochDay(epochDay(System.currentTimeMillis()));
+    }
+
+    public YearMonth currentMonth() {
+        return YearMonth.from(today());
+    }
+
+    public Duration untilEndOfDay(LocalDate day) {
+        return Duration.ofMillis(toDate(day.plusDays(1)).getTime() - System.currentTimeMillis());
+    }
+}
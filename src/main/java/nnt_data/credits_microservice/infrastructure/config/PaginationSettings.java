@@ -0,0 +1,41 @@
+package nnt_data.credits_microservice.infrastructure.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+/**
+ * Configuración de paginación y streaming de los listados de créditos y transacciones.
+ *
+ * - maxLimit: Tamaño máximo de página aceptado (credits.pagination.max-limit, por defecto 1000).
+ * - cursorBatchSize: Documentos que MongoDB entrega por cada lote del cursor
+ *   (credits.streaming.cursor-batch-size, por defecto 500).
+ * - requestRate: Elementos que se piden aguas arriba de una vez al transmitir un listado
+ *   (credits.streaming.request-rate, por defecto 256).
+ * - resolveLimit: Valida el limit recibido; 0 indica que no hay límite.
+ */
+@Getter
+@Component
+public class PaginationSettings {
+
+    private final int maxLimit;
+    private final int cursorBatchSize;
+    private final int requestRate;
+
+    public PaginationSettings(@Value("${credits.pagination.max-limit:1000}") int maxLimit,
+                              @Value("${credits.streaming.cursor-batch-size:500}") int cursorBatchSize,
+                              @Value("${credits.streaming.request-rate:256}") int requestRate) {
+        this.maxLimit = maxLimit;
+        this.cursorBatchSize = cursorBatchSize;
+        this.requestRate = requestRate;
+    }
+
+    public int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return 0;
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("El limit debe estar entre 1 y " + maxLimit);
+        }
+        return limit;
+    }
+}
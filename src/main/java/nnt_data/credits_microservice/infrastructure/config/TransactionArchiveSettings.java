@@ -0,0 +1,98 @@
+package nnt_data.credits_microservice.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.LocalTime;
+import java.util.Date;
+/**
+ * Componente TransactionArchiveSettings con la separación de las transacciones en datos calientes
+ * (credit_transaction) y archivados (buckets por crédito y mes, ver TransactionArchive y TransactionArchiver).
+ *
+ * - isEnabled: Si el archivado está activo. Si no lo está, las lecturas solo consultan credit_transaction.
+ * - getCollection: Colección de archivo.
+ * - horizon: Inicio del día de negocio con el que empieza el mes que está credits.archive.horizon-months
+ *   meses antes del actual. Las transacciones anteriores se archivan y solo los rangos que empiezan antes
+ *   del horizonte consultan el archivo; como el horizonte empieza un mes de negocio, cada bucket queda
+ *   completo y ningún día de negocio se reparte entre las dos colecciones una vez archivado.
+ * - inWindow: Si la hora actual, en credits.business-zone, está dentro de la ventana de archivado.
+ *
+ * El horizonte solo avanza con el tiempo. Aumentar credits.archive.horizon-months no devuelve los buckets
+ * ya archivados a credit_transaction, así que sus meses dejarían de consultarse; solo se debe reducir.
+ * Las colecciones time-series ya guardan las transacciones en buckets comprimidos, así que el archivado
+ * no se puede usar con credits.transactions.storage=time-series.
+ *
+ * Configuración:
+ * - credits.archive.enabled: Activa el archivado (por defecto false).
+ * - credits.archive.collection: Colección de archivo (por defecto credit_transaction_archive).
+ * - credits.archive.horizon-months: Meses completos que quedan en credit_transaction además del actual
+ *   (por defecto 12).
+ * - credits.archive.window-start / credits.archive.window-end: Ventana diaria de baja carga en la que
+ *   corre el archivado programado (por defecto 01:00 a 05:00). Si el fin es anterior al inicio, la ventana
+ *   cruza la medianoche; si son iguales, abarca el día completo.
+ */
+@Component
+public class TransactionArchiveSettings {
+
+    private final BusinessCalendar businessCalendar;
+    private final boolean enabled;
+    private final String collection;
+    private final int horizonMonths;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+
+    public TransactionArchiveSettings(TransactionStorage transactionStorage,
+                                      BusinessCalendar businessCalendar,
+                                      @Value("${credits.archive.enabled:false}") boolean enabled,
+                                      @Value("${credits.archive.collection:credit_transaction_archive}") String collection,
+                                      @Value("${credits.archive.horizon-months:12}") int horizonMonths,
+                                      @Value("${credits.archive.window-start:01:00}") String windowStart,
+                                      @Value("${credits.archive.window-end:05:00}") String windowEnd) {
+        if (enabled && transactionStorage.isTimeSeries()) {
+            throw new IllegalArgumentException(
+                    "credits.archive.enabled no es compatible con credits.transactions.storage=time-series");
+        }
+        if (horizonMonths < 1) {
+            throw new IllegalArgumentException("credits.archive.horizon-months debe ser mayor a cero");
+        }
+        if (collection.isBlank() || collection.equals(transactionStorage.getDocumentCollection())
+                || collection.equals(transactionStorage.getTimeSeriesCollection())) {
+            throw new IllegalArgumentException(
+                    "credits.archive.collection debe ser distinta de las colecciones de transacciones");
+        }
+        this.businessCalendar = businessCalendar;
+        this.enabled = enabled;
+        this.collection = collection;
+        this.horizonMonths = horizonMonths;
+        this.windowStart = parse(windowStart, "credits.archive.window-start");
+        this.windowEnd = parse(windowEnd, "credits.archive.window-end");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public Date horizon() {
+        return businessCalendar.toDate(businessCalendar.currentMonth().minusMonths(horizonMonths).atDay(1));
+    }
+
+    public boolean inWindow() {
+        LocalTime now = LocalTime.now(businessCalendar.getZone());
+        return windowStart.isBefore(windowEnd)
+                ? !now.isBefore(windowStart) && now.isBefore(windowEnd)
+                : !now.isBefore(windowStart) || now.isBefore(windowEnd);
+    }
+
+    private static LocalTime parse(String value, String property) {
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(property + " no es una hora válida: " + value, e);
+        }
+    }
+}
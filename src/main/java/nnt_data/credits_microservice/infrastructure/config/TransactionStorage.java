@@ -0,0 +1,95 @@
+package nnt_data.credits_microservice.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+/**
+ * Componente TransactionStorage con la forma en que se guardan las transacciones.
+ *
+ * - DOCUMENT: Un documento por transacción en credit_transaction (por defecto).
+ * - TIME_SERIES: Colección time-series nativa de MongoDB, con creditId como metaField y date como timeField.
+ *   MongoDB agrupa las transacciones de cada crédito en buckets comprimidos, así que los datos y los índices
+ *   ocupan mucho menos y los rangos por crédito y fecha leen pocos buckets.
+ * - getCollection: Colección que usa TransactionEntity (y con ella TransactionRepository) en el modo
+ *   configurado; se referencia desde @Document como #{@transactionStorage.collection}.
+ * - getDocumentCollection / getTimeSeriesCollection: Colecciones de cada modo, origen y destino de
+ *   TransactionTimeSeriesMigration.
+ * - timeSeriesOptions: Opciones con las que se crea la colección time-series.
+ *
+ * Una colección time-series no admite índices únicos, change streams ni actualizaciones de documentos
+ * puntuales; las transacciones solo se insertan, así que el servicio no las necesita, pero
+ * credits.change-stream.enabled no se puede usar en este modo. Las consultas por rango de _id
+ * (paginación de GET /transactions) no tienen índice y ordenan en memoria.
+ *
+ * Configuración:
+ * - credits.transactions.storage: document o time-series (por defecto document).
+ * - credits.transactions.time-series.collection: Colección time-series (por defecto credit_transaction_ts).
+ * - credits.transactions.time-series.granularity: seconds, minutes o hours (por defecto hours, adecuado para
+ *   créditos con pocas transacciones por hora).
+ */
+@Component("transactionStorage")
+public class TransactionStorage {
+
+    public enum Mode {
+        DOCUMENT,
+        TIME_SERIES
+    }
+
+    public static final String DOCUMENT_COLLECTION = "credit_transaction";
+    public static final String META_FIELD = "creditId";
+    public static final String TIME_FIELD = "date";
+
+    private final Mode mode;
+    private final String timeSeriesCollection;
+    private final Granularity granularity;
+
+    public TransactionStorage(@Value("${credits.transactions.storage:document}") String mode,
+                              @Value("${credits.transactions.time-series.collection:credit_transaction_ts}")
+                              String timeSeriesCollection,
+                              @Value("${credits.transactions.time-series.granularity:hours}") String granularity) {
+        this.mode = parse(Mode.class, mode, "credits.transactions.storage");
+        this.granularity = parse(Granularity.class, granularity, "credits.transactions.time-series.granularity");
+        if (timeSeriesCollection.isBlank() || DOCUMENT_COLLECTION.equals(timeSeriesCollection)) {
+            throw new IllegalArgumentException(
+                    "credits.transactions.time-series.collection debe ser distinta de " + DOCUMENT_COLLECTION);
+        }
+        this.timeSeriesCollection = timeSeriesCollection;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isTimeSeries() {
+        return mode == Mode.TIME_SERIES;
+    }
+
+    public String getCollection() {
+        return isTimeSeries() ? timeSeriesCollection : DOCUMENT_COLLECTION;
+    }
+
+    public String getDocumentCollection() {
+        return DOCUMENT_COLLECTION;
+    }
+
+    public String getTimeSeriesCollection() {
+        return timeSeriesCollection;
+    }
+
+    public CollectionOptions timeSeriesOptions() {
+        return CollectionOptions.empty().timeSeries(CollectionOptions.TimeSeriesOptions.timeSeries(TIME_FIELD)
+                .metaField(META_FIELD)
+                .granularity(granularity));
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String property) {
+        try {
+            return Enum.valueOf(type, value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(property + " no soportado: " + value);
+        }
+    }
+}
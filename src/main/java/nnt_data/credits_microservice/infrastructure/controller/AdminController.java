@@ -0,0 +1,155 @@
+package nnt_data.credits_microservice.infrastructure.controller;
+
+import lombok.RequiredArgsConstructor;
+import nnt_data.credits_microservice.api.AdminApi;
+import nnt_data.credits_microservice.domain.service.MonthlyBalanceAccumulator;
+import nnt_data.credits_microservice.infrastructure.config.TransactionArchiveSettings;
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
+import nnt_data.credits_microservice.infrastructure.persistence.archive.TransactionArchiver;
+import nnt_data.credits_microservice.infrastructure.persistence.index.IndexCatalog;
+import nnt_data.credits_microservice.infrastructure.persistence.index.IndexStatus;
+import nnt_data.credits_microservice.infrastructure.persistence.index.IndexedQuery;
+import nnt_data.credits_microservice.infrastructure.persistence.index.MongoIndexManager;
+import nnt_data.credits_microservice.infrastructure.persistence.migration.TransactionTimeSeriesMigration;
+import nnt_data.credits_microservice.model.IndexReport;
+import nnt_data.credits_microservice.model.ManagedIndexStatus;
+import nnt_data.credits_microservice.model.MonthlyBalanceBackfillReport;
+import nnt_data.credits_microservice.model.QueryIndexUsage;
+import nnt_data.credits_microservice.model.TransactionArchiveReport;
+import nnt_data.credits_microservice.model.TransactionMigrationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+/**
+ * Controlador AdminController que implementa la interfaz AdminApi.
+ *
+ * - getIndexReport: Verifica los índices gestionados sin crear ninguno y lista el índice que usa cada
+ *   consulta de los repositorios.
+ * - backfillMonthlyBalances: Construye los acumuladores mensuales de saldo que faltan en un rango de meses.
+ * - migrateTransactionsToTimeSeries: Copia las transacciones pendientes de credit_transaction a la colección
+ *   time-series (ver TransactionTimeSeriesMigration).
+ * - archiveTransactions: Archiva las transacciones anteriores al horizonte sin esperar a la ventana
+ *   programada (ver TransactionArchiver).
+ */
+@RestController
+@RequiredArgsConstructor
+public class AdminController implements AdminApi {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+
+    private final MongoIndexManager mongoIndexManager;
+    private final IndexCatalog indexCatalog;
+    private final MonthlyBalanceAccumulator monthlyBalanceAccumulator;
+    private final TransactionTimeSeriesMigration transactionTimeSeriesMigration;
+    private final TransactionStorage transactionStorage;
+    private final TransactionArchiver transactionArchiver;
+    private final TransactionArchiveSettings transactionArchiveSettings;
+
+    /**
+     * GET /admin/indexes : Estado de los índices gestionados
+     *
+     * @param exchange
+     * @return Reporte de índices (status code 200)
+     */
+    @Override
+    public Mono<ResponseEntity<IndexReport>> getIndexReport(ServerWebExchange exchange) {
+        log.info("Generando reporte de índices");
+        List<QueryIndexUsage> queries = indexCatalog.getQueries().stream()
+                .map(this::toQueryIndexUsage)
+                .toList();
+        return mongoIndexManager.reconcile(false)
+                .map(this::toManagedIndexStatus)
+                .collectList()
+                .map(indexes -> {
+                    IndexReport report = new IndexReport();
+                    report.setIndexes(indexes);
+                    report.setQueries(queries);
+                    return ResponseEntity.ok(report);
+                });
+    }
+
+    /**
+     * POST /admin/monthly-balances/backfill : Construye los acumuladores mensuales de saldo
+     *
+     * @param from Primer mes a construir (yyyy-MM) (required)
+     * @param to Último mes a construir (yyyy-MM), no posterior al mes actual (required)
+     * @param exchange
+     * @return Resultado de la construcción (status code 200)
+     *         or Rango de meses inválido (status code 400)
+     */
+    @Override
+    public Mono<ResponseEntity<MonthlyBalanceBackfillReport>> backfillMonthlyBalances(String from, String to,
+                                                                                       ServerWebExchange exchange) {
+        log.info("Construyendo acumuladores mensuales de {} a {}", from, to);
+        return Mono.fromCallable(() -> new YearMonth[]{YearMonth.parse(from), YearMonth.parse(to)})
+                .onErrorMap(DateTimeParseException.class,
+                        e -> new IllegalArgumentException("Mes inválido, se espera el formato yyyy-MM"))
+                .flatMap(months -> monthlyBalanceAccumulator.backfill(months[0], months[1]))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * POST /admin/transactions/time-series-migration : Copia las transacciones a la colección time-series
+     *
+     * @param exchange
+     * @return Resultado de la copia (status code 200)
+     */
+    @Override
+    public Mono<ResponseEntity<TransactionMigrationReport>> migrateTransactionsToTimeSeries(ServerWebExchange exchange) {
+        log.info("Copiando transacciones a {}", transactionStorage.getTimeSeriesCollection());
+        return transactionTimeSeriesMigration.migrate()
+                .map(copied -> {
+                    TransactionMigrationReport report = new TransactionMigrationReport();
+                    report.setSourceCollection(transactionStorage.getDocumentCollection());
+                    report.setTargetCollection(transactionStorage.getTimeSeriesCollection());
+                    report.setStorage(transactionStorage.getMode().name().toLowerCase().replace('_', '-'));
+                    report.setCopied(copied);
+                    return ResponseEntity.ok(report);
+                });
+    }
+
+    /**
+     * POST /admin/transactions/archive : Archiva las transacciones anteriores al horizonte
+     *
+     * @param exchange
+     * @return Resultado del archivado (status code 200)
+     *         or El archivado no está activo (status code 400)
+     */
+    @Override
+    public Mono<ResponseEntity<TransactionArchiveReport>> archiveTransactions(ServerWebExchange exchange) {
+        log.info("Archivando transacciones en {}", transactionArchiveSettings.getCollection());
+        return transactionArchiver.archive()
+                .map(archived -> {
+                    TransactionArchiveReport report = new TransactionArchiveReport();
+                    report.setArchiveCollection(transactionArchiveSettings.getCollection());
+                    report.setHorizon(transactionArchiveSettings.horizon());
+                    report.setArchived(archived);
+                    return ResponseEntity.ok(report);
+                });
+    }
+
+    private ManagedIndexStatus toManagedIndexStatus(IndexStatus status) {
+        ManagedIndexStatus managedIndexStatus = new ManagedIndexStatus();
+        managedIndexStatus.setCollection(status.collection());
+        managedIndexStatus.setName(status.name());
+        managedIndexStatus.setKeys(status.keys());
+        managedIndexStatus.setStatus(ManagedIndexStatus.StatusEnum.fromValue(status.state().name().toLowerCase()));
+        managedIndexStatus.setDetail(status.detail());
+        return managedIndexStatus;
+    }
+
+    private QueryIndexUsage toQueryIndexUsage(IndexedQuery query) {
+        QueryIndexUsage usage = new QueryIndexUsage();
+        usage.setQuery(query.query());
+        usage.setCollection(query.collection());
+        usage.setIndex(query.index());
+        return usage;
+    }
+}
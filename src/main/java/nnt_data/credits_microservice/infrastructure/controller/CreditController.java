@@ -4,8 +4,10 @@ import lombok.RequiredArgsConstructor;
 import nnt_data.credits_microservice.api.CreditsApi;
 import nnt_data.credits_microservice.application.port.CreditOperationsPort;
 import nnt_data.credits_microservice.application.port.TransactionOperationsPort;
+import nnt_data.credits_microservice.domain.error.DomainException;
 import nnt_data.credits_microservice.model.CreditBase;
 import nnt_data.credits_microservice.model.Transaction;
+import nnt_data.credits_microservice.model.TransactionBatchResult;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,9 +17,12 @@ import reactor.core.publisher.Mono;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.function.Function;
+
 /**
  * Controlador CreditController que implementa la interfaz CreditsApi.*
  * - createTransaction: Registra una nueva transacción.
+ * - createTransactionsBatch: Registra un lote de transacciones.
  * - creditsCreditIdGet: Obtiene un crédito por su ID.
  * - creditsCreditIdPut: Actualiza un crédito existente.
  * - creditsGet: Obtiene todos los créditos.
@@ -25,6 +30,13 @@ import org.slf4j.LoggerFactory;
  * - deleteCredit: Elimina un crédito existente.
  * - getAllTransactions: Obtiene todas las transacciones.
  * - getTransactionsByCreditId: Obtiene transacciones por ID de crédito.
+ *
+ * Los listados sin limit se devuelven como un Flux que WebFlux transmite a medida que llega del cursor
+ * (como arreglo JSON o, con Accept application/x-ndjson, un elemento por línea). Con limit la página se
+ * reúne para poder informar en X-Next-Cursor el ID desde el que sigue la página siguiente.
+ *
+ * Los errores de dominio se responden con el estado de su ErrorCode; el resto los resuelve
+ * GlobalExceptionHandler.
  */
 
 @RestController
@@ -34,24 +46,45 @@ public class CreditController implements CreditsApi {
     private final CreditOperationsPort creditOperationsPort;
     private final TransactionOperationsPort transactionOperationsPort;
     private static final Logger log = LoggerFactory.getLogger(CreditController.class);
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
 
     /**
      * POST /credits/transactions : Registrar una nueva transacción en la cuenta
      *
      * @param transaction (required)
+     * @param idempotencyKey Clave opcional para reintentos seguros (optional)
      * @param exchange
      * @return Transacción registrada exitosamente (status code 201)
      */
     @Override
-    public Mono<ResponseEntity<Transaction>> createTransaction(Mono<Transaction> transaction, ServerWebExchange exchange) {
+    public Mono<ResponseEntity<Transaction>> createTransaction(Mono<Transaction> transaction, String idempotencyKey,
+                                                               ServerWebExchange exchange) {
         log.info("Iniciando creación de nueva transacción");
         return transaction
-                .flatMap(transactionOperationsPort::createTransaction)
+                .flatMap(request -> transactionOperationsPort.createTransaction(request, idempotencyKey))
                 .map(result -> ResponseEntity
                         .status(201)
                         .body(result));
     }
 
+    /**
+     * POST /credits/transactions/batch : Registrar un lote de transacciones
+     *
+     * @param transaction (required)
+     * @param exchange
+     * @return Lote procesado; cada fila indica si fue aceptada o rechazada (status code 200)
+     * or Solicitud incorrecta (status code 400)
+     */
+    @Override
+    public Mono<ResponseEntity<TransactionBatchResult>> createTransactionsBatch(Flux<Transaction> transaction,
+                                                                              ServerWebExchange exchange) {
+        log.info("Iniciando registro de lote de transacciones");
+        return transaction
+                .collectList()
+                .flatMap(transactionOperationsPort::createTransactions)
+                .map(result -> ResponseEntity.ok().body(result));
+    }
+
     /**
      * GET /credits/{creditId} : Obtiene un crédito por su ID
      *
@@ -63,9 +96,7 @@ public class CreditController implements CreditsApi {
     public Mono<ResponseEntity<CreditBase>> creditsCreditIdGet(String creditId, ServerWebExchange exchange) {
         log.info("Buscando crédito con ID: {}", creditId);
         return creditOperationsPort.getByCreditId(creditId)
-                .map(credit -> ResponseEntity.ok().body(credit))
-                .onErrorResume(IllegalArgumentException.class,
-                        e -> Mono.just(ResponseEntity.notFound().build()));
+                .map(credit -> ResponseEntity.ok().body(credit));
     }
 
     /**
@@ -94,14 +125,15 @@ public class CreditController implements CreditsApi {
     /**
      * GET /credits : Obtiene todos los créditos
      *
+     * @param limit Tamaño máximo de la página (optional)
+     * @param after Cursor de la página anterior (optional)
      * @param exchange
      * @return Lista de créditos obtenida correctamente (status code 200)
      */
     @Override
-    public Mono<ResponseEntity<Flux<CreditBase>>> creditsGet(ServerWebExchange exchange) {
-        log.info("Obteniendo todos los créditos");
-        Flux<CreditBase> credits = creditOperationsPort.getAllCredits();
-        return Mono.just(ResponseEntity.ok().body(credits));
+    public Mono<ResponseEntity<Flux<CreditBase>>> creditsGet(Integer limit, String after, ServerWebExchange exchange) {
+        log.info("Obteniendo créditos (limit: {}, after: {})", limit, after);
+        return page(creditOperationsPort.getAllCredits(after, limit), limit, CreditBase::getCreditId);
     }
 
     /**
@@ -137,24 +169,22 @@ public class CreditController implements CreditsApi {
         log.info("Iniciando eliminación de crédito con ID: {}", creditId);
         return creditOperationsPort.deleteCredit(creditId)
                 .then(Mono.just(ResponseEntity.noContent().<Void>build()))
-                .onErrorResume(e -> {
-                    if (e.getMessage().contains("no encontrado")) {
-                        return Mono.just(ResponseEntity.notFound().build());
-                    }
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
-                });
+                .onErrorResume(e -> !(e instanceof DomainException),
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
     }
     /**
      * GET /credits/transactions : Obtener todas las transacciones
      *
+     * @param limit Tamaño máximo de la página (optional)
+     * @param after Cursor de la página anterior (optional)
      * @param exchange
      * @return Historial completo de transacciones (status code 200)
      */
     @Override
-    public Mono<ResponseEntity<Flux<Transaction>>> getAllTransactions(ServerWebExchange exchange) {
-        log.info("Obteniendo todas las transacciones");
-        Flux<Transaction> transactions = transactionOperationsPort.getTransactions();
-        return Mono.just(ResponseEntity.ok().body(transactions));
+    public Mono<ResponseEntity<Flux<Transaction>>> getAllTransactions(Integer limit, String after,
+                                                                    ServerWebExchange exchange) {
+        log.info("Obteniendo transacciones (limit: {}, after: {})", limit, after);
+        return page(transactionOperationsPort.getTransactions(after, limit), limit, Transaction::getTransactionId);
     }
 
     /**
@@ -204,4 +234,22 @@ public class CreditController implements CreditsApi {
                 .map(ResponseEntity::ok);
     }
 
+    /**
+     * Respuesta de un listado: sin limit transmite los elementos tal cual; con limit reúne la página y,
+     * si está completa, agrega el cursor de su último elemento en el encabezado X-Next-Cursor.
+     */
+    private <T> Mono<ResponseEntity<Flux<T>>> page(Flux<T> items, Integer limit, Function<T, String> cursor) {
+        if (limit == null) {
+            return Mono.just(ResponseEntity.ok().body(items));
+        }
+        return items.collectList()
+                .map(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (!page.isEmpty() && page.size() == limit) {
+                        response.header(NEXT_CURSOR, cursor.apply(page.get(page.size() - 1)));
+                    }
+                    return response.body(Flux.fromIterable(page));
+                });
+    }
+
 }
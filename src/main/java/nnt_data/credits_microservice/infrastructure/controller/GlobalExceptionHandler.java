@@ -1,5 +1,10 @@
 package nnt_data.credits_microservice.infrastructure.controller;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -8,13 +13,19 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 /**
  * Manejador global de excepciones.
  *
  * - handleWebExchangeBindException: Maneja excepciones de validación de intercambio web.
+ * - handleDomainException: Responde los errores de dominio con el estado de su ErrorCode y un cuerpo
+ *   { code, status, error, message }. Los cuerpos con el mensaje de cada código se serializan una sola vez
+ *   al crear el manejador, así que un rechazo no serializa nada; solo los errores con un mensaje propio
+ *   se serializan al responder.
  * - handleIllegalArgumentException: Maneja excepciones de argumentos ilegales.
  * - handleGenericException: Maneja excepciones genéricas.
  * - getValidationErrorResponse: Genera respuestas de error de validación.
@@ -23,12 +34,45 @@ import java.util.function.Function;
 public class GlobalExceptionHandler {
     private static final String TIMESTAMP = "timestamp";
 
+    private final ObjectMapper objectMapper;
+    private final Map<ErrorCode, Mono<ResponseEntity<byte[]>>> domainResponses = new EnumMap<>(ErrorCode.class);
+
+    public GlobalExceptionHandler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (ErrorCode code : ErrorCode.values()) {
+            domainResponses.put(code, Mono.just(domainResponse(code, code.getMessage())));
+        }
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public Mono<ResponseEntity<Map<String, Object>>> handleWebExchangeBindException(WebExchangeBindException ex) {
         Map<String, Object> response = new HashMap<>();
         return getValidationErrorResponse(response).apply(ex);
     }
 
+    @ExceptionHandler(DomainException.class)
+    public Mono<ResponseEntity<byte[]>> handleDomainException(DomainException ex) {
+        return ex.hasDefaultMessage()
+                ? domainResponses.get(ex.getCode())
+                : Mono.fromCallable(() -> domainResponse(ex.getCode(), ex.getMessage()));
+    }
+
+    private ResponseEntity<byte[]> domainResponse(ErrorCode code, String message) {
+        HttpStatus status = HttpStatus.valueOf(code.getStatus());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", code.name());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        try {
+            return ResponseEntity.status(status)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el error " + code, e);
+        }
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public Mono<ResponseEntity<Object>> handleIllegalArgumentException(IllegalArgumentException ex) {
         Map<String, Object> body = new HashMap<>();
@@ -2,13 +2,18 @@ package nnt_data.credits_microservice.infrastructure.controller;
 
 import lombok.RequiredArgsConstructor;
 import nnt_data.credits_microservice.api.ReportingApi;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.service.BalanceReportEngine;
 import nnt_data.credits_microservice.domain.service.ReportingService;
+import nnt_data.credits_microservice.model.CustomerSalarySummary;
 import nnt_data.credits_microservice.model.PostSalarySummaryForPeriodRequest;
+import nnt_data.credits_microservice.model.SalarySummaryBulkRequest;
 import nnt_data.credits_microservice.model.TransactionReport;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.Date;
@@ -26,20 +31,23 @@ public class ReportingController implements ReportingApi {
      * Devuelve un reporte con las últimas 10 transacciones realizadas con la tarjeta de credito especificada
      *
      * @param cardNumber Número de la tarjeta de débito (required)
+     * @param limit Cantidad máxima de transacciones del reporte (optional, default to 10)
+     * @param before Solo incluye transacciones anteriores a esta fecha (optional)
      * @param exchange
      * @return Reporte de transacciones generado exitosamente (status code 200)
      * or Número de tarjeta inválido o no encontrado (status code 400)
      * or Error interno del servidor (status code 500)
      */
     @Override
-    public Mono<ResponseEntity<TransactionReport>> getLastTenTransactions(String cardNumber, ServerWebExchange exchange) {
-        return reportingService.getLastTenTransactions(cardNumber)
+    public Mono<ResponseEntity<TransactionReport>> getLastTenTransactions(String cardNumber, Integer limit, Date before,
+                                                                          ServerWebExchange exchange) {
+        return reportingService.getLastTenTransactions(cardNumber, limit, before)
                 .map(transactionReport -> ResponseEntity.ok()
                         .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
                         .body(transactionReport))
-                .onErrorResume(IllegalArgumentException.class, e ->
+                .onErrorResume(e -> e instanceof IllegalArgumentException && !(e instanceof DomainException), e ->
                         Mono.just(ResponseEntity.badRequest().build()))
-                .onErrorResume(e ->
+                .onErrorResume(e -> !(e instanceof DomainException), e ->
                         Mono.just(ResponseEntity.status(500).build()));
     }
 
@@ -63,7 +71,7 @@ public class ReportingController implements ReportingApi {
                     );
                     return ResponseEntity.ok(response);
                 })
-                .onErrorResume(e -> {
+                .onErrorResume(e -> !(e instanceof DomainException), e -> {
                     Map<String, Object> errorResponse = Map.of(
                             "error", e.getMessage()
                     );
@@ -81,17 +89,33 @@ public class ReportingController implements ReportingApi {
     @Override
     public Mono<ResponseEntity<Map<String, Object>>> postSalarySummaryForPeriod(Mono<PostSalarySummaryForPeriodRequest> postSalarySummaryForPeriodRequest, ServerWebExchange exchange) {
         return postSalarySummaryForPeriodRequest
-                .flatMap(request -> reportingService.generateResumeOfAvarageBalanceForPeriod(request.getCreditId(), request.getStartDate(), request.getEndDate())
+                .flatMap(request -> reportingService.generateResumeOfAvarageBalanceForPeriod(request.getCreditId(), request.getStartDate(), request.getEndDate(),
+                                request.getEngine() != null ? BalanceReportEngine.from(request.getEngine().getValue()) : null)
                         .map(creditResumes -> {
                             Map<String, Object> response = new HashMap<>();
                             response.put("CreditId", request.getCreditId());
                             response.put("CreditsResumes", creditResumes);
                             return ResponseEntity.ok(response);
                         })
-                        .onErrorResume(e -> {
+                        .onErrorResume(e -> !(e instanceof DomainException), e -> {
                             Map<String, Object> errorResponse = new HashMap<>();
                             errorResponse.put("error", e.getMessage());
                             return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse));
                         }));
     }
+
+    /**
+     * POST /reporting/salarySummary/bulk : Reporte de saldos promedio del mes para varios clientes
+     *
+     * @param salarySummaryBulkRequest (required)
+     * @param exchange
+     * @return Resumen de cada cliente (status code 200)
+     *         or Solicitud incorrecta (status code 400)
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<CustomerSalarySummary>>> postSalarySummaryBulk(
+            Mono<SalarySummaryBulkRequest> salarySummaryBulkRequest, ServerWebExchange exchange) {
+        return salarySummaryBulkRequest
+                .map(request -> ResponseEntity.ok(reportingService.generateResumeOfAvarageBalances(request.getCustomerIds())));
+    }
 }
@@ -0,0 +1,157 @@
+package nnt_data.credits_microservice.infrastructure.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.IdempotencyRecordEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapper;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.IdempotencyRecordRepository;
+import nnt_data.credits_microservice.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+/**
+ * Almacén TransactionIdempotencyStore que garantiza que una solicitud con Idempotency-Key se aplica una sola vez.
+ *
+ * - execute: Ejecuta la operación la primera vez que se recibe la clave y devuelve la misma transacción
+ *   en cada repetición.
+ *   - Primero consulta una caché en memoria acotada (LRU con TTL).
+ *   - Las repeticiones concurrentes de una clave que aún se está procesando en esta instancia comparten
+ *     una única ejecución.
+ *   - Si la clave no está en memoria, la reserva en la colección idempotency_keys; si otra solicitud ya
+ *     la completó devuelve su transacción, y si sigue en proceso rechaza la repetición
+ *     (IDEMPOTENCY_KEY_IN_PROGRESS).
+ *   - Si la operación se rechaza con un DomainException, no aplicó nada y libera la clave para que el
+ *     cliente pueda reintentar. Cualquier otro error (por ejemplo, una inserción fallida cuyo movimiento
+ *     de saldo no se pudo revertir, o un tiempo agotado) puede haber dejado el saldo modificado, así que
+ *     conserva la reserva: las repeticiones se rechazan como en proceso hasta que la clave vence, en lugar
+ *     de volver a cobrar.
+ *   - Si la operación se aplicó pero no se pudo guardar el registro COMPLETED, reintenta guardarlo y, si
+ *     tampoco lo logra, conserva la reserva: las repeticiones en esta instancia se responden desde memoria
+ *     y en otras instancias se rechazan como en proceso hasta que la clave vence, pero nunca se vuelve a
+ *     aplicar la operación. Solo un DuplicateKeyException al reservar indica una clave ya usada.
+ *   - Una clave reutilizada con otro crédito, tipo o monto se rechaza (IDEMPOTENCY_KEY_REUSED).
+ *
+ * Las claves vencidas se eliminan de la colección con el índice TTL declarado en IndexCatalog.
+ *
+ * Configuración:
+ * - credits.idempotency.ttl: Tiempo durante el que se recuerda una clave (por defecto 24h).
+ * - credits.idempotency.cache.max-size: Claves que se mantienen en memoria (por defecto 10000).
+ */
+@Component
+public class TransactionIdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionIdempotencyStore.class);
+
+    private static final int COMPLETE_RETRIES = 3;
+    private static final Duration COMPLETE_BACKOFF = Duration.ofMillis(50);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionMapper transactionMapper;
+    private final Cache<String, CompletedRequest> completed;
+    private final Map<String, Mono<Transaction>> inFlight = new ConcurrentHashMap<>();
+
+    public TransactionIdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+                                       TransactionMapper transactionMapper,
+                                       @Value("${credits.idempotency.ttl:24h}") Duration ttl,
+                                       @Value("${credits.idempotency.cache.max-size:10000}") long maxSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionMapper = transactionMapper;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Mono<Transaction> execute(String key, Transaction request, Supplier<Mono<Transaction>> work) {
+        String fingerprint = fingerprint(request);
+        return Mono.defer(() -> {
+            CompletedRequest cached = completed.getIfPresent(key);
+            if (cached != null) {
+                return replay(cached, fingerprint);
+            }
+            return inFlight.computeIfAbsent(key, k -> reserveAndRun(k, fingerprint, work)
+                            .doFinally(signal -> inFlight.remove(k))
+                            .cache())
+                    .flatMap(transaction -> {
+                        CompletedRequest result = completed.getIfPresent(key);
+                        return result != null ? replay(result, fingerprint) : Mono.just(transaction);
+                    });
+        });
+    }
+
+    private Mono<Transaction> reserveAndRun(String key, String fingerprint, Supplier<Mono<Transaction>> work) {
+        IdempotencyRecordEntity reservation = new IdempotencyRecordEntity();
+        reservation.setKey(key);
+        reservation.setFingerprint(fingerprint);
+        reservation.setStatus(IdempotencyRecordEntity.PENDING);
+        reservation.setCreatedAt(new Date());
+        return idempotencyRecordRepository.insert(reservation)
+                .map(Optional::of)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(Optional.empty()))
+                .flatMap(saved -> saved.isPresent() ? run(saved.get(), work) : existing(key));
+    }
+
+    private Mono<Transaction> run(IdempotencyRecordEntity reservation, Supplier<Mono<Transaction>> work) {
+        return Mono.defer(work)
+                .onErrorResume(DomainException.class, e ->
+                        idempotencyRecordRepository.deleteById(reservation.getKey())
+                                .onErrorResume(deleteError -> Mono.empty())
+                                .then(Mono.error(e)))
+                .flatMap(transaction -> complete(reservation, transaction));
+    }
+
+    private Mono<Transaction> complete(IdempotencyRecordEntity record, Transaction transaction) {
+        completed.put(record.getKey(), new CompletedRequest(record.getFingerprint(), transaction));
+        return Mono.fromCallable(() -> transactionMapper.mapToEntity(transaction))
+                .flatMap(entity -> {
+                    record.setStatus(IdempotencyRecordEntity.COMPLETED);
+                    record.setTransaction(entity);
+                    return idempotencyRecordRepository.save(record);
+                })
+                .retryWhen(Retry.backoff(COMPLETE_RETRIES, COMPLETE_BACKOFF))
+                .onErrorResume(e -> {
+                    log.error("No se pudo registrar como completada la Idempotency-Key {}: {}",
+                            record.getKey(), e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(transaction);
+    }
+
+    private Mono<Transaction> existing(String key) {
+        return idempotencyRecordRepository.findById(key)
+                .filter(record -> IdempotencyRecordEntity.COMPLETED.equals(record.getStatus()))
+                .switchIfEmpty(DomainException.of(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS))
+                .map(record -> {
+                    Transaction transaction = transactionMapper.mapToDomain(record.getTransaction());
+                    completed.put(key, new CompletedRequest(record.getFingerprint(), transaction));
+                    return transaction;
+                });
+    }
+
+    private Mono<Transaction> replay(CompletedRequest cached, String fingerprint) {
+        if (!cached.fingerprint().equals(fingerprint)) {
+            return DomainException.of(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+        return Mono.just(cached.transaction());
+    }
+
+    private static String fingerprint(Transaction transaction) {
+        return transaction.getCreditId() + "|" + transaction.getType() + "|" + transaction.getAmount();
+    }
+
+    private record CompletedRequest(String fingerprint, Transaction transaction) {
+    }
+}
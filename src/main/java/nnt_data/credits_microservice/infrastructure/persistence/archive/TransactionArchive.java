@@ -0,0 +1,170 @@
+package nnt_data.credits_microservice.infrastructure.persistence.archive;
+
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.config.TransactionArchiveSettings;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+/**
+ * Componente TransactionArchive con el formato de la colección de archivo de transacciones: un documento
+ * (bucket) por crédito y mes de negocio, con _id creditId:yyyy-MM, los campos creditId, month, firstDate y
+ * lastDate, y en transactions las transacciones del mes en forma compacta (_id, date, type, amountCents y
+ * businessDay, sin repetir creditId).
+ *
+ * - horizon: Horizonte de archivado (ver TransactionArchiveSettings), o null si el archivado no está activo.
+ * - append: Agrega transacciones de credit_transaction, ya con montos en centavos y día de negocio, a sus
+ *   buckets con una sola escritura masiva no ordenada. Usa $addToSet, así que volver a agregar una
+ *   transacción ya archivada (un lote interrumpido antes de borrarse de credit_transaction) no la duplica.
+ * - find: Transacciones archivadas de unos créditos con fecha desde after (inclusive) hasta before
+ *   (exclusivo), null sin límite, ordenadas por fecha. Solo lee los buckets de los meses del rango, con el índice
+ *   { creditId: 1, month: 1 }.
+ * - unionWith: Etapa $unionWith con las mismas transacciones, para sumarlas a una agregación sobre
+ *   credit_transaction.
+ *
+ * Un bucket reúne las transacciones de un crédito en un mes, así que un crédito con varios cientos de miles
+ * de transacciones en un mes se acercaría al límite de 16 MB de un documento.
+ */
+@Component
+public class TransactionArchive {
+
+    public static final String CREDIT_ID = "creditId";
+    public static final String MONTH = "month";
+    public static final String FIRST_DATE = "firstDate";
+    public static final String LAST_DATE = "lastDate";
+    public static final String TRANSACTIONS = "transactions";
+
+    private static final String ID = "_id";
+    private static final String DATE = "date";
+    private static final String BUSINESS_DAY = "businessDay";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TransactionArchiveSettings settings;
+    private final BusinessCalendar businessCalendar;
+
+    public TransactionArchive(ReactiveMongoTemplate mongoTemplate,
+                              TransactionArchiveSettings settings,
+                              BusinessCalendar businessCalendar) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = settings;
+        this.businessCalendar = businessCalendar;
+    }
+
+    public Date horizon() {
+        return settings.isEnabled() ? settings.horizon() : null;
+    }
+
+    public Mono<Void> append(List<Document> transactions) {
+        if (transactions.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<String, List<Document>> buckets = new LinkedHashMap<>();
+        transactions.forEach(transaction -> buckets
+                .computeIfAbsent(bucketId(transaction.getString(CREDIT_ID), month(transaction)),
+                        id -> new ArrayList<>())
+                .add(transaction));
+        ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                settings.getCollection());
+        buckets.forEach((id, bucket) -> bulk.upsert(Query.query(Criteria.where(ID).is(id)), update(bucket)));
+        return bulk.execute().then();
+    }
+
+    public Flux<TransactionEntity> find(Collection<String> creditIds, Date after, Date before,
+                                        Sort.Direction direction, int limit) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        stages(creditIds, after, before).forEach(stage -> operations.add(context -> stage));
+        operations.add(Aggregation.sort(Sort.by(direction, DATE)));
+        if (limit > 0) {
+            operations.add(Aggregation.limit(limit));
+        }
+        Aggregation aggregation = Aggregation.newAggregation(operations)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate.aggregate(aggregation, settings.getCollection(), TransactionEntity.class);
+    }
+
+    public Document unionWith(Collection<String> creditIds, Date after, Date before) {
+        return new Document("$unionWith", new Document()
+                .append("coll", settings.getCollection())
+                .append("pipeline", stages(creditIds, after, before)));
+    }
+
+    static String bucketId(String creditId, YearMonth month) {
+        return creditId + ":" + month;
+    }
+
+    private List<Document> stages(Collection<String> creditIds, Date after, Date before) {
+        Document bucket = new Document(CREDIT_ID, new Document("$in", List.copyOf(creditIds)));
+        Document months = new Document();
+        Document dates = new Document();
+        if (after != null) {
+            months.append("$gte", businessMonth(after).toString());
+            dates.append("$gte", after);
+        }
+        if (before != null) {
+            months.append("$lte", businessMonth(before).toString());
+            dates.append("$lt", before);
+        }
+        if (!months.isEmpty()) {
+            bucket.append(MONTH, months);
+        }
+        List<Document> stages = new ArrayList<>(List.of(
+                new Document("$match", bucket),
+                new Document("$unwind", "$" + TRANSACTIONS),
+                new Document("$replaceRoot", new Document("newRoot", new Document("$mergeObjects",
+                        List.of("$" + TRANSACTIONS, new Document(CREDIT_ID, "$" + CREDIT_ID)))))));
+        if (!dates.isEmpty()) {
+            stages.add(new Document("$match", new Document(DATE, dates)));
+        }
+        return stages;
+    }
+
+    private YearMonth businessMonth(Date date) {
+        return YearMonth.from(businessCalendar.toLocalDate(date));
+    }
+
+    private static YearMonth month(Document transaction) {
+        return YearMonth.from(LocalDate.ofEpochDay(businessDay(transaction)));
+    }
+
+    private static long businessDay(Document transaction) {
+        return ((Number) transaction.get(BUSINESS_DAY)).longValue();
+    }
+
+    private static Update update(List<Document> bucket) {
+        Document first = bucket.get(0);
+        List<Document> entries = bucket.stream()
+                .map(transaction -> new Document(ID, transaction.get(ID))
+                        .append(DATE, transaction.get(DATE))
+                        .append("type", transaction.get("type"))
+                        .append("amountCents", transaction.get("amountCents"))
+                        .append(BUSINESS_DAY, businessDay(transaction)))
+                .toList();
+        Update update = new Update()
+                .setOnInsert(CREDIT_ID, first.getString(CREDIT_ID))
+                .setOnInsert(MONTH, month(first).toString())
+                .min(FIRST_DATE, entries.stream().map(entry -> entry.getDate(DATE)).min(Date::compareTo).orElseThrow())
+                .max(LAST_DATE, entries.stream().map(entry -> entry.getDate(DATE)).max(Date::compareTo).orElseThrow());
+        update.addToSet(TRANSACTIONS).each(entries.toArray());
+        return update;
+    }
+}
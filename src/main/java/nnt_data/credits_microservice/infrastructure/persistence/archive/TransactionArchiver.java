@@ -0,0 +1,164 @@
+package nnt_data.credits_microservice.infrastructure.persistence.archive;
+
+import jakarta.annotation.PreDestroy;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.config.TransactionArchiveSettings;
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
+import nnt_data.credits_microservice.infrastructure.persistence.migration.BusinessDayBackfill;
+import nnt_data.credits_microservice.infrastructure.persistence.migration.LegacyMoney;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+/**
+ * Componente TransactionArchiver que mueve las transacciones anteriores al horizonte de
+ * TransactionArchiveSettings de credit_transaction a la colección de archivo (ver TransactionArchive).
+ *
+ * - scheduleOnStartup: Con credits.archive.enabled=true, revisa cada credits.archive.check-interval si la
+ *   hora actual está dentro de la ventana de archivado y, si lo está, ejecuta archive. Una ejecución en
+ *   curso no se superpone con la siguiente revisión.
+ * - archive: Recorre las transacciones anteriores al horizonte en orden de fecha (índice { date: 1 }), en
+ *   lotes de credits.archive.batch-size. Cada lote se agrega a sus buckets, ya con los montos en centavos y
+ *   el día de negocio, y después se borra de credit_transaction; entre lotes espera credits.archive.pause.
+ *   Devuelve cuántas transacciones archivó.
+ * - archiveInWindow: Igual que archive, pero se detiene al terminar un lote fuera de la ventana; lo que
+ *   falte se archiva en la siguiente ventana.
+ * - stop: Detiene la revisión periódica al detener la aplicación.
+ *
+ * Si un lote se interrumpe entre la escritura en el archivo y el borrado, la siguiente ejecución lo vuelve
+ * a agregar sin duplicarlo, y mientras tanto las lecturas descartan la copia repetida. Por lo mismo, varias
+ * instancias pueden archivar a la vez.
+ *
+ * Configuración:
+ * - credits.archive.batch-size: Transacciones por lote (por defecto 500).
+ * - credits.archive.pause: Pausa entre lotes (por defecto 200ms).
+ * - credits.archive.check-interval: Cada cuánto se revisa la ventana de archivado (por defecto 15m).
+ */
+@Component
+public class TransactionArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    private static final String ID = "_id";
+    private static final String DATE = "date";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TransactionArchive transactionArchive;
+    private final TransactionArchiveSettings settings;
+    private final BusinessCalendar businessCalendar;
+    private final int batchSize;
+    private final Duration pause;
+    private final Duration checkInterval;
+    private final Disposable.Swap schedule = Disposables.swap();
+
+    public TransactionArchiver(ReactiveMongoTemplate mongoTemplate,
+                               TransactionArchive transactionArchive,
+                               TransactionArchiveSettings settings,
+                               BusinessCalendar businessCalendar,
+                               @Value("${credits.archive.batch-size:500}") int batchSize,
+                               @Value("${credits.archive.pause:200ms}") Duration pause,
+                               @Value("${credits.archive.check-interval:15m}") Duration checkInterval) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("credits.archive.batch-size debe ser mayor a cero");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.transactionArchive = transactionArchive;
+        this.settings = settings;
+        this.businessCalendar = businessCalendar;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.checkInterval = checkInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleOnStartup() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        schedule.update(Flux.interval(checkInterval)
+                .filter(tick -> settings.inWindow())
+                .onBackpressureDrop()
+                .concatMap(tick -> archiveInWindow()
+                        .onErrorResume(e -> {
+                            log.error("No se pudo archivar las transacciones: {}", e.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        schedule.dispose();
+    }
+
+    public Mono<Long> archive() {
+        return run(false);
+    }
+
+    public Mono<Long> archiveInWindow() {
+        return run(true);
+    }
+
+    private Mono<Long> run(boolean windowOnly) {
+        if (!settings.isEnabled()) {
+            return Mono.error(new IllegalArgumentException("El archivado de transacciones no está activo"));
+        }
+        Date horizon = settings.horizon();
+        return archiveBatch(horizon, windowOnly, 0L)
+                .doOnNext(archived -> {
+                    if (archived > 0) {
+                        log.info("Transacciones anteriores a {} archivadas en {}: {}", horizon,
+                                settings.getCollection(), archived);
+                    }
+                });
+    }
+
+    private Mono<Long> archiveBatch(Date horizon, boolean windowOnly, long archived) {
+        Document set = new Document("$set", new Document()
+                .append("amountCents", LegacyMoney.cents("amount", "amountCents"))
+                .append("businessDay", BusinessDayBackfill.businessDay(businessCalendar.getZone())));
+        Aggregation page = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(DATE).lt(horizon)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, DATE)),
+                Aggregation.limit(batchSize),
+                stage(set));
+        return mongoTemplate.aggregate(page, TransactionStorage.DOCUMENT_COLLECTION, Document.class)
+                .collectList()
+                .flatMap(transactions -> {
+                    if (transactions.isEmpty()) {
+                        return Mono.just(archived);
+                    }
+                    List<Object> ids = transactions.stream().map(transaction -> transaction.get(ID)).toList();
+                    long total = archived + transactions.size();
+                    return transactionArchive.append(transactions)
+                            .then(mongoTemplate.remove(Query.query(Criteria.where(ID).in(ids)),
+                                    TransactionStorage.DOCUMENT_COLLECTION))
+                            .then(Mono.defer(() -> transactions.size() < batchSize
+                                    || (windowOnly && !settings.inWindow())
+                                    ? Mono.just(total)
+                                    : Mono.delay(pause).then(Mono.defer(() ->
+                                            archiveBatch(horizon, windowOnly, total)))));
+                });
+    }
+
+    private static AggregationOperation stage(Document document) {
+        return context -> document;
+    }
+}
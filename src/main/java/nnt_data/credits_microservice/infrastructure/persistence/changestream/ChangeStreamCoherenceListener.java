@@ -0,0 +1,255 @@
+package nnt_data.credits_microservice.infrastructure.persistence.changestream;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import jakarta.annotation.PreDestroy;
+import nnt_data.credits_microservice.infrastructure.cache.CacheCoherenceListener;
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.ResumeTokenEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.ResumeTokenRepository;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+/**
+ * Componente ChangeStreamCoherenceListener que mantiene coherentes las cachés en memoria de todas las
+ * instancias a partir de los change streams de MongoDB. Solo se crea con credits.change-stream.enabled=true
+ * y requiere que MongoDB sea un replica set (basta uno de un solo nodo). MongoDB no abre change streams sobre
+ * colecciones time-series, así que no se puede usar con credits.transactions.storage=time-series.
+ *
+ * - start: Al arrancar la aplicación abre un change stream por colección y reparte cada evento a los
+ *   CacheCoherenceListener registrados:
+ *   - credits: onCreditChanged con el documento actual (updateLookup) y los campos modificados.
+ *   - credit_transaction: onTransactionInserted, solo para inserciones (filtradas en el servidor).
+ *   - monthly_balances: onMonthlyBalanceChanged, para que los reportes no queden con un acumulador viejo.
+ * - watch: Stream de una colección. Guarda el resume token del último evento procesado en
+ *   change_stream_tokens cada credits.change-stream.token-save-interval, y tras un error o un reinicio
+ *   retoma desde ahí (startAfter), así que no se pierden eventos. Si MongoDB ya no tiene el historial
+ *   para retomar, descarta el token, avisa onHistoryLost y empieza desde el momento actual.
+ * - stop: Cierra los streams al detener la aplicación.
+ *
+ * Configuración:
+ * - credits.change-stream.enabled: Activa el componente (por defecto false).
+ * - credits.change-stream.consumer-id: Identifica a la instancia en change_stream_tokens; debe ser
+ *   distinto por instancia y estable entre reinicios (por defecto el nombre del host).
+ * - credits.change-stream.token-save-interval: Cada cuánto se guarda el resume token (por defecto 1s).
+ */
+@Component
+@ConditionalOnProperty(name = "credits.change-stream.enabled", havingValue = "true")
+public class ChangeStreamCoherenceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamCoherenceListener.class);
+
+    static final String CREDITS = "credits";
+    static final String TRANSACTIONS = TransactionStorage.DOCUMENT_COLLECTION;
+    static final String MONTHLY_BALANCES = "monthly_balances";
+
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(260, 280, 286);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ResumeTokenRepository resumeTokenRepository;
+    private final List<CacheCoherenceListener> listeners;
+    private final String consumerId;
+    private final Duration tokenSaveInterval;
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public ChangeStreamCoherenceListener(ReactiveMongoTemplate mongoTemplate,
+                                         ResumeTokenRepository resumeTokenRepository,
+                                         List<CacheCoherenceListener> listeners,
+                                         TransactionStorage transactionStorage,
+                                         @Value("${credits.change-stream.consumer-id:${HOSTNAME:local}}") String consumerId,
+                                         @Value("${credits.change-stream.token-save-interval:1s}") Duration tokenSaveInterval) {
+        if (transactionStorage.isTimeSeries()) {
+            throw new IllegalArgumentException(
+                    "credits.change-stream.enabled no es compatible con credits.transactions.storage=time-series");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.resumeTokenRepository = resumeTokenRepository;
+        this.listeners = listeners;
+        this.consumerId = consumerId;
+        this.tokenSaveInterval = tokenSaveInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriptions.add(subscribe(watch(CREDITS, CreditBaseEntity.class, false, this::dispatchCredit)));
+        subscriptions.add(subscribe(watch(TRANSACTIONS, TransactionEntity.class, true, this::dispatchTransaction)));
+        subscriptions.add(subscribe(watch(MONTHLY_BALANCES, MonthlyBalanceEntity.class, false,
+                this::dispatchMonthlyBalance)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    private Disposable subscribe(Flux<Void> stream) {
+        return stream
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Reintentando change stream tras error: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    /**
+     * Stream de una colección que reparte cada evento con dispatcher y guarda el resume token. Al volver a
+     * suscribirse (reintento) retoma desde el último evento repartido.
+     */
+    <T> Flux<Void> watch(String collection, Class<T> type, boolean insertsOnly,
+                         Consumer<ChangeStreamEvent<T>> dispatcher) {
+        String streamId = consumerId + ":" + collection;
+        AtomicReference<BsonValue> lastToken = new AtomicReference<>();
+        return Mono.defer(() -> lastToken.get() != null ? Mono.just(lastToken.get()) : loadToken(streamId))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMapMany(token -> mongoTemplate.changeStream(collection, options(token, insertsOnly), type))
+                .doOnNext(event -> {
+                    dispatcher.accept(event);
+                    lastToken.set(event.getResumeToken());
+                })
+                .map(ChangeStreamEvent::getResumeToken)
+                .sample(tokenSaveInterval)
+                .concatMap(token -> saveToken(streamId, token))
+                .onErrorResume(ChangeStreamCoherenceListener::isHistoryLost, e -> {
+                    log.warn("No se puede retomar el change stream de {}: {}", collection, e.getMessage());
+                    lastToken.set(null);
+                    return resumeTokenRepository.deleteById(streamId)
+                            .then(Mono.fromRunnable(() -> listeners.forEach(CacheCoherenceListener::onHistoryLost)))
+                            .then(Mono.error(e));
+                });
+    }
+
+    private static ChangeStreamOptions options(Optional<BsonValue> token, boolean insertsOnly) {
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        token.ifPresent(options::startAfter);
+        if (insertsOnly) {
+            options.filter(new Document("$match", new Document("operationType", "insert")));
+        }
+        return options.build();
+    }
+
+    private Mono<BsonValue> loadToken(String streamId) {
+        return resumeTokenRepository.findById(streamId)
+                .map(entity -> BsonDocument.parse(entity.getToken()));
+    }
+
+    private Mono<Void> saveToken(String streamId, BsonValue token) {
+        ResumeTokenEntity entity = new ResumeTokenEntity();
+        entity.setStreamId(streamId);
+        entity.setToken(token.asDocument().toJson());
+        entity.setUpdatedAt(new Date());
+        return resumeTokenRepository.save(entity)
+                .onErrorResume(e -> {
+                    log.warn("No se pudo guardar el resume token de {}: {}", streamId, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    void dispatchCredit(ChangeStreamEvent<CreditBaseEntity> event) {
+        if (isStreamEnd(event.getOperationType())) {
+            listeners.forEach(CacheCoherenceListener::onHistoryLost);
+            return;
+        }
+        String creditId = documentId(event.getRaw());
+        CreditBaseEntity credit = event.getOperationType() == OperationType.DELETE ? null : event.getBody();
+        Set<String> updatedFields = event.getOperationType() == OperationType.UPDATE
+                ? updatedFields(event.getRaw().getUpdateDescription())
+                : null;
+        listeners.forEach(listener -> listener.onCreditChanged(creditId, credit, updatedFields));
+    }
+
+    void dispatchTransaction(ChangeStreamEvent<TransactionEntity> event) {
+        if (isStreamEnd(event.getOperationType())) {
+            listeners.forEach(CacheCoherenceListener::onHistoryLost);
+            return;
+        }
+        TransactionEntity transaction = event.getBody();
+        if (transaction != null) {
+            listeners.forEach(listener -> listener.onTransactionInserted(transaction));
+        }
+    }
+
+    void dispatchMonthlyBalance(ChangeStreamEvent<MonthlyBalanceEntity> event) {
+        if (isStreamEnd(event.getOperationType())) {
+            listeners.forEach(CacheCoherenceListener::onHistoryLost);
+            return;
+        }
+        String id = documentId(event.getRaw());
+        String creditId = id.substring(0, Math.max(id.lastIndexOf(':'), 0));
+        listeners.forEach(listener -> listener.onMonthlyBalanceChanged(creditId));
+    }
+
+    /**
+     * drop, rename o invalidate: el stream termina y las cachés ya no se pueden seguir actualizando.
+     */
+    private static boolean isStreamEnd(OperationType operationType) {
+        return operationType == OperationType.DROP || operationType == OperationType.RENAME
+                || operationType == OperationType.DROP_DATABASE || operationType == OperationType.INVALIDATE;
+    }
+
+    /**
+     * Campos modificados por un update, o null si también quitó campos o no se conocen.
+     */
+    private static Set<String> updatedFields(UpdateDescription description) {
+        if (description == null || description.getUpdatedFields() == null
+                || (description.getRemovedFields() != null && !description.getRemovedFields().isEmpty())) {
+            return null;
+        }
+        return Set.copyOf(description.getUpdatedFields().keySet());
+    }
+
+    private static String documentId(ChangeStreamDocument<Document> raw) {
+        BsonValue id = raw.getDocumentKey() != null ? raw.getDocumentKey().get("_id") : null;
+        if (id == null) {
+            return "";
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    /**
+     * Errores de MongoDB que indican que el resume token ya no sirve (historial fuera del oplog o token
+     * inválido), en cuyo caso reintentar con el mismo token no tiene sentido.
+     */
+    static boolean isHistoryLost(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && HISTORY_LOST_CODES.contains(mongoException.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -11,11 +11,15 @@ import org.springframework.data.mongodb.core.mapping.Document;
  * - creditId: Identificador del crédito.
  * - customerId: Identificador del cliente.
  * - customerType: Tipo de cliente (personal o empresarial).
- * - amount: Monto del crédito.
+ * - amountCents: Monto del crédito en centavos.
  * - type: Tipo de crédito (tarjeta de crédito, crédito simple, etc.).
  * - cardNumber: Número de tarjeta de crédito (si aplica).
- * - availableCredit: Crédito disponible (si aplica).
- * - amountPaid: Monto pagado del crédito (si aplica).
+ * - availableCreditCents: Crédito disponible en centavos (tarjetas de crédito).
+ * - amountPaidCents: Monto pagado en centavos (créditos simples).
+ *
+ * Los montos se guardan como enteros en centavos; CreditMapper los convierte a los Double del modelo.
+ * Los documentos anteriores, con amount, availableCredit y amountPaid en unidades, se leen con
+ * LegacyMoneyReadCallback y se migran con LegacyMoneyMigration.
  */
 
 @Data
@@ -25,9 +29,9 @@ public class CreditBaseEntity {
     private String creditId;
     private String customerId;
     private CustomerType customerType;
-    private Double amount;
+    private long amountCents;
     private CreditType type;
     private String cardNumber;
-    private Double availableCredit;
-    private Double amountPaid;
+    private long availableCreditCents;
+    private long amountPaidCents;
 }
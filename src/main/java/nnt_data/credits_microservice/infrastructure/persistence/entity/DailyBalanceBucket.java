@@ -0,0 +1,18 @@
+package nnt_data.credits_microservice.infrastructure.persistence.entity;
+
+import lombok.Data;
+/**
+ * Proyección DailyBalanceBucket con el efecto de las transacciones de un día sobre el saldo, calculado en
+ * MongoDB por TransactionRepository.aggregateDailyBuckets.
+ *
+ * - day: Día de negocio (días desde 1970-01-01, ver BusinessCalendar).
+ * - reset: Si el día tuvo al menos un pago, que deja el saldo en cero.
+ * - spentCents: Consumos posteriores al último pago del día, o todos los consumos si no hubo pagos, en
+ *   centavos.
+ */
+@Data
+public class DailyBalanceBucket {
+    private long day;
+    private boolean reset;
+    private long spentCents;
+}
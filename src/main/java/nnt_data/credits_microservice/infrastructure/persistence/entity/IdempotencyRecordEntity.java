@@ -0,0 +1,29 @@
+package nnt_data.credits_microservice.infrastructure.persistence.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+/**
+ * Entidad IdempotencyRecordEntity que representa una Idempotency-Key registrada en la base de datos.
+ *
+ * - key: Idempotency-Key enviada por el cliente.
+ * - fingerprint: Huella de la solicitud original (crédito, tipo y monto).
+ * - status: PENDING mientras la solicitud se procesa, COMPLETED cuando hay respuesta.
+ * - transaction: Transacción registrada por la solicitud original.
+ * - createdAt: Fecha de registro de la clave; un índice TTL sobre este campo elimina las claves vencidas.
+ */
+@Data
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecordEntity {
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    private String key;
+    private String fingerprint;
+    private String status;
+    private TransactionEntity transaction;
+    private Date createdAt;
+}
@@ -0,0 +1,43 @@
+package nnt_data.credits_microservice.infrastructure.persistence.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+/**
+ * Entidad MonthlyBalanceEntity que representa el acumulador de saldos diarios de un crédito en un mes.
+ *
+ * - id: creditId y mes en formato creditId:yyyy-MM.
+ * - creditId: Identificador del crédito.
+ * - month: Mes acumulado (yyyy-MM).
+ * - currentEpochDay: Último día tocado, aún abierto (días desde 1970-01-01).
+ * - balanceCents: Saldo del día abierto después de sus transacciones, en centavos.
+ * - sumOfBalancesCents: Suma de los saldos de los días ya cerrados del mes, en centavos.
+ * - lastTransactionDate: Fecha de la última transacción aplicada.
+ * - lastTransactionIds: Transacciones aplicadas con exactamente esa fecha, para no aplicarlas dos veces.
+ * - lastPaymentDate: Fecha del último pago aplicado, o null si el mes no tiene pagos.
+ * - builtAt: Momento en que se terminó de construir el acumulador leyendo las transacciones del mes; una
+ *   transacción con fecha anterior pudo quedar incluida en esa lectura.
+ * - version: Versión para la actualización optimista del documento.
+ */
+@Data
+@Document(collection = "monthly_balances")
+public class MonthlyBalanceEntity {
+    @Id
+    private String id;
+    private String creditId;
+    private String month;
+    private long currentEpochDay;
+    private long balanceCents;
+    private long sumOfBalancesCents;
+    private Date lastTransactionDate;
+    private List<String> lastTransactionIds = new ArrayList<>();
+    private Date lastPaymentDate;
+    private Date builtAt;
+    @Version
+    private Long version;
+}
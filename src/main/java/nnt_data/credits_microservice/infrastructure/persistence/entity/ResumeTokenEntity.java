@@ -0,0 +1,22 @@
+package nnt_data.credits_microservice.infrastructure.persistence.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+/**
+ * Entidad ResumeTokenEntity con el último evento procesado de un change stream.
+ *
+ * - streamId: Consumidor y colección en formato consumerId:colección.
+ * - token: Resume token del último evento procesado, en JSON extendido.
+ * - updatedAt: Fecha en que se guardó el token.
+ */
+@Data
+@Document(collection = "change_stream_tokens")
+public class ResumeTokenEntity {
+    @Id
+    private String streamId;
+    private String token;
+    private Date updatedAt;
+}
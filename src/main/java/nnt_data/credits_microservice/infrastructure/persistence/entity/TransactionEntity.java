@@ -12,16 +12,23 @@ import java.util.Date;
  * - transactionId: Identificador de la transacción.
  * - date: Fecha de la transacción.
  * - type: Tipo de transacción (enum).
- * - amount: Monto de la transacción.
+ * - amountCents: Monto de la transacción en centavos.
  * - creditId: Identificador del crédito asociado.
+ * - businessDay: Día de negocio de la fecha (días desde 1970-01-01 en credits.business-zone), calculado al
+ *   escribir con BusinessCalendar. Es null solo en documentos que BusinessDayBackfill aún no completó.
+ *
+ * La colección depende de credits.transactions.storage: credit_transaction o una colección time-series
+ * (ver TransactionStorage). Los documentos anteriores, con amount en unidades, se leen con
+ * LegacyMoneyReadCallback.
  */
 @Data
-@Document(collection = "credit_transaction")
+@Document(collection = "#{@transactionStorage.collection}")
 public class TransactionEntity {
     @Id
     private String transactionId;
     private Date date;
     private Transaction.TypeEnum type;
-    private Double amount;
+    private long amountCents;
     private String creditId;
+    private Long businessDay;
 }
@@ -0,0 +1,167 @@
+package nnt_data.credits_microservice.infrastructure.persistence.index;
+
+import lombok.Getter;
+import nnt_data.credits_microservice.infrastructure.config.TransactionArchiveSettings;
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import nnt_data.credits_microservice.model.CreditType;
+import nnt_data.credits_microservice.model.CustomerType;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * Catálogo IndexCatalog con los índices que el servicio necesita y las consultas que los usan.
+ *
+ * - collections: Colecciones que MongoIndexManager crea con opciones propias antes que sus índices: la
+ *   colección time-series de transacciones cuando credits.transactions.storage es time-series.
+ * - indexes: Índices gestionados por MongoIndexManager.
+ *   - transacciones (credit_transaction o la colección time-series, ver TransactionStorage):
+ *     { creditId: 1, date: -1 } para las consultas por crédito y por periodo, que además devuelve las
+ *     transacciones ya ordenadas por fecha descendente.
+ *   - credits: { customerId: 1 }, { cardNumber: 1 } único y sparse (solo tarjetas), { customerId: 1, type: 1 }
+ *     y { customerId: 1, customerType: 1 } único y parcial sobre los créditos simples personales, que hace
+ *     cumplir en la base de datos que un cliente personal tenga un solo crédito simple.
+ *   - idempotency_keys: índice TTL sobre createdAt (credits.idempotency.ttl).
+ *   - monthly_balances: { creditId: 1 } para invalidar los acumuladores de un crédito.
+ *   - Con credits.archive.enabled: { date: 1 } en credit_transaction, para que TransactionArchiver recorra
+ *     las transacciones anteriores al horizonte, y { creditId: 1, month: 1 } en la colección de archivo
+ *     para leer los buckets de un crédito en un rango de meses.
+ * - queries: Cada consulta de los repositorios con el índice que la resuelve, o NO_INDEX si en el modo
+ *   configurado no hay un índice que la resuelva (los rangos de _id en la colección time-series).
+ *
+ * Al agregar una consulta a un repositorio se debe declarar aquí junto con su índice.
+ */
+@Getter
+@Component
+public class IndexCatalog {
+
+    public static final String ID_INDEX = "_id_";
+    public static final String NO_INDEX = "none";
+
+    private static final String LEGACY_TRANSACTIONS = TransactionStorage.DOCUMENT_COLLECTION;
+    private static final String CREDITS = "credits";
+    private static final String IDEMPOTENCY_KEYS = "idempotency_keys";
+    private static final String MONTHLY_BALANCES = "monthly_balances";
+    private static final String CHANGE_STREAM_TOKENS = "change_stream_tokens";
+    private static final String MIGRATION_CHECKPOINTS = "migration_checkpoints";
+
+    private static final String CREDIT_ID_DATE = "creditId_1_date_-1";
+    private static final String CUSTOMER_ID = "customerId_1";
+    private static final String CARD_NUMBER = "cardNumber_1";
+    private static final String CUSTOMER_ID_TYPE = "customerId_1_type_1";
+    public static final String PERSONAL_SIMPLE_CREDIT = "customerId_1_customerType_1_personal_simple_credit";
+    private static final String CREATED_AT = "createdAt_1";
+    private static final String CREDIT_ID = "creditId_1";
+    private static final String DATE = "date_1";
+    private static final String CREDIT_ID_MONTH = "creditId_1_month_1";
+
+    private final List<ManagedCollection> collections;
+    private final List<ManagedIndex> indexes;
+    private final List<IndexedQuery> queries;
+
+    public IndexCatalog(@Value("${credits.idempotency.ttl:24h}") Duration idempotencyTtl,
+                        TransactionStorage transactionStorage,
+                        TransactionArchiveSettings archiveSettings) {
+        String transactions = transactionStorage.getCollection();
+        String archive = archiveSettings.getCollection();
+        String byId = transactionStorage.isTimeSeries() ? NO_INDEX : ID_INDEX;
+        this.collections = transactionStorage.isTimeSeries()
+                ? List.of(new ManagedCollection(transactions, transactionStorage.timeSeriesOptions()))
+                : List.of();
+        List<ManagedIndex> indexes = new ArrayList<>(List.of(
+                new ManagedIndex(transactions, new Index()
+                        .on("creditId", Sort.Direction.ASC)
+                        .on("date", Sort.Direction.DESC)
+                        .named(CREDIT_ID_DATE)),
+                new ManagedIndex(CREDITS, new Index()
+                        .on("customerId", Sort.Direction.ASC)
+                        .named(CUSTOMER_ID)),
+                new ManagedIndex(CREDITS, new Index()
+                        .on("cardNumber", Sort.Direction.ASC)
+                        .unique()
+                        .sparse()
+                        .named(CARD_NUMBER)),
+                new ManagedIndex(CREDITS, new Index()
+                        .on("customerId", Sort.Direction.ASC)
+                        .on("type", Sort.Direction.ASC)
+                        .named(CUSTOMER_ID_TYPE)),
+                new ManagedIndex(CREDITS, new Index()
+                        .on("customerId", Sort.Direction.ASC)
+                        .on("customerType", Sort.Direction.ASC)
+                        .unique()
+                        .partial(PartialIndexFilter.of(Criteria.where("customerType").is(CustomerType.PERSONAL.name())
+                                .and("type").is(CreditType.SIMPLE_CREDIT.name())))
+                        .named(PERSONAL_SIMPLE_CREDIT)),
+                new ManagedIndex(IDEMPOTENCY_KEYS, new Index()
+                        .on("createdAt", Sort.Direction.ASC)
+                        .expire(idempotencyTtl)
+                        .named(CREATED_AT)),
+                new ManagedIndex(MONTHLY_BALANCES, new Index()
+                        .on("creditId", Sort.Direction.ASC)
+                        .named(CREDIT_ID))));
+        List<IndexedQuery> queries = new ArrayList<>(List.of(
+                new IndexedQuery("TransactionRepository.findByCreditId", transactions, CREDIT_ID_DATE),
+                new IndexedQuery("TransactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc", transactions,
+                        CREDIT_ID_DATE),
+                new IndexedQuery("TransactionRepository.findByCreditIdOrderByDateDesc", transactions, CREDIT_ID_DATE),
+                new IndexedQuery("TransactionRepository.findByCreditIdAndDateBeforeOrderByDateDesc", transactions,
+                        CREDIT_ID_DATE),
+                new IndexedQuery("TransactionRepository.findByCreditIdInAndDateBetweenOrderByDateAsc", transactions,
+                        CREDIT_ID_DATE),
+                new IndexedQuery("TransactionRepository.findPageAfter", transactions, byId),
+                new IndexedQuery("TransactionRepository.insertAllUnordered", transactions, byId),
+                new IndexedQuery("CreditRepository.findById", CREDITS, ID_INDEX),
+                new IndexedQuery("CreditRepository.findAllById", CREDITS, ID_INDEX),
+                new IndexedQuery("CreditRepository.findByCreditId", CREDITS, ID_INDEX),
+                new IndexedQuery("CreditRepository.findPageAfter", CREDITS, ID_INDEX),
+                new IndexedQuery("CreditRepository.applyAvailableCreditDelta", CREDITS, ID_INDEX),
+                new IndexedQuery("CreditRepository.applyAmountPaidDelta", CREDITS, ID_INDEX),
+                new IndexedQuery("CreditRepository.applyAvailableCreditDeltaIfUnchanged", CREDITS, ID_INDEX),
+                new IndexedQuery("CreditRepository.applyAmountPaidDeltaIfUnchanged", CREDITS, ID_INDEX),
+                new IndexedQuery("CreditRepository.findByCustomerId", CREDITS, CUSTOMER_ID),
+                new IndexedQuery("CreditRepository.findByCustomerIdIn", CREDITS, CUSTOMER_ID),
+                new IndexedQuery("CreditRepository.findByCardNumber", CREDITS, CARD_NUMBER),
+                new IndexedQuery("CreditRepository.existsByCustomerIdAndType", CREDITS, CUSTOMER_ID_TYPE),
+                new IndexedQuery("IdempotencyRecordRepository.findById", IDEMPOTENCY_KEYS, ID_INDEX),
+                new IndexedQuery("MonthlyBalanceRepository.findById", MONTHLY_BALANCES, ID_INDEX),
+                new IndexedQuery("MonthlyBalanceRepository.existsById", MONTHLY_BALANCES, ID_INDEX),
+                new IndexedQuery("MonthlyBalanceRepository.findAllById", MONTHLY_BALANCES, ID_INDEX),
+                new IndexedQuery("MonthlyBalanceRepository.deleteByCreditId", MONTHLY_BALANCES, CREDIT_ID),
+                new IndexedQuery("MonthlyBalanceRepository.applyLateSpent", MONTHLY_BALANCES, ID_INDEX),
+                new IndexedQuery("ResumeTokenRepository.findById", CHANGE_STREAM_TOKENS, ID_INDEX),
+                new IndexedQuery("ResumeTokenRepository.save", CHANGE_STREAM_TOKENS, ID_INDEX),
+                new IndexedQuery("ResumeTokenRepository.deleteById", CHANGE_STREAM_TOKENS, ID_INDEX),
+                new IndexedQuery("LegacyMoneyMigration.migrate", CREDITS, ID_INDEX),
+                new IndexedQuery("LegacyMoneyMigration.migrate", LEGACY_TRANSACTIONS, ID_INDEX),
+                new IndexedQuery("LegacyMoneyMigration.migrate", MONTHLY_BALANCES, ID_INDEX),
+                new IndexedQuery("BusinessDayBackfill.backfill", LEGACY_TRANSACTIONS, ID_INDEX),
+                new IndexedQuery("TransactionTimeSeriesMigration.migrate", LEGACY_TRANSACTIONS, ID_INDEX),
+                new IndexedQuery("TransactionTimeSeriesMigration.migrate", MIGRATION_CHECKPOINTS, ID_INDEX)));
+        if (archiveSettings.isEnabled()) {
+            indexes.add(new ManagedIndex(LEGACY_TRANSACTIONS, new Index()
+                    .on("date", Sort.Direction.ASC)
+                    .named(DATE)));
+            indexes.add(new ManagedIndex(archive, new Index()
+                    .on("creditId", Sort.Direction.ASC)
+                    .on("month", Sort.Direction.ASC)
+                    .named(CREDIT_ID_MONTH)));
+            List.of("TransactionRepository.findByCreditId",
+                            "TransactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc",
+                            "TransactionRepository.findByCreditIdOrderByDateDesc",
+                            "TransactionRepository.findByCreditIdAndDateBeforeOrderByDateDesc",
+                            "TransactionRepository.findByCreditIdInAndDateBetweenOrderByDateAsc")
+                    .forEach(query -> queries.add(new IndexedQuery(query, archive, CREDIT_ID_MONTH)));
+            queries.add(new IndexedQuery("TransactionArchiver.archive", LEGACY_TRANSACTIONS, DATE));
+            queries.add(new IndexedQuery("TransactionArchiver.archive", LEGACY_TRANSACTIONS, ID_INDEX));
+            queries.add(new IndexedQuery("TransactionArchiver.archive", archive, ID_INDEX));
+        }
+        this.indexes = List.copyOf(indexes);
+        this.queries = List.copyOf(queries);
+    }
+}
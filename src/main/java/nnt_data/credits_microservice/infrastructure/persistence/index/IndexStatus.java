@@ -0,0 +1,18 @@
+package nnt_data.credits_microservice.infrastructure.persistence.index;
+/**
+ * Resultado de comparar un índice declarado (o encontrado) con el estado real de MongoDB.
+ *
+ * - collection: Colección del índice.
+ * - name: Nombre del índice.
+ * - keys: Claves del índice en formato nombre_dirección, por ejemplo creditId_1_date_-1.
+ * - state: PRESENT (existe como se declaró), CREATED (se creó ahora), MISSING (no existe y no se creó),
+ *   DRIFT (existe con otras opciones o su nombre lo usa otro índice) o UNMANAGED (existe pero el servicio
+ *   no lo declara).
+ * - detail: Explicación de la diferencia, si la hay.
+ */
+public record IndexStatus(String collection, String name, String keys, State state, String detail) {
+
+    public enum State {
+        PRESENT, CREATED, MISSING, DRIFT, UNMANAGED
+    }
+}
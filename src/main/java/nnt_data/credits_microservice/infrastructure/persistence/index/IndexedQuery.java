@@ -0,0 +1,10 @@
+package nnt_data.credits_microservice.infrastructure.persistence.index;
+/**
+ * Consulta de un repositorio y el índice que la resuelve.
+ *
+ * - query: Método del repositorio, por ejemplo TransactionRepository.findByCreditId.
+ * - collection: Colección consultada.
+ * - index: Nombre del índice usado.
+ */
+public record IndexedQuery(String query, String collection, String index) {
+}
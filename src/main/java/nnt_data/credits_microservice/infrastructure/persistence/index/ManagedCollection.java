@@ -0,0 +1,12 @@
+package nnt_data.credits_microservice.infrastructure.persistence.index;
+
+import org.springframework.data.mongodb.core.CollectionOptions;
+/**
+ * Colección que el servicio necesita crear con opciones propias (por ejemplo time-series), porque MongoDB
+ * crearía una colección común al insertar el primer documento o crear el primer índice.
+ *
+ * - name: Nombre de la colección.
+ * - options: Opciones con las que se crea.
+ */
+public record ManagedCollection(String name, CollectionOptions options) {
+}
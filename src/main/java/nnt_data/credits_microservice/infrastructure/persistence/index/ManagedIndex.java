@@ -0,0 +1,27 @@
+package nnt_data.credits_microservice.infrastructure.persistence.index;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.index.Index;
+/**
+ * Índice que el servicio necesita en una colección.
+ *
+ * - collection: Colección a la que pertenece.
+ * - definition: Claves y opciones del índice.
+ * - name: Nombre con el que se crea el índice.
+ * - keys: Claves del índice en orden, con su dirección (1 o -1).
+ * - options: Opciones del índice (unique, sparse, expireAfterSeconds, partialFilterExpression).
+ */
+public record ManagedIndex(String collection, Index definition) {
+
+    public String name() {
+        return definition.getIndexOptions().getString("name");
+    }
+
+    public Document keys() {
+        return definition.getIndexKeys();
+    }
+
+    public Document options() {
+        return definition.getIndexOptions();
+    }
+}
@@ -0,0 +1,217 @@
+package nnt_data.credits_microservice.infrastructure.persistence.index;
+
+import com.mongodb.MongoException;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+/**
+ * Componente MongoIndexManager que mantiene los índices declarados en IndexCatalog.
+ *
+ * - createIndexesOnStartup: Al arrancar la aplicación crea las colecciones y los índices que faltan (si
+ *   credits.indexes.create-missing está activo, por defecto sí) y registra en el log cualquier diferencia.
+ * - ensureCollection: Crea una colección declarada en IndexCatalog con sus opciones si no existe. Si ya
+ *   existe no se modifica; si debía ser time-series y no lo es, se avisa en el log, porque convertirla exige
+ *   copiar los datos (ver TransactionTimeSeriesMigration). Crearla a la vez desde otra instancia no es error.
+ * - reconcile: Compara los índices declarados con los que existen en cada colección; si create, crea antes
+ *   las colecciones declaradas y luego los índices que faltan. Un índice se identifica por sus claves; si existe con otras opciones (unique, sparse, TTL, filtro parcial) se
+ *   reporta como DRIFT y no se modifica, porque cambiarlo exige borrarlo y eso queda en manos de un operador.
+ *   Los índices existentes que el catálogo no declara se reportan como UNMANAGED.
+ */
+@Component
+public class MongoIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    private static final String TIME_SERIES = "timeseries";
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final IndexCatalog indexCatalog;
+    private final boolean createMissing;
+
+    public MongoIndexManager(ReactiveMongoTemplate mongoTemplate,
+                             IndexCatalog indexCatalog,
+                             @Value("${credits.indexes.create-missing:true}") boolean createMissing) {
+        this.mongoTemplate = mongoTemplate;
+        this.indexCatalog = indexCatalog;
+        this.createMissing = createMissing;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexesOnStartup() {
+        reconcile(createMissing)
+                .subscribe(this::logStatus,
+                        e -> log.error("No se pudieron verificar los índices: {}", e.getMessage()));
+    }
+
+    public Mono<Void> ensureCollection(ManagedCollection collection) {
+        return mongoTemplate.getMongoDatabase()
+                .flatMap(database -> Mono.from(database.listCollections()
+                        .filter(new Document("name", collection.name()))
+                        .first()))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(existing -> {
+                    if (existing.isEmpty()) {
+                        return mongoTemplate.createCollection(collection.name(), collection.options())
+                                .doOnNext(created -> log.info("Colección {} creada", collection.name()))
+                                .onErrorResume(MongoIndexManager::isNamespaceExists, e -> Mono.empty())
+                                .then();
+                    }
+                    if (collection.options().getTimeSeriesOptions().isPresent()
+                            && !TIME_SERIES.equals(existing.get().getString("type"))) {
+                        log.warn("La colección {} existe y no es time-series", collection.name());
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    public Flux<IndexStatus> reconcile(boolean create) {
+        Flux<Void> collections = create
+                ? Flux.fromIterable(indexCatalog.getCollections()).concatMap(this::ensureCollection)
+                : Flux.empty();
+        Map<String, List<ManagedIndex>> byCollection = indexCatalog.getIndexes().stream()
+                .collect(Collectors.groupingBy(ManagedIndex::collection,
+                        LinkedHashMap::new, Collectors.toList()));
+        return collections.thenMany(Flux.fromIterable(byCollection.entrySet()))
+                .concatMap(entry -> mongoTemplate.indexOps(entry.getKey()).getIndexInfo()
+                        .collectList()
+                        .flatMapMany(existing -> reconcileCollection(entry.getKey(), entry.getValue(), existing, create)));
+    }
+
+    private static boolean isNamespaceExists(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && mongoException.getCode() == NAMESPACE_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Flux<IndexStatus> reconcileCollection(String collection, List<ManagedIndex> declared,
+                                                  List<IndexInfo> existing, boolean create) {
+        Set<String> matched = new HashSet<>();
+        List<Mono<IndexStatus>> statuses = new ArrayList<>();
+        for (ManagedIndex index : declared) {
+            String keys = describe(index.keys());
+            Optional<IndexInfo> sameKeys = existing.stream()
+                    .filter(info -> keysOf(info).equals(new ArrayList<>(index.keys().entrySet())))
+                    .findFirst();
+            if (sameKeys.isPresent()) {
+                matched.add(sameKeys.get().getName());
+                List<String> differences = differences(index.options(), sameKeys.get());
+                statuses.add(Mono.just(differences.isEmpty()
+                        ? new IndexStatus(collection, sameKeys.get().getName(), keys, IndexStatus.State.PRESENT, null)
+                        : new IndexStatus(collection, sameKeys.get().getName(), keys, IndexStatus.State.DRIFT,
+                        String.join("; ", differences))));
+                continue;
+            }
+            Optional<IndexInfo> sameName = existing.stream()
+                    .filter(info -> info.getName().equals(index.name()))
+                    .findFirst();
+            if (sameName.isPresent()) {
+                matched.add(index.name());
+                statuses.add(Mono.just(new IndexStatus(collection, index.name(), keys, IndexStatus.State.DRIFT,
+                        "El nombre lo usa un índice con claves " + describe(sameName.get()))));
+            } else if (create) {
+                statuses.add(mongoTemplate.indexOps(collection).ensureIndex(index.definition())
+                        .map(name -> new IndexStatus(collection, name, keys, IndexStatus.State.CREATED, null))
+                        .onErrorResume(e -> Mono.just(new IndexStatus(collection, index.name(), keys,
+                                IndexStatus.State.MISSING, e.getMessage()))));
+            } else {
+                statuses.add(Mono.just(new IndexStatus(collection, index.name(), keys, IndexStatus.State.MISSING, null)));
+            }
+        }
+        existing.stream()
+                .filter(info -> !IndexCatalog.ID_INDEX.equals(info.getName()) && !matched.contains(info.getName()))
+                .forEach(info -> statuses.add(Mono.just(new IndexStatus(collection, info.getName(), describe(info),
+                        IndexStatus.State.UNMANAGED, null))));
+        return Flux.concat(statuses);
+    }
+
+    private List<String> differences(Document options, IndexInfo info) {
+        List<String> differences = new ArrayList<>();
+        if (options.getBoolean("unique", false) != info.isUnique()) {
+            differences.add("unique esperado " + options.getBoolean("unique", false));
+        }
+        if (options.getBoolean("sparse", false) != info.isSparse()) {
+            differences.add("sparse esperado " + options.getBoolean("sparse", false));
+        }
+        Long expireAfterSeconds = options.get("expireAfterSeconds", Number.class) != null
+                ? options.get("expireAfterSeconds", Number.class).longValue() : null;
+        Long actualExpire = info.getExpireAfter().map(Duration::getSeconds).orElse(null);
+        if (!Objects.equals(expireAfterSeconds, actualExpire)) {
+            differences.add("expireAfterSeconds esperado " + expireAfterSeconds + ", actual " + actualExpire);
+        }
+        Document partialFilter = options.get("partialFilterExpression", Document.class);
+        String expectedFilter = partialFilter != null ? partialFilter.toJson() : null;
+        String actualFilter = info.getPartialFilterExpression();
+        if (!Objects.equals(normalize(expectedFilter), normalize(actualFilter))) {
+            differences.add("partialFilterExpression esperado " + expectedFilter + ", actual " + actualFilter);
+        }
+        return differences;
+    }
+
+    private static String normalize(String json) {
+        return json != null ? Document.parse(json).toJson() : null;
+    }
+
+    private static List<Map.Entry<String, Object>> keysOf(IndexInfo info) {
+        Document keys = new Document();
+        for (IndexField field : info.getIndexFields()) {
+            keys.put(field.getKey(), directionOf(field));
+        }
+        return new ArrayList<>(keys.entrySet());
+    }
+
+    private static Object directionOf(IndexField field) {
+        if (field.getDirection() == null) {
+            return field.isText() ? "text" : "geo";
+        }
+        return field.getDirection() == Sort.Direction.ASC ? 1 : -1;
+    }
+
+    private static String describe(IndexInfo info) {
+        Document keys = new Document();
+        keysOf(info).forEach(entry -> keys.put(entry.getKey(), entry.getValue()));
+        return describe(keys);
+    }
+
+    private static String describe(Document keys) {
+        Set<String> parts = new LinkedHashSet<>();
+        keys.forEach((field, direction) -> parts.add(field + "_" + direction));
+        return String.join("_", parts);
+    }
+
+    private void logStatus(IndexStatus status) {
+        switch (status.state()) {
+            case PRESENT -> log.debug("Índice {}.{} presente", status.collection(), status.name());
+            case CREATED -> log.info("Índice {}.{} creado", status.collection(), status.name());
+            case UNMANAGED -> log.info("Índice {}.{} no gestionado por el servicio", status.collection(), status.name());
+            default -> log.warn("Índice {}.{} en estado {}: {}", status.collection(), status.name(),
+                    status.state(), status.detail());
+        }
+    }
+}
@@ -6,10 +6,20 @@ import reactor.core.publisher.Mono;
 /**
  * Interfaz CreditMapper para mapear entre CreditBase y CreditBaseEntity.
  *
- * - toEntity: Convierte un CreditBase a CreditBaseEntity.
- * - toDomain: Convierte un CreditBaseEntity a CreditBase.
+ * - mapToEntity: Convierte un CreditBase a CreditBaseEntity de forma síncrona.
+ * - mapToDomain: Convierte un CreditBaseEntity a CreditBase de forma síncrona.
+ * - toEntity: Adaptador reactivo de mapToEntity.
+ * - toDomain: Adaptador reactivo de mapToDomain.
  */
 public interface CreditMapper {
-    Mono<CreditBaseEntity> toEntity(CreditBase creditBase);
-    Mono<CreditBase> toDomain(CreditBaseEntity creditBaseEntity);
+    CreditBaseEntity mapToEntity(CreditBase creditBase);
+    CreditBase mapToDomain(CreditBaseEntity creditBaseEntity);
+
+    default Mono<CreditBaseEntity> toEntity(CreditBase creditBase) {
+        return Mono.fromCallable(() -> mapToEntity(creditBase));
+    }
+
+    default Mono<CreditBase> toDomain(CreditBaseEntity creditBaseEntity) {
+        return Mono.fromCallable(() -> mapToDomain(creditBaseEntity));
+    }
 }
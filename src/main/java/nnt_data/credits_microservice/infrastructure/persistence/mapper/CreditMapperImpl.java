@@ -1,45 +1,45 @@
 package nnt_data.credits_microservice.infrastructure.persistence.mapper;
 
 import lombok.RequiredArgsConstructor;
+import nnt_data.credits_microservice.domain.utils.Money;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
 import nnt_data.credits_microservice.model.CreditBase;
 import nnt_data.credits_microservice.model.CreditCard;
 import nnt_data.credits_microservice.model.SimpleCredit;
 import org.springframework.stereotype.Component;
-import reactor.core.publisher.Mono;
 /**
  * Implementación de CreditMapper para mapear entre CreditBase y CreditBaseEntity.
  *
- * - toEntity: Convierte CreditBase a CreditBaseEntity.
- * - toDomain: Convierte CreditBaseEntity a CreditBase.
+ * - mapToEntity: Convierte CreditBase a CreditBaseEntity.
+ * - mapToDomain: Convierte CreditBaseEntity a CreditBase según su tipo.
  * - Métodos auxiliares para mapear campos comunes y específicos de tipo.
+ *
+ * Los montos se convierten entre los Double del modelo y los centavos de la entidad con Money; el crédito
+ * disponible solo se asigna a tarjetas y el monto pagado solo a créditos simples.
  */
 @Component
 @RequiredArgsConstructor
 public class CreditMapperImpl implements CreditMapper {
     @Override
-    public Mono<CreditBaseEntity> toEntity(CreditBase creditBase) {
+    public CreditBaseEntity mapToEntity(CreditBase creditBase) {
         if (creditBase == null) {
-            return Mono.error(new IllegalArgumentException("Cannot map null creditBase"));
+            throw new IllegalArgumentException("Cannot map null creditBase");
         }
-        return Mono.just(createCreditBaseEntity(creditBase));
+        return createCreditBaseEntity(creditBase);
     }
 
     @Override
-    public Mono<CreditBase> toDomain(CreditBaseEntity creditBaseEntity) {
+    public CreditBase mapToDomain(CreditBaseEntity creditBaseEntity) {
         if (creditBaseEntity == null) {
-            return Mono.error(new IllegalArgumentException("Cannot map null customer"));
+            throw new IllegalArgumentException("Cannot map null customer");
+        }
+        if (creditBaseEntity.getType() == null) {
+            throw new IllegalArgumentException("Unknown customer type: null");
         }
-        return Mono.defer(() -> {
-            switch (creditBaseEntity.getType()) {
-                case CREDIT_CARD:
-                    return Mono.just(createCreditCard(creditBaseEntity));
-                case SIMPLE_CREDIT:
-                    return Mono.just(createSimpleCredit(creditBaseEntity));
-                default:
-                    return Mono.error(new IllegalArgumentException("Unknown customer type: " + creditBaseEntity.getType()));
-            }
-        });
+        return switch (creditBaseEntity.getType()) {
+            case CREDIT_CARD -> createCreditCard(creditBaseEntity);
+            case SIMPLE_CREDIT -> createSimpleCredit(creditBaseEntity);
+        };
     }
 
     private CreditBaseEntity createCreditBaseEntity(CreditBase creditBase) {
@@ -51,7 +51,7 @@ public class CreditMapperImpl implements CreditMapper {
 
     private void mapCommonFields(CreditBase creditBase, CreditBaseEntity creditBaseEntity) {
         creditBaseEntity.setCreditId(creditBase.getCreditId());
-        creditBaseEntity.setAmount(creditBase.getAmount());
+        creditBaseEntity.setAmountCents(Money.toCents(creditBase.getAmount()));
         creditBaseEntity.setCustomerId(creditBase.getCustomerId());
         creditBaseEntity.setCustomerType(creditBase.getCustomerType());
         creditBaseEntity.setType(creditBase.getType());
@@ -59,18 +59,18 @@ public class CreditMapperImpl implements CreditMapper {
 
     private void mapCommonCreditBaseFields(CreditBaseEntity creditBaseEntity, CreditBase creditBase) {
        creditBase.setCreditId(creditBaseEntity.getCreditId());
-       creditBase.setAmount(creditBaseEntity.getAmount());
+       creditBase.setAmount(Money.toAmount(creditBaseEntity.getAmountCents()));
        creditBase.setCustomerId(creditBaseEntity.getCustomerId());
        creditBase.setCustomerType(creditBaseEntity.getCustomerType());
-       creditBase.setType(creditBase.getType());
+       creditBase.setType(creditBaseEntity.getType());
     }
 
     private void mapTypeSpecificFields(CreditBase creditBase, CreditBaseEntity creditBaseEntity) {
         if (creditBase instanceof CreditCard creditCard) {
             creditBaseEntity.setCardNumber(creditCard.getCardNumber());
-            creditBaseEntity.setAvailableCredit(creditCard.getAvailableCredit());
+            creditBaseEntity.setAvailableCreditCents(Money.toCents(creditCard.getAvailableCredit()));
         } else if (creditBase instanceof SimpleCredit simpleCredit) {
-            creditBaseEntity.setAmountPaid(simpleCredit.getAmountPaid());
+            creditBaseEntity.setAmountPaidCents(Money.toCents(simpleCredit.getAmountPaid()));
         }
     }
 
@@ -78,14 +78,14 @@ public class CreditMapperImpl implements CreditMapper {
         CreditCard creditCard = new CreditCard();
         mapCommonCreditBaseFields(creditBaseEntity, creditCard);
         creditCard.setCardNumber(creditBaseEntity.getCardNumber());
-        creditCard.setAvailableCredit(creditBaseEntity.getAvailableCredit());
+        creditCard.setAvailableCredit(Money.toAmount(creditBaseEntity.getAvailableCreditCents()));
         return creditCard;
     }
 
     private SimpleCredit createSimpleCredit(CreditBaseEntity creditBaseEntity) {
         SimpleCredit simpleCredit = new SimpleCredit();
         mapCommonCreditBaseFields(creditBaseEntity, simpleCredit);
-        simpleCredit.setAmountPaid(creditBaseEntity.getAmountPaid());
+        simpleCredit.setAmountPaid(Money.toAmount(creditBaseEntity.getAmountPaidCents()));
         return simpleCredit;
     }
 
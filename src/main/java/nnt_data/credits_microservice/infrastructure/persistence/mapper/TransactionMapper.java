@@ -6,10 +6,22 @@ import reactor.core.publisher.Mono;
 /**
  * Interfaz TransactionMapper para mapear entre Transaction y TransactionEntity.
  *
- * - toEntity: Convierte una Transaction a TransactionEntity.
- * - toDomain: Convierte una TransactionEntity a Transaction.
+ * - mapToEntity: Convierte una Transaction a TransactionEntity de forma síncrona.
+ * - mapToDomain: Convierte una TransactionEntity a Transaction de forma síncrona.
+ * - toEntity: Adaptador reactivo de mapToEntity.
+ * - toDomain: Adaptador reactivo de mapToDomain.
+ *
+ * En flujos con muchos elementos se usan los métodos síncronos con map, sin crear un Mono por elemento.
  */
 public interface TransactionMapper {
-    Mono<TransactionEntity> toEntity(Transaction transaction);
-    Mono<Transaction> toDomain(TransactionEntity transactionEntity);
+    TransactionEntity mapToEntity(Transaction transaction);
+    Transaction mapToDomain(TransactionEntity transactionEntity);
+
+    default Mono<TransactionEntity> toEntity(Transaction transaction) {
+        return Mono.fromCallable(() -> mapToEntity(transaction));
+    }
+
+    default Mono<Transaction> toDomain(TransactionEntity transactionEntity) {
+        return Mono.fromCallable(() -> mapToDomain(transactionEntity));
+    }
 }
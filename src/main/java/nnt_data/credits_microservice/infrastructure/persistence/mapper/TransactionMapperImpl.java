@@ -1,32 +1,53 @@
 package nnt_data.credits_microservice.infrastructure.persistence.mapper;
 
 import lombok.RequiredArgsConstructor;
+import nnt_data.credits_microservice.domain.utils.Money;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
 import nnt_data.credits_microservice.model.Transaction;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Component;
-import reactor.core.publisher.Mono;
 /**
  * Implementación de TransactionMapper para mapear entre Transaction y TransactionEntity.
  *
- * - toEntity: Convierte una Transaction a TransactionEntity utilizando BeanUtils.
- * - toDomain: Convierte una TransactionEntity a Transaction utilizando BeanUtils.
+ * - mapToEntity: Convierte una Transaction a TransactionEntity copiando cada campo directamente, salvo el
+ *   monto, que pasa a centavos con Money, y calcula una sola vez el día de negocio (businessDay) con
+ *   BusinessCalendar.
+ * - mapToDomain: Convierte una TransactionEntity a Transaction, con el monto de centavos a unidades.
  */
 @Component
 @RequiredArgsConstructor
 public class TransactionMapperImpl implements TransactionMapper{
 
+    private final BusinessCalendar businessCalendar;
+
     @Override
-    public Mono<TransactionEntity> toEntity(Transaction transaction) {
+    public TransactionEntity mapToEntity(Transaction transaction) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Cannot map null transaction");
+        }
         TransactionEntity transactionEntity = new TransactionEntity();
-        BeanUtils.copyProperties(transaction, transactionEntity);
-        return Mono.just(transactionEntity);
+        transactionEntity.setTransactionId(transaction.getTransactionId());
+        transactionEntity.setDate(transaction.getDate());
+        transactionEntity.setType(transaction.getType());
+        transactionEntity.setAmountCents(Money.toCents(transaction.getAmount()));
+        transactionEntity.setCreditId(transaction.getCreditId());
+        if (transaction.getDate() != null) {
+            transactionEntity.setBusinessDay(businessCalendar.epochDay(transaction.getDate()));
+        }
+        return transactionEntity;
     }
 
     @Override
-    public Mono<Transaction> toDomain(TransactionEntity transactionEntity) {
+    public Transaction mapToDomain(TransactionEntity transactionEntity) {
+        if (transactionEntity == null) {
+            throw new IllegalArgumentException("Cannot map null transaction");
+        }
         Transaction transaction = new Transaction();
-        BeanUtils.copyProperties(transactionEntity, transaction);
-        return Mono.just(transaction);
+        transaction.setTransactionId(transactionEntity.getTransactionId());
+        transaction.setDate(transactionEntity.getDate());
+        transaction.setType(transactionEntity.getType());
+        transaction.setAmount(Money.toAmount(transactionEntity.getAmountCents()));
+        transaction.setCreditId(transactionEntity.getCreditId());
+        return transaction;
     }
 }
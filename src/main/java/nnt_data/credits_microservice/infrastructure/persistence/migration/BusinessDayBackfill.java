@@ -0,0 +1,146 @@
+package nnt_data.credits_microservice.infrastructure.persistence.migration;
+
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+/**
+ * Componente BusinessDayBackfill que completa en segundo plano el día de negocio (businessDay) de las
+ * transacciones guardadas antes de que TransactionMapperImpl lo calculara al escribir.
+ *
+ * - backfillOnStartup: Al arrancar la aplicación, si credits.business-day.backfill.enabled está activo (por
+ *   defecto sí), completa credit_transaction y registra cuántos documentos cambió.
+ * - backfill: Recorre credit_transaction por _id en lotes de credits.business-day.backfill.batch-size
+ *   documentos sin businessDay y completa cada lote con una sola actualización con pipeline sobre sus _id,
+ *   esperando credits.business-day.backfill.pause entre lotes para no competir con el tráfico.
+ * - businessDay: Expresión de agregación con el businessDay de una transacción: el guardado si existe, si
+ *   no el calculado desde date en la zona indicada, igual que BusinessCalendar.epochDay.
+ *
+ * Mientras el backfill avanza, los reportes usan el día calculado para los documentos que aún no lo tienen
+ * (BusinessCalendar.businessDay en el servicio y la expresión businessDay en las agregaciones), así que no
+ * hay que esperarlo. La actualización de un lote es idempotente: volver a ejecutarla, o ejecutarla en varias
+ * instancias a la vez, da el mismo resultado.
+ *
+ * Configuración:
+ * - credits.business-day.backfill.enabled: Completar al arrancar (por defecto true).
+ * - credits.business-day.backfill.batch-size: Documentos por lote (por defecto 500).
+ * - credits.business-day.backfill.pause: Pausa entre lotes (por defecto 100ms).
+ */
+@Component
+public class BusinessDayBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessDayBackfill.class);
+
+    private static final String ID = "_id";
+    private static final String COLLECTION = "credit_transaction";
+    private static final String BUSINESS_DAY = "businessDay";
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final BusinessCalendar businessCalendar;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pause;
+
+    public BusinessDayBackfill(ReactiveMongoTemplate mongoTemplate,
+                               BusinessCalendar businessCalendar,
+                               @Value("${credits.business-day.backfill.enabled:true}") boolean enabled,
+                               @Value("${credits.business-day.backfill.batch-size:500}") int batchSize,
+                               @Value("${credits.business-day.backfill.pause:100ms}") Duration pause) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("credits.business-day.backfill.batch-size debe ser mayor a cero");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.businessCalendar = businessCalendar;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        backfill().subscribe(null, e -> log.error("No se pudo completar businessDay: {}", e.getMessage()));
+    }
+
+    public Mono<Long> backfill() {
+        Document set = new Document("$set", new Document(BUSINESS_DAY, businessDay(businessCalendar.getZone())));
+        AggregationUpdate update = AggregationUpdate.from(List.<AggregationOperation>of(context -> set));
+        return backfillAfter(update, null, 0L)
+                .doOnNext(backfilled -> {
+                    if (backfilled > 0) {
+                        log.info("businessDay completado en {}: {} documentos", COLLECTION, backfilled);
+                    }
+                });
+    }
+
+    public static Document businessDay(ZoneId zone) {
+        String timezone = timezone(zone);
+        Document localMidnight = new Document("$dateFromParts", new Document()
+                .append("year", new Document("$year", dateIn(timezone)))
+                .append("month", new Document("$month", dateIn(timezone)))
+                .append("day", new Document("$dayOfMonth", dateIn(timezone))));
+        Document epochDay = new Document("$toLong", new Document("$divide",
+                List.of(new Document("$toLong", localMidnight), MILLIS_PER_DAY)));
+        return new Document("$ifNull", List.of("$" + BUSINESS_DAY, epochDay));
+    }
+
+    private Mono<Long> backfillAfter(AggregationUpdate update, Object after, long backfilled) {
+        Query page = new Query(missing(after))
+                .with(Sort.by(Sort.Direction.ASC, ID))
+                .limit(batchSize);
+        page.fields().include(ID);
+        return mongoTemplate.find(page, Document.class, COLLECTION)
+                .map(document -> document.get(ID))
+                .collectList()
+                .flatMap(ids -> {
+                    if (ids.isEmpty()) {
+                        return Mono.just(backfilled);
+                    }
+                    return mongoTemplate.updateMulti(Query.query(Criteria.where(ID).in(ids)), update, COLLECTION)
+                            .flatMap(result -> {
+                                long total = backfilled + result.getModifiedCount();
+                                if (ids.size() < batchSize) {
+                                    return Mono.just(total);
+                                }
+                                return Mono.delay(pause).then(Mono.defer(() ->
+                                        backfillAfter(update, ids.get(ids.size() - 1), total)));
+                            });
+                });
+    }
+
+    private static Criteria missing(Object after) {
+        Criteria missing = Criteria.where(BUSINESS_DAY).exists(false).and("date").ne(null);
+        return after == null ? missing : new Criteria().andOperator(Criteria.where(ID).gt(after), missing);
+    }
+
+    private static Document dateIn(String timezone) {
+        return new Document("date", "$date").append("timezone", timezone);
+    }
+
+    private static String timezone(ZoneId zone) {
+        ZoneId normalized = zone.normalized();
+        if (normalized instanceof ZoneOffset offset) {
+            return offset.getTotalSeconds() == 0 ? "+00:00" : offset.getId();
+        }
+        return normalized.getId();
+    }
+}
@@ -0,0 +1,72 @@
+package nnt_data.credits_microservice.infrastructure.persistence.migration;
+
+import nnt_data.credits_microservice.domain.utils.Money;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+/**
+ * Clase LegacyMoney con los campos de monto que se guardaban como double en unidades y los campos en
+ * centavos (long) que los reemplazan.
+ *
+ * - CREDITS / TRANSACTIONS / MONTHLY_BALANCES: Campo anterior y campo en centavos de cada colección.
+ * - cents: Expresión de agregación con el valor en centavos de un campo: el campo en centavos si existe,
+ *   si no el campo anterior multiplicado por 100 y redondeado HALF_UP, y si tampoco existe, cero.
+ * - migrationStages: Etapas de una actualización con pipeline que escribe los campos en centavos y elimina
+ *   los anteriores; aplicada a un documento ya migrado no lo cambia.
+ * - toCents: Convierte el valor anterior leído de un documento (double, int, long o decimal) a centavos.
+ *
+ * La conversión en MongoDB pasa el double por $toDecimal antes de multiplicar, así que redondea igual que
+ * Money.toCents (por ejemplo 0.29 queda en 29 centavos y no en 28). El medio centavo se redondea alejándose
+ * de cero según el signo (-0.005 queda en -1 centavo), igual que HALF_UP; $round no sirve porque redondea
+ * al par.
+ */
+public final class LegacyMoney {
+
+    public static final Map<String, String> CREDITS = Map.of(
+            "amount", "amountCents",
+            "availableCredit", "availableCreditCents",
+            "amountPaid", "amountPaidCents");
+    public static final Map<String, String> TRANSACTIONS = Map.of("amount", "amountCents");
+    public static final Map<String, String> MONTHLY_BALANCES = Map.of(
+            "balance", "balanceCents",
+            "sumOfBalances", "sumOfBalancesCents");
+
+    private LegacyMoney() {
+    }
+
+    public static Document cents(String legacyField, String centsField) {
+        Document halfUp = new Document("$multiply", List.of(
+                new Document("$cond", List.of(new Document("$lt", List.of("$$units", 0)), -1, 1)),
+                new Document("$floor", new Document("$add", List.of(
+                        new Document("$abs", "$$units"), new Document("$toDecimal", 0.5))))));
+        Document legacyCents = new Document("$toLong", new Document("$let", new Document()
+                .append("vars", new Document("units", new Document("$multiply", List.of(
+                        new Document("$toDecimal", "$" + legacyField), 100))))
+                .append("in", halfUp)));
+        return new Document("$ifNull", List.of("$" + centsField,
+                new Document("$ifNull", List.of(legacyCents, 0L))));
+    }
+
+    public static List<Document> migrationStages(Map<String, String> fields, Map<String, Object> overrides) {
+        Document set = new Document();
+        fields.forEach((legacyField, centsField) -> set.append(centsField, cents(legacyField, centsField)));
+        set.putAll(overrides);
+        return List.of(
+                new Document("$set", set),
+                new Document("$unset", new ArrayList<>(fields.keySet())));
+    }
+
+    public static long toCents(Object legacyValue) {
+        if (legacyValue instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+        if (legacyValue instanceof Number number) {
+            return Money.toCents(number.doubleValue());
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,134 @@
+package nnt_data.credits_microservice.infrastructure.persistence.migration;
+
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+/**
+ * Componente LegacyMoneyMigration que migra en segundo plano los montos guardados como double en unidades
+ * a los campos en centavos (ver LegacyMoney), sin detener el servicio.
+ *
+ * - migrateOnStartup: Al arrancar la aplicación, si credits.money-migration.enabled está activo (por
+ *   defecto sí), migra credits, credit_transaction y monthly_balances y registra cuántos documentos cambió.
+ *   De las transacciones solo se migra la colección de documentos (TransactionStorage.DOCUMENT_COLLECTION)
+ *   aunque credits.transactions.storage sea time-series: los montos anteriores solo pueden estar ahí, porque
+ *   la colección time-series se llena con TransactionTimeSeriesMigration, que ya copia los montos en
+ *   centavos, y con inserciones nuevas, que siempre los escriben en centavos.
+ * - migrate: Recorre una colección por _id en lotes de credits.money-migration.batch-size documentos que
+ *   aún tienen algún campo anterior, y migra cada lote con una sola actualización con pipeline sobre sus
+ *   _id, esperando credits.money-migration.pause entre lotes para no competir con el tráfico.
+ *
+ * Mientras la migración avanza, LegacyMoneyReadCallback convierte los documentos sin migrar al leerlos y
+ * las actualizaciones de saldo los migran al tocarlos, así que no hay que esperarla. La actualización de un
+ * lote es idempotente: volver a ejecutarla, o ejecutarla en varias instancias a la vez, da el mismo
+ * resultado. En monthly_balances incrementa la versión, para que un guardado optimista concurrente se
+ * reintente con el documento ya migrado.
+ *
+ * Configuración:
+ * - credits.money-migration.enabled: Migrar al arrancar (por defecto true).
+ * - credits.money-migration.batch-size: Documentos por lote (por defecto 500).
+ * - credits.money-migration.pause: Pausa entre lotes (por defecto 100ms).
+ */
+@Component
+public class LegacyMoneyMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyMoneyMigration.class);
+
+    private static final String ID = "_id";
+    private static final Map<String, Object> BUMP_VERSION = Map.of("version",
+            new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)));
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pause;
+
+    public LegacyMoneyMigration(ReactiveMongoTemplate mongoTemplate,
+                                @Value("${credits.money-migration.enabled:true}") boolean enabled,
+                                @Value("${credits.money-migration.batch-size:500}") int batchSize,
+                                @Value("${credits.money-migration.pause:100ms}") Duration pause) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("credits.money-migration.batch-size debe ser mayor a cero");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Flux.concat(
+                        migrate(mongoTemplate.getCollectionName(CreditBaseEntity.class), LegacyMoney.CREDITS,
+                                Map.of()),
+                        migrate(TransactionStorage.DOCUMENT_COLLECTION, LegacyMoney.TRANSACTIONS, Map.of()),
+                        migrate(mongoTemplate.getCollectionName(MonthlyBalanceEntity.class),
+                                LegacyMoney.MONTHLY_BALANCES, BUMP_VERSION))
+                .subscribe(null, e -> log.error("No se pudo migrar los montos a centavos: {}", e.getMessage()));
+    }
+
+    public Mono<Long> migrate(String collection, Map<String, String> fields, Map<String, Object> overrides) {
+        AggregationUpdate update = AggregationUpdate.from(LegacyMoney.migrationStages(fields, overrides).stream()
+                .<AggregationOperation>map(stage -> context -> stage)
+                .toList());
+        return migrateAfter(collection, fields, update, null, 0L)
+                .doOnNext(migrated -> {
+                    if (migrated > 0) {
+                        log.info("Montos migrados a centavos en {}: {} documentos", collection, migrated);
+                    }
+                });
+    }
+
+    private Mono<Long> migrateAfter(String collection, Map<String, String> fields, AggregationUpdate update,
+                                    Object after, long migrated) {
+        Query page = new Query(legacy(fields, after))
+                .with(Sort.by(Sort.Direction.ASC, ID))
+                .limit(batchSize);
+        page.fields().include(ID);
+        return mongoTemplate.find(page, Document.class, collection)
+                .map(document -> document.get(ID))
+                .collectList()
+                .flatMap(ids -> {
+                    if (ids.isEmpty()) {
+                        return Mono.just(migrated);
+                    }
+                    return mongoTemplate.updateMulti(Query.query(Criteria.where(ID).in(ids)), update, collection)
+                            .flatMap(result -> {
+                                long total = migrated + result.getModifiedCount();
+                                if (ids.size() < batchSize) {
+                                    return Mono.just(total);
+                                }
+                                return Mono.delay(pause).then(Mono.defer(() ->
+                                        migrateAfter(collection, fields, update, ids.get(ids.size() - 1), total)));
+                            });
+                });
+    }
+
+    private static Criteria legacy(Map<String, String> fields, Object after) {
+        Criteria anyLegacy = new Criteria().orOperator(fields.keySet().stream()
+                .map(field -> Criteria.where(field).exists(true))
+                .toList());
+        return after == null ? anyLegacy : new Criteria().andOperator(Criteria.where(ID).gt(after), anyLegacy);
+    }
+}
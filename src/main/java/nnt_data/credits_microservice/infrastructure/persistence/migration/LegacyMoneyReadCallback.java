@@ -0,0 +1,53 @@
+package nnt_data.credits_microservice.infrastructure.persistence.migration;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+/**
+ * Componente LegacyMoneyReadCallback que completa los montos en centavos de las entidades leídas de
+ * documentos que aún no migró LegacyMoneyMigration.
+ *
+ * - onAfterConvert: Si el documento no tiene el campo en centavos pero sí el campo anterior en unidades,
+ *   asigna a la entidad el valor convertido con LegacyMoney.toCents. Los documentos ya migrados no se
+ *   tocan.
+ *
+ * Así las lecturas funcionan igual antes, durante y después de la migración, sin reescribir el documento.
+ */
+@Component
+public class LegacyMoneyReadCallback implements ReactiveAfterConvertCallback<Object> {
+
+    @Override
+    public Mono<Object> onAfterConvert(Object entity, Document document, String collection) {
+        if (entity instanceof CreditBaseEntity credit) {
+            if (isLegacy(document, "amount", "amountCents")) {
+                credit.setAmountCents(LegacyMoney.toCents(document.get("amount")));
+            }
+            if (isLegacy(document, "availableCredit", "availableCreditCents")) {
+                credit.setAvailableCreditCents(LegacyMoney.toCents(document.get("availableCredit")));
+            }
+            if (isLegacy(document, "amountPaid", "amountPaidCents")) {
+                credit.setAmountPaidCents(LegacyMoney.toCents(document.get("amountPaid")));
+            }
+        } else if (entity instanceof TransactionEntity transaction) {
+            if (isLegacy(document, "amount", "amountCents")) {
+                transaction.setAmountCents(LegacyMoney.toCents(document.get("amount")));
+            }
+        } else if (entity instanceof MonthlyBalanceEntity accumulator) {
+            if (isLegacy(document, "balance", "balanceCents")) {
+                accumulator.setBalanceCents(LegacyMoney.toCents(document.get("balance")));
+            }
+            if (isLegacy(document, "sumOfBalances", "sumOfBalancesCents")) {
+                accumulator.setSumOfBalancesCents(LegacyMoney.toCents(document.get("sumOfBalances")));
+            }
+        }
+        return Mono.just(entity);
+    }
+
+    private static boolean isLegacy(Document document, String legacyField, String centsField) {
+        return document.get(legacyField) != null && !document.containsKey(centsField);
+    }
+}
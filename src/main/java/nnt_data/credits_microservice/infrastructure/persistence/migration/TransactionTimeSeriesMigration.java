@@ -0,0 +1,223 @@
+package nnt_data.credits_microservice.infrastructure.persistence.migration;
+
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
+import nnt_data.credits_microservice.infrastructure.persistence.index.ManagedCollection;
+import nnt_data.credits_microservice.infrastructure.persistence.index.MongoIndexManager;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+/**
+ * Componente TransactionTimeSeriesMigration que copia las transacciones de credit_transaction a la
+ * colección time-series de TransactionStorage, sin detener el servicio.
+ *
+ * - migrate: Crea la colección time-series si no existe y copia, en orden de _id y en lotes de
+ *   credits.transactions.time-series.migration.batch-size, las transacciones posteriores al último lote
+ *   copiado, esperando credits.transactions.time-series.migration.pause entre lotes. Al terminar hace una
+ *   pasada de reconciliación. Cada lote se copia ya con los montos en centavos (LegacyMoney.cents) y el día
+ *   de negocio (BusinessDayBackfill.businessDay), porque en una colección time-series no se pueden migrar
+ *   después. Devuelve cuántas transacciones copió.
+ * - catchUpOnStartup: Con credits.transactions.storage=time-series, al arrancar copia en segundo plano las
+ *   transacciones que se registraron en credit_transaction desde la última copia.
+ *
+ * El último _id copiado se guarda en migration_checkpoints después de cada lote, así que una copia
+ * interrumpida continúa donde quedó. Los _id no se confirman en orden: se asignan antes de la ventana de
+ * TransactionGroupCommitWriter y otras instancias insertan a la vez, así que una transacción con un _id
+ * menor puede confirmarse cuando el checkpoint ya la pasó. Por eso cada ejecución termina volviendo a
+ * recorrer las transacciones cuyo _id es posterior al inicio de la ejecución anterior (reconcileFrom en el
+ * checkpoint) menos credits.transactions.time-series.migration.overlap, y copia solo las que faltan en el
+ * destino. El margen debe cubrir la demora entre asignar el _id y confirmar la inserción, incluida la
+ * diferencia de reloj entre instancias. La copia nunca borra del destino: el primer lote de cada ejecución
+ * también descarta las transacciones que ya están en él (la ejecución anterior pudo insertarlo sin llegar a
+ * guardar el avance), así que funciona con cualquier versión de MongoDB con colecciones time-series.
+ *
+ * Configuración:
+ * - credits.transactions.time-series.migration.batch-size: Transacciones por lote (por defecto 1000).
+ * - credits.transactions.time-series.migration.pause: Pausa entre lotes (por defecto 100ms).
+ * - credits.transactions.time-series.migration.overlap: Margen de la reconciliación (por defecto 5m).
+ */
+@Component
+public class TransactionTimeSeriesMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionTimeSeriesMigration.class);
+
+    private static final String ID = "_id";
+    private static final String CHECKPOINTS = "migration_checkpoints";
+    private static final String AFTER = "after";
+    private static final String RECONCILE_FROM = "reconcileFrom";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TransactionStorage transactionStorage;
+    private final BusinessCalendar businessCalendar;
+    private final MongoIndexManager mongoIndexManager;
+    private final int batchSize;
+    private final Duration pause;
+    private final Duration overlap;
+
+    public TransactionTimeSeriesMigration(ReactiveMongoTemplate mongoTemplate,
+                                          TransactionStorage transactionStorage,
+                                          BusinessCalendar businessCalendar,
+                                          MongoIndexManager mongoIndexManager,
+                                          @Value("${credits.transactions.time-series.migration.batch-size:1000}") int batchSize,
+                                          @Value("${credits.transactions.time-series.migration.pause:100ms}") Duration pause,
+                                          @Value("${credits.transactions.time-series.migration.overlap:5m}") Duration overlap) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "credits.transactions.time-series.migration.batch-size debe ser mayor a cero");
+        }
+        if (overlap.isNegative()) {
+            throw new IllegalArgumentException(
+                    "credits.transactions.time-series.migration.overlap no puede ser negativo");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.transactionStorage = transactionStorage;
+        this.businessCalendar = businessCalendar;
+        this.mongoIndexManager = mongoIndexManager;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.overlap = overlap;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpOnStartup() {
+        if (!transactionStorage.isTimeSeries()) {
+            return;
+        }
+        migrate().subscribe(null, e -> log.error("No se pudo copiar las transacciones a {}: {}",
+                transactionStorage.getTimeSeriesCollection(), e.getMessage()));
+    }
+
+    public Mono<Long> migrate() {
+        String source = transactionStorage.getDocumentCollection();
+        String target = transactionStorage.getTimeSeriesCollection();
+        String checkpoint = source + ":" + target;
+        Date startedAt = new Date();
+        Query checkpointQuery = Query.query(Criteria.where(ID).is(checkpoint));
+        return mongoIndexManager.ensureCollection(new ManagedCollection(target, transactionStorage.timeSeriesOptions()))
+                .then(mongoTemplate.findAndModify(checkpointQuery, new Update().min(RECONCILE_FROM, startedAt),
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, CHECKPOINTS))
+                .flatMap(state -> copy(source, target, new Criteria(), state.get(AFTER), checkpoint, false, true, 0L)
+                        .flatMap(copied -> reconcile(source, target, checkpointQuery,
+                                state.getDate(RECONCILE_FROM), copied)))
+                .flatMap(copied -> mongoTemplate.updateFirst(checkpointQuery,
+                                Update.update(RECONCILE_FROM, startedAt), CHECKPOINTS)
+                        .thenReturn(copied))
+                .doOnNext(copied -> {
+                    if (copied > 0) {
+                        log.info("Transacciones copiadas de {} a {}: {}", source, target, copied);
+                    }
+                });
+    }
+
+    /**
+     * Vuelve a recorrer las transacciones desde reconcileFrom menos el margen hasta el último _id copiado y
+     * copia las que faltan en target. Las posteriores las copia la siguiente ejecución desde el checkpoint.
+     */
+    private Mono<Long> reconcile(String source, String target, Query checkpointQuery, Date reconcileFrom,
+                                 long copied) {
+        ObjectId from = new ObjectId(new Date(reconcileFrom.getTime() - overlap.toMillis()));
+        return mongoTemplate.findOne(checkpointQuery, Document.class, CHECKPOINTS)
+                .mapNotNull(state -> state.get(AFTER))
+                .flatMap(after -> copy(source, target, Criteria.where(ID).gte(from).lte(after), null, null,
+                        true, true, copied))
+                .defaultIfEmpty(copied);
+    }
+
+    /**
+     * Copia en lotes, después de after, las transacciones de source que cumplen range. Con dedup descarta en
+     * cada lote las que ya están en target; sin dedup solo en el primero. Si checkpoint no es null, guarda el
+     * último _id de cada lote.
+     */
+    private Mono<Long> copy(String source, String target, Criteria range, Object after, String checkpoint,
+                            boolean dedup, boolean first, long copied) {
+        Document set = new Document("$set", new Document()
+                .append("amountCents", LegacyMoney.cents("amount", "amountCents"))
+                .append("businessDay", BusinessDayBackfill.businessDay(businessCalendar.getZone())));
+        Document unset = new Document("$unset", List.copyOf(LegacyMoney.TRANSACTIONS.keySet()));
+        Aggregation page = Aggregation.newAggregation(
+                Aggregation.match(range),
+                Aggregation.match(after == null ? new Criteria() : Criteria.where(ID).gt(after)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, ID)),
+                Aggregation.limit(batchSize),
+                stage(set),
+                stage(unset));
+        return mongoTemplate.aggregate(page, source, Document.class)
+                .collectList()
+                .flatMap(documents -> {
+                    if (documents.isEmpty()) {
+                        return Mono.just(copied);
+                    }
+                    Object last = documents.get(documents.size() - 1).get(ID);
+                    return (dedup || first ? missing(target, documents) : Mono.just(documents))
+                            .flatMap(pending -> insert(target, pending)
+                                    .then(advance(checkpoint, last, pending.size()))
+                                    .thenReturn(copied + pending.size()))
+                            .flatMap(total -> documents.size() < batchSize
+                                    ? Mono.just(total)
+                                    : Mono.delay(pause).then(Mono.defer(() -> copy(source, target, range, last,
+                                            checkpoint, dedup, false, total))));
+                });
+    }
+
+    /**
+     * Transacciones del lote que aún no están en target. La consulta se acota también por date, el campo de
+     * tiempo de la colección, para que MongoDB solo abra los buckets del rango del lote.
+     */
+    private Mono<List<Document>> missing(String target, List<Document> documents) {
+        List<Object> ids = documents.stream().map(document -> document.get(ID)).toList();
+        List<Date> dates = documents.stream()
+                .map(document -> document.getDate(TransactionStorage.TIME_FIELD))
+                .filter(Objects::nonNull)
+                .toList();
+        Criteria criteria = Criteria.where(ID).in(ids);
+        if (dates.size() == documents.size()) {
+            criteria = criteria.and(TransactionStorage.TIME_FIELD)
+                    .gte(Collections.min(dates))
+                    .lte(Collections.max(dates));
+        }
+        Query existing = Query.query(criteria);
+        existing.fields().include(ID);
+        return mongoTemplate.find(existing, Document.class, target)
+                .map(document -> document.get(ID))
+                .collect(Collectors.toSet())
+                .map(stored -> documents.stream().filter(document -> !stored.contains(document.get(ID))).toList());
+    }
+
+    private Mono<Void> insert(String target, List<Document> documents) {
+        return documents.isEmpty() ? Mono.empty() : mongoTemplate.insert(documents, target).then();
+    }
+
+    private Mono<Void> advance(String checkpoint, Object last, int copied) {
+        if (checkpoint == null) {
+            return Mono.empty();
+        }
+        return mongoTemplate.upsert(Query.query(Criteria.where(ID).is(checkpoint)),
+                Update.update(AFTER, last).inc("copied", copied).set("updatedAt", new Date()),
+                CHECKPOINTS).then();
+    }
+
+    private static AggregationOperation stage(Document document) {
+        return context -> document;
+    }
+}
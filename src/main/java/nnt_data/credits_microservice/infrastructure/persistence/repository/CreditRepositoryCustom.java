@@ -0,0 +1,38 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.model.CreditType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+/**
+ * Operaciones de CreditRepository que no se pueden expresar como consultas derivadas. Los montos van en
+ * centavos.
+ *
+ * - applySpent: Descuenta un gasto del crédito disponible solo si el saldo lo cubre.
+ * - applyPayment: Abona un pago al crédito disponible solo si no supera el monto del crédito.
+ * - applyAvailableCreditDelta: Suma un delta (positivo o negativo) al crédito disponible si el resultado
+ *   queda entre 0 y el monto del crédito.
+ * - applyAmountPaidDelta: Suma un delta al monto pagado si el resultado queda entre 0 y el monto del crédito.
+ * - applyAvailableCreditDeltaIfUnchanged / applyAmountPaidDeltaIfUnchanged: Igual que las anteriores, pero
+ *   además solo si el campo todavía vale expectedCents (compare-and-set sobre el valor leído).
+ *
+ * - findPageAfter: Créditos ordenados por creditId que empiezan después del cursor after (ver KeysetQueries).
+ * - existsByCustomerIdAndType: Indica si el cliente tiene algún crédito del tipo. Se resuelve solo con el
+ *   índice { customerId: 1, type: 1 } (consulta cubierta) y termina en la primera coincidencia.
+ *
+ * Las operaciones de saldo se resuelven con un único findAndModify: la condición de límite va en el filtro
+ * y el cambio de saldo en la actualización, por lo que validan y aplican el movimiento de forma atómica.
+ * Devuelven el documento ya actualizado, o vacío si el crédito no existe o no cumple la condición.
+ * Todas las actualizaciones migran además los montos del documento a centavos (ver LegacyMoney), así que
+ * funcionan sobre documentos migrados y sin migrar.
+ */
+public interface CreditRepositoryCustom {
+    Mono<CreditBaseEntity> applySpent(String creditId, long amountCents);
+    Mono<CreditBaseEntity> applyPayment(String creditId, long amountCents);
+    Mono<CreditBaseEntity> applyAvailableCreditDelta(String creditId, long deltaCents);
+    Mono<CreditBaseEntity> applyAmountPaidDelta(String creditId, long deltaCents);
+    Mono<CreditBaseEntity> applyAvailableCreditDeltaIfUnchanged(String creditId, long expectedCents, long deltaCents);
+    Mono<CreditBaseEntity> applyAmountPaidDeltaIfUnchanged(String creditId, long expectedCents, long deltaCents);
+    Flux<CreditBaseEntity> findPageAfter(String after, int limit, int cursorBatchSize);
+    Mono<Boolean> existsByCustomerIdAndType(String customerId, CreditType type);
+}
@@ -0,0 +1,118 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.migration.LegacyMoney;
+import nnt_data.credits_microservice.model.CreditType;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+/**
+ * Implementación de CreditRepositoryCustom basada en ReactiveMongoTemplate.
+ *
+ * - applySpent / applyPayment: Casos particulares de applyAvailableCreditDelta con el monto en negativo
+ *   o en positivo.
+ * - applyAvailableCreditDelta / applyAmountPaidDelta: Filtran por creditId y por 0 <= campo + delta <= monto
+ *   (evaluado con $expr sobre el propio documento, en centavos) e incrementan el campo con una
+ *   actualización con pipeline que también migra los demás montos (LegacyMoney.migrationStages).
+ * - applyAvailableCreditDeltaIfUnchanged / applyAmountPaidDeltaIfUnchanged: Agregan al filtro que el campo,
+ *   en centavos, sea igual a expectedCents.
+ * - findPageAfter: Consulta por rango de _id construida con KeysetQueries.
+ * - existsByCustomerIdAndType: Busca un solo documento proyectando únicamente customerId y sin _id, de modo
+ *   que MongoDB responde desde el índice sin leer documentos.
+ */
+@RequiredArgsConstructor
+public class CreditRepositoryCustomImpl implements CreditRepositoryCustom {
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+    private static final String AMOUNT = "amount";
+    private static final String AVAILABLE_CREDIT = "availableCredit";
+    private static final String AMOUNT_PAID = "amountPaid";
+    private static final String CUSTOMER_ID = "customerId";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<CreditBaseEntity> applySpent(String creditId, long amountCents) {
+        return applyAvailableCreditDelta(creditId, -amountCents);
+    }
+
+    @Override
+    public Mono<CreditBaseEntity> applyPayment(String creditId, long amountCents) {
+        return applyAvailableCreditDelta(creditId, amountCents);
+    }
+
+    @Override
+    public Mono<CreditBaseEntity> applyAvailableCreditDelta(String creditId, long deltaCents) {
+        return applyBoundedDelta(creditId, AVAILABLE_CREDIT, null, deltaCents);
+    }
+
+    @Override
+    public Mono<CreditBaseEntity> applyAmountPaidDelta(String creditId, long deltaCents) {
+        return applyBoundedDelta(creditId, AMOUNT_PAID, null, deltaCents);
+    }
+
+    @Override
+    public Mono<CreditBaseEntity> applyAvailableCreditDeltaIfUnchanged(String creditId, long expectedCents,
+                                                                       long deltaCents) {
+        return applyBoundedDelta(creditId, AVAILABLE_CREDIT, expectedCents, deltaCents);
+    }
+
+    @Override
+    public Mono<CreditBaseEntity> applyAmountPaidDeltaIfUnchanged(String creditId, long expectedCents,
+                                                                  long deltaCents) {
+        return applyBoundedDelta(creditId, AMOUNT_PAID, expectedCents, deltaCents);
+    }
+
+    @Override
+    public Flux<CreditBaseEntity> findPageAfter(String after, int limit, int cursorBatchSize) {
+        return mongoTemplate.find(KeysetQueries.after(after, limit, cursorBatchSize), CreditBaseEntity.class);
+    }
+
+    @Override
+    public Mono<Boolean> existsByCustomerIdAndType(String customerId, CreditType type) {
+        Query query = Query.query(Criteria.where(CUSTOMER_ID).is(customerId).and("type").is(type.name()))
+                .limit(1);
+        query.fields().include(CUSTOMER_ID).exclude("_id");
+        return mongoTemplate.findOne(query, Document.class,
+                        mongoTemplate.getCollectionName(CreditBaseEntity.class))
+                .hasElement();
+    }
+
+    private Mono<CreditBaseEntity> applyBoundedDelta(String creditId, String field, Long expectedCents,
+                                                     long deltaCents) {
+        String centsField = LegacyMoney.CREDITS.get(field);
+        Document current = LegacyMoney.cents(field, centsField);
+        Document newValue = new Document("$add", List.of(current, deltaCents));
+        Document limit = LegacyMoney.cents(AMOUNT, LegacyMoney.CREDITS.get(AMOUNT));
+        List<Document> conditions = new ArrayList<>(List.of(
+                new Document("$gte", List.of(newValue, 0L)),
+                new Document("$lte", List.of(newValue, limit))));
+        if (expectedCents != null) {
+            conditions.add(new Document("$eq", List.of(current, expectedCents)));
+        }
+        Document bounds = new Document("$and", conditions);
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("creditId").is(creditId),
+                Criteria.expr(() -> bounds)));
+        return mongoTemplate.findAndModify(query, migrating(Map.of(centsField, newValue)), RETURN_NEW,
+                CreditBaseEntity.class);
+    }
+
+    private static AggregationUpdate migrating(Map<String, Object> overrides) {
+        List<AggregationOperation> stages = LegacyMoney.migrationStages(LegacyMoney.CREDITS, overrides).stream()
+                .<AggregationOperation>map(stage -> context -> stage)
+                .toList();
+        return AggregationUpdate.from(stages);
+    }
+}
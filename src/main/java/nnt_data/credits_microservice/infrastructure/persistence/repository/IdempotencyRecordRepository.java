@@ -0,0 +1,9 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.IdempotencyRecordEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+/**
+ * Repositorio IdempotencyRecordRepository para operaciones de persistencia de Idempotency-Keys.
+ */
+public interface IdempotencyRecordRepository extends ReactiveMongoRepository<IdempotencyRecordEntity, String> {
+}
@@ -0,0 +1,33 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+/**
+ * Construcción de consultas paginadas por cursor (keyset) sobre _id.
+ *
+ * - after: Consulta ordenada por _id ascendente que empieza después del cursor (si hay) y devuelve como
+ *   máximo limit documentos (0 = sin límite), leyendo el cursor de MongoDB en lotes de cursorBatchSize.
+ *
+ * Cada página es un rango del índice _id, así que su costo no depende de cuántas páginas se saltaron.
+ */
+final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    static Query after(String after, int limit, int cursorBatchSize) {
+        Query query = new Query();
+        if (after != null && !after.isBlank()) {
+            query.addCriteria(Criteria.where("_id").gt(after));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        if (limit > 0) {
+            query.limit(limit);
+        }
+        if (cursorBatchSize > 0) {
+            query.cursorBatchSize(cursorBatchSize);
+        }
+        return query;
+    }
+}
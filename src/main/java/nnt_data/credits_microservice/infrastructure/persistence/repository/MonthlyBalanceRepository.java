@@ -0,0 +1,15 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+/**
+ * Repositorio MonthlyBalanceRepository para operaciones de persistencia de los acumuladores mensuales.
+ *
+ * - deleteByCreditId: Elimina todos los acumuladores de un crédito.
+ * - applyLateSpent: Suma un consumo que llegó fuera de orden (ver MonthlyBalanceRepositoryCustom).
+ */
+public interface MonthlyBalanceRepository extends ReactiveMongoRepository<MonthlyBalanceEntity, String>,
+        MonthlyBalanceRepositoryCustom {
+    Mono<Void> deleteByCreditId(String creditId);
+}
@@ -0,0 +1,20 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+/**
+ * Operaciones de MonthlyBalanceRepository que no se pueden expresar como consultas derivadas. Los montos van
+ * en centavos.
+ *
+ * - applyLateSpent: Suma un consumo que llegó después de transacciones más recientes del mismo mes. Como un
+ *   consumo solo suma su monto al saldo de cada día desde el suyo, se aplica con un incremento sobre el saldo
+ *   del día abierto y sobre la suma de los días cerrados desde ese día, sin recorrer las transacciones. Solo
+ *   aplica si el acumulador sigue siendo posterior a date, se construyó antes de date (así que no puede
+ *   incluir la transacción) y no tiene pagos en date o después (un pago posterior dejaría el saldo en cero).
+ *   Devuelve el acumulador actualizado, o vacío si no cumple esas condiciones.
+ */
+public interface MonthlyBalanceRepositoryCustom {
+    Mono<MonthlyBalanceEntity> applyLateSpent(String id, Date date, long businessDay, long amountCents);
+}
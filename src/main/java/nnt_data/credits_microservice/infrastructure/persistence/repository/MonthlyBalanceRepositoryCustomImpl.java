@@ -0,0 +1,53 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.List;
+/**
+ * Implementación de MonthlyBalanceRepositoryCustom basada en ReactiveMongoTemplate.
+ *
+ * - applyLateSpent: Un único findAndModify con las condiciones en el filtro y una actualización con pipeline
+ *   que suma amountCents a balanceCents y amountCents por cada día cerrado desde businessDay
+ *   (currentEpochDay - businessDay) a sumOfBalancesCents, calculados sobre el propio documento. También
+ *   incrementa version, así que una actualización optimista concurrente del acumulador falla y se
+ *   reintenta sobre el documento ya incrementado.
+ */
+@RequiredArgsConstructor
+public class MonthlyBalanceRepositoryCustomImpl implements MonthlyBalanceRepositoryCustom {
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<MonthlyBalanceEntity> applyLateSpent(String id, Date date, long businessDay, long amountCents) {
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("_id").is(id),
+                Criteria.where("lastTransactionDate").gt(date),
+                Criteria.where("builtAt").lt(date),
+                new Criteria().orOperator(
+                        Criteria.where("lastPaymentDate").is(null),
+                        Criteria.where("lastPaymentDate").lt(date))));
+        Document closedDays = new Document("$max", List.of(0L,
+                new Document("$subtract", List.of("$currentEpochDay", businessDay))));
+        Document set = new Document()
+                .append("balanceCents", new Document("$add", List.of("$balanceCents", amountCents)))
+                .append("sumOfBalancesCents", new Document("$add", List.of("$sumOfBalancesCents",
+                        new Document("$multiply", List.of(amountCents, closedDays)))))
+                .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)),
+                        1L)));
+        AggregationOperation stage = context -> new Document("$set", set);
+        return mongoTemplate.findAndModify(query, AggregationUpdate.from(List.of(stage)), RETURN_NEW,
+                MonthlyBalanceEntity.class);
+    }
+}
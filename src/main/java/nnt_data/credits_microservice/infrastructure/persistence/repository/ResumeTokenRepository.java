@@ -0,0 +1,9 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.ResumeTokenEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+/**
+ * Repositorio ResumeTokenRepository para los resume tokens de los change streams.
+ */
+public interface ResumeTokenRepository extends ReactiveMongoRepository<ResumeTokenEntity, String> {
+}
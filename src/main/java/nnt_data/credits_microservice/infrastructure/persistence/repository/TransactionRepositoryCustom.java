@@ -0,0 +1,51 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.DailyBalanceBucket;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+/**
+ * Operaciones de TransactionRepository que no se pueden expresar como consultas derivadas.
+ *
+ * - findByCreditId: Recupera todas las transacciones asociadas a un ID de crédito específico.
+ * - findByCreditIdOrderByDateDesc / findByCreditIdAndDateBeforeOrderByDateDesc: Recuperan las transacciones
+ *   más recientes de un crédito (opcionalmente anteriores a una fecha), ordenadas y limitadas por MongoDB.
+ * - findByCreditIdAndDateBetweenOrderByDateAsc: Recupera las transacciones de un crédito desde startDate
+ *   (inclusive) hasta endDate (exclusivo), en orden ascendente para los reportes de saldo promedio.
+ * - findByCreditIdInAndDateBetweenOrderByDateAsc: Igual que la anterior para varios créditos en una sola
+ *   consulta; el orden por fecha se mantiene dentro de cada crédito.
+ * - insertAllUnordered: Inserta todas las transacciones en una única escritura masiva no ordenada.
+ *   Las transacciones deben llegar con su transactionId ya asignado. Si alguna fila falla, el error
+ *   (BulkOperationException) indica las posiciones rechazadas y el resto queda insertado.
+ * - findPageAfter: Transacciones ordenadas por transactionId que empiezan después del cursor after
+ *   (ver KeysetQueries). Como los transactionId son ObjectId, el orden coincide con el de registro.
+ * - aggregateDailyBuckets: Agrupa en MongoDB las transacciones de un crédito desde from (inclusive) hasta
+ *   to (exclusivo) por día de negocio (businessDay; zone solo se usa para los documentos que aún no lo
+ *   tienen) y devuelve una fila por día con actividad, en orden ascendente.
+ *
+ * Las consultas por crédito incluyen las transacciones archivadas cuando el rango empieza antes del
+ * horizonte de archivado. findPageAfter solo recorre credit_transaction.
+ */
+public interface TransactionRepositoryCustom {
+    Flux<TransactionEntity> findByCreditId(String creditId);
+    Flux<TransactionEntity> findByCreditIdOrderByDateDesc(String creditId, Pageable pageable);
+    Flux<TransactionEntity> findByCreditIdAndDateBeforeOrderByDateDesc(String creditId, Date before, Pageable pageable);
+    Flux<TransactionEntity> findByCreditIdInAndDateBetweenOrderByDateAsc(
+            Collection<String> creditIds,
+            Date startDate,
+            Date endDate
+    );
+    Flux<TransactionEntity> findByCreditIdAndDateBetweenOrderByDateAsc(
+            String creditId,
+            Date startDate,
+            Date endDate
+    );
+    Flux<TransactionEntity> insertAllUnordered(List<TransactionEntity> transactions);
+    Flux<TransactionEntity> findPageAfter(String after, int limit, int cursorBatchSize);
+    Flux<DailyBalanceBucket> aggregateDailyBuckets(String creditId, Date from, Date to, ZoneId zone);
+}
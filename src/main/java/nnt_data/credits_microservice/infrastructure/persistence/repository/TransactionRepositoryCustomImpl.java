@@ -0,0 +1,257 @@
+package nnt_data.credits_microservice.infrastructure.persistence.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import lombok.RequiredArgsConstructor;
+import nnt_data.credits_microservice.infrastructure.persistence.archive.TransactionArchive;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.DailyBalanceBucket;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.migration.BusinessDayBackfill;
+import nnt_data.credits_microservice.infrastructure.persistence.migration.LegacyMoney;
+import nnt_data.credits_microservice.model.Transaction;
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+/**
+ * Implementación de TransactionRepositoryCustom basada en ReactiveMongoTemplate.
+ *
+ * - Consultas por crédito y fecha: Usan el índice { creditId: 1, date: -1 }. Si el rango empieza antes del
+ *   horizonte de archivado (TransactionArchive.horizon), la parte anterior al horizonte se lee a la vez de
+ *   credit_transaction y del archivo, se intercala por fecha y se descartan las transacciones repetidas (las
+ *   de un lote que el archivador aún no borró) comparando solo las de igual fecha, así que leer todo el
+ *   historial sigue usando memoria constante; la parte posterior solo lee credit_transaction. Las
+ *   consultas de las más recientes solo leen el archivo si credit_transaction no completa la página.
+ * - insertAllUnordered: Usa bulkOps en modo UNORDERED para enviar todas las inserciones en un solo comando.
+ *   Los fallos parciales se entregan siempre como BulkOperationException, aunque el traductor de
+ *   excepciones de Spring los haya convertido en otro tipo.
+ * - findPageAfter: Consulta por rango de _id construida con KeysetQueries.
+ * - aggregateDailyBuckets: Pipeline sobre el índice { creditId: 1, date: -1 }: filtra el rango, ordena por
+ *   fecha, agrupa por el día de negocio guardado (businessDay, un entero que no requiere conversiones de
+ *   calendario; los documentos que aún no lo tienen usan BusinessDayBackfill.businessDay) y reduce las
+ *   transacciones de cada día en orden con las mismas reglas que BalanceCalculator (un pago deja el saldo en
+ *   cero, un consumo lo incrementa). Los montos se suman en centavos; las transacciones aún sin migrar se
+ *   convierten en el pipeline (LegacyMoney.cents). Antes del horizonte suma las transacciones archivadas
+ *   con $unionWith y descarta las repetidas antes de agrupar.
+ */
+@RequiredArgsConstructor
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    private static final Comparator<TransactionEntity> BY_DATE = Comparator.comparing(TransactionEntity::getDate);
+    private static final String CREDIT_ID = "creditId";
+    private static final String DATE = "date";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TransactionArchive transactionArchive;
+
+    @Override
+    public Flux<TransactionEntity> findByCreditId(String creditId) {
+        return ascending(List.of(creditId), null, null);
+    }
+
+    @Override
+    public Flux<TransactionEntity> findByCreditIdOrderByDateDesc(String creditId, Pageable pageable) {
+        return latest(creditId, null, pageable);
+    }
+
+    @Override
+    public Flux<TransactionEntity> findByCreditIdAndDateBeforeOrderByDateDesc(String creditId, Date before,
+                                                                             Pageable pageable) {
+        return latest(creditId, before, pageable);
+    }
+
+    @Override
+    public Flux<TransactionEntity> findByCreditIdInAndDateBetweenOrderByDateAsc(Collection<String> creditIds,
+                                                                               Date startDate, Date endDate) {
+        return ascending(creditIds, startDate, endDate);
+    }
+
+    @Override
+    public Flux<TransactionEntity> findByCreditIdAndDateBetweenOrderByDateAsc(String creditId, Date startDate,
+                                                                             Date endDate) {
+        return ascending(List.of(creditId), startDate, endDate);
+    }
+
+    @Override
+    public Flux<TransactionEntity> insertAllUnordered(List<TransactionEntity> transactions) {
+        if (transactions.isEmpty()) {
+            return Flux.empty();
+        }
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionEntity.class)
+                .insert(transactions)
+                .execute()
+                .onErrorMap(e -> !(e instanceof BulkOperationException) && bulkWriteCause(e) != null,
+                        e -> new BulkOperationException(e.getMessage(), bulkWriteCause(e)))
+                .thenMany(Flux.fromIterable(transactions));
+    }
+
+    @Override
+    public Flux<TransactionEntity> findPageAfter(String after, int limit, int cursorBatchSize) {
+        return mongoTemplate.find(KeysetQueries.after(after, limit, cursorBatchSize), TransactionEntity.class);
+    }
+
+    @Override
+    public Flux<DailyBalanceBucket> aggregateDailyBuckets(String creditId, Date from, Date to, ZoneId zone) {
+        Date horizon = transactionArchive.horizon();
+        if (horizon == null || !from.before(horizon)) {
+            return dailyBuckets(dates(List.of(creditId), from, true, to), List.of(), zone);
+        }
+        boolean reachesHot = to.after(horizon);
+        Date coldTo = reachesHot ? horizon : to;
+        Flux<DailyBalanceBucket> cold = dailyBuckets(dates(List.of(creditId), from, true, coldTo), List.of(
+                transactionArchive.unionWith(List.of(creditId), from, coldTo),
+                new Document("$group", new Document("_id", "$_id").append("transaction", new Document("$first", "$$ROOT"))),
+                new Document("$replaceRoot", new Document("newRoot", "$transaction"))), zone);
+        return reachesHot
+                ? Flux.concat(cold, dailyBuckets(dates(List.of(creditId), horizon, true, to), List.of(), zone))
+                : cold;
+    }
+
+    private Flux<TransactionEntity> ascending(Collection<String> creditIds, Date after, Date before) {
+        Date horizon = transactionArchive.horizon();
+        if (horizon == null || (after != null && !after.before(horizon))) {
+            return hot(dates(creditIds, after, true, before), Sort.Direction.ASC, 0);
+        }
+        boolean reachesHot = before == null || before.after(horizon);
+        Date coldBefore = reachesHot ? horizon : before;
+        Flux<TransactionEntity> cold = withoutRepeats(Flux.mergeComparing(BY_DATE,
+                transactionArchive.find(creditIds, after, coldBefore, Sort.Direction.ASC, 0),
+                hot(dates(creditIds, after, true, coldBefore), Sort.Direction.ASC, 0)));
+        return reachesHot
+                ? Flux.concat(cold, hot(dates(creditIds, horizon, true, before), Sort.Direction.ASC, 0))
+                : cold;
+    }
+
+    private Flux<TransactionEntity> latest(String creditId, Date before, Pageable pageable) {
+        Date horizon = transactionArchive.horizon();
+        if (horizon == null) {
+            return mongoTemplate.find(Query.query(dates(List.of(creditId), null, false, before))
+                    .with(Sort.by(Sort.Direction.DESC, DATE))
+                    .with(pageable), TransactionEntity.class);
+        }
+        int wanted = pageable.isPaged() ? Math.toIntExact(pageable.getOffset()) + pageable.getPageSize() : 0;
+        Flux<TransactionEntity> recent = before == null || before.after(horizon)
+                ? hot(dates(List.of(creditId), horizon, true, before), Sort.Direction.DESC, wanted)
+                : Flux.empty();
+        Date coldBefore = before != null && before.before(horizon) ? before : horizon;
+        return recent.collectList().flatMapMany(found -> {
+            int missing = wanted > 0 ? wanted - found.size() : 0;
+            Flux<TransactionEntity> older = wanted > 0 && missing <= 0
+                    ? Flux.<TransactionEntity>empty()
+                    : withoutRepeats(Flux.mergeComparing(BY_DATE.reversed(),
+                            transactionArchive.find(List.of(creditId), null, coldBefore, Sort.Direction.DESC,
+                                    missing),
+                            hot(dates(List.of(creditId), null, false, coldBefore), Sort.Direction.DESC,
+                                    missing)));
+            Flux<TransactionEntity> all = Flux.concat(Flux.fromIterable(found), older);
+            return pageable.isPaged() ? all.skip(pageable.getOffset()).take(pageable.getPageSize()) : all;
+        });
+    }
+
+    /**
+     * Descarta la segunda copia de una transacción que está a la vez en credit_transaction y en el archivo.
+     * Las dos copias tienen la misma fecha, así que tras intercalar por fecha quedan en el mismo grupo de
+     * fechas iguales: basta recordar los ids del grupo actual, y la memoria no crece con el historial.
+     */
+    private static Flux<TransactionEntity> withoutRepeats(Flux<TransactionEntity> merged) {
+        return Flux.defer(() -> {
+            Set<String> sameDate = new HashSet<>();
+            AtomicReference<Date> current = new AtomicReference<>();
+            return merged.filter(transaction -> {
+                if (!transaction.getDate().equals(current.getAndSet(transaction.getDate()))) {
+                    sameDate.clear();
+                }
+                return sameDate.add(transaction.getTransactionId());
+            });
+        });
+    }
+
+    private Flux<TransactionEntity> hot(Criteria criteria, Sort.Direction direction, int limit) {
+        return mongoTemplate.find(Query.query(criteria).with(Sort.by(direction, DATE)).limit(limit),
+                TransactionEntity.class);
+    }
+
+    private Flux<DailyBalanceBucket> dailyBuckets(Criteria criteria, List<Document> archived, ZoneId zone) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(criteria));
+        archived.forEach(document -> operations.add(stage(document)));
+        operations.add(Aggregation.sort(Sort.by(DATE)));
+        operations.add(stage(new Document("$group", new Document()
+                .append("_id", BusinessDayBackfill.businessDay(zone))
+                .append("entries", new Document("$push", new Document()
+                        .append("type", "$type")
+                        .append("amountCents", LegacyMoney.cents("amount", "amountCents")))))));
+        operations.add(stage(new Document("$project", new Document()
+                .append("_id", 0)
+                .append("day", "$_id")
+                .append("state", new Document("$reduce", new Document()
+                        .append("input", "$entries")
+                        .append("initialValue", new Document("reset", false).append("spentCents", 0L))
+                        .append("in", new Document("$switch", new Document()
+                                .append("branches", List.of(
+                                        new Document("case", typeIs(Transaction.TypeEnum.PAYMENT))
+                                                .append("then", new Document("reset", true)
+                                                        .append("spentCents", 0L)),
+                                        new Document("case", typeIs(Transaction.TypeEnum.SPENT))
+                                                .append("then", new Document("reset", "$$value.reset")
+                                                        .append("spentCents", new Document("$add",
+                                                                List.of("$$value.spentCents", "$$this.amountCents"))))))
+                                .append("default", "$$value"))))))));
+        operations.add(stage(new Document("$project", new Document()
+                .append("day", 1)
+                .append("reset", "$state.reset")
+                .append("spentCents", "$state.spentCents"))));
+        operations.add(stage(new Document("$sort", new Document("day", 1))));
+        Aggregation aggregation = Aggregation.newAggregation(operations)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate.aggregate(aggregation, TransactionEntity.class, DailyBalanceBucket.class);
+    }
+
+    private static Criteria dates(Collection<String> creditIds, Date from, boolean fromInclusive, Date to) {
+        Criteria criteria = creditIds.size() == 1
+                ? Criteria.where(CREDIT_ID).is(creditIds.iterator().next())
+                : Criteria.where(CREDIT_ID).in(creditIds);
+        if (from == null && to == null) {
+            return criteria;
+        }
+        Criteria date = criteria.and(DATE);
+        if (from != null) {
+            date = fromInclusive ? date.gte(from) : date.gt(from);
+        }
+        return to != null ? date.lt(to) : date;
+    }
+
+    private static AggregationOperation stage(Document document) {
+        return context -> document;
+    }
+
+    private static Document typeIs(Transaction.TypeEnum type) {
+        return new Document("$eq", List.of("$$this.type", type.name()));
+    }
+
+    private static MongoBulkWriteException bulkWriteCause(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof MongoBulkWriteException bulkWriteException) {
+                return bulkWriteException;
+            }
+        }
+        return null;
+    }
+}
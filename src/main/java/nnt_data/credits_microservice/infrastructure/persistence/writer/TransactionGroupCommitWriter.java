@@ -0,0 +1,130 @@
+package nnt_data.credits_microservice.infrastructure.persistence.writer;
+
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+/**
+ * Escritor TransactionGroupCommitWriter que agrupa las inserciones de transacciones (group commit).
+ *
+ * - insert: Encola una transacción y devuelve un Mono que se completa cuando el lote que la contiene
+ *   fue confirmado por MongoDB, o falla con el error de su fila.
+ *
+ * Las inserciones que llegan dentro de la ventana configurada, o hasta alcanzar el tamaño máximo, se
+ * envían juntas con TransactionRepository.insertAllUnordered. Un fallo parcial solo afecta a las filas
+ * rechazadas, que fallan con TransactionInsertRejectedException; el resto del lote se confirma normalmente.
+ * Cualquier otro error falla todas las inserciones del lote con el error original, porque MongoDB pudo
+ * haberlas guardado.
+ *
+ * Configuración:
+ * - credits.transactions.group-commit.window: Tiempo máximo que una inserción espera a su lote (por defecto 5ms).
+ * - credits.transactions.group-commit.max-size: Tamaño máximo de un lote (por defecto 500).
+ * - credits.transactions.group-commit.max-in-flight: Lotes que pueden escribirse a la vez (por defecto 4).
+ */
+@Component
+public class TransactionGroupCommitWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionGroupCommitWriter.class);
+
+    private final TransactionRepository transactionRepository;
+    private final Sinks.Many<PendingInsert> queue = Sinks.unsafe().many().unicast()
+            .onBackpressureBuffer(Queues.<PendingInsert>unboundedMultiproducer().get());
+
+    public TransactionGroupCommitWriter(TransactionRepository transactionRepository,
+                                        @Value("${credits.transactions.group-commit.window:5ms}") Duration window,
+                                        @Value("${credits.transactions.group-commit.max-size:500}") int maxSize,
+                                        @Value("${credits.transactions.group-commit.max-in-flight:4}") int maxInFlight) {
+        if (maxSize < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("El tamaño de lote y los lotes en vuelo deben ser mayores a cero");
+        }
+        this.transactionRepository = transactionRepository;
+        queue.asFlux()
+                .bufferTimeout(maxSize, window, true)
+                .flatMap(this::flush, maxInFlight)
+                .subscribe();
+    }
+
+    public Mono<TransactionEntity> insert(TransactionEntity transaction) {
+        return Mono.defer(() -> {
+            if (transaction.getTransactionId() == null) {
+                transaction.setTransactionId(new ObjectId().toHexString());
+            }
+            PendingInsert pending = new PendingInsert(transaction);
+            Sinks.EmitResult emitResult = queue.tryEmitNext(pending);
+            if (emitResult.isFailure()) {
+                return Mono.error(new TransactionInsertRejectedException(
+                        "No se pudo encolar la transacción: " + emitResult));
+            }
+            return pending.result.asMono();
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queue.tryEmitComplete();
+    }
+
+    private Mono<Void> flush(List<PendingInsert> batch) {
+        List<TransactionEntity> entities = batch.stream().map(pending -> pending.transaction).toList();
+        return transactionRepository.insertAllUnordered(entities)
+                .then(Mono.fromRunnable(() -> batch.forEach(PendingInsert::complete)))
+                .onErrorResume(e -> {
+                    log.error("Error al insertar un lote de {} transacciones: {}", batch.size(), e.getMessage());
+                    failBatch(batch, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void failBatch(List<PendingInsert> batch, Throwable error) {
+        if (!(error instanceof BulkOperationException bulkError)) {
+            batch.forEach(pending -> pending.fail(error));
+            return;
+        }
+        Map<Integer, BulkWriteError> failedByIndex = new HashMap<>();
+        bulkError.getErrors().forEach(writeError -> failedByIndex.put(writeError.getIndex(), writeError));
+        for (int i = 0; i < batch.size(); i++) {
+            BulkWriteError writeError = failedByIndex.get(i);
+            if (writeError == null) {
+                batch.get(i).complete();
+            } else {
+                batch.get(i).fail(new TransactionInsertRejectedException(
+                        "Error al registrar la transacción: " + writeError.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Inserción pendiente y el sink por el que se avisa al llamador cuando su lote es confirmado.
+     */
+    private static final class PendingInsert {
+        private final TransactionEntity transaction;
+        private final Sinks.One<TransactionEntity> result = Sinks.one();
+
+        private PendingInsert(TransactionEntity transaction) {
+            this.transaction = transaction;
+        }
+
+        private void complete() {
+            result.tryEmitValue(transaction);
+        }
+
+        private void fail(Throwable error) {
+            result.tryEmitError(error);
+        }
+    }
+}
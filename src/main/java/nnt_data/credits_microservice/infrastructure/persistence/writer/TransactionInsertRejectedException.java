@@ -0,0 +1,13 @@
+package nnt_data.credits_microservice.infrastructure.persistence.writer;
+/**
+ * Excepción TransactionInsertRejectedException con la que TransactionGroupCommitWriter falla una inserción
+ * que con seguridad no se escribió: MongoDB la rechazó en su posición del lote (BulkWriteError) o no se
+ * pudo encolar. Cualquier otro error de insert (un timeout o un corte de conexión después de enviar el
+ * lote) no garantiza que el documento no esté guardado.
+ */
+public class TransactionInsertRejectedException extends IllegalStateException {
+
+    public TransactionInsertRejectedException(String message) {
+        super(message);
+    }
+}
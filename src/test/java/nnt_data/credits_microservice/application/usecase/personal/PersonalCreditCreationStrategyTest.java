@@ -1,6 +1,7 @@
 package nnt_data.credits_microservice.application.usecase.personal;
 
-import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.model.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,7 +9,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -104,7 +104,7 @@ public class PersonalCreditCreationStrategyTest {
         credit.setType(CreditType.SIMPLE_CREDIT);
         credit.setAmountPaid(null);
 
-        when(creditRepository.findAll()).thenReturn(Flux.empty());
+        when(creditRepository.existsByCustomerIdAndType(customerId, CreditType.SIMPLE_CREDIT)).thenReturn(Mono.just(false));
 
         // When
         Mono<CreditBase> result = strategy.createCredit(credit);
@@ -129,7 +129,7 @@ public class PersonalCreditCreationStrategyTest {
         credit.setType(CreditType.SIMPLE_CREDIT);
         credit.setAmountPaid(amountPaid);
 
-        when(creditRepository.findAll()).thenReturn(Flux.empty());
+        when(creditRepository.existsByCustomerIdAndType(customerId, CreditType.SIMPLE_CREDIT)).thenReturn(Mono.just(false));
 
         // When
         Mono<CreditBase> result = strategy.createCredit(credit);
@@ -147,16 +147,12 @@ public class PersonalCreditCreationStrategyTest {
     void shouldRejectSimpleCreditWhenCustomerAlreadyHasOneActive() {
         // Given
         String customerId = "customer123";
-        CreditBaseEntity existingCredit = new CreditBaseEntity();
-        existingCredit.setCustomerId(customerId);
-        existingCredit.setType(CreditType.SIMPLE_CREDIT);
-
         SimpleCredit newCredit = new SimpleCredit();
         newCredit.setCustomerId(customerId);
         newCredit.setCustomerType(CustomerType.PERSONAL);
         newCredit.setType(CreditType.SIMPLE_CREDIT);
 
-        when(creditRepository.findAll()).thenReturn(Flux.just(existingCredit));
+        when(creditRepository.existsByCustomerIdAndType(customerId, CreditType.SIMPLE_CREDIT)).thenReturn(Mono.just(true));
 
         // When
         Mono<CreditBase> result = strategy.createCredit(newCredit);
@@ -164,7 +160,8 @@ public class PersonalCreditCreationStrategyTest {
         // Then
         StepVerifier.create(result)
                 .expectErrorMatches(throwable ->
-                        throwable instanceof IllegalArgumentException &&
+                        throwable instanceof DomainException domainError &&
+                                domainError.getCode() == ErrorCode.CREDIT_ALREADY_EXISTS &&
                                 throwable.getMessage().equals("Cliente personal ya tiene un crédito simple activo"))
                 .verify();
     }
@@ -1,9 +1,19 @@
 package nnt_data.credits_microservice.domain.service;
 
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import nnt_data.credits_microservice.application.usecase.CreditCreationStrategy;
 import nnt_data.credits_microservice.application.usecase.UpdateCreationStrategy;
+import nnt_data.credits_microservice.application.usecase.personal.PersonalCreditCreationStrategy;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.cache.NoOpSecondLevelCache;
+import nnt_data.credits_microservice.infrastructure.cache.RecentActivityCache;
+import nnt_data.credits_microservice.infrastructure.cache.ReportResultCache;
+import nnt_data.credits_microservice.infrastructure.config.PaginationSettings;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.index.IndexCatalog;
 import nnt_data.credits_microservice.infrastructure.persistence.mapper.CreditMapper;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.model.*;
@@ -12,10 +22,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -47,6 +59,15 @@ class CreditOperationsServiceTest {
 
     private CreditOperationsService creditOperationsService;
 
+    @Mock
+    private RecentActivityCache recentActivityCache;
+
+    @Mock
+    private MonthlyBalanceAccumulator monthlyBalanceAccumulator;
+
+    @Mock
+    private ReportResultCache reportResultCache;
+
     @BeforeEach
     void setUp() {
         creationStrategies = new HashMap<>();
@@ -61,8 +82,15 @@ class CreditOperationsServiceTest {
                 creationStrategies,
                 creditRepository,
                 creditMapper,
-                updateStrategies
+                updateStrategies,
+                new PaginationSettings(100, 50, 10),
+                recentActivityCache,
+                monthlyBalanceAccumulator,
+                reportResultCache,
+                new CreditCache(creditRepository, new NoOpSecondLevelCache(), 100, Duration.ofMinutes(1), true,
+                        Duration.ofHours(1), new SimpleMeterRegistry())
         );
+        lenient().when(monthlyBalanceAccumulator.invalidate(anyString())).thenReturn(Mono.empty());
     }
 
     @Test
@@ -77,9 +105,9 @@ class CreditOperationsServiceTest {
         creditEntity.setCreditId("credit123");
 
         when(personalCreationStrategy.createCredit(credit)).thenReturn(Mono.just(credit));
-        when(creditMapper.toEntity(credit)).thenReturn(Mono.just(creditEntity));
+        when(creditMapper.mapToEntity(credit)).thenReturn(creditEntity);
         when(creditRepository.save(creditEntity)).thenReturn(Mono.just(creditEntity));
-        when(creditMapper.toDomain(creditEntity)).thenReturn(Mono.just(credit));
+        when(creditMapper.mapToDomain(creditEntity)).thenReturn(credit);
 
         // When
         Mono<CreditBase> result = creditOperationsService.createCredit(credit);
@@ -93,6 +121,45 @@ class CreditOperationsServiceTest {
         verify(businessCreationStrategy, never()).createCredit(any());
     }
 
+    @Test
+    void shouldRejectSecondPersonalSimpleCreditCreatedConcurrently() {
+        // Given: la verificación previa pasó, pero el índice único parcial rechaza la inserción
+        CreditBase credit = new SimpleCredit();
+        credit.setCustomerType(CustomerType.PERSONAL);
+        credit.setCustomerId("cust123");
+
+        CreditBaseEntity creditEntity = new CreditBaseEntity();
+
+        when(personalCreationStrategy.createCredit(credit)).thenReturn(Mono.just(credit));
+        when(creditMapper.mapToEntity(credit)).thenReturn(creditEntity);
+        when(creditRepository.save(creditEntity)).thenReturn(Mono.error(new DuplicateKeyException(
+                "E11000 duplicate key error index: " + IndexCatalog.PERSONAL_SIMPLE_CREDIT)));
+
+        // When
+        Mono<CreditBase> result = creditOperationsService.createCredit(credit);
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMatches(throwable ->
+                        throwable instanceof DomainException domainError &&
+                                domainError.getCode() == ErrorCode.CREDIT_ALREADY_EXISTS &&
+                                throwable.getMessage().equals(PersonalCreditCreationStrategy.SIMPLE_CREDIT_ALREADY_EXISTS))
+                .verify();
+        verify(reportResultCache, never()).invalidateCustomer(any());
+    }
+
+    @Test
+    void shouldCheckCreditCardWithAnExistenceQuery() {
+        // Given
+        when(creditRepository.existsByCustomerIdAndType("cust123", CreditType.CREDIT_CARD)).thenReturn(Mono.just(true));
+
+        // When / Then
+        StepVerifier.create(creditOperationsService.hasCreditCard("cust123"))
+                .expectNext(true)
+                .verifyComplete();
+        verify(creditRepository, never()).findByCustomerId(any());
+    }
+
     @Test
     void shouldCreateCreditWithBusinessStrategy() {
         // Given
@@ -105,9 +172,9 @@ class CreditOperationsServiceTest {
         creditEntity.setCreditId("credit456");
 
         when(businessCreationStrategy.createCredit(credit)).thenReturn(Mono.just(credit));
-        when(creditMapper.toEntity(credit)).thenReturn(Mono.just(creditEntity));
+        when(creditMapper.mapToEntity(credit)).thenReturn(creditEntity);
         when(creditRepository.save(creditEntity)).thenReturn(Mono.just(creditEntity));
-        when(creditMapper.toDomain(creditEntity)).thenReturn(Mono.just(credit));
+        when(creditMapper.mapToDomain(creditEntity)).thenReturn(credit);
 
         // When
         Mono<CreditBase> result = creditOperationsService.createCredit(credit);
@@ -134,9 +201,9 @@ class CreditOperationsServiceTest {
         creditEntity.setCreditId(creditId);
 
         when(creditRepository.findById(creditId)).thenReturn(Mono.just(creditEntity));
-        when(creditMapper.toDomain(creditEntity)).thenReturn(Mono.just(credit));
+        when(creditMapper.mapToDomain(creditEntity)).thenReturn(credit);
         when(personalUpdateStrategy.updateCredit(credit)).thenReturn(Mono.just(credit));
-        when(creditMapper.toEntity(credit)).thenReturn(Mono.just(creditEntity));
+        when(creditMapper.mapToEntity(credit)).thenReturn(creditEntity);
         when(creditRepository.save(creditEntity)).thenReturn(Mono.just(creditEntity));
 
         // When
@@ -149,6 +216,8 @@ class CreditOperationsServiceTest {
 
         verify(personalUpdateStrategy).updateCredit(credit);
         verify(businessUpdateStrategy, never()).updateCredit(any());
+        verify(reportResultCache).invalidateCredit(creditId);
+        verify(reportResultCache).invalidateCustomer("cust123");
     }
 
     @Test
@@ -162,7 +231,7 @@ class CreditOperationsServiceTest {
         creditEntity.setCreditId(creditId);
 
         when(creditRepository.findById(creditId)).thenReturn(Mono.just(creditEntity));
-        when(creditMapper.toDomain(creditEntity)).thenReturn(Mono.just(credit));
+        when(creditMapper.mapToDomain(creditEntity)).thenReturn(credit);
 
         // When
         Mono<CreditBase> result = creditOperationsService.getByCreditId(creditId);
@@ -185,12 +254,12 @@ class CreditOperationsServiceTest {
         CreditBase credit1 = new SimpleCredit();
         CreditBase credit2 = new CreditCard();
 
-        when(creditRepository.findAll()).thenReturn(Flux.just(entity1, entity2));
-        when(creditMapper.toDomain(entity1)).thenReturn(Mono.just(credit1));
-        when(creditMapper.toDomain(entity2)).thenReturn(Mono.just(credit2));
+        when(creditRepository.findPageAfter(null, 0, 50)).thenReturn(Flux.just(entity1, entity2));
+        when(creditMapper.mapToDomain(entity1)).thenReturn(credit1);
+        when(creditMapper.mapToDomain(entity2)).thenReturn(credit2);
 
         // When
-        Flux<CreditBase> result = creditOperationsService.getAllCredits();
+        Flux<CreditBase> result = creditOperationsService.getAllCredits(null, null);
 
         // Then
         StepVerifier.create(result)
@@ -198,4 +267,31 @@ class CreditOperationsServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldGetCreditPageAfterCursor() {
+        // Given
+        CreditBaseEntity entity = new CreditBaseEntity();
+        entity.setCreditId("credit2");
+        CreditBase credit = new CreditCard();
+
+        when(creditRepository.findPageAfter("credit1", 1, 50)).thenReturn(Flux.just(entity));
+        when(creditMapper.mapToDomain(entity)).thenReturn(credit);
+
+        // When
+        Flux<CreditBase> result = creditOperationsService.getAllCredits("credit1", 1);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(credit)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectLimitAboveMaximum() {
+        // When / Then
+        StepVerifier.create(creditOperationsService.getAllCredits(null, 101))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
 }
@@ -0,0 +1,300 @@
+package nnt_data.credits_microservice.domain.service;
+
+import nnt_data.credits_microservice.domain.utils.DailyBalanceSweep;
+import nnt_data.credits_microservice.domain.utils.Money;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.MonthlyBalanceRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MonthlyBalanceAccumulatorTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 4);
+    private static final String ACCUMULATOR_ID = "credit123:2024-04";
+    private static final BusinessCalendar CALENDAR = new BusinessCalendar("America/Lima");
+
+    @Mock
+    private MonthlyBalanceRepository monthlyBalanceRepository;
+
+    @Mock
+    private CreditRepository creditRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private MonthlyBalanceAccumulator accumulator;
+    private CreditBaseEntity credit;
+
+    @BeforeEach
+    void setUp() {
+        accumulator = new MonthlyBalanceAccumulator(monthlyBalanceRepository, creditRepository,
+                transactionRepository, CALENDAR, 3, 2);
+        credit = new CreditBaseEntity();
+        credit.setCreditId("credit123");
+        credit.setAmountCents(10_000L);
+        lenient().when(monthlyBalanceRepository.insert(any(MonthlyBalanceEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        lenient().when(monthlyBalanceRepository.save(any(MonthlyBalanceEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    }
+
+    @Test
+    void shouldBuildMissingAccumulatorFromTheMonthTransactions() {
+        // Given
+        when(monthlyBalanceRepository.findById(ACCUMULATOR_ID)).thenReturn(Mono.empty());
+        when(transactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc(eq("credit123"), any(Date.class), any(Date.class)))
+                .thenReturn(Flux.just(entity("t1", at(11), Transaction.TypeEnum.SPENT, 50.0),
+                        entity("t2", at(21), Transaction.TypeEnum.PAYMENT, 30.0)));
+
+        // When / Then
+        StepVerifier.create(accumulator.averageBalance(credit, MONTH))
+                .expectNext(83.33)
+                .verifyComplete();
+        verify(monthlyBalanceRepository).insert(any(MonthlyBalanceEntity.class));
+    }
+
+    @Test
+    void shouldApplyRecordedTransactionToExistingAccumulator() {
+        // Given
+        MonthlyBalanceEntity stored = stored(LocalDate.of(2024, 4, 11), 150.0, 1000.0, at(11), "t1");
+        when(monthlyBalanceRepository.findById(ACCUMULATOR_ID)).thenReturn(Mono.just(stored));
+
+        // When
+        StepVerifier.create(accumulator.onTransactionRecorded(transaction("t2", at(21), Transaction.TypeEnum.PAYMENT, 30.0)))
+                .verifyComplete();
+
+        // Then: mismo resultado que recorrer todas las transacciones del mes
+        ArgumentCaptor<MonthlyBalanceEntity> saved = ArgumentCaptor.forClass(MonthlyBalanceEntity.class);
+        verify(monthlyBalanceRepository).save(saved.capture());
+        DailyBalanceSweep expected = new DailyBalanceSweep(10_000L, MONTH.atDay(1), MONTH.atEndOfMonth())
+                .accept(MONTH.atDay(11).toEpochDay(), Transaction.TypeEnum.SPENT, 5_000L)
+                .accept(MONTH.atDay(21).toEpochDay(), Transaction.TypeEnum.PAYMENT, 3_000L);
+        assertEquals(expected.getSumOfBalancesCents(), saved.getValue().getSumOfBalancesCents());
+        assertEquals(expected.getBalanceCents(), saved.getValue().getBalanceCents());
+        assertEquals(LocalDate.of(2024, 4, 21).toEpochDay(), saved.getValue().getCurrentEpochDay());
+    }
+
+    @Test
+    void shouldNotApplyTheSameTransactionTwice() {
+        // Given
+        MonthlyBalanceEntity stored = stored(LocalDate.of(2024, 4, 11), 150.0, 1000.0, at(11), "t1");
+        when(monthlyBalanceRepository.findById(ACCUMULATOR_ID)).thenReturn(Mono.just(stored));
+
+        // When
+        StepVerifier.create(accumulator.onTransactionRecorded(transaction("t1", at(11), Transaction.TypeEnum.SPENT, 50.0)))
+                .verifyComplete();
+
+        // Then
+        verify(monthlyBalanceRepository, never()).save(any(MonthlyBalanceEntity.class));
+    }
+
+    @Test
+    void shouldIncrementAccumulatorWhenSpentArrivesOutOfOrder() {
+        // Given
+        MonthlyBalanceEntity stored = stored(LocalDate.of(2024, 4, 21), 150.0, 1000.0, at(21), "t2");
+        when(monthlyBalanceRepository.findById(ACCUMULATOR_ID)).thenReturn(Mono.just(stored));
+        when(monthlyBalanceRepository.applyLateSpent(ACCUMULATOR_ID, at(11), MONTH.atDay(11).toEpochDay(), 5_000L))
+                .thenReturn(Mono.just(stored));
+
+        // When
+        StepVerifier.create(accumulator.onTransactionRecorded(transaction("t1", at(11), Transaction.TypeEnum.SPENT, 50.0)))
+                .verifyComplete();
+
+        // Then
+        verify(monthlyBalanceRepository, never()).deleteById(anyString());
+        verify(monthlyBalanceRepository, never()).save(any(MonthlyBalanceEntity.class));
+    }
+
+    @Test
+    void shouldDiscardAccumulatorWhenLateSpentCannotBeIncremented() {
+        // Given
+        MonthlyBalanceEntity stored = stored(LocalDate.of(2024, 4, 21), 0.0, 2500.0, at(21), "t2");
+        when(monthlyBalanceRepository.findById(ACCUMULATOR_ID)).thenReturn(Mono.just(stored));
+        when(monthlyBalanceRepository.applyLateSpent(eq(ACCUMULATOR_ID), any(Date.class), anyLong(), anyLong()))
+                .thenReturn(Mono.empty());
+        when(monthlyBalanceRepository.deleteById(ACCUMULATOR_ID)).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(accumulator.onTransactionRecorded(transaction("t1", at(11), Transaction.TypeEnum.SPENT, 50.0)))
+                .verifyComplete();
+
+        // Then
+        verify(monthlyBalanceRepository).deleteById(ACCUMULATOR_ID);
+        verify(monthlyBalanceRepository, never()).save(any(MonthlyBalanceEntity.class));
+    }
+
+    @Test
+    void shouldDiscardAccumulatorWhenPaymentArrivesOutOfOrder() {
+        // Given
+        MonthlyBalanceEntity stored = stored(LocalDate.of(2024, 4, 21), 150.0, 1000.0, at(21), "t2");
+        when(monthlyBalanceRepository.findById(ACCUMULATOR_ID)).thenReturn(Mono.just(stored));
+        when(monthlyBalanceRepository.deleteById(ACCUMULATOR_ID)).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(accumulator.onTransactionRecorded(transaction("t1", at(11), Transaction.TypeEnum.PAYMENT, 50.0)))
+                .verifyComplete();
+
+        // Then
+        verify(monthlyBalanceRepository).deleteById(ACCUMULATOR_ID);
+        verify(monthlyBalanceRepository, never()).applyLateSpent(anyString(), any(Date.class), anyLong(), anyLong());
+    }
+
+    @Test
+    void shouldApplyTransactionsOnTheLastDayOfTheMonth() {
+        // Given
+        MonthlyBalanceEntity stored = stored(LocalDate.of(2024, 4, 11), 150.0, 1000.0, at(11), "t1");
+        when(monthlyBalanceRepository.findById(ACCUMULATOR_ID)).thenReturn(Mono.just(stored));
+
+        // When
+        StepVerifier.create(accumulator.onTransactionRecorded(transaction("t2",
+                        date(LocalDate.of(2024, 4, 30), 12), Transaction.TypeEnum.SPENT, 50.0)))
+                .verifyComplete();
+
+        // Then
+        ArgumentCaptor<MonthlyBalanceEntity> saved = ArgumentCaptor.forClass(MonthlyBalanceEntity.class);
+        verify(monthlyBalanceRepository).save(saved.capture());
+        assertEquals(LocalDate.of(2024, 4, 30).toEpochDay(), saved.getValue().getCurrentEpochDay());
+    }
+
+    @Test
+    void shouldBuildTheMonthUpToTheEndOfItsLastDay() {
+        // Given
+        YearMonth may = YearMonth.of(2024, 5);
+        Date from = CALENDAR.toDate(may.atDay(1));
+        Date to = CALENDAR.toDate(LocalDate.of(2024, 6, 1));
+        when(monthlyBalanceRepository.findById("credit123:2024-05")).thenReturn(Mono.empty());
+        when(transactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc("credit123", from, to))
+                .thenReturn(Flux.just(entity("t1", date(LocalDate.of(2024, 5, 31), 12), Transaction.TypeEnum.SPENT, 50.0)));
+
+        // When / Then: 30 días con saldo 100 y el 31 con saldo 150
+        StepVerifier.create(accumulator.averageBalance(credit, may))
+                .expectNext(101.61)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldBackfillOnlyMissingAccumulators() {
+        // Given
+        when(creditRepository.findAll()).thenReturn(Flux.just(credit));
+        when(monthlyBalanceRepository.existsById("credit123:2024-03")).thenReturn(Mono.just(true));
+        when(monthlyBalanceRepository.existsById(ACCUMULATOR_ID)).thenReturn(Mono.just(false));
+        when(transactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc(eq("credit123"), any(Date.class), any(Date.class)))
+                .thenReturn(Flux.empty());
+
+        // When / Then
+        StepVerifier.create(accumulator.backfill(YearMonth.of(2024, 3), MONTH))
+                .assertNext(report -> {
+                    assertEquals(1L, report.getCreditsProcessed());
+                    assertEquals(1L, report.getAccumulatorsCreated());
+                    assertEquals(1L, report.getAccumulatorsSkipped());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldComputeSeveralCreditsWithOneTransactionQueryForMissingAccumulators() {
+        // Given
+        CreditBaseEntity other = new CreditBaseEntity();
+        other.setCreditId("credit456");
+        other.setAmountCents(1_000L);
+        MonthlyBalanceEntity stored = stored(LocalDate.of(2024, 4, 11), 150.0, 1000.0, at(11), "t1");
+        when(monthlyBalanceRepository.findAllById(anyIterable())).thenReturn(Flux.just(stored));
+        TransactionEntity otherTransaction = entity("t9", at(16), Transaction.TypeEnum.PAYMENT, 10.0);
+        otherTransaction.setCreditId("credit456");
+        when(transactionRepository.findByCreditIdInAndDateBetweenOrderByDateAsc(eq(List.of("credit456")),
+                any(Date.class), any(Date.class)))
+                .thenReturn(Flux.just(otherTransaction));
+
+        // When
+        Map<String, Double> averages = accumulator.averageBalances(List.of(credit, other), MONTH)
+                .collectMap(average -> average.credit().getCreditId(),
+                        MonthlyBalanceAccumulator.CreditAverage::averageBalance)
+                .block();
+
+        // Then: el acumulador guardado suma 1000 + 150 x 20 días; el construido 10 x 15 días y luego cero
+        assertEquals(133.33, averages.get("credit123"));
+        assertEquals(5.0, averages.get("credit456"));
+        verify(monthlyBalanceRepository).insert(any(MonthlyBalanceEntity.class));
+    }
+
+    @Test
+    void shouldRejectBackfillOfFutureMonths() {
+        // When / Then
+        StepVerifier.create(accumulator.backfill(MONTH, CALENDAR.currentMonth().plusMonths(1)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    private static MonthlyBalanceEntity stored(LocalDate currentDay, double balance, double sum,
+                                               Date lastDate, String lastId) {
+        MonthlyBalanceEntity entity = new MonthlyBalanceEntity();
+        entity.setId(ACCUMULATOR_ID);
+        entity.setCreditId("credit123");
+        entity.setMonth(MONTH.toString());
+        entity.setCurrentEpochDay(currentDay.toEpochDay());
+        entity.setBalanceCents(Money.toCents(balance));
+        entity.setSumOfBalancesCents(Money.toCents(sum));
+        entity.setLastTransactionDate(lastDate);
+        entity.getLastTransactionIds().add(lastId);
+        return entity;
+    }
+
+    private static TransactionEntity entity(String id, Date date, Transaction.TypeEnum type, double amount) {
+        TransactionEntity entity = new TransactionEntity();
+        entity.setTransactionId(id);
+        entity.setCreditId("credit123");
+        entity.setDate(date);
+        entity.setType(type);
+        entity.setAmountCents(Money.toCents(amount));
+        return entity;
+    }
+
+    private static Transaction transaction(String id, Date date, Transaction.TypeEnum type, double amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setCreditId("credit123");
+        transaction.setDate(date);
+        transaction.setType(type);
+        transaction.setAmount(amount);
+        return transaction;
+    }
+
+    private static Date at(int dayOfMonth) {
+        return date(MONTH.atDay(dayOfMonth), 10);
+    }
+
+    private static Date date(LocalDate day, int hour) {
+        return Date.from(day.atTime(hour, 0).atZone(CALENDAR.getZone()).toInstant());
+    }
+}
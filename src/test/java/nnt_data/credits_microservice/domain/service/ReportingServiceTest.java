@@ -0,0 +1,135 @@
+package nnt_data.credits_microservice.domain.service;
+
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.cache.RecentActivityCache;
+import nnt_data.credits_microservice.infrastructure.cache.ReportResultCache;
+import nnt_data.credits_microservice.infrastructure.config.BulkReportSettings;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapper;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.model.CreditResume;
+import nnt_data.credits_microservice.model.CreditType;
+import nnt_data.credits_microservice.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportingServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CreditRepository creditRepository;
+
+    @Mock
+    private TransactionMapper transactionMapper;
+
+    @Mock
+    private RecentActivityCache recentActivityCache;
+
+    @Mock
+    private MonthlyBalanceAccumulator monthlyBalanceAccumulator;
+
+    @Mock
+    private BulkReportSettings bulkReportSettings;
+
+    @Mock
+    private ReportResultCache reportResultCache;
+
+    @Mock
+    private CreditCache creditCache;
+
+    private ReportingService reportingService;
+
+    private CreditBaseEntity creditCard;
+
+    @BeforeEach
+    void setUp() {
+        reportingService = new ReportingService(transactionRepository, creditRepository, transactionMapper,
+                recentActivityCache, monthlyBalanceAccumulator, bulkReportSettings, reportResultCache, creditCache,
+                new BusinessCalendar("UTC"), "jvm");
+
+        creditCard = new CreditBaseEntity();
+        creditCard.setCreditId("card123");
+        creditCard.setType(CreditType.CREDIT_CARD);
+        creditCard.setAmountCents(100_000L);
+    }
+
+    @Test
+    void shouldIncludeTransactionsOfTheWholeEndDay() {
+        // Given
+        LocalDate startDay = LocalDate.of(2024, 4, 1);
+        LocalDate endDay = LocalDate.of(2024, 4, 2);
+        Date from = Date.from(Instant.parse("2024-04-01T00:00:00Z"));
+        Date to = Date.from(Instant.parse("2024-04-03T00:00:00Z"));
+
+        TransactionEntity spentOnEndDay = new TransactionEntity();
+        spentOnEndDay.setTransactionId("t1");
+        spentOnEndDay.setCreditId("card123");
+        spentOnEndDay.setType(Transaction.TypeEnum.SPENT);
+        spentOnEndDay.setAmountCents(10_000L);
+        spentOnEndDay.setDate(Date.from(Instant.parse("2024-04-02T15:00:00Z")));
+
+        when(reportResultCache.<CreditResume>get(eq(ReportResultCache.ReportType.PERIOD_BALANCE), eq("card123"),
+                eq(startDay), eq(endDay), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Mono<CreditResume>>>getArgument(4).get());
+        when(creditCache.findById("card123")).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc("card123", from, to))
+                .thenReturn(Flux.just(spentOnEndDay));
+
+        // When
+        Mono<CreditResume> result = reportingService.generateResumeOfAvarageBalanceForPeriod("card123",
+                Date.from(Instant.parse("2024-04-01T08:30:00Z")), Date.from(Instant.parse("2024-04-02T09:00:00Z")));
+
+        // Then: un día en 1000 y un día en 1100
+        StepVerifier.create(result)
+                .assertNext(resume -> assertEquals(1050.0, resume.getAverageBalance()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldStopAtTheStartOfTheDayAfterTheEndDay() {
+        // Given
+        LocalDate day = LocalDate.of(2024, 4, 2);
+        Date from = Date.from(Instant.parse("2024-04-02T00:00:00Z"));
+        Date to = Date.from(Instant.parse("2024-04-03T00:00:00Z"));
+
+        when(reportResultCache.<CreditResume>get(eq(ReportResultCache.ReportType.PERIOD_BALANCE), eq("card123"),
+                eq(day), eq(day), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Mono<CreditResume>>>getArgument(4).get());
+        when(creditCache.findById("card123")).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc("card123", from, to))
+                .thenReturn(Flux.empty());
+
+        // When
+        Mono<CreditResume> result = reportingService.generateResumeOfAvarageBalanceForPeriod("card123",
+                Date.from(Instant.parse("2024-04-02T00:00:00Z")), Date.from(Instant.parse("2024-04-02T23:59:59.999Z")));
+
+        // Then: el rango termina (exclusivo) al inicio del 3 de abril, así que ese día no se consulta
+        StepVerifier.create(result)
+                .assertNext(resume -> assertEquals(1000.0, resume.getAverageBalance()))
+                .verifyComplete();
+        verify(transactionRepository).findByCreditIdAndDateBetweenOrderByDateAsc("card123", from, to);
+    }
+}
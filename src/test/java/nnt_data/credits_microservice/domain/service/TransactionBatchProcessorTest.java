@@ -0,0 +1,302 @@
+package nnt_data.credits_microservice.domain.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import nnt_data.credits_microservice.application.port.TransactionRecordedListener;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapperImpl;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.model.CreditType;
+import nnt_data.credits_microservice.model.Transaction;
+import nnt_data.credits_microservice.model.TransactionBatchItemResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchProcessorTest {
+
+    @Mock
+    private CreditRepository creditRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionRecordedListener listener;
+
+    @Mock
+    private CreditCache creditCache;
+
+    @Captor
+    private ArgumentCaptor<List<TransactionEntity>> inserted;
+
+    private TransactionBatchProcessor processor;
+
+    private CreditBaseEntity creditCard;
+
+    @BeforeEach
+    void setUp() {
+        processor = new TransactionBatchProcessor(creditRepository, transactionRepository,
+                new TransactionMapperImpl(new BusinessCalendar("UTC")), new TransactionRecordedPublisher(List.of(listener)), creditCache, 100, 3);
+        lenient().when(listener.onTransactionRecorded(any(Transaction.class))).thenReturn(Mono.empty());
+
+        creditCard = new CreditBaseEntity();
+        creditCard.setCreditId("card123");
+        creditCard.setType(CreditType.CREDIT_CARD);
+        creditCard.setAmountCents(100000L);
+        creditCard.setAvailableCreditCents(50000L);
+    }
+
+    @Test
+    void shouldRejectBatchesOverTheMaximumSize() {
+        // Given
+        List<Transaction> batch = Collections.nCopies(101, transaction("card123", Transaction.TypeEnum.SPENT, 1.0));
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .expectErrorMatches(error -> error instanceof DomainException domainError
+                        && domainError.getCode() == ErrorCode.BATCH_TOO_LARGE)
+                .verify();
+        verify(creditRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void shouldApplyNetDeltaOncePerCreditAndInsertAcceptedRows() {
+        // Given
+        List<Transaction> batch = List.of(
+                transaction("card123", Transaction.TypeEnum.SPENT, 300.0),
+                transaction("card123", Transaction.TypeEnum.SPENT, 300.0),
+                transaction("card123", Transaction.TypeEnum.PAYMENT, 100.0));
+
+        when(creditRepository.findAllById(anyIterable())).thenReturn(Flux.just(creditCard));
+        when(creditRepository.applyAvailableCreditDeltaIfUnchanged("card123", 50000L, -20000L)).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.insertAllUnordered(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .assertNext(result -> {
+                    assertEquals(2, result.getAccepted());
+                    assertEquals(1, result.getRejected());
+                    assertEquals(TransactionBatchItemResult.StatusEnum.ACCEPTED, result.getResults().get(0).getStatus());
+                    assertNotNull(result.getResults().get(0).getTransaction().getTransactionId());
+                    assertEquals(TransactionBatchItemResult.StatusEnum.REJECTED, result.getResults().get(1).getStatus());
+                    assertEquals("Crédito disponible insuficiente", result.getResults().get(1).getMessage());
+                    assertEquals(ErrorCode.INSUFFICIENT_CREDIT.name(), result.getResults().get(1).getCode());
+                    assertEquals(TransactionBatchItemResult.StatusEnum.ACCEPTED, result.getResults().get(2).getStatus());
+                })
+                .verifyComplete();
+
+        verify(transactionRepository).insertAllUnordered(inserted.capture());
+        assertEquals(2, inserted.getValue().size());
+        verify(listener, times(2)).onTransactionRecorded(any(Transaction.class));
+    }
+
+    @Test
+    void shouldRejectRowsOfUnknownCredit() {
+        // Given
+        List<Transaction> batch = List.of(transaction("missing", Transaction.TypeEnum.SPENT, 10.0));
+
+        when(creditRepository.findAllById(anyIterable())).thenReturn(Flux.empty());
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .assertNext(result -> {
+                    assertEquals(0, result.getAccepted());
+                    assertEquals("Crédito no encontrado", result.getResults().get(0).getMessage());
+                })
+                .verifyComplete();
+
+        verify(transactionRepository, never()).insertAllUnordered(anyList());
+    }
+
+    @Test
+    void shouldOnlyAcceptPaymentsForSimpleCredits() {
+        // Given
+        CreditBaseEntity simpleCredit = new CreditBaseEntity();
+        simpleCredit.setCreditId("simple123");
+        simpleCredit.setType(CreditType.SIMPLE_CREDIT);
+        simpleCredit.setAmountCents(100000L);
+        simpleCredit.setAmountPaidCents(90000L);
+
+        List<Transaction> batch = List.of(
+                transaction("simple123", Transaction.TypeEnum.SPENT, 10.0),
+                transaction("simple123", Transaction.TypeEnum.PAYMENT, 80.0),
+                transaction("simple123", Transaction.TypeEnum.PAYMENT, 80.0));
+
+        when(creditRepository.findAllById(anyIterable())).thenReturn(Flux.just(simpleCredit));
+        when(creditRepository.applyAmountPaidDeltaIfUnchanged("simple123", 90000L, 8000L)).thenReturn(Mono.just(simpleCredit));
+        when(transactionRepository.insertAllUnordered(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .assertNext(result -> {
+                    assertEquals(1, result.getAccepted());
+                    assertEquals("Solo se permiten transacciones de tipo payment para un credito simple",
+                            result.getResults().get(0).getMessage());
+                    assertEquals("El pago excede el monto total del crédito", result.getResults().get(2).getMessage());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectCreditRowsWhenBalanceKeepsChanging() {
+        // Given
+        List<Transaction> batch = List.of(transaction("card123", Transaction.TypeEnum.SPENT, 100.0));
+
+        when(creditRepository.findAllById(anyIterable())).thenReturn(Flux.just(creditCard));
+        when(creditRepository.findById("card123")).thenReturn(Mono.just(creditCard));
+        when(creditRepository.applyAvailableCreditDeltaIfUnchanged("card123", 50000L, -10000L))
+                .thenReturn(Mono.empty());
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .assertNext(result -> {
+                    assertEquals(0, result.getAccepted());
+                    assertEquals("El saldo del crédito cambió mientras se procesaba el lote",
+                            result.getResults().get(0).getMessage());
+                })
+                .verifyComplete();
+
+        verify(creditRepository, times(3)).applyAvailableCreditDeltaIfUnchanged("card123", 50000L, -10000L);
+        verify(transactionRepository, never()).insertAllUnordered(anyList());
+    }
+
+    @Test
+    void shouldResimulateRowsInOrderAgainstTheLiveBalance() {
+        // Given
+        creditCard.setAvailableCreditCents(10000L);
+        CreditBaseEntity live = new CreditBaseEntity();
+        live.setCreditId("card123");
+        live.setType(CreditType.CREDIT_CARD);
+        live.setAmountCents(100000L);
+        live.setAvailableCreditCents(0L);
+
+        List<Transaction> batch = List.of(
+                transaction("card123", Transaction.TypeEnum.SPENT, 100.0),
+                transaction("card123", Transaction.TypeEnum.PAYMENT, 100.0));
+
+        when(creditRepository.findAllById(anyIterable())).thenReturn(Flux.just(creditCard));
+        when(creditRepository.applyAvailableCreditDeltaIfUnchanged("card123", 10000L, 0L)).thenReturn(Mono.empty());
+        when(creditRepository.findById("card123")).thenReturn(Mono.just(live));
+        when(creditRepository.applyAvailableCreditDeltaIfUnchanged("card123", 0L, 10000L)).thenReturn(Mono.just(live));
+        when(transactionRepository.insertAllUnordered(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .assertNext(result -> {
+                    assertEquals(1, result.getAccepted());
+                    assertEquals("Crédito disponible insuficiente", result.getResults().get(0).getMessage());
+                    assertEquals(TransactionBatchItemResult.StatusEnum.ACCEPTED, result.getResults().get(1).getStatus());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRevertBalanceOfRowsThatFailToInsert() {
+        // Given
+        List<Transaction> batch = List.of(
+                transaction("card123", Transaction.TypeEnum.SPENT, 100.0),
+                transaction("card123", Transaction.TypeEnum.SPENT, 50.0));
+
+        MongoBulkWriteException bulkError = new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)),
+                null, new ServerAddress(), Collections.emptySet());
+
+        when(creditRepository.findAllById(anyIterable())).thenReturn(Flux.just(creditCard));
+        when(creditRepository.applyAvailableCreditDeltaIfUnchanged("card123", 50000L, -15000L)).thenReturn(Mono.just(creditCard));
+        when(creditRepository.applyAvailableCreditDelta("card123", 5000L)).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.insertAllUnordered(anyList()))
+                .thenReturn(Flux.error(new BulkOperationException("duplicate key", bulkError)));
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .assertNext(result -> {
+                    assertEquals(1, result.getAccepted());
+                    assertEquals("Error al registrar la transacción", result.getResults().get(1).getMessage());
+                    assertEquals(ErrorCode.TRANSACTION_NOT_RECORDED.name(), result.getResults().get(1).getCode());
+                })
+                .verifyComplete();
+
+        verify(creditRepository).applyAvailableCreditDelta("card123", 5000L);
+    }
+
+    @Test
+    void shouldNotRevertBalanceWhenInsertOutcomeIsUnknown() {
+        // Given
+        List<Transaction> batch = List.of(
+                transaction("card123", Transaction.TypeEnum.SPENT, 100.0),
+                transaction("card123", Transaction.TypeEnum.SPENT, 50.0));
+        IllegalStateException timeout = new IllegalStateException("timeout");
+
+        when(creditRepository.findAllById(anyIterable())).thenReturn(Flux.just(creditCard));
+        when(creditRepository.applyAvailableCreditDeltaIfUnchanged("card123", 50000L, -15000L)).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.insertAllUnordered(anyList())).thenReturn(Flux.error(timeout));
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .expectErrorMatches(error -> error == timeout)
+                .verify();
+
+        verify(creditRepository, never()).applyAvailableCreditDelta(anyString(), anyLong());
+        verify(listener, never()).onTransactionRecorded(any(Transaction.class));
+    }
+
+    @Test
+    void shouldRejectBatchLargerThanConfiguredMaximum() {
+        // Given
+        List<Transaction> batch = Collections.nCopies(101, transaction("card123", Transaction.TypeEnum.SPENT, 1.0));
+
+        // When / Then
+        StepVerifier.create(processor.process(batch))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(creditRepository, never()).applyAvailableCreditDelta(anyString(), anyLong());
+    }
+
+    private Transaction transaction(String creditId, Transaction.TypeEnum type, Double amount) {
+        Transaction transaction = new Transaction();
+        transaction.setCreditId(creditId);
+        transaction.setType(type);
+        transaction.setAmount(amount);
+        return transaction;
+    }
+}
@@ -1,24 +1,45 @@
 package nnt_data.credits_microservice.domain.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.domain.validator.TransactionValidationContext;
 import nnt_data.credits_microservice.domain.validator.TransactionValidator;
 import nnt_data.credits_microservice.domain.validator.ValidatorFactory;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.infrastructure.concurrency.CreditLaneScheduler;
+import nnt_data.credits_microservice.infrastructure.config.PaginationSettings;
+import nnt_data.credits_microservice.infrastructure.idempotency.TransactionIdempotencyStore;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
 import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapper;
-import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.writer.TransactionGroupCommitWriter;
+import nnt_data.credits_microservice.infrastructure.persistence.writer.TransactionInsertRejectedException;
 import nnt_data.credits_microservice.model.Transaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -35,11 +56,26 @@ class TransactionOperationServiceTest {
     private TransactionRepository transactionRepository;
 
     @Mock
-    private CreditRepository creditRepository;
+    private CreditCache creditCache;
 
     @Mock
     private TransactionValidator transactionValidator;
 
+    @Mock
+    private TransactionGroupCommitWriter transactionGroupCommitWriter;
+
+    @Mock
+    private TransactionIdempotencyStore transactionIdempotencyStore;
+
+    @Spy
+    private TransactionRecordedPublisher transactionRecordedPublisher = new TransactionRecordedPublisher(List.of());
+
+    @Spy
+    private PaginationSettings paginationSettings = new PaginationSettings(100, 50, 10);
+
+    @Spy
+    private CreditLaneScheduler creditLaneScheduler = new CreditLaneScheduler(4, Duration.ofSeconds(5), new SimpleMeterRegistry());
+
     @InjectMocks
     private TransactionOperationService transactionOperationService;
 
@@ -65,12 +101,13 @@ class TransactionOperationServiceTest {
     @Test
     void shouldCreateTransaction() {
         // Given
-        when(creditRepository.findById("credit123")).thenReturn(Mono.just(creditEntity));
+        when(creditCache.findById("credit123")).thenReturn(Mono.just(creditEntity));
         when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
-        when(transactionValidator.validate(any(Transaction.class))).thenReturn(Mono.just(transaction));
-        when(transactionMapper.toEntity(any(Transaction.class))).thenReturn(Mono.just(transactionEntity));
-        when(transactionRepository.save(any(TransactionEntity.class))).thenReturn(Mono.just(transactionEntity));
-        when(transactionMapper.toDomain(any(TransactionEntity.class))).thenReturn(Mono.just(transaction));
+        when(transactionValidator.validate(any(TransactionValidationContext.class)))
+                .thenReturn(Mono.just(new TransactionValidationContext(transaction, creditEntity)));
+        when(transactionMapper.mapToEntity(any(Transaction.class))).thenReturn(transactionEntity);
+        when(transactionGroupCommitWriter.insert(any(TransactionEntity.class))).thenReturn(Mono.just(transactionEntity));
+        when(transactionMapper.mapToDomain(any(TransactionEntity.class))).thenReturn(transaction);
 
         // When
         Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
@@ -80,17 +117,89 @@ class TransactionOperationServiceTest {
                 .expectNext(transaction)
                 .verifyComplete();
 
+        verify(creditLaneScheduler).submit(eq("credit123"), any());
+        verify(creditCache).findById("credit123");
         verify(validatorFactory).getTransactionValidator(creditEntity);
-        verify(transactionValidator).validate(any(Transaction.class));
-        verify(transactionMapper).toEntity(any(Transaction.class));
-        verify(transactionRepository).save(transactionEntity);
-        verify(transactionMapper).toDomain(transactionEntity);
+        verify(transactionValidator).validate(any(TransactionValidationContext.class));
+        verify(transactionMapper).mapToEntity(any(Transaction.class));
+        verify(transactionGroupCommitWriter).insert(transactionEntity);
+        verify(transactionMapper).mapToDomain(transactionEntity);
+        verify(transactionRecordedPublisher).publish(transaction);
+    }
+
+    @Test
+    void shouldReadCreditFromMongoWhenValidatorNeedsAFreshBalance() {
+        // Given
+        CreditBaseEntity freshEntity = new CreditBaseEntity();
+        freshEntity.setCreditId("credit123");
+
+        when(creditCache.isStrictValidations()).thenReturn(true);
+        when(creditCache.findInMemory("credit123")).thenReturn(Mono.just(creditEntity));
+        when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
+        when(transactionValidator.requiresFreshCredit()).thenReturn(true);
+        when(creditCache.findById("credit123", true)).thenReturn(Mono.just(freshEntity));
+        when(transactionValidator.validate(any(TransactionValidationContext.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(transactionMapper.mapToEntity(any(Transaction.class))).thenReturn(transactionEntity);
+        when(transactionGroupCommitWriter.insert(any(TransactionEntity.class))).thenReturn(Mono.just(transactionEntity));
+        when(transactionMapper.mapToDomain(any(TransactionEntity.class))).thenReturn(transaction);
+
+        // When
+        Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(transaction)
+                .verifyComplete();
+        verify(transactionValidator).validate(argThat(context -> context.getCredit() == freshEntity));
+        verify(creditCache, never()).findById("credit123");
+    }
+
+    @Test
+    void shouldReadCreditOnlyFromMongoWhenItIsNotInMemoryInStrictMode() {
+        // Given
+        when(creditCache.isStrictValidations()).thenReturn(true);
+        when(creditCache.findInMemory("credit123")).thenReturn(Mono.empty());
+        when(creditCache.findById("credit123", true)).thenReturn(Mono.just(creditEntity));
+        when(validatorFactory.getTransactionValidator(creditEntity)).thenReturn(transactionValidator);
+        when(transactionValidator.validate(any(TransactionValidationContext.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(transactionMapper.mapToEntity(any(Transaction.class))).thenReturn(transactionEntity);
+        when(transactionGroupCommitWriter.insert(any(TransactionEntity.class))).thenReturn(Mono.just(transactionEntity));
+        when(transactionMapper.mapToDomain(any(TransactionEntity.class))).thenReturn(transaction);
+
+        // When
+        Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(transaction)
+                .verifyComplete();
+        verify(creditCache).findById("credit123", true);
+        verify(creditCache, never()).findById("credit123");
+    }
+
+    @Test
+    void shouldDelegateToIdempotencyStoreWhenKeyIsPresent() {
+        // Given
+        when(transactionIdempotencyStore.execute(eq("key-1"), eq(transaction), any()))
+                .thenReturn(Mono.just(transaction));
+
+        // When
+        Mono<Transaction> result = transactionOperationService.createTransaction(transaction, "key-1");
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(transaction)
+                .verifyComplete();
+
+        verify(creditCache, never()).findById(any(String.class));
     }
 
     @Test
     void shouldFailWhenCreditNotFound() {
         // Given
-        when(creditRepository.findById("credit123")).thenReturn(Mono.empty());
+        when(creditCache.findById("credit123")).thenReturn(Mono.empty());
 
         // When
         Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
@@ -98,19 +207,58 @@ class TransactionOperationServiceTest {
         // Then
         StepVerifier.create(result)
                 .expectErrorMatches(throwable ->
-                        throwable instanceof IllegalArgumentException &&
-                                throwable.getMessage().equals("Credit not found"))
+                        throwable instanceof DomainException domainError &&
+                                domainError.getCode() == ErrorCode.CREDIT_NOT_FOUND)
                 .verify();
     }
 
+    @Test
+    void shouldRecordTheTransactionOfAnAppliedBalanceAfterTheCallerTimesOut() {
+        // Given
+        CreditLaneScheduler shortTimeout = new CreditLaneScheduler(1, Duration.ofMillis(50), new SimpleMeterRegistry());
+        TransactionOperationService service = new TransactionOperationService(transactionMapper, validatorFactory,
+                transactionRepository, creditCache, null, shortTimeout, transactionGroupCommitWriter,
+                transactionIdempotencyStore, paginationSettings, transactionRecordedPublisher);
+        AtomicInteger appliedBalanceChanges = new AtomicInteger();
+        List<TransactionEntity> insertedRows = new CopyOnWriteArrayList<>();
+
+        when(creditCache.findById("credit123")).thenReturn(Mono.just(creditEntity));
+        when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
+        when(transactionValidator.validate(any(TransactionValidationContext.class))).thenAnswer(invocation -> {
+            appliedBalanceChanges.incrementAndGet();
+            return Mono.just(invocation.<TransactionValidationContext>getArgument(0));
+        });
+        when(transactionMapper.mapToEntity(any(Transaction.class))).thenReturn(transactionEntity);
+        when(transactionGroupCommitWriter.insert(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> Mono.delay(Duration.ofMillis(200))
+                        .then(Mono.fromCallable(() -> {
+                            insertedRows.add(invocation.getArgument(0));
+                            return invocation.<TransactionEntity>getArgument(0);
+                        })));
+        when(transactionMapper.mapToDomain(any(TransactionEntity.class))).thenReturn(transaction);
+
+        // When
+        StepVerifier.create(service.createTransaction(transaction))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+
+        // Then
+        verify(transactionRecordedPublisher, timeout(2000)).publish(transaction);
+        assertEquals(1, appliedBalanceChanges.get());
+        assertEquals(List.of(transactionEntity), insertedRows);
+        verify(transactionValidator, never()).revert(any());
+        shortTimeout.shutdown();
+    }
+
     @Test
     void shouldFailWhenValidationFails() {
         // Given
-        String errorMessage = "Insufficient available credit";
+        String errorMessage = "Monto no válido: NaN";
 
-        when(creditRepository.findById("credit123")).thenReturn(Mono.just(creditEntity));
+        when(creditCache.findById("credit123")).thenReturn(Mono.just(creditEntity));
         when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
-        when(transactionValidator.validate(any(Transaction.class))).thenReturn(Mono.error(new RuntimeException(errorMessage)));
+        when(transactionValidator.validate(any(TransactionValidationContext.class)))
+                .thenReturn(Mono.error(new IllegalArgumentException(errorMessage)));
 
         // When
         Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
@@ -118,11 +266,102 @@ class TransactionOperationServiceTest {
         // Then
         StepVerifier.create(result)
                 .expectErrorMatches(throwable ->
-                        throwable instanceof IllegalArgumentException &&
+                        throwable instanceof DomainException domainError &&
+                                domainError.getCode() == ErrorCode.TRANSACTION_REJECTED &&
                                 throwable.getMessage().equals(errorMessage))
                 .verify();
     }
 
+    @Test
+    void shouldPassDatabaseErrorsOfTheBalanceUpdateOnUnchanged() {
+        // Given
+        RuntimeException timeout = new RuntimeException("timeout");
+
+        when(creditCache.findById("credit123")).thenReturn(Mono.just(creditEntity));
+        when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
+        when(transactionValidator.validate(any(TransactionValidationContext.class))).thenReturn(Mono.error(timeout));
+
+        // When
+        Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMatches(throwable -> throwable == timeout)
+                .verify();
+    }
+
+    @Test
+    void shouldRevertBalanceWhenTransactionCannotBeInserted() {
+        // Given
+        RuntimeException insertError = new TransactionInsertRejectedException("duplicate key");
+        TransactionValidationContext context = new TransactionValidationContext(transaction, creditEntity);
+
+        when(creditCache.findById("credit123")).thenReturn(Mono.just(creditEntity));
+        when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
+        when(transactionValidator.validate(any(TransactionValidationContext.class))).thenReturn(Mono.just(context));
+        when(transactionMapper.mapToEntity(any(Transaction.class))).thenReturn(transactionEntity);
+        when(transactionGroupCommitWriter.insert(any(TransactionEntity.class))).thenReturn(Mono.error(insertError));
+        when(transactionValidator.revert(context)).thenReturn(Mono.just(creditEntity));
+
+        // When
+        Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMatches(throwable -> throwable instanceof DomainException domainError
+                        && domainError.getCode() == ErrorCode.TRANSACTION_REJECTED)
+                .verify();
+
+        verify(transactionValidator).revert(context);
+        verify(transactionRecordedPublisher, never()).publish(any());
+    }
+
+    @Test
+    void shouldNotRevertBalanceWhenInsertOutcomeIsUnknown() {
+        // Given
+        RuntimeException insertError = new RuntimeException("timeout");
+        TransactionValidationContext context = new TransactionValidationContext(transaction, creditEntity);
+
+        when(creditCache.findById("credit123")).thenReturn(Mono.just(creditEntity));
+        when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
+        when(transactionValidator.validate(any(TransactionValidationContext.class))).thenReturn(Mono.just(context));
+        when(transactionMapper.mapToEntity(any(Transaction.class))).thenReturn(transactionEntity);
+        when(transactionGroupCommitWriter.insert(any(TransactionEntity.class))).thenReturn(Mono.error(insertError));
+
+        // When
+        Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMatches(throwable -> throwable == insertError)
+                .verify();
+
+        verify(transactionValidator, never()).revert(any());
+        verify(transactionRecordedPublisher, never()).publish(any());
+    }
+
+    @Test
+    void shouldPassInsertErrorOnWhenBalanceCannotBeReverted() {
+        // Given
+        RuntimeException insertError = new TransactionInsertRejectedException("duplicate key");
+        TransactionValidationContext context = new TransactionValidationContext(transaction, creditEntity);
+
+        when(creditCache.findById("credit123")).thenReturn(Mono.just(creditEntity));
+        when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
+        when(transactionValidator.validate(any(TransactionValidationContext.class))).thenReturn(Mono.just(context));
+        when(transactionMapper.mapToEntity(any(Transaction.class))).thenReturn(transactionEntity);
+        when(transactionGroupCommitWriter.insert(any(TransactionEntity.class))).thenReturn(Mono.error(insertError));
+        when(transactionValidator.revert(context)).thenReturn(Mono.error(new RuntimeException("revert failed")));
+
+        // When
+        Mono<Transaction> result = transactionOperationService.createTransaction(transaction);
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMatches(throwable -> throwable == insertError)
+                .verify();
+    }
+
     @Test
     void shouldGetAllTransactions() {
         // Given
@@ -138,12 +377,12 @@ class TransactionOperationServiceTest {
         Transaction transaction2 = new Transaction();
         transaction2.setTransactionId("trans2");
 
-        when(transactionRepository.findAll()).thenReturn(Flux.just(transactionEntity1, transactionEntity2));
-        when(transactionMapper.toDomain(transactionEntity1)).thenReturn(Mono.just(transaction1));
-        when(transactionMapper.toDomain(transactionEntity2)).thenReturn(Mono.just(transaction2));
+        when(transactionRepository.findPageAfter("trans0", 2, 50)).thenReturn(Flux.just(transactionEntity1, transactionEntity2));
+        when(transactionMapper.mapToDomain(transactionEntity1)).thenReturn(transaction1);
+        when(transactionMapper.mapToDomain(transactionEntity2)).thenReturn(transaction2);
 
         // When
-        Flux<Transaction> result = transactionOperationService.getTransactions();
+        Flux<Transaction> result = transactionOperationService.getTransactions("trans0", 2);
 
         // Then
         StepVerifier.create(result)
@@ -174,8 +413,8 @@ class TransactionOperationServiceTest {
         transaction2.setCreditId(creditId);
 
         when(transactionRepository.findByCreditId(creditId)).thenReturn(Flux.just(transactionEntity1, transactionEntity2));
-        when(transactionMapper.toDomain(transactionEntity1)).thenReturn(Mono.just(transaction1));
-        when(transactionMapper.toDomain(transactionEntity2)).thenReturn(Mono.just(transaction2));
+        when(transactionMapper.mapToDomain(transactionEntity1)).thenReturn(transaction1);
+        when(transactionMapper.mapToDomain(transactionEntity2)).thenReturn(transaction2);
 
         // When
         Flux<Transaction> result = transactionOperationService.getTransactionByCreditId(creditId);
@@ -229,12 +468,13 @@ class TransactionOperationServiceTest {
         transactionWithoutDate.setAmount(100.0);
         transactionWithoutDate.setType(Transaction.TypeEnum.SPENT);
 
-        when(creditRepository.findById("credit123")).thenReturn(Mono.just(creditEntity));
+        when(creditCache.findById("credit123")).thenReturn(Mono.just(creditEntity));
         when(validatorFactory.getTransactionValidator(any(CreditBaseEntity.class))).thenReturn(transactionValidator);
-        when(transactionValidator.validate(any(Transaction.class))).thenReturn(Mono.just(transactionWithoutDate));
-        when(transactionMapper.toEntity(any(Transaction.class))).thenReturn(Mono.just(transactionEntity));
-        when(transactionRepository.save(any(TransactionEntity.class))).thenReturn(Mono.just(transactionEntity));
-        when(transactionMapper.toDomain(any(TransactionEntity.class))).thenReturn(Mono.just(transaction));
+        when(transactionValidator.validate(any(TransactionValidationContext.class)))
+                .thenReturn(Mono.just(new TransactionValidationContext(transactionWithoutDate, creditEntity)));
+        when(transactionMapper.mapToEntity(any(Transaction.class))).thenReturn(transactionEntity);
+        when(transactionGroupCommitWriter.insert(any(TransactionEntity.class))).thenReturn(Mono.just(transactionEntity));
+        when(transactionMapper.mapToDomain(any(TransactionEntity.class))).thenReturn(transaction);
 
         // When
         Mono<Transaction> result = transactionOperationService.createTransaction(transactionWithoutDate);
@@ -245,6 +485,6 @@ class TransactionOperationServiceTest {
                 .verifyComplete();
 
         // Verificar que se establece la fecha
-        verify(transactionValidator).validate(any(Transaction.class));
+        verify(transactionValidator).validate(any(TransactionValidationContext.class));
     }
 }
\ No newline at end of file
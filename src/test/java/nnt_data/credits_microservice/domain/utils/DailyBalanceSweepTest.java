@@ -0,0 +1,164 @@
+package nnt_data.credits_microservice.domain.utils;
+
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DailyBalanceSweepTest {
+
+    private static final BusinessCalendar CALENDAR = new BusinessCalendar("America/Lima");
+
+    @Test
+    void shouldAverageDailyBalancesOfTheMonth() {
+        // Given
+        LocalDate start = LocalDate.of(2024, 4, 1);
+        LocalDate end = LocalDate.of(2024, 4, 30);
+        DailyBalanceSweep sweep = new DailyBalanceSweep(10_000L, start, end);
+
+        // When
+        sweep.accept(businessDay(LocalDate.of(2024, 4, 11), 10), Transaction.TypeEnum.SPENT, 5_000L);
+        sweep.accept(businessDay(LocalDate.of(2024, 4, 21), 9), Transaction.TypeEnum.PAYMENT, 3_000L);
+
+        // Then: 10 días en 100, 10 días en 150 y 10 días en 0
+        assertEquals(8_333L, sweep.averageCents());
+        assertEquals(83.33, sweep.average());
+    }
+
+    @Test
+    void shouldIgnoreTransactionsOutsideThePeriod() {
+        // Given
+        LocalDate start = LocalDate.of(2024, 4, 1);
+        LocalDate end = LocalDate.of(2024, 4, 2);
+        DailyBalanceSweep sweep = new DailyBalanceSweep(1_000L, start, end);
+
+        // When
+        sweep.accept(businessDay(LocalDate.of(2024, 3, 31), 12), Transaction.TypeEnum.SPENT, 100_000L);
+        sweep.accept(businessDay(LocalDate.of(2024, 4, 3), 0), Transaction.TypeEnum.SPENT, 100_000L);
+
+        // Then
+        assertEquals(10.0, sweep.average());
+    }
+
+    @Test
+    void shouldRejectUnsortedTransactions() {
+        // Given
+        DailyBalanceSweep sweep = new DailyBalanceSweep(0L, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 30));
+        sweep.accept(businessDay(LocalDate.of(2024, 4, 10), 0), Transaction.TypeEnum.SPENT, 100L);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> sweep.accept(businessDay(LocalDate.of(2024, 4, 2), 0), Transaction.TypeEnum.SPENT, 100L));
+    }
+
+    @Test
+    void shouldMatchThePerDayFilteringCalculationWithExactDecimals() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            // Given
+            LocalDate start = LocalDate.of(2023, 1, 1).plusDays(random.nextInt(365));
+            LocalDate end = start.plusDays(random.nextInt(400));
+            long span = ChronoUnit.DAYS.between(start, end) + 1;
+            List<Transaction> transactions = new ArrayList<>();
+            int count = random.nextInt(60);
+            for (int i = 0; i < count; i++) {
+                Transaction transaction = new Transaction();
+                transaction.setDate(at(start.plusDays(random.nextInt((int) span)), random.nextInt(24)));
+                transaction.setType(random.nextInt(4) == 0 ? Transaction.TypeEnum.PAYMENT : Transaction.TypeEnum.SPENT);
+                transaction.setAmount(random.nextInt(1_000_000) / 100.0);
+                transactions.add(transaction);
+            }
+            transactions.sort(Comparator.comparing(Transaction::getDate));
+            long initialBalance = random.nextInt(10_000_000);
+
+            // When
+            DailyBalanceSweep sweep = new DailyBalanceSweep(initialBalance, start, end);
+            transactions.forEach(t -> sweep.accept(CALENDAR.epochDay(t.getDate()), t.getType(),
+                    Money.toCents(t.getAmount())));
+
+            // Then
+            assertEquals(perDayFiltering(initialBalance, transactions, start, end), sweep.average());
+        }
+    }
+
+    @Test
+    void shouldMatchTransactionSweepWhenDaysArriveAlreadySummarized() {
+        Random random = new Random(7);
+        for (int round = 0; round < 100; round++) {
+            // Given
+            LocalDate start = LocalDate.of(2024, 1, 1);
+            LocalDate end = start.plusDays(random.nextInt(366));
+            DailyBalanceSweep byTransaction = new DailyBalanceSweep(50_000L, start, end);
+            DailyBalanceSweep byDay = new DailyBalanceSweep(50_000L, start, end);
+
+            // When
+            for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1 + random.nextInt(5))) {
+                boolean reset = false;
+                long spent = 0L;
+                int count = 1 + random.nextInt(4);
+                for (int i = 0; i < count; i++) {
+                    long amount = random.nextInt(1_000_000);
+                    if (random.nextInt(5) == 0) {
+                        byTransaction.accept(businessDay(day, i), Transaction.TypeEnum.PAYMENT, amount);
+                        reset = true;
+                        spent = 0L;
+                    } else {
+                        byTransaction.accept(businessDay(day, i), Transaction.TypeEnum.SPENT, amount);
+                        spent = spent + amount;
+                    }
+                }
+                byDay.acceptDay(day.toEpochDay(), reset, spent);
+            }
+
+            // Then
+            assertEquals(byTransaction.average(), byDay.average());
+        }
+    }
+
+    /**
+     * Cálculo anterior de ReportingService: filtra la lista completa para cada día del periodo, con sumas
+     * exactas en BigDecimal y el promedio redondeado a dos decimales (HALF_UP).
+     */
+    private static double perDayFiltering(long initialBalanceCents, List<Transaction> transactions,
+                                          LocalDate startOfMonth, LocalDate endOfMonth) {
+        BigDecimal dailyBalance = BigDecimal.valueOf(initialBalanceCents, 2);
+        BigDecimal sumOfBalances = BigDecimal.ZERO;
+        LocalDate currentDate = startOfMonth;
+        while (!currentDate.isAfter(endOfMonth)) {
+            LocalDate finalCurrentDate = currentDate;
+            for (Transaction transaction : transactions.stream()
+                    .filter(t -> CALENDAR.toLocalDate(t.getDate()).equals(finalCurrentDate))
+                    .toList()) {
+                dailyBalance = transaction.getType() == Transaction.TypeEnum.PAYMENT
+                        ? BigDecimal.ZERO
+                        : dailyBalance.add(BigDecimal.valueOf(transaction.getAmount()));
+            }
+            sumOfBalances = sumOfBalances.add(dailyBalance);
+            currentDate = currentDate.plusDays(1);
+        }
+        long daysInPeriod = ChronoUnit.DAYS.between(startOfMonth, endOfMonth) + 1;
+        return sumOfBalances
+                .divide(BigDecimal.valueOf(daysInPeriod), 2, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+
+    private static Date at(LocalDate day, int hour) {
+        return Date.from(day.atTime(hour, 0).atZone(CALENDAR.getZone()).toInstant());
+    }
+
+    private static long businessDay(LocalDate day, int hour) {
+        return CALENDAR.epochDay(at(day, hour));
+    }
+}
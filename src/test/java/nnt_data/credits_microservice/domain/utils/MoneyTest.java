@@ -0,0 +1,50 @@
+package nnt_data.credits_microservice.domain.utils;
+
+import nnt_data.credits_microservice.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void shouldConvertAmountsToCentsWithoutLosingACent() {
+        // When / Then
+        assertEquals(29L, Money.toCents(0.29));
+        assertEquals(101L, Money.toCents(1.005));
+        assertEquals(123_456_789L, Money.toCents(1_234_567.89));
+        assertEquals(0L, Money.toCents(null));
+        assertEquals(0.29, Money.toAmount(29L));
+    }
+
+    @Test
+    void shouldRejectAmountsThatAreNotFiniteOrDoNotFit() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> Money.toCents(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Money.toCents(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> Money.toCents(1e300));
+    }
+
+    @Test
+    void shouldRoundAveragesHalfUp() {
+        // When / Then
+        assertEquals(8_333L, Money.divideHalfUp(250_000L, 30));
+        assertEquals(2L, Money.divideHalfUp(5L, 3));
+        assertEquals(3L, Money.divideHalfUp(5L, 2));
+        assertEquals(-3L, Money.divideHalfUp(-5L, 2));
+        assertThrows(IllegalArgumentException.class, () -> Money.divideHalfUp(1L, 0));
+    }
+
+    @Test
+    void shouldApplyTransactionsInCents() {
+        // Given
+        Transaction spent = new Transaction();
+        spent.setType(Transaction.TypeEnum.SPENT);
+        spent.setAmount(0.29);
+
+        // When / Then
+        assertEquals(10_029L, BalanceCalculator.calculateDailyBalance(10_000L, spent));
+        assertEquals(0L, BalanceCalculator.applyTransaction(10_029L, Transaction.TypeEnum.PAYMENT, 500L));
+    }
+}
@@ -1,6 +1,10 @@
 package nnt_data.credits_microservice.domain.validator;
 
 
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.domain.utils.Money;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.model.Transaction;
@@ -12,6 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,11 +25,14 @@ class CreditTransactionValidatorTest {
     @Mock
     private CreditRepository creditRepository;
 
+    @Mock
+    private CreditCache creditCache;
+
     private CreditTransactionValidator validator;
 
     @BeforeEach
     void setUp() {
-        validator = new CreditTransactionValidator(creditRepository);
+        validator = new CreditTransactionValidator(creditRepository, creditCache);
     }
 
     @Test
@@ -36,10 +44,8 @@ class CreditTransactionValidatorTest {
         transaction.setType(Transaction.TypeEnum.SPENT);
         transaction.setAmount(100.0);
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.empty());
-
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, null));
 
         // Then
         StepVerifier.create(result)
@@ -54,8 +60,6 @@ class CreditTransactionValidatorTest {
         // Given
         String creditId = "credit123";
         Double amount = 200.0;
-        Double availableCredit = 500.0;
-        Double newAvailableCredit = availableCredit - amount;
 
         Transaction transaction = new Transaction();
         transaction.setCreditId(creditId);
@@ -64,31 +68,58 @@ class CreditTransactionValidatorTest {
 
         CreditBaseEntity credit = new CreditBaseEntity();
         credit.setCreditId(creditId);
-        credit.setAmount(1000.0);
-        credit.setAvailableCredit(availableCredit);
+        credit.setAmountCents(100000L);
+        credit.setAvailableCreditCents(50000L);
+
+        CreditBaseEntity updatedCredit = new CreditBaseEntity();
+        updatedCredit.setCreditId(creditId);
+        updatedCredit.setAmountCents(100000L);
+        updatedCredit.setAvailableCreditCents(30000L);
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(credit));
-        when(creditRepository.updateAvilableAmountByCreditId(creditId, newAvailableCredit))
-                .thenReturn(Mono.empty());
+        when(creditRepository.applySpent(creditId, Money.toCents(amount))).thenReturn(Mono.just(updatedCredit));
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, credit));
 
         // Then
         StepVerifier.create(result)
-                .expectNext(transaction)
+                .assertNext(context -> assertSame(transaction, context.getTransaction()))
                 .verifyComplete();
 
-        verify(creditRepository).updateAvilableAmountByCreditId(creditId, newAvailableCredit);
+        verify(creditRepository).applySpent(creditId, Money.toCents(amount));
+        verify(creditRepository, never()).findById(anyString());
         verify(creditRepository, never()).save(any());
     }
 
+    @Test
+    void shouldRevertSpentByReturningTheAmountToAvailableCredit() {
+        // Given
+        Transaction transaction = new Transaction();
+        transaction.setCreditId("credit123");
+        transaction.setType(Transaction.TypeEnum.SPENT);
+        transaction.setAmount(200.0);
+
+        CreditBaseEntity reverted = new CreditBaseEntity();
+        reverted.setCreditId("credit123");
+
+        when(creditRepository.applyAvailableCreditDelta("credit123", 20000L)).thenReturn(Mono.just(reverted));
+
+        // When
+        Mono<CreditBaseEntity> result = validator.revert(new TransactionValidationContext(transaction, reverted));
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(reverted)
+                .verifyComplete();
+
+        verify(creditCache).put(reverted);
+    }
+
     @Test
     void shouldRejectSpentTransactionWithInsufficientCredit() {
         // Given
         String creditId = "credit123";
         Double amount = 600.0;
-        Double availableCredit = 500.0;
 
         Transaction transaction = new Transaction();
         transaction.setCreditId(creditId);
@@ -97,22 +128,25 @@ class CreditTransactionValidatorTest {
 
         CreditBaseEntity credit = new CreditBaseEntity();
         credit.setCreditId(creditId);
-        credit.setAmount(1000.0);
-        credit.setAvailableCredit(availableCredit);
+        credit.setAmountCents(100000L);
+        credit.setAvailableCreditCents(50000L);
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(credit));
+        when(creditRepository.applySpent(creditId, Money.toCents(amount))).thenReturn(Mono.empty());
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, credit));
 
         // Then
         StepVerifier.create(result)
                 .expectErrorMatches(throwable ->
-                        throwable instanceof IllegalArgumentException &&
-                                throwable.getMessage().equals("Crédito disponible insuficiente"))
+                        throwable instanceof DomainException domainError &&
+                                domainError.getCode() == ErrorCode.INSUFFICIENT_CREDIT &&
+                                throwable.getMessage().equals("Crédito disponible insuficiente") &&
+                                throwable.getStackTrace().length == 0)
                 .verify();
 
-        verify(creditRepository, never()).updateAvilableAmountByCreditId(anyString(), anyDouble());
+        verify(creditRepository, never()).applyPayment(anyString(), anyLong());
+        verify(creditRepository, never()).existsById(anyString());
         verify(creditRepository, never()).save(any());
     }
 
@@ -121,9 +155,6 @@ class CreditTransactionValidatorTest {
         // Given
         String creditId = "credit123";
         Double amount = 200.0;
-        Double availableCredit = 500.0;
-        Double totalAmount = 1000.0;
-        Double newAvailableCredit = availableCredit + amount;
 
         Transaction transaction = new Transaction();
         transaction.setCreditId(creditId);
@@ -132,27 +163,26 @@ class CreditTransactionValidatorTest {
 
         CreditBaseEntity credit = new CreditBaseEntity();
         credit.setCreditId(creditId);
-        credit.setAmount(totalAmount);
-        credit.setAvailableCredit(availableCredit);
+        credit.setAmountCents(100000L);
+        credit.setAvailableCreditCents(50000L);
 
         CreditBaseEntity updatedCredit = new CreditBaseEntity();
         updatedCredit.setCreditId(creditId);
-        updatedCredit.setAmount(totalAmount);
-        updatedCredit.setAvailableCredit(newAvailableCredit);
+        updatedCredit.setAmountCents(100000L);
+        updatedCredit.setAvailableCreditCents(70000L);
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(credit));
-        when(creditRepository.save(any(CreditBaseEntity.class))).thenReturn(Mono.just(updatedCredit));
+        when(creditRepository.applyPayment(creditId, Money.toCents(amount))).thenReturn(Mono.just(updatedCredit));
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, credit));
 
         // Then
         StepVerifier.create(result)
-                .expectNext(transaction)
+                .assertNext(context -> assertSame(transaction, context.getTransaction()))
                 .verifyComplete();
 
-        verify(creditRepository, never()).updateAvilableAmountByCreditId(anyString(), anyDouble());
-        verify(creditRepository).save(any(CreditBaseEntity.class));
+        verify(creditRepository, never()).applySpent(anyString(), anyLong());
+        verify(creditRepository, never()).save(any());
     }
 
     @Test
@@ -160,8 +190,6 @@ class CreditTransactionValidatorTest {
         // Given
         String creditId = "credit123";
         Double amount = 600.0;
-        Double availableCredit = 500.0;
-        Double totalAmount = 1000.0;
 
         Transaction transaction = new Transaction();
         transaction.setCreditId(creditId);
@@ -170,13 +198,13 @@ class CreditTransactionValidatorTest {
 
         CreditBaseEntity credit = new CreditBaseEntity();
         credit.setCreditId(creditId);
-        credit.setAmount(totalAmount);
-        credit.setAvailableCredit(availableCredit);
+        credit.setAmountCents(100000L);
+        credit.setAvailableCreditCents(50000L);
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(credit));
+        when(creditRepository.applyPayment(creditId, Money.toCents(amount))).thenReturn(Mono.empty());
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, credit));
 
         // Then
         StepVerifier.create(result)
@@ -185,7 +213,7 @@ class CreditTransactionValidatorTest {
                                 throwable.getMessage().equals("El pago excede el límite del crédito"))
                 .verify();
 
-        verify(creditRepository, never()).updateAvilableAmountByCreditId(anyString(), anyDouble());
+        verify(creditRepository, never()).applySpent(anyString(), anyLong());
         verify(creditRepository, never()).save(any());
     }
 }
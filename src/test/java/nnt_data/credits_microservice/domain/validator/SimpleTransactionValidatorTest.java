@@ -1,10 +1,12 @@
 package nnt_data.credits_microservice.domain.validator;
 
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.domain.utils.Money;
+import nnt_data.credits_microservice.infrastructure.cache.CreditCache;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
-import nnt_data.credits_microservice.infrastructure.persistence.mapper.CreditMapper;
 import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
 import nnt_data.credits_microservice.model.CreditType;
-import nnt_data.credits_microservice.model.SimpleCredit;
 import nnt_data.credits_microservice.model.Transaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +16,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -24,13 +28,13 @@ class SimpleTransactionValidatorTest {
     private CreditRepository creditRepository;
 
     @Mock
-    private CreditMapper creditMapper;
+    private CreditCache creditCache;
 
     private SimpleTransactionValidator validator;
 
     @BeforeEach
     void setUp() {
-        validator = new SimpleTransactionValidator(creditRepository, creditMapper);
+        validator = new SimpleTransactionValidator(creditRepository, creditCache);
     }
 
     @Test
@@ -41,7 +45,7 @@ class SimpleTransactionValidatorTest {
         transaction.setCreditId("credit123");
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, null));
 
         // Then
         StepVerifier.create(result)
@@ -61,10 +65,8 @@ class SimpleTransactionValidatorTest {
         transaction.setType(Transaction.TypeEnum.PAYMENT);
         transaction.setCreditId(creditId);
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.empty());
-
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, null));
 
         // Then
         StepVerifier.create(result)
@@ -85,10 +87,9 @@ class SimpleTransactionValidatorTest {
         CreditBaseEntity creditEntity = new CreditBaseEntity();
         creditEntity.setType(CreditType.CREDIT_CARD);
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(creditEntity));
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, creditEntity));
 
         // Then
         StepVerifier.create(result)
@@ -113,17 +114,11 @@ class SimpleTransactionValidatorTest {
 
         CreditBaseEntity creditEntity = new CreditBaseEntity();
         creditEntity.setType(CreditType.SIMPLE_CREDIT);
-
-        SimpleCredit simpleCredit = new SimpleCredit();
-        simpleCredit.setAmount(totalAmount);
-        simpleCredit.setAmountPaid(currentAmountPaid);
-        simpleCredit.setType(CreditType.SIMPLE_CREDIT);
-
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(creditEntity));
-        when(creditMapper.toDomain(creditEntity)).thenReturn(Mono.just(simpleCredit));
+        creditEntity.setAmountCents(Money.toCents(totalAmount));
+        creditEntity.setAmountPaidCents(Money.toCents(currentAmountPaid));
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, creditEntity));
 
         // Then
         StepVerifier.create(result)
@@ -148,17 +143,11 @@ class SimpleTransactionValidatorTest {
 
         CreditBaseEntity creditEntity = new CreditBaseEntity();
         creditEntity.setType(CreditType.SIMPLE_CREDIT);
-
-        SimpleCredit simpleCredit = new SimpleCredit();
-        simpleCredit.setAmount(totalAmount);
-        simpleCredit.setAmountPaid(currentAmountPaid);
-        simpleCredit.setType(CreditType.SIMPLE_CREDIT);
-
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(creditEntity));
-        when(creditMapper.toDomain(creditEntity)).thenReturn(Mono.just(simpleCredit));
+        creditEntity.setAmountCents(Money.toCents(totalAmount));
+        creditEntity.setAmountPaidCents(Money.toCents(currentAmountPaid));
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, creditEntity));
 
         // Then
         StepVerifier.create(result)
@@ -175,7 +164,6 @@ class SimpleTransactionValidatorTest {
         Double amount = 200.0;
         Double totalAmount = 1000.0;
         Double currentAmountPaid = 300.0;
-        Double newAmountPaid = currentAmountPaid + amount;
 
         Transaction transaction = new Transaction();
         transaction.setType(Transaction.TypeEnum.PAYMENT);
@@ -184,36 +172,85 @@ class SimpleTransactionValidatorTest {
 
         CreditBaseEntity creditEntity = new CreditBaseEntity();
         creditEntity.setType(CreditType.SIMPLE_CREDIT);
+        creditEntity.setAmountCents(Money.toCents(totalAmount));
+        creditEntity.setAmountPaidCents(Money.toCents(currentAmountPaid));
+
+        when(creditRepository.applyAmountPaidDelta(creditId, Money.toCents(amount))).thenReturn(Mono.just(creditEntity));
+
+        // When
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, creditEntity));
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(context -> assertSame(transaction, context.getTransaction()))
+                .verifyComplete();
+
+        verify(creditRepository).applyAmountPaidDelta(creditId, Money.toCents(amount));
+        verify(creditCache).put(creditEntity);
+    }
+
+    @Test
+    void shouldRejectPaymentWhenConcurrentPaymentsReachedTheTotal() {
+        // Given
+        String creditId = "credit123";
+        Double amount = 200.0;
+
+        Transaction transaction = new Transaction();
+        transaction.setType(Transaction.TypeEnum.PAYMENT);
+        transaction.setCreditId(creditId);
+        transaction.setAmount(amount);
+
+        CreditBaseEntity creditEntity = new CreditBaseEntity();
+        creditEntity.setType(CreditType.SIMPLE_CREDIT);
+        creditEntity.setAmountCents(Money.toCents(1000.0));
+        creditEntity.setAmountPaidCents(Money.toCents(300.0));
+
+        when(creditRepository.applyAmountPaidDelta(creditId, Money.toCents(amount))).thenReturn(Mono.empty());
+
+        // When
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, creditEntity));
 
-        SimpleCredit simpleCredit = new SimpleCredit();
-        simpleCredit.setAmount(totalAmount);
-        simpleCredit.setAmountPaid(currentAmountPaid);
-        simpleCredit.setType(CreditType.SIMPLE_CREDIT);
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMatches(throwable ->
+                        throwable instanceof DomainException &&
+                                ((DomainException) throwable).getCode() == ErrorCode.PAYMENT_EXCEEDS_TOTAL)
+                .verify();
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(creditEntity));
-        when(creditMapper.toDomain(creditEntity)).thenReturn(Mono.just(simpleCredit));
-        when(creditMapper.toEntity(simpleCredit)).thenReturn(Mono.just(creditEntity));
-        when(creditRepository.updateAmountPaidByCreditId(creditId, newAmountPaid)).thenReturn(Mono.empty());
+        verify(creditCache, never()).put(any());
+    }
+
+    @Test
+    void shouldRevertPaymentBySubtractingItFromAmountPaid() {
+        // Given
+        Transaction transaction = new Transaction();
+        transaction.setType(Transaction.TypeEnum.PAYMENT);
+        transaction.setCreditId("credit123");
+        transaction.setAmount(200.0);
+
+        CreditBaseEntity reverted = new CreditBaseEntity();
+        reverted.setType(CreditType.SIMPLE_CREDIT);
+
+        when(creditRepository.applyAmountPaidDelta("credit123", -20000L)).thenReturn(Mono.just(reverted));
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<CreditBaseEntity> result = validator.revert(new TransactionValidationContext(transaction, reverted));
 
         // Then
         StepVerifier.create(result)
-                .expectNext(transaction)
+                .expectNext(reverted)
                 .verifyComplete();
 
-        verify(creditRepository).updateAmountPaidByCreditId(creditId, newAmountPaid);
+        verify(creditCache).put(reverted);
     }
 
     @Test
-    void shouldHandleErrorDuringCreditUpdate() {
+    void shouldPropagateDatabaseErrorDuringCreditUpdateUnchanged() {
         // Given
         String creditId = "credit123";
         Double amount = 200.0;
         Double totalAmount = 1000.0;
         Double currentAmountPaid = 300.0;
-        Double newAmountPaid = currentAmountPaid + amount;
 
         Transaction transaction = new Transaction();
         transaction.setType(Transaction.TypeEnum.PAYMENT);
@@ -222,27 +259,19 @@ class SimpleTransactionValidatorTest {
 
         CreditBaseEntity creditEntity = new CreditBaseEntity();
         creditEntity.setType(CreditType.SIMPLE_CREDIT);
-
-        SimpleCredit simpleCredit = new SimpleCredit();
-        simpleCredit.setAmount(totalAmount);
-        simpleCredit.setAmountPaid(currentAmountPaid);
-        simpleCredit.setType(CreditType.SIMPLE_CREDIT);
+        creditEntity.setAmountCents(Money.toCents(totalAmount));
+        creditEntity.setAmountPaidCents(Money.toCents(currentAmountPaid));
 
         RuntimeException dbError = new RuntimeException("Database error");
 
-        when(creditRepository.findById(creditId)).thenReturn(Mono.just(creditEntity));
-        when(creditMapper.toDomain(creditEntity)).thenReturn(Mono.just(simpleCredit));
-        when(creditMapper.toEntity(simpleCredit)).thenReturn(Mono.just(creditEntity));
-        when(creditRepository.updateAmountPaidByCreditId(creditId, newAmountPaid)).thenReturn(Mono.error(dbError));
+        when(creditRepository.applyAmountPaidDelta(creditId, Money.toCents(amount))).thenReturn(Mono.error(dbError));
 
         // When
-        Mono<Transaction> result = validator.validate(transaction);
+        Mono<TransactionValidationContext> result = validator.validate(new TransactionValidationContext(transaction, creditEntity));
 
         // Then
         StepVerifier.create(result)
-                .expectErrorMatches(throwable ->
-                        throwable instanceof IllegalArgumentException &&
-                                throwable.getMessage().equals("Error al actualizar el crédito: Database error"))
+                .expectErrorMatches(throwable -> throwable == dbError)
                 .verify();
     }
 }
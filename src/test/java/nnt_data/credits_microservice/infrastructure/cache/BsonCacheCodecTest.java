@@ -0,0 +1,60 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.model.CreditResume;
+import nnt_data.credits_microservice.model.CreditType;
+import nnt_data.credits_microservice.model.CustomerType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BsonCacheCodecTest {
+
+    private BsonCacheCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        codec = new BsonCacheCodec(converter);
+    }
+
+    @Test
+    void shouldRoundTripCreditEntities() {
+        // Given
+        CreditBaseEntity credit = new CreditBaseEntity();
+        credit.setCreditId("665f1c2e8b3e4a1d2c3b4a59");
+        credit.setCustomerId("cust123");
+        credit.setCustomerType(CustomerType.PERSONAL);
+        credit.setType(CreditType.CREDIT_CARD);
+        credit.setAmountCents(100000L);
+        credit.setAvailableCreditCents(25050L);
+        credit.setCardNumber("4111111111111111");
+
+        // When
+        byte[] bytes = codec.encode(credit);
+
+        // Then
+        assertEquals(credit, codec.decode(bytes, CreditBaseEntity.class));
+        assertTrue(bytes.length < 220);
+    }
+
+    @Test
+    void shouldRoundTripReportListsAndSimpleValues() {
+        // Given
+        List<CreditResume> resumes = List.of(
+                new CreditResume("credit1", CreditType.SIMPLE_CREDIT, 100.0),
+                new CreditResume("credit2", CreditType.CREDIT_CARD, 42.5));
+
+        // When / Then
+        assertEquals(resumes, codec.decodeList(codec.encode(resumes), CreditResume.class));
+        assertEquals(Boolean.TRUE, codec.decode(codec.encode(true), Boolean.class));
+    }
+}
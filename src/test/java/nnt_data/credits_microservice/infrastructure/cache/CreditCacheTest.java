@@ -0,0 +1,154 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nnt_data.credits_microservice.domain.utils.Money;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CreditCacheTest {
+
+    @Mock
+    private CreditRepository creditRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CreditCache cache;
+    private CreditBaseEntity credit;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CreditCache(creditRepository, new NoOpSecondLevelCache(), 100, Duration.ofMinutes(1), true,
+                Duration.ofHours(1), meterRegistry);
+        credit = credit(500.0);
+    }
+
+    @Test
+    void shouldLoadOnceAndServeFollowingReadsFromMemory() {
+        // Given
+        when(creditRepository.findById("credit123")).thenReturn(Mono.just(credit));
+
+        // When
+        StepVerifier.create(cache.findById("credit123")).expectNext(credit).verifyComplete();
+        StepVerifier.create(cache.findById("credit123")).expectNext(credit).verifyComplete();
+
+        // Then
+        verify(creditRepository, times(1)).findById("credit123");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "credits.credit-cache")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void shouldNotCacheMissingCredits() {
+        // Given
+        when(creditRepository.findById("missing")).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(cache.findById("missing")).verifyComplete();
+        StepVerifier.create(cache.findById("missing")).verifyComplete();
+
+        // Then
+        verify(creditRepository, times(2)).findById("missing");
+    }
+
+    @Test
+    void shouldServeTheDocumentReturnedByAWrite() {
+        // Given
+        when(creditRepository.findById("credit123")).thenReturn(Mono.just(credit));
+        cache.findById("credit123").block();
+        CreditBaseEntity updated = credit(300.0);
+
+        // When
+        cache.put(updated);
+
+        // Then
+        StepVerifier.create(cache.findById("credit123")).expectNext(updated).verifyComplete();
+        verify(creditRepository, times(1)).findById("credit123");
+    }
+
+    @Test
+    void shouldPeekAtMemoryWithoutLoading() {
+        // Given
+        when(creditRepository.findById("credit123")).thenReturn(Mono.just(credit));
+
+        // When / Then
+        StepVerifier.create(cache.findInMemory("credit123")).verifyComplete();
+        verify(creditRepository, never()).findById("credit123");
+        cache.findById("credit123").block();
+        StepVerifier.create(cache.findInMemory("credit123")).expectNext(credit).verifyComplete();
+        verify(creditRepository, times(1)).findById("credit123");
+    }
+
+    @Test
+    void shouldBypassMemoryInStrictModeAndRefreshTheEntry() {
+        // Given
+        CreditBaseEntity fresh = credit(100.0);
+        when(creditRepository.findById("credit123"))
+                .thenReturn(Mono.just(credit))
+                .thenReturn(Mono.just(fresh));
+        cache.findById("credit123").block();
+
+        // When
+        StepVerifier.create(cache.findById("credit123", true)).expectNext(fresh).verifyComplete();
+
+        // Then
+        StepVerifier.create(cache.findById("credit123")).expectNext(fresh).verifyComplete();
+        verify(creditRepository, times(2)).findById("credit123");
+    }
+
+    @Test
+    void shouldWarmUpFromTheSecondLevelWithoutReadingMongo() {
+        // Given
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        cache = new CreditCache(creditRepository, secondLevelCache, 100, Duration.ofMinutes(1), true,
+                Duration.ofHours(1), meterRegistry);
+        when(secondLevelCache.get("credit:credit123", CreditBaseEntity.class)).thenReturn(Mono.just(credit));
+
+        // When
+        StepVerifier.create(cache.findById("credit123")).expectNext(credit).verifyComplete();
+
+        // Then
+        verify(creditRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void shouldWriteThroughAndEvictTheSecondLevel() {
+        // Given
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        cache = new CreditCache(creditRepository, secondLevelCache, 100, Duration.ofMinutes(1), true,
+                Duration.ofHours(1), meterRegistry);
+
+        // When
+        cache.put(credit);
+        cache.invalidate("credit123");
+
+        // Then
+        verify(secondLevelCache).replace("credit:credit123", credit, Duration.ofMinutes(1));
+        verify(secondLevelCache).evict("credit:credit123");
+    }
+
+    private static CreditBaseEntity credit(double availableCredit) {
+        CreditBaseEntity entity = new CreditBaseEntity();
+        entity.setCreditId("credit123");
+        entity.setAmountCents(100000L);
+        entity.setAvailableCreditCents(Money.toCents(availableCredit));
+        return entity;
+    }
+}
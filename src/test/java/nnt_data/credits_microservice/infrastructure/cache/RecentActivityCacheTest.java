@@ -0,0 +1,172 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapperImpl;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.CreditRepository;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import nnt_data.credits_microservice.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecentActivityCacheTest {
+
+    @Mock
+    private CreditRepository creditRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private RecentActivityCache cache;
+
+    private CreditBaseEntity creditCard;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecentActivityCache(creditRepository, transactionRepository, new TransactionMapperImpl(new BusinessCalendar("UTC")),
+                3, DataSize.ofMegabytes(1), Duration.ofHours(1), Duration.ofMinutes(1));
+
+        creditCard = new CreditBaseEntity();
+        creditCard.setCreditId("card123");
+        creditCard.setCardNumber("4111");
+    }
+
+    @Test
+    void shouldSeedOnceAndServeFollowingReadsFromMemory() {
+        // Given
+        when(creditRepository.findByCreditId("card123")).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.findByCreditIdOrderByDateDesc(anyString(), any(Pageable.class)))
+                .thenReturn(Flux.just(entity("t2", 2000), entity("t1", 1000)));
+
+        // When / Then
+        StepVerifier.create(cache.getRecent("card123", 3))
+                .assertNext(activity -> {
+                    assertEquals("4111", activity.cardNumber());
+                    assertEquals(List.of("t2", "t1"), ids(activity.transactions()));
+                })
+                .verifyComplete();
+
+        cache.onTransactionRecorded(transaction("t3", 3000)).block();
+
+        StepVerifier.create(cache.getRecent("card123", 3))
+                .assertNext(activity -> assertEquals(List.of("t3", "t2", "t1"), ids(activity.transactions())))
+                .verifyComplete();
+        verify(creditRepository, times(1)).findByCreditId("card123");
+    }
+
+    @Test
+    void shouldReloadARingThatIsReadContinuouslyOnceItsTtlPasses() throws InterruptedException {
+        // Given
+        RecentActivityCache shortTtl = new RecentActivityCache(creditRepository, transactionRepository,
+                new TransactionMapperImpl(new BusinessCalendar("UTC")), 3, DataSize.ofMegabytes(1),
+                Duration.ofHours(1), Duration.ofMillis(100));
+        when(creditRepository.findByCreditId("card123")).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.findByCreditIdOrderByDateDesc(anyString(), any(Pageable.class)))
+                .thenReturn(Flux.just(entity("t1", 1000)))
+                .thenReturn(Flux.just(entity("t2", 2000), entity("t1", 1000)));
+        shortTtl.getRecent("card123", 3).block();
+
+        // When
+        Thread.sleep(50);
+        shortTtl.getRecent("card123", 3).block();
+        Thread.sleep(80);
+
+        // Then
+        StepVerifier.create(shortTtl.getRecent("card123", 3))
+                .assertNext(activity -> assertEquals(List.of("t2", "t1"), ids(activity.transactions())))
+                .verifyComplete();
+        verify(creditRepository, times(2)).findByCreditId("card123");
+    }
+
+    @Test
+    void shouldKeepOnlyTheMostRecentTransactions() {
+        // Given
+        when(creditRepository.findByCreditId("card123")).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.findByCreditIdOrderByDateDesc(anyString(), any(Pageable.class)))
+                .thenReturn(Flux.empty());
+        cache.getRecent("card123", 3).block();
+
+        // When
+        for (int i = 1; i <= 5; i++) {
+            cache.onTransactionRecorded(transaction("t" + i, i * 1000L)).block();
+        }
+        cache.onTransactionRecorded(transaction("old", 500)).block();
+        cache.onTransactionRecorded(transaction("t5", 5000)).block();
+
+        // Then
+        StepVerifier.create(cache.getRecent("card123", 2))
+                .assertNext(activity -> assertEquals(List.of("t5", "t4"), ids(activity.transactions())))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldIgnoreWritesForCreditsNotInMemory() {
+        // Given
+        when(creditRepository.findByCreditId("card123")).thenReturn(Mono.just(creditCard));
+        when(transactionRepository.findByCreditIdOrderByDateDesc(anyString(), any(Pageable.class)))
+                .thenReturn(Flux.just(entity("t1", 1000)));
+
+        // When
+        cache.onTransactionRecorded(transaction("t0", 500)).block();
+
+        // Then
+        StepVerifier.create(cache.getRecent("card123", 3))
+                .assertNext(activity -> assertEquals(List.of("t1"), ids(activity.transactions())))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownCredit() {
+        // Given
+        when(creditRepository.findByCreditId("missing")).thenReturn(Mono.empty());
+
+        // When / Then
+        StepVerifier.create(cache.getRecent("missing", 3))
+                .verifyComplete();
+    }
+
+    private static TransactionEntity entity(String id, long date) {
+        TransactionEntity entity = new TransactionEntity();
+        entity.setTransactionId(id);
+        entity.setCreditId("card123");
+        entity.setDate(new Date(date));
+        entity.setType(Transaction.TypeEnum.SPENT);
+        entity.setAmountCents(1000L);
+        return entity;
+    }
+
+    private static Transaction transaction(String id, long date) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setCreditId("card123");
+        transaction.setDate(new Date(date));
+        transaction.setType(Transaction.TypeEnum.PAYMENT);
+        transaction.setAmount(5.0);
+        return transaction;
+    }
+
+    private static List<String> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getTransactionId).toList();
+    }
+}
@@ -0,0 +1,132 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nnt_data.credits_microservice.model.CreditResume;
+import nnt_data.credits_microservice.model.CreditType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedisSecondLevelCacheTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, byte[]> redis;
+
+    @Mock
+    private ReactiveValueOperations<String, byte[]> values;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BsonCacheCodec codec;
+    private RedisSecondLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        codec = new BsonCacheCodec(converter);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RedisSecondLevelCache(redis, codec, Duration.ofMillis(50), Duration.ofMinutes(1),
+                Duration.ofDays(1), "credits:", meterRegistry);
+        when(redis.opsForValue()).thenReturn(values);
+    }
+
+    @Test
+    void shouldReadSeveralKeysWithOneMultiGet() {
+        // Given
+        CreditResume resume = new CreditResume("credit1", CreditType.SIMPLE_CREDIT, 100.0);
+        when(values.multiGet(List.of("credits:report:a", "credits:report:b")))
+                .thenReturn(Mono.just(Arrays.asList(codec.encode(resume), null)));
+
+        // When / Then
+        StepVerifier.create(cache.getAll(List.of("report:a", "report:b"), CreditResume.class))
+                .expectNext(Map.of("report:a", resume))
+                .verifyComplete();
+        assertEquals(1.0, meterRegistry.get("credits.redis-cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("credits.redis-cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void shouldStopUsingRedisForAWhileAfterAnError() {
+        // Given
+        when(values.get(anyString())).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+
+        // When
+        StepVerifier.create(cache.get("credit:credit1", CreditResume.class)).verifyComplete();
+        StepVerifier.create(cache.get("credit:credit1", CreditResume.class)).verifyComplete();
+
+        // Then
+        verify(values, times(1)).get("credits:credit:credit1");
+        assertEquals(1.0, meterRegistry.get("credits.redis-cache.requests").tag("result", "skipped").counter().count());
+    }
+
+    @Test
+    void shouldSendInvalidationsWhileRedisIsMarkedUnavailable() {
+        // Given
+        when(values.get(anyString())).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(redis.delete("credits:credit:credit1")).thenReturn(Mono.just(1L));
+        StepVerifier.create(cache.get("credit:credit1", CreditResume.class)).verifyComplete();
+
+        // When
+        cache.evict("credit:credit1");
+
+        // Then
+        verify(redis).delete("credits:credit:credit1");
+    }
+
+    @Test
+    void shouldClearThePrefixBeforeUsingRedisAgainAfterAFailedInvalidation() {
+        // Given
+        RedisSecondLevelCache noPause = new RedisSecondLevelCache(redis, codec, Duration.ofMillis(50), Duration.ZERO,
+                Duration.ofDays(1), "credits:", meterRegistry);
+        when(redis.delete("credits:credit:credit1")).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(redis.scan(any(ScanOptions.class))).thenReturn(Flux.just("credits:credit:credit1"));
+        when(redis.delete(ArgumentMatchers.<Publisher<String>>any())).thenReturn(Mono.just(1L));
+        when(values.get("credits:credit:credit1")).thenReturn(Mono.empty());
+        noPause.evict("credit:credit1");
+
+        // When
+        StepVerifier.create(noPause.get("credit:credit1", CreditResume.class)).verifyComplete();
+        StepVerifier.create(noPause.get("credit:credit1", CreditResume.class)).verifyComplete();
+
+        // Then
+        verify(redis, times(1)).scan(any(ScanOptions.class));
+        verify(values, times(1)).get("credits:credit:credit1");
+    }
+
+    @Test
+    void shouldTreatSlowRedisAsAMiss() {
+        // Given
+        when(values.get("credits:credit:credit1")).thenReturn(Mono.never());
+
+        // When / Then
+        StepVerifier.create(cache.get("credit:credit1", CreditResume.class)).verifyComplete();
+        assertEquals(1.0, meterRegistry.get("credits.redis-cache.requests").tag("result", "error").counter().count());
+    }
+}
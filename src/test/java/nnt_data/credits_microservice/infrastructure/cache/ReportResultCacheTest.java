@@ -0,0 +1,220 @@
+package nnt_data.credits_microservice.infrastructure.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.model.CreditResume;
+import nnt_data.credits_microservice.model.CreditType;
+import nnt_data.credits_microservice.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReportResultCacheTest {
+
+    private static final LocalDate CLOSED_FROM = LocalDate.of(2024, 3, 1);
+    private static final LocalDate CLOSED_TO = LocalDate.of(2024, 3, 31);
+    private static final BusinessCalendar CALENDAR = new BusinessCalendar("UTC");
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReportResultCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ReportResultCache(new NoOpSecondLevelCache(), CALENDAR, 100, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldServeRepeatedReportsFromMemory() {
+        // When
+        StepVerifier.create(period("credit123", CLOSED_FROM, CLOSED_TO)).expectNext(1.0).verifyComplete();
+        StepVerifier.create(period("credit123", CLOSED_FROM, CLOSED_TO)).expectNext(1.0).verifyComplete();
+
+        // Then
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "credits.report-results")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void shouldKeepClosedPeriodsWhenATransactionIsRecorded() {
+        // Given
+        period("credit123", CLOSED_FROM, CLOSED_TO).block();
+
+        // When
+        cache.onTransactionRecorded(transaction("credit123")).block();
+
+        // Then
+        period("credit123", CLOSED_FROM, CLOSED_TO).block();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldDropOpenPeriodsWhenATransactionIsRecorded() {
+        // Given
+        LocalDate today = CALENDAR.today();
+        period("credit123", today.withDayOfMonth(1), today).block();
+        period("credit456", today.withDayOfMonth(1), today).block();
+
+        // When
+        cache.onTransactionRecorded(transaction("credit123")).block();
+
+        // Then
+        period("credit123", today.withDayOfMonth(1), today).block();
+        period("credit456", today.withDayOfMonth(1), today).block();
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldDropCustomerSummariesThroughTheirCredits() {
+        // Given
+        LocalDate today = CALENDAR.today();
+        summary(today).block();
+
+        // When
+        cache.onTransactionRecorded(transaction("credit456")).block();
+
+        // Then
+        summary(today).block();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotStoreAResultComputedBeforeAnInvalidation() {
+        // Given: el cálculo sigue en curso cuando se actualiza el crédito
+        Sinks.One<Double> pending = Sinks.one();
+        Mono<Double> report = cache.get(ReportResultCache.ReportType.PERIOD_BALANCE, "credit123",
+                CLOSED_FROM, CLOSED_TO, () -> {
+                    loads.incrementAndGet();
+                    return pending.asMono();
+                }, value -> List.of("credit123"));
+        StepVerifier.create(report)
+                .then(() -> {
+                    cache.invalidateCredit("credit123");
+                    pending.tryEmitValue(1.0);
+                })
+                .expectNext(1.0)
+                .verifyComplete();
+
+        // When
+        period("credit123", CLOSED_FROM, CLOSED_TO).block();
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldIgnoreBalanceOnlyCreditChangesFromOtherInstances() {
+        // Given
+        period("credit123", CLOSED_FROM, CLOSED_TO).block();
+
+        // When
+        cache.onCreditChanged("credit123", null, Set.of("availableCreditCents"));
+        period("credit123", CLOSED_FROM, CLOSED_TO).block();
+        cache.onCreditChanged("credit123", null, Set.of("amount"));
+        period("credit123", CLOSED_FROM, CLOSED_TO).block();
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldDropEverythingWhenChangeStreamHistoryIsLost() {
+        // Given
+        period("credit123", CLOSED_FROM, CLOSED_TO).block();
+
+        // When
+        cache.onHistoryLost();
+
+        // Then
+        period("credit123", CLOSED_FROM, CLOSED_TO).block();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldComputeOnlyTheSummariesMissingFromBothLevels() {
+        // Given: cust1 está en memoria, cust2 en SecondLevelCache y cust3 en ninguna
+        SecondLevelCache secondLevelCache = mock(SecondLevelCache.class);
+        cache = new ReportResultCache(secondLevelCache, CALENDAR, 100, meterRegistry);
+        LocalDate today = CALENDAR.today();
+        LocalDate from = today.withDayOfMonth(1);
+        LocalDate to = today.withDayOfMonth(today.lengthOfMonth());
+        List<CreditResume> cust1 = List.of(new CreditResume("credit1", CreditType.SIMPLE_CREDIT, 1.0));
+        List<CreditResume> cust2 = List.of(new CreditResume("credit2", CreditType.SIMPLE_CREDIT, 2.0));
+        List<CreditResume> cust3 = List.of(new CreditResume("credit3", CreditType.CREDIT_CARD, 3.0));
+        when(secondLevelCache.getList(anyString(), eq(CreditResume.class))).thenReturn(Mono.empty());
+        cache.get(ReportResultCache.ReportType.SALARY_SUMMARY, "cust1", from, to, () -> Mono.just(cust1),
+                ReportResultCacheTest::creditIds).block();
+        when(secondLevelCache.getAllLists(anyCollection(), eq(CreditResume.class))).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            return Mono.just(Map.of(keys.stream().filter(key -> key.contains("cust2")).findFirst().orElseThrow(),
+                    cust2));
+        });
+        List<List<String>> loaded = new ArrayList<>();
+
+        // When
+        Map<String, List<CreditResume>> result = cache.<List<CreditResume>>getAll(
+                ReportResultCache.ReportType.SALARY_SUMMARY, List.of("cust1", "cust2", "cust3"), from, to,
+                missing -> {
+                    loaded.add(missing);
+                    return Mono.just(Map.of("cust3", cust3));
+                },
+                ReportResultCacheTest::creditIds).block();
+
+        // Then
+        assertEquals(Map.of("cust1", cust1, "cust2", cust2, "cust3", cust3), result);
+        assertEquals(List.of(List.of("cust3")), loaded);
+        verify(secondLevelCache).put(anyString(), eq(cust3), any(Duration.class),
+                argThat(tags -> Set.copyOf(tags).equals(Set.of("report:credit:credit3", "report:activity:credit3",
+                        "report:customer:cust3"))));
+    }
+
+    private static Collection<String> creditIds(List<CreditResume> resumes) {
+        return resumes.stream().map(CreditResume::getCreditId).toList();
+    }
+
+    private Mono<Double> period(String creditId, LocalDate from, LocalDate to) {
+        return cache.get(ReportResultCache.ReportType.PERIOD_BALANCE, creditId, from, to,
+                () -> Mono.fromCallable(() -> (double) loads.incrementAndGet()),
+                value -> List.of(creditId));
+    }
+
+    private Mono<List<String>> summary(LocalDate today) {
+        return cache.get(ReportResultCache.ReportType.SALARY_SUMMARY, "cust123", today.withDayOfMonth(1),
+                today.withDayOfMonth(today.lengthOfMonth()),
+                () -> Mono.fromCallable(() -> {
+                    loads.incrementAndGet();
+                    return List.of("credit123", "credit456");
+                }),
+                value -> value);
+    }
+
+    private static Transaction transaction(String creditId) {
+        Transaction transaction = new Transaction();
+        transaction.setCreditId(creditId);
+        return transaction;
+    }
+}
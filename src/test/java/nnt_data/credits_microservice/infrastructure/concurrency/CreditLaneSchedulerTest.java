@@ -0,0 +1,167 @@
+package nnt_data.credits_microservice.infrastructure.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CreditLaneSchedulerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private SimpleMeterRegistry meterRegistry;
+    private CreditLaneScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new CreditLaneScheduler(1, TIMEOUT, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void shouldRunOperationsOfSameCreditInSubmissionOrder() {
+        // Given
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+
+        // When
+        Flux<Integer> results = Flux.range(0, 20)
+                .flatMap(i -> scheduler.submit("credit123", () -> Mono.delay(Duration.ofMillis(20 - i))
+                        .doOnNext(tick -> executed.add(i))
+                        .thenReturn(i)));
+
+        // Then
+        StepVerifier.create(results.collectList())
+                .assertNext(values -> assertEquals(20, values.size()))
+                .verifyComplete();
+        assertEquals(Flux.range(0, 20).collectList().block(), executed);
+    }
+
+    @Test
+    void shouldNotBlockOtherLanesWhileOneIsBusy() {
+        // Given
+        CreditLaneScheduler twoLanes = new CreditLaneScheduler(2, TIMEOUT, new SimpleMeterRegistry());
+        Sinks.Empty<Void> gate = Sinks.empty();
+        twoLanes.submit("0", () -> gate.asMono().thenReturn("blocked")).subscribe();
+
+        // When / Then
+        StepVerifier.create(twoLanes.submit("1", () -> Mono.just("free")))
+                .expectNext("free")
+                .verifyComplete();
+
+        gate.tryEmitEmpty();
+        twoLanes.shutdown();
+    }
+
+    @Test
+    void shouldPropagateErrorsAndKeepLaneRunning() {
+        // When / Then
+        StepVerifier.create(scheduler.submit("credit123",
+                        () -> Mono.<String>error(new IllegalArgumentException("Crédito no encontrado"))))
+                .expectErrorMessage("Crédito no encontrado")
+                .verify();
+
+        StepVerifier.create(scheduler.submit("credit123", Mono::<String>empty))
+                .verifyComplete();
+
+        StepVerifier.create(scheduler.submit("credit123", () -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldTimeOutTheCallerButFinishTheTaskBeforeTheNextOne() {
+        // Given
+        CreditLaneScheduler shortTimeout = new CreditLaneScheduler(1, Duration.ofMillis(50),
+                new SimpleMeterRegistry());
+        List<String> executed = new CopyOnWriteArrayList<>();
+        Sinks.Empty<Void> gate = Sinks.empty();
+
+        // When
+        Mono<String> slow = shortTimeout.submit("credit123", () -> gate.asMono()
+                .then(Mono.fromCallable(() -> {
+                    executed.add("slow");
+                    return "slow";
+                })));
+        StepVerifier.create(slow)
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+        Mono<String> next = shortTimeout.submit("credit123", () -> Mono.fromCallable(() -> {
+            executed.add("next");
+            return "next";
+        })).cache();
+        next.subscribe();
+        gate.tryEmitEmpty();
+
+        // Then
+        StepVerifier.create(next)
+                .expectNext("next")
+                .verifyComplete();
+        assertEquals(List.of("slow", "next"), executed);
+
+        shortTimeout.shutdown();
+    }
+
+    @Test
+    void shouldDropQueuedTasksWhoseCallerAlreadyGaveUp() {
+        // Given
+        CreditLaneScheduler shortTimeout = new CreditLaneScheduler(1, Duration.ofMillis(50),
+                new SimpleMeterRegistry());
+        List<String> executed = new CopyOnWriteArrayList<>();
+        Sinks.Empty<Void> gate = Sinks.empty();
+        shortTimeout.submit("credit123", () -> gate.asMono().thenReturn("slow")).subscribe(value -> { }, e -> { });
+
+        // When
+        StepVerifier.create(shortTimeout.submit("credit123", () -> Mono.fromCallable(() -> {
+                    executed.add("queued");
+                    return "queued";
+                })))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+        gate.tryEmitEmpty();
+
+        // Then
+        StepVerifier.create(shortTimeout.submit("credit123", () -> Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+        assertEquals(List.of(), executed);
+
+        shortTimeout.shutdown();
+    }
+
+    @Test
+    void shouldRegisterQueueDepthAndWaitTimeMetricsPerLane() {
+        // When
+        scheduler.submit("credit123", () -> Mono.just("ok")).block();
+
+        // Then
+        assertNotNull(meterRegistry.find("credits.lanes.queue.depth").tag("lane", "0").gauge());
+        assertEquals(0.0, meterRegistry.find("credits.lanes.queue.depth").gauge().value());
+        assertEquals(1L, meterRegistry.find("credits.lanes.wait").tag("lane", "0").timer().count());
+    }
+
+    @Test
+    void shouldRejectInvalidLaneCount() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CreditLaneScheduler(0, TIMEOUT, new SimpleMeterRegistry()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CreditLaneScheduler(1, Duration.ZERO, new SimpleMeterRegistry()));
+    }
+}
@@ -0,0 +1,76 @@
+package nnt_data.credits_microservice.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BusinessCalendarTest {
+
+    @Test
+    void shouldComputeEpochDayInAFixedOffsetZone() {
+        // Given
+        BusinessCalendar calendar = new BusinessCalendar("-05:00");
+
+        // When / Then
+        assertEquals(LocalDate.of(2024, 4, 30).toEpochDay(),
+                calendar.epochDay(Date.from(Instant.parse("2024-05-01T04:59:59Z"))));
+        assertEquals(LocalDate.of(2024, 5, 1).toEpochDay(),
+                calendar.epochDay(Date.from(Instant.parse("2024-05-01T05:00:00Z"))));
+        assertEquals(LocalDate.of(1969, 12, 31).toEpochDay(), calendar.epochDay(0L));
+    }
+
+    @Test
+    void shouldMatchZonedDateTimeInZonesWithDaylightSaving() {
+        // Given
+        ZoneId zone = ZoneId.of("America/Santiago");
+        BusinessCalendar calendar = new BusinessCalendar(zone.getId());
+        Random random = new Random(11);
+
+        for (int i = 0; i < 10_000; i++) {
+            // When
+            long millis = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli() + (long) (random.nextDouble() * 2e11);
+            Date date = new Date(millis);
+
+            // Then
+            assertEquals(date.toInstant().atZone(zone).toLocalDate(), calendar.toLocalDate(date));
+        }
+    }
+
+    @Test
+    void shouldStartTheBusinessDayAtMidnightOfTheZone() {
+        // Given
+        BusinessCalendar calendar = new BusinessCalendar("America/Lima");
+
+        // When
+        Date start = calendar.toDate(LocalDate.of(2024, 4, 30));
+
+        // Then
+        assertEquals(Instant.parse("2024-04-30T05:00:00Z"), start.toInstant());
+        assertEquals(LocalDate.of(2024, 4, 30), calendar.toLocalDate(start));
+        assertEquals(LocalDate.of(2024, 4, 29), calendar.toLocalDate(new Date(start.getTime() - 1)));
+    }
+
+    @Test
+    void shouldPreferTheStoredBusinessDay() {
+        // Given
+        BusinessCalendar calendar = new BusinessCalendar("UTC");
+        Date date = Date.from(Instant.parse("2024-05-01T10:00:00Z"));
+
+        // When / Then
+        assertEquals(19_000L, calendar.businessDay(19_000L, date));
+        assertEquals(LocalDate.of(2024, 5, 1).toEpochDay(), calendar.businessDay(null, date));
+    }
+
+    @Test
+    void shouldRejectUnknownZones() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> new BusinessCalendar("Mars/Olympus"));
+    }
+}
@@ -0,0 +1,56 @@
+package nnt_data.credits_microservice.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionArchiveSettingsTest {
+
+    private static final TransactionStorage DOCUMENT_STORAGE =
+            new TransactionStorage("document", "credit_transaction_ts", "hours");
+    private static final BusinessCalendar CALENDAR = new BusinessCalendar("America/Lima");
+
+    @Test
+    void shouldPlaceTheHorizonAtTheStartOfABusinessMonth() {
+        // Given
+        TransactionArchiveSettings settings = new TransactionArchiveSettings(DOCUMENT_STORAGE, CALENDAR, true,
+                "credit_transaction_archive", 6, "01:00", "05:00");
+
+        // When
+        Date horizon = settings.horizon();
+
+        // Then
+        assertEquals(CALENDAR.currentMonth().minusMonths(6).atDay(1), CALENDAR.toLocalDate(horizon));
+        assertEquals(CALENDAR.toDate(CALENDAR.toLocalDate(horizon)), horizon);
+    }
+
+    @Test
+    void shouldTreatEqualWindowBoundsAsTheWholeDay() {
+        // Given
+        TransactionArchiveSettings settings = new TransactionArchiveSettings(DOCUMENT_STORAGE, CALENDAR, true,
+                "credit_transaction_archive", 12, "00:00", "00:00");
+
+        // Then
+        assertTrue(settings.inWindow());
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        // Given
+        TransactionStorage timeSeries = new TransactionStorage("time-series", "credit_transaction_ts", "hours");
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> new TransactionArchiveSettings(timeSeries, CALENDAR,
+                true, "credit_transaction_archive", 12, "01:00", "05:00"));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionArchiveSettings(DOCUMENT_STORAGE,
+                CALENDAR, true, "credit_transaction_archive", 0, "01:00", "05:00"));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionArchiveSettings(DOCUMENT_STORAGE,
+                CALENDAR, true, "credit_transaction", 12, "01:00", "05:00"));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionArchiveSettings(DOCUMENT_STORAGE,
+                CALENDAR, true, "credit_transaction_archive", 12, "1am", "05:00"));
+    }
+}
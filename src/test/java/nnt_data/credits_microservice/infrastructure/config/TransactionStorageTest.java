@@ -0,0 +1,50 @@
+package nnt_data.credits_microservice.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionStorageTest {
+
+    @Test
+    void shouldUseTheDocumentCollectionByDefault() {
+        // Given
+        TransactionStorage storage = new TransactionStorage("document", "credit_transaction_ts", "hours");
+
+        // Then
+        assertFalse(storage.isTimeSeries());
+        assertEquals("credit_transaction", storage.getCollection());
+    }
+
+    @Test
+    void shouldUseTheTimeSeriesCollectionWithCreditIdAsMetaField() {
+        // Given
+        TransactionStorage storage = new TransactionStorage("time-series", "transactions_ts", "minutes");
+
+        // When
+        CollectionOptions.TimeSeriesOptions options = storage.timeSeriesOptions().getTimeSeriesOptions().orElseThrow();
+
+        // Then
+        assertTrue(storage.isTimeSeries());
+        assertEquals("transactions_ts", storage.getCollection());
+        assertEquals("date", options.getTimeField());
+        assertEquals("creditId", options.getMetaField());
+        assertEquals(Granularity.MINUTES, options.getGranularity());
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionStorage("columnar", "credit_transaction_ts", "hours"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionStorage("time-series", "credit_transaction_ts", "days"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionStorage("time-series", "credit_transaction", "hours"));
+    }
+}
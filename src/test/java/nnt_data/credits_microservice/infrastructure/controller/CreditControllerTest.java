@@ -2,11 +2,14 @@ package nnt_data.credits_microservice.infrastructure.controller;
 
 import nnt_data.credits_microservice.application.port.CreditOperationsPort;
 import nnt_data.credits_microservice.application.port.TransactionOperationsPort;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
 import nnt_data.credits_microservice.model.CreditBase;
 import nnt_data.credits_microservice.model.CreditCard;
 import nnt_data.credits_microservice.model.CustomerType;
 import nnt_data.credits_microservice.model.SimpleCredit;
 import nnt_data.credits_microservice.model.Transaction;
+import nnt_data.credits_microservice.model.TransactionBatchResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,12 +24,15 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.Date;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @ExtendWith(MockitoExtension.class)
 class CreditControllerTest {
@@ -74,11 +80,11 @@ class CreditControllerTest {
     void shouldCreateTransaction() {
         // Given
         Mono<Transaction> transactionMono = Mono.just(transaction);
-        when(transactionOperationsPort.createTransaction(any(Transaction.class)))
+        when(transactionOperationsPort.createTransaction(any(Transaction.class), eq("key-1")))
                 .thenReturn(Mono.just(transaction));
 
         // When
-        Mono<ResponseEntity<Transaction>> result = creditController.createTransaction(transactionMono, exchange);
+        Mono<ResponseEntity<Transaction>> result = creditController.createTransaction(transactionMono, "key-1", exchange);
 
         // Then
         StepVerifier.create(result)
@@ -89,6 +95,28 @@ class CreditControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldCreateTransactionsBatch() {
+        // Given
+        TransactionBatchResult batchResult = new TransactionBatchResult();
+        batchResult.setAccepted(1);
+        batchResult.setRejected(0);
+        when(transactionOperationsPort.createTransactions(List.of(transaction)))
+                .thenReturn(Mono.just(batchResult));
+
+        // When
+        Mono<ResponseEntity<TransactionBatchResult>> result =
+                creditController.createTransactionsBatch(Flux.just(transaction), exchange);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(responseEntity -> {
+                    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+                    assertEquals(batchResult, responseEntity.getBody());
+                })
+                .verifyComplete();
+    }
+
     @Test
     void shouldGetCreditById() {
         // Given
@@ -108,6 +136,23 @@ class CreditControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldPropagateDomainErrorWhenCreditNotFound() {
+        // Given
+        String creditId = "missing";
+        when(creditOperationsPort.getByCreditId(creditId))
+                .thenReturn(DomainException.of(ErrorCode.CREDIT_NOT_FOUND));
+
+        // When
+        Mono<ResponseEntity<CreditBase>> result = creditController.creditsCreditIdGet(creditId, exchange);
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMatches(e -> e instanceof DomainException domainError
+                        && domainError.getCode() == ErrorCode.CREDIT_NOT_FOUND)
+                .verify();
+    }
+
     @Test
     void shouldUpdateCredit() {
         // Given
@@ -131,11 +176,11 @@ class CreditControllerTest {
     @Test
     void shouldGetAllCredits() {
         // Given
-        when(creditOperationsPort.getAllCredits())
+        when(creditOperationsPort.getAllCredits(null, null))
                 .thenReturn(Flux.just(creditCard, simpleCredit));
 
         // When
-        Mono<ResponseEntity<Flux<CreditBase>>> result = creditController.creditsGet(exchange);
+        Mono<ResponseEntity<Flux<CreditBase>>> result = creditController.creditsGet(null, null, exchange);
 
         // Then
         StepVerifier.create(result)
@@ -194,11 +239,11 @@ class CreditControllerTest {
         Transaction transaction2 = new Transaction();
         transaction2.setTransactionId("trans456");
 
-        when(transactionOperationsPort.getTransactions())
+        when(transactionOperationsPort.getTransactions(null, null))
                 .thenReturn(Flux.just(transaction, transaction2));
 
         // When
-        Mono<ResponseEntity<Flux<Transaction>>> result = creditController.getAllTransactions(exchange);
+        Mono<ResponseEntity<Flux<Transaction>>> result = creditController.getAllTransactions(null, null, exchange);
 
         // Then
         StepVerifier.create(result)
@@ -212,6 +257,44 @@ class CreditControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldReturnNextCursorWhenPageIsFull() {
+        // Given
+        Transaction transaction2 = new Transaction();
+        transaction2.setTransactionId("trans456");
+
+        when(transactionOperationsPort.getTransactions("trans000", 2))
+                .thenReturn(Flux.just(transaction, transaction2));
+
+        // When
+        Mono<ResponseEntity<Flux<Transaction>>> result = creditController.getAllTransactions(2, "trans000", exchange);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(responseEntity -> {
+                    assertEquals("trans456", responseEntity.getHeaders().getFirst("X-Next-Cursor"));
+                    StepVerifier.create(responseEntity.getBody())
+                            .expectNextCount(2)
+                            .verifyComplete();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldOmitNextCursorOnLastPage() {
+        // Given
+        when(creditOperationsPort.getAllCredits(null, 5))
+                .thenReturn(Flux.just(creditCard, simpleCredit));
+
+        // When
+        Mono<ResponseEntity<Flux<CreditBase>>> result = creditController.creditsGet(5, null, exchange);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(responseEntity -> assertNull(responseEntity.getHeaders().getFirst("X-Next-Cursor")))
+                .verifyComplete();
+    }
+
     @Test
     void shouldGetTransactionsByCreditId() {
         // Given
@@ -0,0 +1,57 @@
+package nnt_data.credits_microservice.infrastructure.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GlobalExceptionHandlerTest {
+
+    private GlobalExceptionHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new GlobalExceptionHandler(new ObjectMapper());
+    }
+
+    @Test
+    void shouldReusePreSerializedResponseForCodeMessages() {
+        // When
+        ResponseEntity<byte[]> first = handler.handleDomainException(new DomainException(ErrorCode.INSUFFICIENT_CREDIT))
+                .block();
+        ResponseEntity<byte[]> second = handler.handleDomainException(new DomainException(ErrorCode.INSUFFICIENT_CREDIT))
+                .block();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(HttpStatus.BAD_REQUEST, first.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, first.getHeaders().getContentType());
+        assertEquals("{\"code\":\"INSUFFICIENT_CREDIT\",\"status\":400,\"error\":\"Bad Request\","
+                        + "\"message\":\"Crédito disponible insuficiente\"}",
+                new String(first.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldMapCodeToStatusAndKeepCustomMessages() {
+        // When
+        ResponseEntity<byte[]> notFound = handler.handleDomainException(new DomainException(ErrorCode.CREDIT_NOT_FOUND))
+                .block();
+        ResponseEntity<byte[]> custom = handler.handleDomainException(new DomainException(
+                ErrorCode.INVALID_CUSTOMER_TYPE, "Tipo de cliente no soportado: OTHER")).block();
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, notFound.getStatusCode());
+        assertEquals("{\"code\":\"INVALID_CUSTOMER_TYPE\",\"status\":400,\"error\":\"Bad Request\","
+                        + "\"message\":\"Tipo de cliente no soportado: OTHER\"}",
+                new String(custom.getBody(), StandardCharsets.UTF_8));
+    }
+}
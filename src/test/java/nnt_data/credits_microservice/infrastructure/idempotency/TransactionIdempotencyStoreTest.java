@@ -0,0 +1,248 @@
+package nnt_data.credits_microservice.infrastructure.idempotency;
+
+import nnt_data.credits_microservice.domain.error.DomainException;
+import nnt_data.credits_microservice.domain.error.ErrorCode;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.IdempotencyRecordEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.persistence.mapper.TransactionMapperImpl;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.IdempotencyRecordRepository;
+import nnt_data.credits_microservice.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionIdempotencyStoreTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private TransactionIdempotencyStore store;
+
+    private Transaction request;
+    private Transaction registered;
+
+    @BeforeEach
+    void setUp() {
+        store = new TransactionIdempotencyStore(idempotencyRecordRepository,
+                new TransactionMapperImpl(new BusinessCalendar("UTC")), Duration.ofHours(1), 100);
+
+        request = new Transaction();
+        request.setCreditId("credit123");
+        request.setType(Transaction.TypeEnum.SPENT);
+        request.setAmount(100.0);
+
+        registered = new Transaction();
+        registered.setTransactionId("tx1");
+        registered.setCreditId("credit123");
+        registered.setType(Transaction.TypeEnum.SPENT);
+        registered.setAmount(100.0);
+    }
+
+    @Test
+    void shouldRunOnceAndReplayFromMemory() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.save(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When
+        Mono<Transaction> first = store.execute("key-1", request,
+                () -> Mono.fromSupplier(() -> {
+                    executions.incrementAndGet();
+                    return registered;
+                }));
+
+        // Then
+        StepVerifier.create(first).expectNext(registered).verifyComplete();
+        StepVerifier.create(store.execute("key-1", request, () -> Mono.error(new IllegalStateException())))
+                .expectNext(registered)
+                .verifyComplete();
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void shouldCollapseConcurrentDuplicates() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        Sinks.One<Transaction> pending = Sinks.one();
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.save(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When
+        Mono<List<Transaction>> results = Flux.range(0, 5)
+                .flatMap(i -> store.execute("key-1", request, () -> {
+                    executions.incrementAndGet();
+                    return pending.asMono();
+                }))
+                .collectList();
+
+        // Then
+        StepVerifier.create(results)
+                .then(() -> pending.tryEmitValue(registered))
+                .assertNext(list -> assertEquals(5, list.size()))
+                .verifyComplete();
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void shouldReplayCompletedRecordFromMongo() {
+        // Given
+        TransactionEntity entity = new TransactionEntity();
+        entity.setTransactionId("tx1");
+        entity.setCreditId("credit123");
+        entity.setType(Transaction.TypeEnum.SPENT);
+        entity.setAmountCents(10000L);
+        IdempotencyRecordEntity record = new IdempotencyRecordEntity();
+        record.setKey("key-1");
+        record.setFingerprint("credit123|spent|100.0");
+        record.setStatus(IdempotencyRecordEntity.COMPLETED);
+        record.setTransaction(entity);
+
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Mono.just(record));
+
+        // When / Then
+        StepVerifier.create(store.execute("key-1", request, () -> Mono.error(new IllegalStateException())))
+                .assertNext(transaction -> assertEquals("tx1", transaction.getTransactionId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectKeyStillPendingInAnotherInstance() {
+        // Given
+        IdempotencyRecordEntity record = new IdempotencyRecordEntity();
+        record.setKey("key-1");
+        record.setStatus(IdempotencyRecordEntity.PENDING);
+
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Mono.just(record));
+
+        // When / Then
+        StepVerifier.create(store.execute("key-1", request, () -> Mono.just(registered)))
+                .expectErrorMessage("La solicitud con esta Idempotency-Key aún está en proceso")
+                .verify();
+    }
+
+    @Test
+    void shouldReleaseKeyWhenOperationIsRejected() {
+        // Given
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.deleteById("key-1")).thenReturn(Mono.empty());
+
+        // When / Then
+        StepVerifier.create(store.execute("key-1", request,
+                        () -> DomainException.of(ErrorCode.INSUFFICIENT_CREDIT)))
+                .expectErrorMessage("Crédito disponible insuficiente")
+                .verify();
+
+        verify(idempotencyRecordRepository).deleteById("key-1");
+        verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecordEntity.class));
+    }
+
+    @Test
+    void shouldKeepKeyWhenWriterFailsAfterValidation() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        IdempotencyRecordEntity pending = new IdempotencyRecordEntity();
+        pending.setKey("key-1");
+        pending.setStatus(IdempotencyRecordEntity.PENDING);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Mono.just(pending));
+
+        // When
+        Mono<Transaction> first = store.execute("key-1", request, () -> Mono.defer(() -> {
+            executions.incrementAndGet();
+            return Mono.error(new IllegalStateException("Error al insertar un lote de 1 transacciones"));
+        }));
+
+        // Then
+        StepVerifier.create(first)
+                .expectErrorMessage("Error al insertar un lote de 1 transacciones")
+                .verify();
+        StepVerifier.create(store.execute("key-1", request, () -> Mono.fromSupplier(() -> {
+                    executions.incrementAndGet();
+                    return registered;
+                })))
+                .expectErrorMessage("La solicitud con esta Idempotency-Key aún está en proceso")
+                .verify();
+        assertEquals(1, executions.get());
+        verify(idempotencyRecordRepository, never()).deleteById("key-1");
+    }
+
+    @Test
+    void shouldKeepKeyWhenCompletionCannotBeSaved() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.save(any(IdempotencyRecordEntity.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("write conflict")));
+
+        // When
+        Mono<Transaction> first = store.execute("key-1", request,
+                () -> Mono.fromSupplier(() -> {
+                    executions.incrementAndGet();
+                    return registered;
+                }));
+
+        // Then
+        StepVerifier.create(first).expectNext(registered).verifyComplete();
+        StepVerifier.create(store.execute("key-1", request, () -> Mono.fromSupplier(() -> {
+                    executions.incrementAndGet();
+                    return registered;
+                })))
+                .expectNext(registered)
+                .verifyComplete();
+        assertEquals(1, executions.get());
+        verify(idempotencyRecordRepository, never()).deleteById("key-1");
+        verify(idempotencyRecordRepository, never()).findById("key-1");
+    }
+
+    @Test
+    void shouldRejectKeyReusedWithDifferentPayload() {
+        // Given
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.save(any(IdempotencyRecordEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        store.execute("key-1", request, () -> Mono.just(registered)).block();
+
+        Transaction other = new Transaction();
+        other.setCreditId("credit123");
+        other.setType(Transaction.TypeEnum.SPENT);
+        other.setAmount(999.0);
+
+        // When / Then
+        StepVerifier.create(store.execute("key-1", other, () -> Mono.just(registered)))
+                .expectErrorMessage("La Idempotency-Key ya fue usada con una transacción distinta")
+                .verify();
+    }
+}
@@ -0,0 +1,186 @@
+package nnt_data.credits_microservice.infrastructure.persistence.changestream;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import nnt_data.credits_microservice.infrastructure.cache.CacheCoherenceListener;
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.ResumeTokenEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.ResumeTokenRepository;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeStreamCoherenceListenerTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ResumeTokenRepository resumeTokenRepository;
+
+    @Mock
+    private CacheCoherenceListener cacheListener;
+
+    private ChangeStreamCoherenceListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new ChangeStreamCoherenceListener(mongoTemplate, resumeTokenRepository, List.of(cacheListener),
+                new TransactionStorage("document", "credit_transaction_ts", "hours"), "instance-1", Duration.ofMillis(10));
+    }
+
+    @Test
+    void shouldRejectTimeSeriesTransactionStorage() {
+        // When / Then: MongoDB no abre change streams sobre colecciones time-series
+        assertThrows(IllegalArgumentException.class, () -> new ChangeStreamCoherenceListener(mongoTemplate,
+                resumeTokenRepository, List.of(cacheListener),
+                new TransactionStorage("time-series", "credit_transaction_ts", "hours"), "instance-1",
+                Duration.ofMillis(10)));
+    }
+
+    @Test
+    void shouldDispatchCreditUpdateAndSaveResumeToken() {
+        // Given
+        CreditBaseEntity credit = new CreditBaseEntity();
+        credit.setCreditId("credit123");
+        ChangeStreamEvent<CreditBaseEntity> event = event(OperationType.UPDATE, new BsonString("credit123"),
+                credit, new UpdateDescription(List.of(), new BsonDocument("availableCreditCents", new BsonInt32(1000))));
+        when(resumeTokenRepository.findById("instance-1:credits")).thenReturn(Mono.empty());
+        when(mongoTemplate.changeStream(eq("credits"), any(ChangeStreamOptions.class), eq(CreditBaseEntity.class)))
+                .thenReturn(Flux.just(event));
+        when(resumeTokenRepository.save(any(ResumeTokenEntity.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When
+        StepVerifier.create(listener.watch("credits", CreditBaseEntity.class, false, listener::dispatchCredit))
+                .verifyComplete();
+
+        // Then
+        verify(cacheListener).onCreditChanged("credit123", credit, Set.of("availableCreditCents"));
+        ArgumentCaptor<ResumeTokenEntity> saved = ArgumentCaptor.forClass(ResumeTokenEntity.class);
+        verify(resumeTokenRepository).save(saved.capture());
+        assertEquals("instance-1:credits", saved.getValue().getStreamId());
+        assertEquals(token().toJson(), saved.getValue().getToken());
+    }
+
+    @Test
+    void shouldResumeAfterStoredToken() {
+        // Given
+        ResumeTokenEntity stored = new ResumeTokenEntity();
+        stored.setStreamId("instance-1:credit_transaction");
+        stored.setToken(token().toJson());
+        when(resumeTokenRepository.findById("instance-1:credit_transaction")).thenReturn(Mono.just(stored));
+        when(mongoTemplate.changeStream(eq("credit_transaction"), any(ChangeStreamOptions.class),
+                eq(TransactionEntity.class))).thenReturn(Flux.empty());
+
+        // When
+        StepVerifier.create(listener.watch("credit_transaction", TransactionEntity.class, true,
+                        listener::dispatchTransaction))
+                .verifyComplete();
+
+        // Then
+        ArgumentCaptor<ChangeStreamOptions> options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+        verify(mongoTemplate).changeStream(eq("credit_transaction"), options.capture(), eq(TransactionEntity.class));
+        assertEquals(token(), options.getValue().getResumeToken().orElseThrow());
+        assertTrue(options.getValue().isStartAfter());
+        assertTrue(options.getValue().getFilter().isPresent());
+    }
+
+    @Test
+    void shouldDropTokenAndNotifyListenersWhenHistoryIsLost() {
+        // Given
+        MongoException historyLost = new MongoException(286, "Resume of change stream was not possible");
+        when(resumeTokenRepository.findById("instance-1:credits")).thenReturn(Mono.empty());
+        when(mongoTemplate.changeStream(eq("credits"), any(ChangeStreamOptions.class), eq(CreditBaseEntity.class)))
+                .thenReturn(Flux.error(historyLost));
+        when(resumeTokenRepository.deleteById("instance-1:credits")).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(listener.watch("credits", CreditBaseEntity.class, false, listener::dispatchCredit))
+                .expectErrorMatches(error -> error == historyLost)
+                .verify();
+
+        // Then
+        verify(resumeTokenRepository).deleteById("instance-1:credits");
+        verify(cacheListener).onHistoryLost();
+    }
+
+    @Test
+    void shouldDispatchMonthlyBalanceChangeWithItsCreditId() {
+        // Given
+        ChangeStreamEvent<MonthlyBalanceEntity> event = event(OperationType.UPDATE,
+                new BsonString("credit123:2024-05"), new MonthlyBalanceEntity(), null);
+
+        // When
+        listener.dispatchMonthlyBalance(event);
+
+        // Then
+        verify(cacheListener).onMonthlyBalanceChanged("credit123");
+    }
+
+    @Test
+    void shouldTreatInvalidateEventAsLostHistory() {
+        // Given
+        ChangeStreamEvent<CreditBaseEntity> event = event(OperationType.INVALIDATE, null, null, null);
+
+        // When
+        listener.dispatchCredit(event);
+
+        // Then
+        verify(cacheListener).onHistoryLost();
+        verify(cacheListener, never()).onCreditChanged(any(), any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ChangeStreamEvent<T> event(OperationType operationType, BsonValue id, T body,
+                                                  UpdateDescription updateDescription) {
+        ChangeStreamEvent<T> event = mock(ChangeStreamEvent.class);
+        ChangeStreamDocument<Document> raw = mock(ChangeStreamDocument.class);
+        lenient().when(event.getOperationType()).thenReturn(operationType);
+        lenient().when(event.getRaw()).thenReturn(raw);
+        lenient().when(event.getBody()).thenReturn(body);
+        lenient().when(event.getResumeToken()).thenReturn(token());
+        lenient().when(raw.getDocumentKey()).thenReturn(id == null ? null : new BsonDocument("_id", id));
+        lenient().when(raw.getUpdateDescription()).thenReturn(updateDescription);
+        return event;
+    }
+
+    private static BsonDocument token() {
+        return new BsonDocument("_data", new BsonString("8264A1"));
+    }
+}
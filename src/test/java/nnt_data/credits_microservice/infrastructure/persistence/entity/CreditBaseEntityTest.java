@@ -23,11 +23,11 @@ public class CreditBaseEntityTest {
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("creditId")), "Debe tener un campo creditId");
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("customerId")), "Debe tener un campo customerId");
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("customerType")), "Debe tener un campo customerType");
-        assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("amount")), "Debe tener un campo amount");
+        assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("amountCents")), "Debe tener un campo amountCents");
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("type")), "Debe tener un campo type");
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("cardNumber")), "Debe tener un campo cardNumber");
-        assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("availableCredit")), "Debe tener un campo availableCredit");
-        assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("amountPaid")), "Debe tener un campo amountPaid");
+        assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("availableCreditCents")), "Debe tener un campo availableCreditCents");
+        assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("amountPaidCents")), "Debe tener un campo amountPaidCents");
     }
 
     @Test
@@ -54,11 +54,11 @@ public class CreditBaseEntityTest {
         assertNull(entity.getCreditId());
         assertNull(entity.getCustomerId());
         assertNull(entity.getCustomerType());
-        assertNull(entity.getAmount());
+        assertEquals(0L, entity.getAmountCents());
         assertNull(entity.getType());
         assertNull(entity.getCardNumber());
-        assertNull(entity.getAvailableCredit());
-        assertNull(entity.getAmountPaid());
+        assertEquals(0L, entity.getAvailableCreditCents());
+        assertEquals(0L, entity.getAmountPaidCents());
     }
 
     @Test
@@ -69,21 +69,21 @@ public class CreditBaseEntityTest {
         entity.setCreditId("credit123");
         entity.setCustomerId("customer456");
         entity.setCustomerType(CustomerType.PERSONAL);
-        entity.setAmount(5000.0);
+        entity.setAmountCents(500000L);
         entity.setType(CreditType.CREDIT_CARD);
         entity.setCardNumber("1234567890123456");
-        entity.setAvailableCredit(4000.0);
-        entity.setAmountPaid(1000.0);
+        entity.setAvailableCreditCents(400000L);
+        entity.setAmountPaidCents(100000L);
 
         // Verificar que los valores se hayan establecido correctamente
         assertEquals("credit123", entity.getCreditId());
         assertEquals("customer456", entity.getCustomerId());
         assertEquals(CustomerType.PERSONAL, entity.getCustomerType());
-        assertEquals(5000.0, entity.getAmount());
+        assertEquals(500000L, entity.getAmountCents());
         assertEquals(CreditType.CREDIT_CARD, entity.getType());
         assertEquals("1234567890123456", entity.getCardNumber());
-        assertEquals(4000.0, entity.getAvailableCredit());
-        assertEquals(1000.0, entity.getAmountPaid());
+        assertEquals(400000L, entity.getAvailableCreditCents());
+        assertEquals(100000L, entity.getAmountPaidCents());
     }
 
     @Test
@@ -94,28 +94,28 @@ public class CreditBaseEntityTest {
         entity1.setCreditId("credit123");
         entity1.setCustomerId("customer456");
         entity1.setCustomerType(CustomerType.PERSONAL);
-        entity1.setAmount(5000.0);
+        entity1.setAmountCents(500000L);
         entity1.setType(CreditType.CREDIT_CARD);
         entity1.setCardNumber("1234567890123456");
-        entity1.setAvailableCredit(4000.0);
-        entity1.setAmountPaid(1000.0);
+        entity1.setAvailableCreditCents(400000L);
+        entity1.setAmountPaidCents(100000L);
 
         CreditBaseEntity entity2 = new CreditBaseEntity();
         entity2.setCreditId("credit123");
         entity2.setCustomerId("customer456");
         entity2.setCustomerType(CustomerType.PERSONAL);
-        entity2.setAmount(5000.0);
+        entity2.setAmountCents(500000L);
         entity2.setType(CreditType.CREDIT_CARD);
         entity2.setCardNumber("1234567890123456");
-        entity2.setAvailableCredit(4000.0);
-        entity2.setAmountPaid(1000.0);
+        entity2.setAvailableCreditCents(400000L);
+        entity2.setAmountPaidCents(100000L);
 
         // Crear una instancia con valores diferentes
         CreditBaseEntity entity3 = new CreditBaseEntity();
         entity3.setCreditId("credit789");
         entity3.setCustomerId("customer456");
         entity3.setCustomerType(CustomerType.BUSINESS);
-        entity3.setAmount(10000.0);
+        entity3.setAmountCents(1000000L);
         entity3.setType(CreditType.SIMPLE_CREDIT);
 
         // Verificar equals y hashCode
@@ -1,10 +1,13 @@
 package nnt_data.credits_microservice.infrastructure.persistence.entity;
 
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
 import nnt_data.credits_microservice.model.Transaction;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
@@ -23,7 +26,7 @@ public class TransactionEntityTest {
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("transactionId")), "Debe tener un campo transactionId");
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("date")), "Debe tener un campo date");
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("type")), "Debe tener un campo type");
-        assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("amount")), "Debe tener un campo amount");
+        assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("amountCents")), "Debe tener un campo amountCents");
         assertTrue(Arrays.stream(fields).anyMatch(field -> field.getName().equals("creditId")), "Debe tener un campo creditId");
     }
 
@@ -32,7 +35,18 @@ public class TransactionEntityTest {
     void shouldHaveDocumentAnnotationWithCorrectCollectionName() {
         Document annotation = TransactionEntity.class.getAnnotation(Document.class);
         assertNotNull(annotation, "La clase debe tener la anotación @Document");
-        assertEquals("credit_transaction", annotation.collection(), "La colección debe llamarse 'credit_transaction'");
+        assertEquals("credit_transaction", collectionFor("document"), "La colección debe llamarse 'credit_transaction'");
+        assertEquals("credit_transaction_ts", collectionFor("time-series"),
+                "En modo time-series debe usar la colección time-series");
+    }
+
+    private static String collectionFor(String storage) {
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("transactionStorage",
+                new TransactionStorage(storage, "credit_transaction_ts", "hours"));
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setApplicationContext(context);
+        return mappingContext.getRequiredPersistentEntity(TransactionEntity.class).getCollection();
     }
 
     @Test
@@ -51,7 +65,7 @@ public class TransactionEntityTest {
         assertNull(entity.getTransactionId());
         assertNull(entity.getDate());
         assertNull(entity.getType());
-        assertNull(entity.getAmount());
+        assertEquals(0L, entity.getAmountCents());
         assertNull(entity.getCreditId());
     }
 
@@ -66,14 +80,14 @@ public class TransactionEntityTest {
         entity.setTransactionId("trans123");
         entity.setDate(testDate);
         entity.setType(Transaction.TypeEnum.SPENT);
-        entity.setAmount(500.0);
+        entity.setAmountCents(50000L);
         entity.setCreditId("credit456");
 
         // Verificar que los valores se hayan establecido correctamente
         assertEquals("trans123", entity.getTransactionId());
         assertEquals(testDate, entity.getDate());
         assertEquals(Transaction.TypeEnum.SPENT, entity.getType());
-        assertEquals(500.0, entity.getAmount());
+        assertEquals(50000L, entity.getAmountCents());
         assertEquals("credit456", entity.getCreditId());
     }
 
@@ -88,14 +102,14 @@ public class TransactionEntityTest {
         entity1.setTransactionId("trans123");
         entity1.setDate(testDate);
         entity1.setType(Transaction.TypeEnum.SPENT);
-        entity1.setAmount(500.0);
+        entity1.setAmountCents(50000L);
         entity1.setCreditId("credit456");
 
         TransactionEntity entity2 = new TransactionEntity();
         entity2.setTransactionId("trans123");
         entity2.setDate(testDate);
         entity2.setType(Transaction.TypeEnum.SPENT);
-        entity2.setAmount(500.0);
+        entity2.setAmountCents(50000L);
         entity2.setCreditId("credit456");
 
         // Crear una instancia con valores diferentes
@@ -103,7 +117,7 @@ public class TransactionEntityTest {
         entity3.setTransactionId("trans789");
         entity3.setDate(new Date(testDate.getTime() + 1000));
         entity3.setType(Transaction.TypeEnum.PAYMENT);
-        entity3.setAmount(1000.0);
+        entity3.setAmountCents(100000L);
         entity3.setCreditId("credit456");
 
         // Verificar equals y hashCode
@@ -133,12 +147,12 @@ public class TransactionEntityTest {
         TransactionEntity entity = new TransactionEntity();
 
         // Establecer monto positivo
-        entity.setAmount(500.0);
-        assertEquals(500.0, entity.getAmount());
+        entity.setAmountCents(50000L);
+        assertEquals(50000L, entity.getAmountCents());
 
         // Establecer monto negativo
-        entity.setAmount(-300.0);
-        assertEquals(-300.0, entity.getAmount());
+        entity.setAmountCents(-30000L);
+        assertEquals(-30000L, entity.getAmountCents());
     }
 
     @Test
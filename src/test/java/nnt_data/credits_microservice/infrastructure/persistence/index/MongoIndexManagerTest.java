@@ -0,0 +1,187 @@
+package nnt_data.credits_microservice.infrastructure.persistence.index;
+
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
+import nnt_data.credits_microservice.infrastructure.config.TransactionArchiveSettings;
+import nnt_data.credits_microservice.infrastructure.config.TransactionStorage;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MongoIndexManagerTest {
+
+    private static final TransactionStorage DOCUMENT_STORAGE =
+            new TransactionStorage("document", "credit_transaction_ts", "hours");
+    private static final BusinessCalendar CALENDAR = new BusinessCalendar("UTC");
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ReactiveIndexOperations transactionIndexes;
+
+    @Mock
+    private ReactiveIndexOperations creditIndexes;
+
+    @Mock
+    private ReactiveIndexOperations idempotencyIndexes;
+
+    @Mock
+    private ReactiveIndexOperations monthlyBalanceIndexes;
+
+    private MongoIndexManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new MongoIndexManager(mongoTemplate, new IndexCatalog(Duration.ofHours(24), DOCUMENT_STORAGE,
+                archive(DOCUMENT_STORAGE, false)), true);
+        lenient().when(mongoTemplate.indexOps("credit_transaction")).thenReturn(transactionIndexes);
+        lenient().when(mongoTemplate.indexOps("credits")).thenReturn(creditIndexes);
+        lenient().when(mongoTemplate.indexOps("idempotency_keys")).thenReturn(idempotencyIndexes);
+        lenient().when(mongoTemplate.indexOps("monthly_balances")).thenReturn(monthlyBalanceIndexes);
+    }
+
+    @Test
+    void shouldCreateMissingIndexesAndReportExistingOnes() {
+        // Given
+        when(transactionIndexes.getIndexInfo()).thenReturn(Flux.just(
+                index("{ name: '_id_', key: { _id: 1 } }"),
+                index("{ name: 'creditId_1_date_-1', key: { creditId: 1, date: -1 } }")));
+        when(creditIndexes.getIndexInfo()).thenReturn(Flux.just(index("{ name: '_id_', key: { _id: 1 } }")));
+        when(creditIndexes.ensureIndex(any(IndexDefinition.class)))
+                .thenAnswer(invocation -> Mono.just(((IndexDefinition) invocation.getArgument(0))
+                        .getIndexOptions().getString("name")));
+        when(idempotencyIndexes.getIndexInfo()).thenReturn(Flux.just(
+                index("{ name: 'createdAt_1', key: { createdAt: 1 }, expireAfterSeconds: 86400 }")));
+        when(monthlyBalanceIndexes.getIndexInfo()).thenReturn(Flux.just(
+                index("{ name: 'creditId_1', key: { creditId: 1 } }")));
+
+        // When / Then
+        StepVerifier.create(manager.reconcile(true).collectMap(IndexStatus::name, Function.identity()))
+                .assertNext(statuses -> {
+                    assertEquals(IndexStatus.State.PRESENT, statuses.get("creditId_1_date_-1").state());
+                    assertEquals(IndexStatus.State.CREATED, statuses.get("customerId_1").state());
+                    assertEquals(IndexStatus.State.CREATED, statuses.get("cardNumber_1").state());
+                    assertEquals(IndexStatus.State.CREATED, statuses.get("customerId_1_type_1").state());
+                    assertEquals(IndexStatus.State.CREATED, statuses.get(IndexCatalog.PERSONAL_SIMPLE_CREDIT).state());
+                    assertEquals(IndexStatus.State.PRESENT, statuses.get("createdAt_1").state());
+                    assertEquals(IndexStatus.State.PRESENT, statuses.get("creditId_1").state());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldReportDriftAndUnmanagedIndexesWithoutChangingThem() {
+        // Given
+        when(transactionIndexes.getIndexInfo()).thenReturn(Flux.just(
+                index("{ name: 'creditId_1', key: { creditId: 1 } }")));
+        when(creditIndexes.getIndexInfo()).thenReturn(Flux.just(
+                index("{ name: 'cardNumber_1', key: { cardNumber: 1 } }")));
+        when(idempotencyIndexes.getIndexInfo()).thenReturn(Flux.just(
+                index("{ name: 'createdAt_1', key: { createdAt: 1 }, expireAfterSeconds: 60 }")));
+        when(monthlyBalanceIndexes.getIndexInfo()).thenReturn(Flux.empty());
+
+        // When
+        Map<String, IndexStatus> statuses = manager.reconcile(false).collectList().block().stream()
+                .filter(status -> !"monthly_balances".equals(status.collection()))
+                .collect(Collectors.toMap(IndexStatus::name, Function.identity()));
+
+        // Then
+        assertEquals(IndexStatus.State.MISSING, statuses.get("creditId_1_date_-1").state());
+        assertEquals(IndexStatus.State.UNMANAGED, statuses.get("creditId_1").state());
+        assertEquals(IndexStatus.State.DRIFT, statuses.get("cardNumber_1").state());
+        assertEquals("unique esperado true; sparse esperado true", statuses.get("cardNumber_1").detail());
+        assertEquals(IndexStatus.State.DRIFT, statuses.get("createdAt_1").state());
+        verify(creditIndexes, never()).ensureIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    void shouldListEveryRepositoryQueryAgainstADeclaredIndex() {
+        // Given
+        List<IndexCatalog> catalogs = List.of(
+                new IndexCatalog(Duration.ofHours(24), DOCUMENT_STORAGE, archive(DOCUMENT_STORAGE, false)),
+                new IndexCatalog(Duration.ofHours(24), DOCUMENT_STORAGE, archive(DOCUMENT_STORAGE, true)));
+
+        // Then
+        catalogs.forEach(catalog -> {
+            List<String> declared = catalog.getIndexes().stream().map(ManagedIndex::name).toList();
+            catalog.getQueries().forEach(query -> assertTrue(
+                    IndexCatalog.ID_INDEX.equals(query.index()) || declared.contains(query.index()),
+                    query.query() + " usa un índice no declarado"));
+        });
+    }
+
+    @Test
+    void shouldDeclareTheArchiveIndexesOnlyWhenArchivingIsEnabled() {
+        // Given
+        IndexCatalog disabled = new IndexCatalog(Duration.ofHours(24), DOCUMENT_STORAGE,
+                archive(DOCUMENT_STORAGE, false));
+        IndexCatalog enabled = new IndexCatalog(Duration.ofHours(24), DOCUMENT_STORAGE,
+                archive(DOCUMENT_STORAGE, true));
+
+        // Then
+        assertTrue(disabled.getIndexes().stream().noneMatch(index ->
+                "credit_transaction_archive".equals(index.collection()) || "date_1".equals(index.name())));
+        assertTrue(enabled.getIndexes().stream().anyMatch(index ->
+                "credit_transaction".equals(index.collection()) && "date_1".equals(index.name())));
+        assertTrue(enabled.getIndexes().stream().anyMatch(index ->
+                "credit_transaction_archive".equals(index.collection()) && "creditId_1_month_1".equals(index.name())));
+        assertTrue(enabled.getQueries().stream().anyMatch(query ->
+                "TransactionRepository.findByCreditIdAndDateBetweenOrderByDateAsc".equals(query.query())
+                        && "credit_transaction_archive".equals(query.collection())));
+    }
+
+    @Test
+    void shouldDeclareTheTimeSeriesCollectionAndItsIndexesInTimeSeriesMode() {
+        // Given
+        TransactionStorage timeSeries = new TransactionStorage("time-series", "credit_transaction_ts", "hours");
+        IndexCatalog catalog = new IndexCatalog(Duration.ofHours(24), timeSeries, archive(timeSeries, false));
+
+        // Then
+        assertEquals(List.of("credit_transaction_ts"),
+                catalog.getCollections().stream().map(ManagedCollection::name).toList());
+        assertTrue(catalog.getCollections().get(0).options().getTimeSeriesOptions().isPresent());
+        assertTrue(catalog.getIndexes().stream().anyMatch(index ->
+                "credit_transaction_ts".equals(index.collection()) && "creditId_1_date_-1".equals(index.name())));
+        assertTrue(catalog.getIndexes().stream().noneMatch(index -> "credit_transaction".equals(index.collection())));
+        catalog.getQueries().stream()
+                .filter(query -> query.query().startsWith("TransactionRepository."))
+                .forEach(query -> assertEquals("credit_transaction_ts", query.collection(), query.query()));
+        assertEquals(IndexCatalog.NO_INDEX, catalog.getQueries().stream()
+                .filter(query -> query.query().equals("TransactionRepository.findPageAfter"))
+                .findFirst().orElseThrow().index());
+    }
+
+    private static TransactionArchiveSettings archive(TransactionStorage storage, boolean enabled) {
+        return new TransactionArchiveSettings(storage, CALENDAR, enabled, "credit_transaction_archive", 12,
+                "01:00", "05:00");
+    }
+
+    private static IndexInfo index(String json) {
+        return IndexInfo.indexInfoOf(Document.parse(json));
+    }
+}
@@ -45,10 +45,10 @@ public class CreditMapperImplTest {
                     assertEquals("67f5d57d8b55cc2565fc7bf7", entity.getCreditId());
                     assertEquals("87eab397a6084a54ea0103fb", entity.getCustomerId());
                     assertEquals(CustomerType.BUSINESS, entity.getCustomerType());
-                    assertEquals(122, entity.getAmount());
+                    assertEquals(12200L, entity.getAmountCents());
                     assertEquals(CreditType.CREDIT_CARD, entity.getType());
                     assertEquals("123455674", entity.getCardNumber());
-                    assertEquals(122, entity.getAvailableCredit());
+                    assertEquals(12200L, entity.getAvailableCreditCents());
                 })
                 .verifyComplete();
     }
@@ -74,11 +74,11 @@ public class CreditMapperImplTest {
                     assertEquals("simple123", entity.getCreditId());
                     assertEquals("customer789", entity.getCustomerId());
                     assertEquals(CustomerType.BUSINESS, entity.getCustomerType());
-                    assertEquals(10000.0, entity.getAmount());
+                    assertEquals(1000000L, entity.getAmountCents());
                     assertEquals(CreditType.SIMPLE_CREDIT, entity.getType());
                     assertNull(entity.getCardNumber());
-                    assertNull(entity.getAvailableCredit());
-                    assertEquals(2000.0, entity.getAmountPaid());
+                    assertEquals(0L, entity.getAvailableCreditCents());
+                    assertEquals(200000L, entity.getAmountPaidCents());
                 })
                 .verifyComplete();
     }
@@ -91,11 +91,11 @@ public class CreditMapperImplTest {
         entity.setCreditId("card123");
         entity.setCustomerId("customer456");
         entity.setCustomerType(CustomerType.PERSONAL);
-        entity.setAmount(5000.0);
+        entity.setAmountCents(500000L);
         entity.setType(CreditType.CREDIT_CARD);
         entity.setCardNumber("1234567890123456");
-        entity.setAvailableCredit(4500.0);
-        entity.setAmountPaid(500.0);
+        entity.setAvailableCreditCents(450000L);
+        entity.setAmountPaidCents(50000L);
 
         // Ejecutar el mapeo
         Mono<CreditBase> domainMono = creditMapper.toDomain(entity);
@@ -112,6 +112,7 @@ public class CreditMapperImplTest {
                     assertEquals(5000.0, creditCard.getAmount());
                     assertEquals("1234567890123456", creditCard.getCardNumber());
                     assertEquals(4500.0, creditCard.getAvailableCredit());
+                    assertEquals(CreditType.CREDIT_CARD, creditCard.getType());
                 })
                 .verifyComplete();
     }
@@ -124,9 +125,9 @@ public class CreditMapperImplTest {
         entity.setCreditId("simple123");
         entity.setCustomerId("customer789");
         entity.setCustomerType(CustomerType.BUSINESS);
-        entity.setAmount(10000.0);
+        entity.setAmountCents(1000000L);
         entity.setType(CreditType.SIMPLE_CREDIT);
-        entity.setAmountPaid(2000.0);
+        entity.setAmountPaidCents(200000L);
 
         // Ejecutar el mapeo
         Mono<CreditBase> domainMono = creditMapper.toDomain(entity);
@@ -142,6 +143,7 @@ public class CreditMapperImplTest {
                     assertEquals(CustomerType.BUSINESS, simpleCredit.getCustomerType());
                     assertEquals(10000.0, simpleCredit.getAmount());
                     assertEquals(2000.0, simpleCredit.getAmountPaid());
+                    assertEquals(CreditType.SIMPLE_CREDIT, simpleCredit.getType());
                 })
                 .verifyComplete();
     }
@@ -171,10 +173,24 @@ public class CreditMapperImplTest {
                     assertEquals("card123", result.getCreditId());
                     assertNull(result.getCustomerId());
                     assertEquals(CustomerType.PERSONAL, result.getCustomerType());
-                    assertNull(result.getAmount());
+                    assertEquals(0.0, result.getAmount()); // Los montos se guardan en centavos: nulo queda en cero
                     assertEquals("1234567890123456", result.getCardNumber());
                 })
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("Debería rechazar de forma síncrona una entidad sin tipo")
+    void shouldRejectEntityWithoutType() {
+        // Given
+        CreditBaseEntity entity = new CreditBaseEntity();
+        entity.setCreditId("card123");
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> creditMapper.mapToDomain(entity));
+        StepVerifier.create(creditMapper.toDomain(entity))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
 }
@@ -1,24 +1,27 @@
 package nnt_data.credits_microservice.infrastructure.persistence.mapper;
 
+import nnt_data.credits_microservice.infrastructure.config.BusinessCalendar;
 import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
 import nnt_data.credits_microservice.model.Transaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(MockitoExtension.class)
 public class TransactionMapperImplTest {
 
-    @InjectMocks
-    private TransactionMapperImpl transactionMapper;
+    private final TransactionMapperImpl transactionMapper =
+            new TransactionMapperImpl(new BusinessCalendar("America/Lima"));
     private Transaction transaction;
     private TransactionEntity transactionEntity;
 
@@ -33,7 +36,7 @@ public class TransactionMapperImplTest {
 
         transactionEntity = new TransactionEntity();
         transactionEntity.setTransactionId("123");
-        transactionEntity.setAmount(10000.0);
+        transactionEntity.setAmountCents(1000000L);
         transactionEntity.setType(Transaction.TypeEnum.PAYMENT);
         transactionEntity.setCreditId("credit123");
         transactionEntity.setDate(new Date());
@@ -46,7 +49,7 @@ public class TransactionMapperImplTest {
         StepVerifier.create(result)
                 .assertNext(entity -> {
                     assertEquals(transaction.getTransactionId(), entity.getTransactionId());
-                    assertEquals(transaction.getAmount(), entity.getAmount());
+                    assertEquals(1000000L, entity.getAmountCents());
                     assertEquals(transaction.getType(), entity.getType());
                     assertEquals(transaction.getCreditId(), entity.getCreditId());
                     assertEquals(transaction.getDate(), entity.getDate());
@@ -64,11 +67,41 @@ public class TransactionMapperImplTest {
         StepVerifier.create(result)
                 .assertNext(domain -> {
                     assertEquals(transactionEntity.getTransactionId(), domain.getTransactionId());
-                    assertEquals(transactionEntity.getAmount(), domain.getAmount());
+                    assertEquals(10000.0, domain.getAmount());
                     assertEquals(transactionEntity.getType(), domain.getType());
                     assertEquals(transactionEntity.getCreditId(), domain.getCreditId());
                     assertEquals(transactionEntity.getDate(), domain.getDate());
                 })
                 .verifyComplete();
     }
+
+    @Test
+    void mapToDomain_shouldCopyEveryFieldSynchronously() {
+        // When
+        Transaction domain = transactionMapper.mapToDomain(transactionEntity);
+
+        // Then
+        assertEquals(transactionEntity.getTransactionId(), domain.getTransactionId());
+        assertEquals(10000.0, domain.getAmount());
+        assertEquals(transactionEntity.getType(), domain.getType());
+        assertEquals(transactionEntity.getCreditId(), domain.getCreditId());
+        assertEquals(transactionEntity.getDate(), domain.getDate());
+    }
+
+    @Test
+    void mapToEntity_shouldComputeBusinessDayInTheBusinessZone() {
+        // Given: 2024-05-01 03:00 UTC es todavía 30 de abril en Lima (-05:00)
+        transaction.setDate(Date.from(Instant.parse("2024-05-01T03:00:00Z")));
+
+        // When
+        TransactionEntity entity = transactionMapper.mapToEntity(transaction);
+
+        // Then
+        assertEquals(LocalDate.of(2024, 4, 30).toEpochDay(), entity.getBusinessDay());
+    }
+
+    @Test
+    void mapToEntity_shouldRejectNullTransaction() {
+        assertThrows(IllegalArgumentException.class, () -> transactionMapper.mapToEntity(null));
+    }
 }
@@ -0,0 +1,81 @@
+package nnt_data.credits_microservice.infrastructure.persistence.migration;
+
+import nnt_data.credits_microservice.infrastructure.persistence.entity.CreditBaseEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.MonthlyBalanceEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LegacyMoneyReadCallbackTest {
+
+    private MappingMongoConverter converter;
+    private LegacyMoneyReadCallback callback;
+
+    @BeforeEach
+    void setUp() {
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        callback = new LegacyMoneyReadCallback();
+    }
+
+    @Test
+    void shouldConvertLegacyAmountsOfCredits() {
+        // Given
+        Document document = new Document("_id", "credit123")
+                .append("type", "CREDIT_CARD")
+                .append("amount", 1000.0)
+                .append("availableCredit", 250.29);
+
+        // When
+        CreditBaseEntity credit = read(document, CreditBaseEntity.class);
+
+        // Then
+        assertEquals(100_000L, credit.getAmountCents());
+        assertEquals(25_029L, credit.getAvailableCreditCents());
+        assertEquals(0L, credit.getAmountPaidCents());
+    }
+
+    @Test
+    void shouldPreferCentsFieldsOfMigratedDocuments() {
+        // Given
+        Document document = new Document("_id", "t1")
+                .append("amount", 1.0)
+                .append("amountCents", 5_000L);
+
+        // When / Then
+        assertEquals(5_000L, read(document, TransactionEntity.class).getAmountCents());
+    }
+
+    @Test
+    void shouldConvertIntegerAndDecimalLegacyValues() {
+        // Given
+        Document document = new Document("_id", "credit123:2024-04")
+                .append("balance", 150)
+                .append("sumOfBalances", new Decimal128(new BigDecimal("1000.005")));
+
+        // When
+        MonthlyBalanceEntity accumulator = read(document, MonthlyBalanceEntity.class);
+
+        // Then
+        assertEquals(15_000L, accumulator.getBalanceCents());
+        assertEquals(100_001L, accumulator.getSumOfBalancesCents());
+    }
+
+    private <T> T read(Document document, Class<T> type) {
+        T entity = converter.read(type, document);
+        StepVerifier.create(callback.onAfterConvert(entity, document, "collection"))
+                .expectNext(entity)
+                .verifyComplete();
+        return entity;
+    }
+}
@@ -0,0 +1,132 @@
+package nnt_data.credits_microservice.infrastructure.persistence.writer;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import nnt_data.credits_microservice.infrastructure.persistence.entity.TransactionEntity;
+import nnt_data.credits_microservice.infrastructure.persistence.repository.TransactionRepository;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionGroupCommitWriterTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Captor
+    private ArgumentCaptor<List<TransactionEntity>> batch;
+
+    @Test
+    void shouldFlushConcurrentInsertsAsOneBatch() {
+        // Given
+        TransactionGroupCommitWriter writer = new TransactionGroupCommitWriter(
+                transactionRepository, Duration.ofMillis(50), 3, 1);
+        when(transactionRepository.insertAllUnordered(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        // When
+        Mono<List<TransactionEntity>> inserted = Flux.range(0, 3)
+                .flatMap(i -> writer.insert(transaction("credit" + i)))
+                .collectList();
+
+        // Then
+        StepVerifier.create(inserted)
+                .assertNext(entities -> {
+                    assertEquals(3, entities.size());
+                    entities.forEach(entity -> assertNotNull(entity.getTransactionId()));
+                })
+                .verifyComplete();
+
+        verify(transactionRepository, times(1)).insertAllUnordered(batch.capture());
+        assertEquals(3, batch.getValue().size());
+    }
+
+    @Test
+    void shouldFlushWhenWindowExpires() {
+        // Given
+        TransactionGroupCommitWriter writer = new TransactionGroupCommitWriter(
+                transactionRepository, Duration.ofMillis(10), 100, 1);
+        when(transactionRepository.insertAllUnordered(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(writer.insert(transaction("credit123")))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldFailOnlyRowsRejectedByMongo() {
+        // Given
+        TransactionGroupCommitWriter writer = new TransactionGroupCommitWriter(
+                transactionRepository, Duration.ofMillis(50), 2, 1);
+        MongoBulkWriteException bulkError = new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)),
+                null, new ServerAddress(), Collections.emptySet());
+        when(transactionRepository.insertAllUnordered(anyList()))
+                .thenReturn(Flux.error(new BulkOperationException("duplicate key", bulkError)));
+
+        TransactionEntity first = transaction("credit1");
+        TransactionEntity second = transaction("credit2");
+
+        // When
+        Mono<TransactionEntity> firstResult = writer.insert(first).cache();
+        Mono<TransactionEntity> secondResult = writer.insert(second).cache();
+        firstResult.subscribe(value -> { }, error -> { });
+        secondResult.subscribe(value -> { }, error -> { });
+
+        // Then
+        StepVerifier.create(firstResult)
+                .expectNext(first)
+                .verifyComplete();
+        StepVerifier.create(secondResult)
+                .expectErrorMatches(error -> error instanceof TransactionInsertRejectedException
+                        && error.getMessage().startsWith("Error al registrar la transacción"))
+                .verify();
+    }
+
+    @Test
+    void shouldFailWholeBatchOnConnectionError() {
+        // Given
+        TransactionGroupCommitWriter writer = new TransactionGroupCommitWriter(
+                transactionRepository, Duration.ofMillis(5), 10, 1);
+        when(transactionRepository.insertAllUnordered(anyList()))
+                .thenReturn(Flux.error(new RuntimeException("timeout")));
+
+        // When / Then
+        StepVerifier.create(writer.insert(transaction("credit123")))
+                .expectErrorMessage("timeout")
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private TransactionEntity transaction(String creditId) {
+        TransactionEntity entity = new TransactionEntity();
+        entity.setCreditId(creditId);
+        entity.setAmountCents(1000L);
+        return entity;
+    }
+}